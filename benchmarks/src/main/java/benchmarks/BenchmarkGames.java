@@ -0,0 +1,86 @@
+package benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import ExperimentMain.GameMemoryFootprint;
+import extensive_form_efg_game_format.CreateTree;
+import extensive_form_efg_game_format.GraphFormat;
+import extensive_form_filemanager.CreateGambitEFGFile;
+import extensive_form_game.CreateGameInMemory;
+import extensive_form_game.Game;
+import utils.GameConfiguration;
+import utils.Utils;
+
+/**
+ * Synthetic games shared by the benchmarks. The base game is the synthetic game of GameConfiguration
+ * with features features per host, one real host, one honeypot and all deltas and operators, about
+ * 6 * 7^features nodes. It is generated by CreateTree with uniform feature distributions, so the
+ * benchmarks do not depend on files in the working directory. Larger games repeat the nature branches of
+ * the base game replicas times with GameMemoryFootprint.writeScaledGame: the tree depth and the
+ * information set sizes stay the same while the number of nodes and information sets grows linearly.
+ */
+final class BenchmarkGames {
+
+	private BenchmarkGames() {
+	}
+
+	/**
+	 * Returns the configuration of the base game with the given number of features per host
+	 */
+	static GameConfiguration configuration(int features) {
+		return GameConfiguration.synthetic(features, 1, 1, 3, 3, 0);
+	}
+
+	/**
+	 * Returns a CreateTree that generates the game of the configuration into the game in memory
+	 */
+	static CreateTree newTreeGenerator(Game game, GameConfiguration configuration) {
+		return newTreeGenerator(configuration, new CreateGameInMemory(game));
+	}
+
+	private static CreateTree newTreeGenerator(GameConfiguration configuration, GraphFormat graphFormat) {
+		// the feature distributions do not change the tree, only its fingerprint
+		double[] distribution = new double[configuration.getNumFeatureCombinations()];
+		Arrays.fill(distribution, 1.0 / distribution.length);
+		CreateTree gameTree = new CreateTree(configuration, true, distribution, distribution.clone(), graphFormat);
+		gameTree.setNumThreads(1);
+		return gameTree;
+	}
+
+	/**
+	 * Writes the base game with features features repeated replicas times to a temporary .efg file that
+	 * is deleted on exit
+	 * @return the name of the file
+	 */
+	static String writeGame(int features, int replicas) throws IOException {
+		File directory = File.createTempFile("benchmark", "");
+		if (!directory.delete() || !directory.mkdir()) {
+			throw new IOException("BenchmarkGames::writeGame: cannot create directory " + directory);
+		}
+		directory.deleteOnExit();
+		String baseName = new File(directory, "base").getPath();
+		CreateTree gameTree = newTreeGenerator(configuration(features), new CreateGambitEFGFile(baseName));
+		gameTree.init();
+		gameTree.closeFile();
+		File baseFile = new File(baseName + Utils.FILE_FORMAT);
+		baseFile.deleteOnExit();
+		if (replicas == 1) {
+			return baseFile.getPath();
+		}
+		File scaledFile = new File(directory, "scaled" + replicas + Utils.FILE_FORMAT);
+		scaledFile.deleteOnExit();
+		GameMemoryFootprint.writeScaledGame(baseFile.getPath(), scaledFile.getPath(), replicas);
+		return scaledFile.getPath();
+	}
+
+	/**
+	 * Loads the base game with features features repeated replicas times
+	 */
+	static Game loadGame(int features, int replicas) throws IOException {
+		Game game = new Game(configuration(features));
+		game.createGameFromFileZerosumPackageFormat(writeGame(features, replicas));
+		return game;
+	}
+}
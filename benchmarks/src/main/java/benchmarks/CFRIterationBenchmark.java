@@ -0,0 +1,55 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import extensive_form_game.Game;
+import extensive_form_game_solver.CounterFactualRegretSolver;
+
+/**
+ * CFR iterations per second: every operation is one call of runCFR(1) on a solver that keeps its
+ * regrets across operations, as in a long solve
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CFRIterationBenchmark {
+	@Param({ "2", "3", "4" })
+	public int features;
+
+	@Param({ "1", "10", "100" })
+	public int replicas;
+
+	@Param({ "CFR", "CFR_PLUS", "DCFR" })
+	public CounterFactualRegretSolver.Variant variant;
+
+	private CounterFactualRegretSolver solver;
+
+	@Setup
+	public void createSolver() throws IOException {
+		Game game = BenchmarkGames.loadGame(features, replicas);
+		solver = new CounterFactualRegretSolver(game, variant);
+		solver.setParallelism(1);
+	}
+
+	@Benchmark
+	public int iteration() {
+		solver.runCFR(1);
+		return solver.getTotalIterationsRun();
+	}
+}
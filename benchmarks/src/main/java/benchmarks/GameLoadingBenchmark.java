@@ -0,0 +1,52 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import extensive_form_game.Game;
+import utils.GameConfiguration;
+
+/**
+ * Time to read a game file into a Game with createGameFromFileZerosumPackageFormat
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GameLoadingBenchmark {
+	@Param({ "2", "3", "4" })
+	public int features;
+
+	@Param({ "1", "10", "100" })
+	public int replicas;
+
+	private GameConfiguration configuration;
+	private String filename;
+
+	@Setup
+	public void writeGame() throws IOException {
+		configuration = BenchmarkGames.configuration(features);
+		filename = BenchmarkGames.writeGame(features, replicas);
+	}
+
+	@Benchmark
+	public Game load() {
+		Game game = new Game(configuration);
+		game.createGameFromFileZerosumPackageFormat(filename);
+		return game;
+	}
+}
@@ -0,0 +1,72 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import extensive_form_game.Game;
+import extensive_form_game_solver.BestResponseSolver;
+import extensive_form_game_solver.CounterFactualRegretSolver;
+
+/**
+ * Time to evaluate a strategy profile: its expected value with computeGameValueForStrategies, and the
+ * best response of each player against it. The profile is the average strategy of a short CFR run, so
+ * most actions have positive probability.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StrategyEvaluationBenchmark {
+	private static final int CFR_ITERATIONS = 100;
+
+	@Param({ "2", "3", "4" })
+	public int features;
+
+	@Param({ "1", "10", "100" })
+	public int replicas;
+
+	private Game game;
+	private double[][][] strategyProfile;
+	private BestResponseSolver defenderBestResponse;
+	private BestResponseSolver attackerBestResponse;
+
+	@Setup
+	public void solveGame() throws IOException {
+		game = BenchmarkGames.loadGame(features, replicas);
+		CounterFactualRegretSolver solver = new CounterFactualRegretSolver(game);
+		solver.setParallelism(1);
+		solver.solveGame(CFR_ITERATIONS);
+		strategyProfile = solver.getStrategyProfile();
+		defenderBestResponse = new BestResponseSolver(game, 1);
+		attackerBestResponse = new BestResponseSolver(game, 2);
+	}
+
+	@Benchmark
+	public double gameValue() {
+		return game.computeGameValueForStrategies(strategyProfile);
+	}
+
+	@Benchmark
+	public double defenderBestResponse() {
+		return defenderBestResponse.computeBestResponse(strategyProfile);
+	}
+
+	@Benchmark
+	public double attackerBestResponse() {
+		return attackerBestResponse.computeBestResponse(strategyProfile);
+	}
+}
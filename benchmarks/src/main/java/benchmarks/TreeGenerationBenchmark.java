@@ -0,0 +1,50 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import extensive_form_efg_game_format.CreateTree;
+import extensive_form_game.Game;
+import utils.GameConfiguration;
+
+/**
+ * Time for CreateTree.init to generate the base game of BenchmarkGames into a Game in memory, on one
+ * thread
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TreeGenerationBenchmark {
+	@Param({ "2", "3", "4" })
+	public int features;
+
+	private GameConfiguration configuration;
+
+	@Setup
+	public void createConfiguration() {
+		configuration = BenchmarkGames.configuration(features);
+	}
+
+	@Benchmark
+	public Game generate() {
+		Game game = new Game(configuration);
+		CreateTree gameTree = BenchmarkGames.newTreeGenerator(game, configuration);
+		gameTree.init();
+		gameTree.closeFile();
+		return game;
+	}
+}
@@ -0,0 +1,230 @@
+package ExperimentMain;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import extensive_form_efg_game_format.CreateTree;
+import extensive_form_game.CreateGameInMemory;
+import extensive_form_game.Game;
+import extensive_form_game.GameFingerprint;
+import extensive_form_game_solver.BestResponseSolver;
+import extensive_form_game_solver.DefenderSequenceFormLPApproximationSolver;
+import extensive_form_game_solver.SolutionCache;
+import extensive_form_game_solver.SolutionCache.Solution;
+import gnu.trove.map.TIntDoubleMap;
+import linear_program.LPModel;
+import linear_program.LPStatus;
+import utils.GameConfiguration;
+
+/**
+ * Runs the experiment of TestMain for every row of the distribution file in one process. The rows are
+ * streamed with DistributionReader and every row is a task on a fixed pool of worker threads: it builds
+ * its game in memory with CreateTree, solves it with its own DefenderSequenceFormLPApproximationSolver
+ * and evaluates the defender's strategy with the attacker's best response. Tasks share nothing, and the tree generation and the LP backend of a task
+ * run on one thread, so the pool size bounds the number of busy cores.
+ *
+ * One CSV line is written per row, in row order: the size of the game, the time to build the game tree
+ * and the LP model, the solve and evaluation times, the solve status, the defender's utility, the
+ * attacker's best response value against the defender's strategy, and the defender's strategy as the
+ * actions played with positive probability. Only a few rows per thread are read ahead of the output,
+ * so the memory does not grow with the number of rows.
+ *
+ * Every solve has a time limit, DEFAULT_TIME_LIMIT unless given. The status is optimal, time-limit when
+ * the solve was stopped, with the best strategy found so far or with empty value columns if there is
+ * none, infeasible, unbounded or error. Only optimal rows are cached.
+ *
+ * Solved rows are kept in a SolutionCache under two keys: the fingerprint of the inputs of CreateTree,
+ * which finds repeated rows before their tree is generated, and the GameFingerprint of the generated
+ * game, which finds different rows that generate the same game before it is solved. A hit returns the
+ * stored CSV columns, the last column tells whether the row was solved (miss) or found by its inputs
+ * (input) or its game (game). With a cache directory the solutions are kept across runs.
+ *
+ * Usage: BatchExperimentRunner [distribution file, default featuredristibution.txt] [number of rows, default all]
+ * [threads, default number of processors] [csv file, default batch_experiment.csv] [time limit per solve in s, default 60] [cache directory, default none]
+ */
+public class BatchExperimentRunner {
+	// Rows read ahead of the CSV output, per worker thread
+	private static final int PENDING_TASKS_PER_THREAD = 4;
+	// Actions below this probability are left out of the strategy column, as in writeStrategyToFile
+	private static final double MIN_PROBABILITY = 0.00005;
+	// Number of solutions the cache keeps in memory
+	private static final int CACHE_CAPACITY = 4096;
+	// Time limit per solve in seconds, the branch and bound of the simplex backend may not finish without one
+	private static final double DEFAULT_TIME_LIMIT = 60;
+
+	public static void main(String[] args) throws IOException {
+		String filename = args.length > 0 ? args[0] : "featuredristibution.txt";
+		int maxRows = args.length > 1 ? Integer.parseInt(args[1]) : Integer.MAX_VALUE;
+		int numThreads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+		String csvFilename = args.length > 3 ? args[3] : "batch_experiment.csv";
+		double timeLimit = args.length > 4 ? Double.parseDouble(args[4]) : DEFAULT_TIME_LIMIT;
+		SolutionCache cache = new SolutionCache(CACHE_CAPACITY, args.length > 5 ? args[5] : null);
+
+		int possibleCombination = GameConfiguration.getDefault().getNumFeatureCombinations();
+		numThreads = Math.max(1, numThreads);
+		int maxPending = PENDING_TASKS_PER_THREAD * numThreads;
+
+		long start = System.nanoTime();
+		DistributionReader reader = new DistributionReader(filename, possibleCombination);
+		ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+		Deque<Future<String>> pending = new ArrayDeque<Future<String>>();
+		PrintWriter out = new PrintWriter(new FileWriter(csvFilename));
+		int numSubmitted = 0;
+		int numWritten = 0;
+		try {
+			out.println("simulation,nodes,sequences_p1,sequences_p2,information_sets_p1,information_sets_p2,build_seconds,"
+					+ "solve_seconds,evaluation_seconds,status,game_value,attacker_best_response,support,strategy,cache");
+			while (numSubmitted < maxRows && reader.next()) {
+				if (pending.size() == maxPending) {
+					writeResult(out, pending.poll(), numWritten++);
+				}
+				pending.add(executor.submit(new Simulation(numSubmitted++, reader.copyRow(), timeLimit, cache)));
+			}
+			while (!pending.isEmpty()) {
+				writeResult(out, pending.poll(), numWritten++);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			System.out.println("BatchExperimentRunner::main: interrupted");
+		} finally {
+			out.close();
+			reader.close();
+			executor.shutdownNow();
+		}
+		System.out.println(String.format("BatchExperimentRunner::main: %d simulations on %d threads in %.3f s, %d cache hits",
+				numWritten, numThreads, (System.nanoTime() - start) / 1e9, cache.getHits()));
+	}
+
+	/**
+	 * Waits for the result of a simulation and writes its CSV line
+	 */
+	private static void writeResult(PrintWriter out, Future<String> result, int simulation) throws InterruptedException {
+		try {
+			out.println(result.get());
+		} catch (ExecutionException e) {
+			e.getCause().printStackTrace();
+			System.out.println("BatchExperimentRunner::writeResult: simulation " + simulation + " failed");
+			out.println(simulation + ",,,,,,,,,FAILED,,,,,");
+		}
+	}
+
+	/**
+	 * Builds, solves and evaluates the game of one row of the distribution file, and returns its CSV line
+	 */
+	private static class Simulation implements Callable<String> {
+		private final int simulation;
+		private final double[][] distribution; // indexed as [0 real hosts, 1 honeypots][feature combination]
+		private final double timeLimit;
+		private final SolutionCache cache;
+
+		Simulation(int simulation, double[][] distribution, double timeLimit, SolutionCache cache) {
+			this.simulation = simulation;
+			this.distribution = distribution;
+			this.timeLimit = timeLimit;
+			this.cache = cache;
+		}
+
+		@Override
+		public String call() throws Exception {
+			long start = System.nanoTime();
+			Game game = new Game();
+			CreateTree gameTree = new CreateTree(true, distribution[0], distribution[1], new CreateGameInMemory(game));
+			String inputKey = gameTree.getFingerprint();
+			Solution solution = cache.get(inputKey);
+			if (solution != null) {
+				return simulation + "," + solution.getDescription() + ",input";
+			}
+			gameTree.setNumThreads(1);
+			gameTree.init();
+			gameTree.closeFile();
+			String gameKey = GameFingerprint.of(game);
+			solution = cache.get(gameKey);
+			if (solution != null) {
+				cache.put(inputKey, solution);
+				return simulation + "," + solution.getDescription() + ",game";
+			}
+
+			DefenderSequenceFormLPApproximationSolver<?> solver = new DefenderSequenceFormLPApproximationSolver<Object>(game, 1);
+			double buildSeconds = (System.nanoTime() - start) / 1e9;
+
+			LPModel model = solver.getModel();
+			model.setQuiet(true);
+			model.setThreads(1);
+			model.setTimeLimit(timeLimit);
+			solver.solveGame();
+			String status = toCSVStatus(model.getStatus());
+			if (model.getStatus() != LPStatus.OPTIMAL && model.getStatus() != LPStatus.FEASIBLE) {
+				System.out.println("BatchExperimentRunner::Simulation: simulation " + simulation + " " + model.getStatus()
+						+ ", no defender strategy");
+				return simulation + "," + String.format("%d,%d,%d,%d,%d,%.3f,%.3f,,%s,,,,", game.getNumNodes(),
+						game.getNumSequencesP1(), game.getNumSequencesP2(), game.getNumInformationSets(1),
+						game.getNumInformationSets(2), buildSeconds, model.getSolveSeconds(), status) + ",miss";
+			}
+
+			start = System.nanoTime();
+			TIntDoubleMap[] probabilities = solver.getInformationSetActionProbabilitiesByActionId();
+			double[][] defenderStrategy = new double[game.getNumInformationSets(1)][];
+			int support = 0;
+			StringBuilder strategy = new StringBuilder();
+			for (int informationSetId = 0; informationSetId < defenderStrategy.length; informationSetId++) {
+				defenderStrategy[informationSetId] = new double[game.getNumActionsAtInformationSet(1, informationSetId)];
+				for (int actionId = 0; actionId < defenderStrategy[informationSetId].length; actionId++) {
+					double probability = probabilities[informationSetId].get(actionId);
+					defenderStrategy[informationSetId][actionId] = probability;
+					if (probability >= MIN_PROBABILITY) {
+						support++;
+						strategy.append(strategy.length() > 0 ? ";" : "").append("I").append(informationSetId).append(':')
+								.append(game.getActionsAtInformationSet(1, informationSetId)[actionId].getName()).append('=')
+								.append(String.format("%.4f", probability));
+					}
+				}
+			}
+			BestResponseSolver attackerBestResponse = new BestResponseSolver(game, 2, defenderStrategy);
+			attackerBestResponse.solveGame();
+			double evaluationSeconds = (System.nanoTime() - start) / 1e9;
+
+			System.out.println("BatchExperimentRunner::Simulation: simulation " + simulation + " " + model.getStatus()
+					+ ", defender's utility " + solver.getValueOfGame());
+			String description = String.format("%d,%d,%d,%d,%d,%.3f,%.3f,%.3f,%s,%.10f,%.10f,%d,\"%s\"", game.getNumNodes(),
+					game.getNumSequencesP1(), game.getNumSequencesP2(), game.getNumInformationSets(1), game.getNumInformationSets(2), buildSeconds,
+					model.getSolveSeconds(), evaluationSeconds, status, solver.getValueOfGame(),
+					attackerBestResponse.getValueOfGame(), support, strategy);
+			if (model.getStatus() == LPStatus.OPTIMAL) {
+				// a stopped solve may do better with more time, so it is solved again next time
+				solution = new Solution(solver.getValueOfGame(),
+						new double[][][] { null, defenderStrategy, attackerBestResponse.getBestResponse() }, description);
+				cache.put(gameKey, solution);
+				cache.put(inputKey, solution);
+			}
+			return simulation + "," + description + ",miss";
+		}
+	}
+
+	/**
+	 * Returns the status column: optimal, time-limit, infeasible, unbounded or error. FEASIBLE is a solve
+	 * stopped at the time limit with a solution.
+	 */
+	static String toCSVStatus(LPStatus status) {
+		switch (status) {
+		case OPTIMAL:
+			return "optimal";
+		case FEASIBLE:
+		case TIME_LIMIT:
+			return "time-limit";
+		case INFEASIBLE:
+			return "infeasible";
+		case UNBOUNDED:
+			return "unbounded";
+		default:
+			return "error";
+		}
+	}
+}
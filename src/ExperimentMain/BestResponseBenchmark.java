@@ -0,0 +1,50 @@
+package ExperimentMain;
+
+import extensive_form_game.Game;
+import extensive_form_game_solver.BestResponseLPSolver;
+import extensive_form_game_solver.BestResponseSolver;
+import extensive_form_game_solver.CounterFactualRegretSolver;
+import utils.Utils;
+
+/**
+ * Compares the tree walk best response of BestResponseSolver with the LP of BestResponseLPSolver. Both
+ * players respond to the average strategy of a short CFR run, the values of both methods are printed
+ * next to each other and the tree walk is timed over many repetitions after a warm-up.
+ *
+ * Usage: BestResponseBenchmark [efg file] [repetitions, default 10000]
+ */
+public class BestResponseBenchmark {
+
+	public static void main(String[] args) {
+		String filename = args.length > 0 ? args[0] : "games/hsg_game" + Utils.FILE_FORMAT;
+		int repetitions = args.length > 1 ? Integer.parseInt(args[1]) : 10000;
+
+		Game game = new Game();
+		game.createGameFromFileZerosumPackageFormat(filename);
+
+		CounterFactualRegretSolver cfr = new CounterFactualRegretSolver(game);
+		cfr.solveGame(100);
+		double[][][] strategyProfile = cfr.getStrategyProfile();
+
+		for (int player = 1; player < 3; player++) {
+			BestResponseSolver solver = new BestResponseSolver(game, player);
+			for (int i = 0; i < Math.max(1, repetitions / 10); i++) {
+				solver.computeBestResponse(strategyProfile);
+			}
+			long start = System.nanoTime();
+			double value = 0;
+			for (int i = 0; i < repetitions; i++) {
+				value = solver.computeBestResponse(strategyProfile);
+			}
+			double microseconds = (System.nanoTime() - start) / 1e3 / repetitions;
+
+			start = System.nanoTime();
+			BestResponseLPSolver lpSolver = new BestResponseLPSolver(game, player, strategyProfile[player % 2 + 1]);
+			lpSolver.solveGame();
+			double lpMilliseconds = (System.nanoTime() - start) / 1e6;
+
+			System.out.println(String.format("P%d: tree walk %.6f in %.2f us, LP %.6f in %.2f ms",
+					player, value, microseconds, lpSolver.getValueOfGame(), lpMilliseconds));
+		}
+	}
+}
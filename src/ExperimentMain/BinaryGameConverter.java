@@ -0,0 +1,105 @@
+package ExperimentMain;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import extensive_form_game.Game;
+import gnu.trove.list.array.TIntArrayList;
+import utils.Utils;
+
+/**
+ * Converts an .efg file into the binary game format, then loads the binary file again and checks
+ * that it describes exactly the same game as createGameFromFileZerosumPackageFormat.
+ *
+ * Usage: BinaryGameConverter [efg file] [binary file]
+ */
+public class BinaryGameConverter {
+
+	public static void main(String[] args) {
+		String efgFile = args.length > 0 ? args[0] : "games/hsg_game" + Utils.FILE_FORMAT;
+		String binaryFile = args.length > 1 ? args[1]
+				: efgFile.replaceAll("\\" + Utils.FILE_FORMAT + "$", "") + Utils.BINARY_FILE_FORMAT;
+
+		Game textGame = new Game();
+		textGame.setReportLoadStatistics(true);
+		textGame.createGameFromFileZerosumPackageFormat(efgFile);
+		textGame.writeGameToBinaryFile(binaryFile);
+		System.out.println("Wrote " + binaryFile);
+
+		Game binaryGame = new Game();
+		binaryGame.setReportLoadStatistics(true);
+		binaryGame.createGameFromBinaryFile(binaryFile);
+
+		List<String> differences = compareGames(textGame, binaryGame);
+		if (differences.isEmpty()) {
+			System.out.println("Round trip OK: " + textGame.getNumNodes() + " nodes");
+		} else {
+			System.out.println("Round trip FAILED, " + differences.size() + " differences:");
+			for (int i = 0; i < Math.min(differences.size(), 20); i++) {
+				System.out.println("  " + differences.get(i));
+			}
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Compares two games node by node, including information sets, sequence counts and the feature
+	 * probabilities derived from the nature node
+	 * @return a description of every difference found, empty if the games are equivalent
+	 */
+	public static List<String> compareGames(Game expected, Game actual) {
+		List<String> differences = new ArrayList<String>();
+		check(differences, "number of nodes", expected.getNumNodes(), actual.getNumNodes());
+		check(differences, "root", expected.getRoot(), actual.getRoot());
+		check(differences, "information sets player 1", expected.getNumInformationSetsPlayer1(), actual.getNumInformationSetsPlayer1());
+		check(differences, "information sets player 2", expected.getNumInformationSetsPlayer2(), actual.getNumInformationSetsPlayer2());
+		check(differences, "sequences player 1", expected.getNumSequencesP1(), actual.getNumSequencesP1());
+		check(differences, "sequences player 2", expected.getNumSequencesP2(), actual.getNumSequencesP2());
+		if (!differences.isEmpty()) {
+			return differences;
+		}
+
+		for (int nodeId = 0; nodeId < expected.getNumNodes(); nodeId++) {
+			String node = "node " + nodeId + " ";
+			check(differences, node + "player", expected.getNodePlayer(nodeId), actual.getNodePlayer(nodeId));
+			if (expected.isLeafNode(nodeId)) {
+				check(differences, node + "payoff player 1", expected.getNodePlayerOneValue(nodeId), actual.getNodePlayerOneValue(nodeId));
+				check(differences, node + "payoff player 2", expected.getNodePlayerTwoValue(nodeId), actual.getNodePlayerTwoValue(nodeId));
+				continue;
+			}
+			check(differences, node + "information set", expected.getNodeInformationSet(nodeId), actual.getNodeInformationSet(nodeId));
+			check(differences, node + "actions", expected.getNumActionsAtNode(nodeId), actual.getNumActionsAtNode(nodeId));
+			int numActions = Math.min(expected.getNumActionsAtNode(nodeId), actual.getNumActionsAtNode(nodeId));
+			for (int a = 0; a < numActions; a++) {
+				String action = node + "action " + a + " ";
+				check(differences, action + "name", expected.getActionName(nodeId, a), actual.getActionName(nodeId, a));
+				check(differences, action + "child", expected.getChildId(nodeId, a), actual.getChildId(nodeId, a));
+				check(differences, action + "probability", expected.getActionProbability(nodeId, a), actual.getActionProbability(nodeId, a));
+			}
+		}
+
+		for (int player = 1; player <= 2; player++) {
+			int numInformationSets = player == 1 ? expected.getNumInformationSetsPlayer1() : expected.getNumInformationSetsPlayer2();
+			for (int informationSet = 0; informationSet < numInformationSets; informationSet++) {
+				TIntArrayList expectedNodes = expected.getInformationSet(player, informationSet);
+				TIntArrayList actualNodes = actual.getInformationSet(player, informationSet);
+				check(differences, "information set " + player + "/" + informationSet, expectedNodes, actualNodes);
+			}
+		}
+
+		for (int type = 0; type < 2; type++) {
+			for (Map.Entry<String, Double> entry : expected.getSystemProbabilities(type).entrySet()) {
+				check(differences, "system probability " + type + " " + entry.getKey(), entry.getValue(), actual.getSystemProbabilities(type).get(entry.getKey()));
+			}
+			check(differences, "system probability entries " + type, expected.getSystemProbabilities(type).size(), actual.getSystemProbabilities(type).size());
+		}
+		return differences;
+	}
+
+	private static void check(List<String> differences, String what, Object expected, Object actual) {
+		if (expected == null ? actual != null : !expected.equals(actual)) {
+			differences.add(what + ": expected " + expected + " but was " + actual);
+		}
+	}
+}
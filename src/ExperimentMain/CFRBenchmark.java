@@ -0,0 +1,41 @@
+package ExperimentMain;
+
+import extensive_form_game.Game;
+import extensive_form_game_solver.CounterFactualRegretSolver;
+import utils.Utils;
+
+/**
+ * Measures CFR iterations per second on a game file, after a short warm-up so the JIT has compiled the
+ * traversal. The game can be held as Node objects or in the flat representation, and the nature branches
+ * at the root can be traversed on several threads.
+ *
+ * Usage: CFRBenchmark [efg file] [iterations, default 5000] [flat|objects] [threads, default 1]
+ */
+public class CFRBenchmark {
+
+	public static void main(String[] args) {
+		String filename = args.length > 0 ? args[0] : "games/hsg_game" + Utils.FILE_FORMAT;
+		int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 5000;
+		boolean flat = args.length > 2 && args[2].equals("flat");
+		int threads = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+
+		Game game = new Game();
+		game.createGameFromFileZerosumPackageFormat(filename);
+		if (flat) {
+			game.useFlatRepresentation();
+		}
+
+		CounterFactualRegretSolver solver = new CounterFactualRegretSolver(game);
+		solver.setParallelism(threads);
+		solver.solveGame(Math.max(1, iterations / 10));
+
+		int nodesBefore = solver.getNumNodesTouched();
+		long start = System.nanoTime();
+		solver.solveGame(iterations);
+		double seconds = (System.nanoTime() - start) / 1e9;
+		int nodes = solver.getNumNodesTouched() - nodesBefore;
+
+		System.out.println(String.format("%s (%s, %d threads): %d iterations in %.2f s, %.0f iterations/s, %.1f M nodes/s",
+				filename, flat ? "flat" : "objects", threads, iterations, seconds, iterations / seconds, nodes / seconds / 1e6));
+	}
+}
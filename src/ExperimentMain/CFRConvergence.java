@@ -0,0 +1,97 @@
+package ExperimentMain;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import extensive_form_game.Game;
+import extensive_form_game_solver.CounterFactualRegretSolver;
+import extensive_form_game_solver.DefenderSequenceFormLPApproximationSolver;
+import extensive_form_game_solver.ExploitabilityEvaluator;
+import extensive_form_game_solver.ExternalSamplingCFRSolver;
+import extensive_form_game_solver.MonteCarloCFRSolver;
+import extensive_form_game_solver.OutcomeSamplingCFRSolver;
+import utils.Utils;
+
+/**
+ * Runs CFR, CFR+, DCFR and the external and outcome sampling Monte Carlo CFR solvers on the same game and
+ * records, at doubling iteration counts, the nodes touched so far, the value of the average strategy
+ * profile, its distance to the game value computed by DefenderSequenceFormLPApproximationSolver and
+ * its NashConv. The curves are printed and written as CSV.
+ *
+ * Usage: CFRConvergence [efg file] [iterations, default 10000] [csv file, default cfr_convergence.csv] [LP value]
+ * If the LP value is given, the LP is not solved, so the curves can be computed without solving the LP.
+ */
+public class CFRConvergence {
+
+	public static void main(String[] args) throws IOException {
+		String filename = args.length > 0 ? args[0] : "games/hsg_game" + Utils.FILE_FORMAT;
+		int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 10000;
+		String csvFilename = args.length > 2 ? args[2] : "cfr_convergence.csv";
+
+		Game game = new Game();
+		game.createGameFromFileZerosumPackageFormat(filename);
+
+		double lpValue;
+		if (args.length > 3) {
+			lpValue = Double.parseDouble(args[3]);
+		} else {
+			DefenderSequenceFormLPApproximationSolver lpSolver = new DefenderSequenceFormLPApproximationSolver(game, 1);
+			lpSolver.solveGame();
+			lpValue = lpSolver.getValueOfGame();
+		}
+		System.out.println("CFRConvergence::main: LP value " + lpValue);
+		ExploitabilityEvaluator evaluator = new ExploitabilityEvaluator(game);
+
+		PrintWriter out = new PrintWriter(new FileWriter(csvFilename));
+		try {
+			out.println("variant,iterations,nodes_touched,seconds,value,distance_to_lp_value,nash_conv");
+			for (CounterFactualRegretSolver.Variant variant : CounterFactualRegretSolver.Variant.values()) {
+				CounterFactualRegretSolver solver = new CounterFactualRegretSolver(game, variant);
+				long start = System.nanoTime();
+				double seconds = 0;
+				int checkpoint = 1;
+				while (solver.getTotalIterationsRun() < iterations) {
+					int nextCheckpoint = Math.min(iterations, checkpoint);
+					long solveStart = System.nanoTime();
+					solver.solveGame(nextCheckpoint - solver.getTotalIterationsRun());
+					seconds += (System.nanoTime() - solveStart) / 1e9;
+
+					printPoint(out, variant.toString(), solver.getTotalIterationsRun(), solver.getNumNodesTouched(), seconds,
+							solver.getValueOfGame(), lpValue, evaluator.evaluate(solver));
+					checkpoint *= 2;
+				}
+				System.out.println(String.format("CFRConvergence::main: %s took %.1f s including evaluation",
+						variant, (System.nanoTime() - start) / 1e9));
+			}
+
+			MonteCarloCFRSolver[] samplingSolvers = {new ExternalSamplingCFRSolver(game), new OutcomeSamplingCFRSolver(game)};
+			String[] samplingNames = {"ES_MCCFR", "OS_MCCFR"};
+			for (int i = 0; i < samplingSolvers.length; i++) {
+				MonteCarloCFRSolver solver = samplingSolvers[i];
+				double seconds = 0;
+				int checkpoint = 1;
+				while (solver.getTotalIterationsRun() < iterations) {
+					int nextCheckpoint = Math.min(iterations, checkpoint);
+					long solveStart = System.nanoTime();
+					solver.solveGame(nextCheckpoint - solver.getTotalIterationsRun());
+					seconds += (System.nanoTime() - solveStart) / 1e9;
+
+					printPoint(out, samplingNames[i], solver.getTotalIterationsRun(), solver.getNumNodesTouched(), seconds,
+							solver.getValueOfGame(), lpValue, evaluator.evaluate(solver));
+					checkpoint *= 2;
+				}
+			}
+		} finally {
+			out.close();
+		}
+	}
+
+	private static void printPoint(PrintWriter out, String solverName, int iterations, int nodesTouched, double seconds,
+			double value, double lpValue, double nashConv) {
+		String line = String.format("%s,%d,%d,%.3f,%.10f,%.3e,%.3e", solverName, iterations, nodesTouched, seconds, value,
+				Math.abs(value - lpValue), nashConv);
+		out.println(line);
+		System.out.println(line);
+	}
+}
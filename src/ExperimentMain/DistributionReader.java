@@ -0,0 +1,177 @@
+package ExperimentMain;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+
+import utils.CompressedChannels;
+import utils.NumberParser;
+
+/**
+ * Streams the rows of a feature distribution file such as featuredristibution.txt. A row holds the
+ * probabilities of the numCombination feature combinations of the real hosts followed by those of the
+ * honeypots, separated by commas. Whitespace around a cell and empty cells are ignored, so are lines
+ * without any number and numbers after the first 2 * numCombination of a row; missing numbers are 0.
+ *
+ * The file is read through one reusable buffer and the numbers are parsed in place with NumberParser.
+ * next() fills a single row array that is reused for every row, so a file of millions of rows is walked
+ * in constant memory. Files ending in .gz are decompressed on the fly.
+ */
+public class DistributionReader implements Closeable {
+	public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+	private final ReadableByteChannel channel;
+	private final int numCombination;
+	private ByteBuffer buffer; // holds the unread input between position and limit
+	private boolean endOfInput;
+
+	private final double[][] row; // indexed as [0 real hosts, 1 honeypots][feature combination]
+	private int rowIndex = -1;
+	private long lineNumber;
+
+	public DistributionReader(String filename, int numCombination) throws IOException {
+		this(CompressedChannels.newReadChannel(filename), numCombination);
+	}
+
+	public DistributionReader(ReadableByteChannel channel, int numCombination) {
+		this.channel = channel;
+		this.numCombination = numCombination;
+		this.row = new double[2][numCombination];
+		buffer = ByteBuffer.allocate(DEFAULT_BUFFER_SIZE);
+		buffer.flip();
+	}
+
+	/**
+	 * Reads at most maxRows rows of the file into an array that grows with the rows read
+	 * @return indexed as [row][0 real hosts, 1 honeypots][feature combination]
+	 */
+	public static double[][][] readDistributions(String filename, int maxRows, int numCombination) throws IOException {
+		double[][][] distributions = new double[Math.max(1, Math.min(maxRows, 128))][][];
+		int numRows = 0;
+		DistributionReader reader = new DistributionReader(filename, numCombination);
+		try {
+			while (numRows < maxRows && reader.next()) {
+				if (numRows == distributions.length) {
+					distributions = Arrays.copyOf(distributions, 2 * numRows);
+				}
+				distributions[numRows++] = reader.copyRow();
+			}
+		} finally {
+			reader.close();
+		}
+		return Arrays.copyOf(distributions, numRows);
+	}
+
+	/**
+	 * Advances to the next row. The numbers of the row are in getRow() until the next call.
+	 * @return false at the end of the file
+	 */
+	public boolean next() throws IOException {
+		while (true) {
+			byte[] bytes = buffer.array();
+			int lineEnd = buffer.position();
+			while (lineEnd < buffer.limit() && bytes[lineEnd] != '\n') {
+				lineEnd++;
+			}
+			if (lineEnd == buffer.limit() && !endOfInput) {
+				fill();
+				continue;
+			}
+			if (buffer.position() == buffer.limit()) {
+				return false;
+			}
+			lineNumber++;
+			boolean hasNumbers = parseLine(bytes, buffer.position(), lineEnd);
+			buffer.position(Math.min(lineEnd + 1, buffer.limit()));
+			if (hasNumbers) {
+				rowIndex++;
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Returns the current row, indexed as [0 real hosts, 1 honeypots][feature combination]. The array is
+	 * overwritten by the next call to next(), use copyRow() to keep it.
+	 */
+	public double[][] getRow() {
+		return row;
+	}
+
+	public double[][] copyRow() {
+		return new double[][] { row[0].clone(), row[1].clone() };
+	}
+
+	/**
+	 * Returns the index of the current row among the rows with numbers, starting at 0
+	 */
+	public int getRowIndex() {
+		return rowIndex;
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	/**
+	 * Moves the unread input to the front of the buffer and reads more behind it, doubling the buffer
+	 * when a single line does not fit
+	 */
+	private void fill() throws IOException {
+		buffer.compact();
+		if (!buffer.hasRemaining()) {
+			ByteBuffer larger = ByteBuffer.allocate(2 * buffer.capacity());
+			buffer.flip();
+			larger.put(buffer);
+			buffer = larger;
+		}
+		if (channel.read(buffer) < 0) {
+			endOfInput = true;
+		}
+		buffer.flip();
+	}
+
+	/**
+	 * Parses the cells of the line in [start, end) into row
+	 * @return true if the line has at least one number
+	 */
+	private boolean parseLine(byte[] bytes, int start, int end) throws IOException {
+		Arrays.fill(row[0], 0);
+		Arrays.fill(row[1], 0);
+		int numNumbers = 0;
+		int cellStart = start;
+		for (int pos = start; pos <= end; pos++) {
+			if (pos < end && bytes[pos] != ',') {
+				continue;
+			}
+			int numberStart = cellStart;
+			int numberEnd = pos;
+			while (numberStart < numberEnd && isWhitespace(bytes[numberStart])) {
+				numberStart++;
+			}
+			while (numberEnd > numberStart && isWhitespace(bytes[numberEnd - 1])) {
+				numberEnd--;
+			}
+			if (numberStart < numberEnd) {
+				if (numNumbers < 2 * numCombination) {
+					try {
+						row[numNumbers / numCombination][numNumbers % numCombination] = NumberParser.parseDouble(bytes,
+								numberStart, numberEnd);
+					} catch (NumberFormatException e) {
+						throw new IOException("DistributionReader: line " + lineNumber + ": " + e.getMessage(), e);
+					}
+				}
+				numNumbers++;
+			}
+			cellStart = pos + 1;
+		}
+		return numNumbers > 0;
+	}
+
+	private static boolean isWhitespace(byte c) {
+		return c == ' ' || c == '\t' || c == '\r';
+	}
+}
@@ -0,0 +1,60 @@
+package ExperimentMain;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import extensive_form_game.Game;
+import extensive_form_game_solver.DoubleOracleSolver;
+import extensive_form_game_solver.DoubleOracleSolver.IterationStatistics;
+import utils.Utils;
+
+/**
+ * Runs DoubleOracleSolver for the defender and records, for every iteration, the restricted game value,
+ * the bounds, the time spent solving the restricted game, computing best responses and updating the
+ * model, and the size of the restricted game. The iterations are printed and written as CSV.
+ *
+ * Usage: DoubleOracleConvergence [efg file] [epsilon, default 1e-3] [time budget in s, default 600]
+ * [csv file, default double_oracle_convergence.csv]
+ */
+public class DoubleOracleConvergence {
+
+	public static void main(String[] args) throws IOException {
+		String filename = args.length > 0 ? args[0] : "games/hsg_game" + Utils.FILE_FORMAT;
+		double epsilon = args.length > 1 ? Double.parseDouble(args[1]) : 1e-3;
+		double timeBudget = args.length > 2 ? Double.parseDouble(args[2]) : 600;
+		String csvFilename = args.length > 3 ? args[3] : "double_oracle_convergence.csv";
+
+		Game game = new Game();
+		game.createGameFromFileZerosumPackageFormat(filename);
+
+		DoubleOracleSolver solver = new DoubleOracleSolver(game, 1);
+		solver.setEpsilon(epsilon);
+		solver.setTimeBudget(timeBudget);
+		solver.setQuiet(true);
+		solver.solveGame();
+
+		PrintWriter out = new PrintWriter(new FileWriter(csvFilename));
+		try {
+			String header = "iteration,value,lower_bound,upper_bound,gap,solve_seconds,best_response_seconds,update_seconds,"
+					+ "elapsed_seconds,actions_p1,actions_p2,constraints,variables,nonzeros";
+			out.println(header);
+			System.out.println(header);
+			for (IterationStatistics statistics : solver.getIterationStatistics()) {
+				String line = String.format("%d,%.10f,%.10f,%.10f,%.3e,%.3f,%.6f,%.6f,%.3f,%d,%d,%d,%d,%d",
+						statistics.getIteration(), statistics.getRestrictedGameValue(), statistics.getLowerBound(),
+						statistics.getUpperBound(), statistics.getGap(), statistics.getSolveSeconds(),
+						statistics.getBestResponseSeconds(), statistics.getUpdateSeconds(), statistics.getElapsedSeconds(),
+						statistics.getNumRestrictedActions(1), statistics.getNumRestrictedActions(2),
+						statistics.getNumConstraints(), statistics.getNumVariables(), statistics.getNumNonZeros());
+				out.println(line);
+				System.out.println(line);
+			}
+		} finally {
+			out.close();
+		}
+		System.out.println("DoubleOracleConvergence::main: " + (solver.isConverged() ? "converged" : solver.isStalled() ? "stalled" : "stopped")
+				+ " after " + solver.getNumIterations() + " iterations");
+		solver.printGameValue();
+	}
+}
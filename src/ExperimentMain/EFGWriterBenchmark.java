@@ -0,0 +1,100 @@
+package ExperimentMain;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import extensive_form_filemanager.CreateGambitEFGFile;
+import utils.Utils;
+
+/**
+ * Measures the throughput of CreateGambitEFGFile on a tree shaped like the honeypot selection game:
+ * one chance node, a player 1 node with 49 actions per nature branch, a player 2 node with two actions
+ * per player 1 action and a terminal node per player 2 action. The same number of bytes is then written
+ * with plain FileChannel writes, which is what the writer would achieve if it were purely disk-bound.
+ *
+ * Usage: EFGWriterBenchmark [nature branches, default 3000] [buffer size in bytes]
+ */
+public class EFGWriterBenchmark {
+	private static final int DEFENDER_ACTIONS = 49;
+
+	public static void main(String[] args) throws IOException {
+		int branches = args.length > 0 ? Integer.parseInt(args[0]) : 3000;
+		int bufferSize = args.length > 1 ? Integer.parseInt(args[1]) : CreateGambitEFGFile.DEFAULT_BUFFER_SIZE;
+		String filename = "games/writer_benchmark";
+		File file = new File(filename + Utils.FILE_FORMAT);
+
+		for (int run = 0; run < 3; run++) {
+			long start = System.nanoTime();
+			int nodes = writeGame(filename, branches, bufferSize);
+			double writerSeconds = (System.nanoTime() - start) / 1e9;
+			long bytes = file.length();
+
+			start = System.nanoTime();
+			writeRawBytes(file, bytes, bufferSize);
+			double rawSeconds = (System.nanoTime() - start) / 1e9;
+
+			double megabytes = bytes / (1024.0 * 1024.0);
+			System.out.println(String.format("run %d: %d nodes, %.1f MB, writer %.1f MB/s (%.0f ms), raw channel %.1f MB/s (%.0f ms)",
+					run, nodes, megabytes, megabytes / writerSeconds, writerSeconds * 1000, megabytes / rawSeconds, rawSeconds * 1000));
+		}
+		file.delete();
+	}
+
+	private static int writeGame(String filename, int branches, int bufferSize) {
+		CreateGambitEFGFile writer = new CreateGambitEFGFile(filename, bufferSize);
+		List<String> natureActions = new ArrayList<String>();
+		List<Double> natureProbabilities = new ArrayList<Double>();
+		for (int i = 0; i < branches; i++) {
+			natureActions.add(String.format("%.1f,%.1f", 3.0 + 0.1 * (i % 10), 0.5 + 0.1 * (i / 10 % 10)));
+			natureProbabilities.add(1.0);
+		}
+		List<String> defenderActions = new ArrayList<String>();
+		for (int i = 0; i < DEFENDER_ACTIONS; i++) {
+			defenderActions.add(String.format("%.1f,%.1f", 2.9 + 0.1 * (i % 7), 0.6 + 0.1 * (i / 7)));
+		}
+		List<String> attackerActions = new ArrayList<String>();
+		attackerActions.add("Class_1");
+		attackerActions.add("Class_2");
+		List<Double> payoffs = new ArrayList<Double>();
+		payoffs.add(-1.2000000000000002);
+		payoffs.add(1.0);
+
+		int outcome = 0;
+		writer.createChanceNode(Utils.CHANCE_NODE_NAME, 1, natureActions, natureProbabilities, 0);
+		for (int branch = 0; branch < branches; branch++) {
+			writer.createPlayerNode(Utils.PLAYER_NODE_NAME, Utils.PLAYER_ONE, branch, natureActions.get(branch), defenderActions, 0);
+			for (int action = 0; action < DEFENDER_ACTIONS; action++) {
+				writer.createPlayerNode(Utils.PLAYER_NODE_NAME, Utils.PLAYER_TWO, action, defenderActions.get(action), attackerActions, 0);
+				for (int k = 0; k < attackerActions.size(); k++) {
+					++outcome;
+					writer.createTerminalNode(Utils.TERMINAL_NODE_NAME, outcome, "Outcome " + outcome, payoffs);
+				}
+			}
+		}
+		writer.closeFile();
+		return writer.getNodeCount();
+	}
+
+	private static void writeRawBytes(File file, long bytes, int bufferSize) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocateDirect(bufferSize);
+		FileOutputStream out = new FileOutputStream(file);
+		try {
+			FileChannel channel = out.getChannel();
+			long remaining = bytes;
+			while (remaining > 0) {
+				buffer.clear();
+				buffer.limit((int) Math.min(buffer.capacity(), remaining));
+				while (buffer.hasRemaining()) {
+					remaining -= channel.write(buffer);
+				}
+			}
+		} finally {
+			out.close();
+		}
+	}
+}
@@ -0,0 +1,114 @@
+package ExperimentMain;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import extensive_form_game.Game;
+import utils.Utils;
+
+/**
+ * Compares the heap retained by the Node/Action object tree of Game with the FlatGameTree
+ * representation. The honeypot selection game is scaled up by replicating its nature branches,
+ * so the comparison can be run on trees much larger than games/hsg_game.efg.
+ *
+ * Usage: GameMemoryFootprint [base efg file] [number of replicas]
+ */
+public class GameMemoryFootprint {
+
+	public static void main(String[] args) throws IOException {
+		String baseFile = args.length > 0 ? args[0] : "games/hsg_game.efg";
+		int replicas = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+		String scaledFile = "games/hsg_game_x" + replicas + Utils.FILE_FORMAT;
+
+		writeScaledGame(baseFile, scaledFile, replicas);
+
+		long baseline = usedMemory();
+		Game game = new Game();
+		game.createGameFromFileZerosumPackageFormat(scaledFile);
+		long withObjects = usedMemory();
+
+		game.useFlatRepresentation();
+		long withFlatTree = usedMemory();
+
+		long objectTreeBytes = withObjects - withFlatTree + game.getFlatTree().estimateFootprintBytes();
+		System.out.println("Nodes: " + game.getNumNodes() + ", actions: " + game.getFlatTree().getNumActionsTotal());
+		System.out.println("Game after loading (objects): " + (withObjects - baseline) / 1024 + " KB");
+		System.out.println("Game after flattening: " + (withFlatTree - baseline) / 1024 + " KB");
+		System.out.println("Node/Action objects: ~" + objectTreeBytes / 1024 + " KB");
+		System.out.println("FlatGameTree arrays: ~" + game.getFlatTree().estimateFootprintBytes() / 1024 + " KB");
+	}
+
+	/**
+	 * Writes a game whose chance node has replicas times the actions of the base game. Every nature
+	 * branch of the base game is copied with shifted node ids and information sets, and stays in
+	 * preorder, from which Game links the child ids.
+	 */
+	public static void writeScaledGame(String baseFile, String scaledFile, int replicas) throws IOException {
+		BufferedReader in = new BufferedReader(new FileReader(baseFile));
+		String header = in.readLine();
+		String[] chanceLine = in.readLine().split(" ");
+		List<String[]> branchLines = new ArrayList<String[]>();
+		String line;
+		while ((line = in.readLine()) != null) {
+			if (!line.isEmpty()) {
+				branchLines.add(line.split(" "));
+			}
+		}
+		in.close();
+
+		int numNatureActions = (chanceLine.length - 7) / 2;
+		int numBranchNodes = branchLines.size();
+		int maxInformationSetP2 = 0;
+		for (String[] tokens : branchLines) {
+			if (tokens[0].equals(Utils.PLAYER_NODE_NAME) && !tokens[2].equals("1")) {
+				maxInformationSetP2 = Math.max(maxInformationSetP2, Integer.parseInt(tokens[3]));
+			}
+		}
+
+		BufferedWriter out = new BufferedWriter(new FileWriter(scaledFile));
+		out.write(header);
+		out.newLine();
+		StringBuilder chance = new StringBuilder();
+		for (int i = 0; i < 5; i++) {
+			chance.append(chanceLine[i]).append(' ');
+		}
+		for (int r = 0; r < replicas; r++) {
+			for (int i = 0; i < numNatureActions; i++) {
+				chance.append(chanceLine[5 + 2 * i]).append(' ').append(chanceLine[6 + 2 * i]).append(' ');
+			}
+		}
+		chance.append("} 0");
+		out.write(chance.toString());
+		out.newLine();
+
+		for (int r = 0; r < replicas; r++) {
+			for (String[] tokens : branchLines) {
+				String[] copy = tokens.clone();
+				copy[1] = "\"" + (Integer.parseInt(tokens[1].replace("\"", "")) + r * numBranchNodes) + "\"";
+				if (tokens[0].equals(Utils.PLAYER_NODE_NAME)) {
+					int informationSet = Integer.parseInt(tokens[3]);
+					copy[3] = String.valueOf(tokens[2].equals("1") ? informationSet + r * numNatureActions : informationSet + r * (maxInformationSetP2 + 1));
+				}
+				for (int i = 0; i < copy.length; i++) {
+					if (i > 0) out.write(' ');
+					out.write(copy[i]);
+				}
+				out.newLine();
+			}
+		}
+		out.close();
+	}
+
+	private static long usedMemory() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 4; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
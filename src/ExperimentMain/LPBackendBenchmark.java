@@ -0,0 +1,74 @@
+package ExperimentMain;
+
+import extensive_form_game.Game;
+import extensive_form_game_solver.BestResponseLPSolver;
+import extensive_form_game_solver.DefenderSequenceFormLPApproximationSolver;
+import linear_program.LPException;
+import linear_program.LPModel;
+import utils.Utils;
+
+/**
+ * Times the LP backends on the programs of the solvers: the best response LPs of both players against a
+ * uniform opponent, and the defender MILP of DefenderSequenceFormLPApproximationSolver with a time
+ * limit. For every backend the model sizes, the solve status, the objective and the solve time are
+ * printed. Backends that are not available are skipped.
+ *
+ * Usage: LPBackendBenchmark [efg file] [backends, default simplex,cplex] [MILP time limit in seconds, default 60]
+ */
+public class LPBackendBenchmark {
+
+	public static void main(String[] args) {
+		String filename = args.length > 0 ? args[0] : "games/hsg_game" + Utils.FILE_FORMAT;
+		String[] backends = (args.length > 1 ? args[1] : LPModel.SIMPLEX_BACKEND + "," + LPModel.CPLEX_BACKEND).split(",");
+		double timeLimit = args.length > 2 ? Double.parseDouble(args[2]) : 60;
+
+		Game game = new Game();
+		game.createGameFromFileZerosumPackageFormat(filename);
+
+		for (String backend : backends) {
+			try {
+				new LPModel(backend);
+			} catch (LPException e) {
+				System.out.println("LPBackendBenchmark::main: " + backend + " not available, skipped");
+				continue;
+			}
+			System.setProperty(LPModel.BACKEND_PROPERTY, backend);
+
+			for (int player = 1; player < 3; player++) {
+				BestResponseLPSolver solver = new BestResponseLPSolver(game, player, uniformStrategy(game, player % 2 + 1));
+				solver.solveGame();
+				printResult(backend, "best response P" + player, solver.getModel());
+			}
+
+			DefenderSequenceFormLPApproximationSolver defenderSolver = new DefenderSequenceFormLPApproximationSolver(game, 1);
+			defenderSolver.getModel().setTimeLimit(timeLimit);
+			defenderSolver.solveGame();
+			printResult(backend, "defender MILP", defenderSolver.getModel());
+		}
+	}
+
+	private static double[][] uniformStrategy(Game game, int player) {
+		int numInformationSets = game.getNumInformationSets(player);
+		double[][] strategy = new double[numInformationSets][];
+		for (int informationSetId = 0; informationSetId < numInformationSets; informationSetId++) {
+			int numActions = game.getNumActionsAtInformationSet(player, informationSetId);
+			strategy[informationSetId] = new double[numActions];
+			for (int action = 0; action < numActions; action++) {
+				strategy[informationSetId][action] = 1.0 / numActions;
+			}
+		}
+		return strategy;
+	}
+
+	private static void printResult(String backend, String program, LPModel model) {
+		String objective;
+		try {
+			objective = String.valueOf(model.getObjValue());
+		} catch (LPException e) {
+			objective = "-";
+		}
+		System.out.println(String.format("%s, %s: %d rows, %d columns, %d nonzeros, %d integer, %s, objective %s, %.3f s",
+				backend, program, model.getNumConstraints(), model.getNumVariables(), model.getNumNonZeros(),
+				model.getNumIntegerVariables(), model.getStatus(), objective, model.getSolveSeconds()));
+	}
+}
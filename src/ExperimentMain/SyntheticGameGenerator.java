@@ -0,0 +1,62 @@
+package ExperimentMain;
+
+import java.util.Arrays;
+
+import extensive_form_efg_game_format.CreateTree;
+import extensive_form_efg_game_format.GraphFormat;
+import extensive_form_filemanager.CreateGambitEFGFile;
+import extensive_form_game.CreateGameInMemory;
+import extensive_form_game.Game;
+import utils.GameConfiguration;
+import utils.Utils;
+
+/**
+ * Generates a game of the synthetic family of GameConfiguration, to measure how the solvers scale with
+ * the number of features, hosts, deltas and operators. The number of nodes grows as the number of
+ * hosts times (1 + 2 * deltas)^features with all three operators, which is printed before generating.
+ * Without a file name the game is built in memory and its size printed. With a file name it is only
+ * written to the .efg file, so games larger than the memory can be generated and loaded later with
+ * createGameFromFileParallel.
+ *
+ * Usage: SyntheticGameGenerator [features, default 2] [real hosts, default 1] [honeypots, default 1]
+ * [deltas, default 3] [operators, default 3] [seed, default 0] [efg file without extension, default none]
+ */
+public class SyntheticGameGenerator {
+
+	public static void main(String[] args) {
+		int numFeatures = args.length > 0 ? Integer.parseInt(args[0]) : 2;
+		int numRealHosts = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+		int numHoneypots = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+		int numDeltas = args.length > 3 ? Integer.parseInt(args[3]) : 3;
+		int numOperators = args.length > 4 ? Integer.parseInt(args[4]) : 3;
+		long seed = args.length > 5 ? Long.parseLong(args[5]) : 0;
+		String filename = args.length > 6 ? args[6] : null;
+
+		GameConfiguration configuration = GameConfiguration.synthetic(numFeatures, numRealHosts, numHoneypots,
+				numDeltas, numOperators, seed);
+		System.out.println("SyntheticGameGenerator::main: " + configuration + ", at most "
+				+ configuration.estimateNumNodes() + " nodes");
+
+		// the feature distributions do not change the tree, only its fingerprint
+		double[] distribution = new double[configuration.getNumFeatureCombinations()];
+		Arrays.fill(distribution, 1.0 / distribution.length);
+		Game game = new Game(configuration);
+		GraphFormat graphFormat = filename == null ? new CreateGameInMemory(game) : new CreateGambitEFGFile(filename);
+
+		long start = System.nanoTime();
+		CreateTree gameTree = new CreateTree(configuration, true, distribution, distribution.clone(), graphFormat);
+		gameTree.init();
+		gameTree.closeFile();
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		if (filename == null) {
+			System.out.println(String.format(
+					"SyntheticGameGenerator::main: %d nodes, %d/%d sequences, %d/%d information sets in %.2f s",
+					game.getNumNodes(), game.getNumSequencesP1(), game.getNumSequencesP2(),
+					game.getNumInformationSets(1), game.getNumInformationSets(2), seconds));
+		} else {
+			System.out.println(String.format("SyntheticGameGenerator::main: wrote %s in %.2f s",
+					filename + Utils.FILE_FORMAT, seconds));
+		}
+	}
+}
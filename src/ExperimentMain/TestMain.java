@@ -1,49 +1,64 @@
 package ExperimentMain;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.text.NumberFormat;
-import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 
-import au.com.bytecode.opencsv.CSVReader;
 import extensive_form_efg_game_format.CreateTree;
+import extensive_form_filemanager.CreateGambitEFGFile;
+import extensive_form_game.CreateGameInMemory;
 import extensive_form_game.Game;
 import extensive_form_game_solver.DefenderSequenceFormLPApproximationSolver;
-import ilog.concert.IloException;
-import utils.Utils;
+import linear_program.LPException;
+import linear_program.LPStatus;
+import utils.GameConfiguration;
 
 
 
 /**
  * @author IASRLUserv     
  *
+ * Generates the game of the first row of featuredristibution.txt in memory, writes it to
+ * games/hsg_game.efg unless told not to, and solves it for the defender.
+ *
+ * Usage: TestMain [write games/hsg_game.efg, true or false, default true]
  */
 public class TestMain {
 
 	public static void main(String[] args) throws IOException {
 		
 		int numOfSimulation = 100;
-		int possibleCombination = (int) Math.pow(2.0, (double) Utils.REAL_HOST_FEATURES_NUM);
+		int possibleCombination = GameConfiguration.getDefault().getNumFeatureCombinations();
 	//	writeFeatureDistribution(possibleCombination,numOfSimulation);
 		double[][][] distributions = readDistributions("featuredristibution.txt",numOfSimulation,possibleCombination);
-		CreateTree gameTree = new CreateTree("games/hsg_game", true, distributions[0][0],
-				distributions[0][1]);
+		// the game is built in memory, the .efg file is for inspection and the tools that load it
+		boolean writeEFGFile = args.length > 0 ? Boolean.parseBoolean(args[0]) : true;
+		Game experimentGame = new Game();
+		CreateGameInMemory gameBuilder = new CreateGameInMemory(experimentGame);
+		CreateTree gameTree;
+		if (writeEFGFile) {
+			gameTree = new CreateTree(true, distributions[0][0], distributions[0][1], gameBuilder,
+					new CreateGambitEFGFile("games/hsg_game"));
+		} else {
+			gameTree = new CreateTree(true, distributions[0][0], distributions[0][1], gameBuilder);
+		}
 		gameTree.init();
 		gameTree.closeFile();
-		Game experimentGame = new Game();
-		experimentGame.createGameFromFileZerosumPackageFormat("games/hsg_game.efg"); 
 		
 		DefenderSequenceFormLPApproximationSolver equilibriumSolver = new DefenderSequenceFormLPApproximationSolver(
 				experimentGame, 1);
 		equilibriumSolver.solveGame();
+		LPStatus status = equilibriumSolver.getStatus();
+		if (status != LPStatus.OPTIMAL && status != LPStatus.FEASIBLE) {
+			System.out.println("TestMain::main: no defender strategy, solve status " + status);
+			return;
+		}
 		equilibriumSolver.getStrategyProfile();
 		try {
 			equilibriumSolver.writeStrategyToFile("strategy.txt");
-		} catch (IloException e) {
+		} catch (LPException e) {
 			// TODO Auto-generated catch block
 			e.printStackTrace();
 		}
@@ -52,44 +67,23 @@ public class TestMain {
 			
 	}
 	
+	/**
+	 * Reads at most numSimulation rows of the distribution file with DistributionReader
+	 * @return indexed as [simulation][0 real hosts, 1 honeypots][feature combination], one entry per row read
+	 */
 	public static double[][][] readDistributions(String filename, int numSimulation, int numCombination) {
-		double[][][] featureDistributions = new double[numSimulation][2][numCombination];
-		CSVReader in = null;
-		int simIndex = 0;
 		try {
-			in = new CSVReader(new FileReader(filename), ',');
-			// in = new BufferedReader(new FileReader(filename));
+			return DistributionReader.readDistributions(filename, numSimulation, numCombination);
 		} catch (FileNotFoundException e) {
 			System.out.println("File not found");
 			System.out.println("filename: " + filename);
 			System.exit(0);
-		}
-
-		String[] splitLine;
-		try {
-			while ((splitLine = in.readNext()) != null) {
-				int indexCnt = 0;
-				for (String s : splitLine) {
-					if (!s.equals("")) {
-						try {
-							NumberFormat nf = NumberFormat.getInstance();
-							double d = nf.parse(s).doubleValue();
-							if (indexCnt < numCombination)
-								featureDistributions[simIndex][0][indexCnt % numCombination] = d;
-							else
-								featureDistributions[simIndex][1][indexCnt % numCombination] = d;
-							++indexCnt;
-					  }catch(ParseException ex){
-				        }
-					
-					}
-				}
-				simIndex++;
-			}
 		} catch (IOException e) {
-			System.out.println("Game::CreateGameFromFile: Read exception");
+			e.printStackTrace();
+			System.out.println("TestMain::readDistributions: Read exception");
+			System.exit(0);
 		}
-		return featureDistributions;
+		return null;
 	}
 
 	public static void writeFeatureDistribution(int numFeature, int totSimulation) throws IOException {
@@ -6,13 +6,23 @@ import java.util.List;
 import java.util.Random;
 import java.util.*;
 import java.lang.*;
-
-import javax.rmi.CORBA.Util;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import extensive_form_filemanager.CreateGambitEFGFile;
+import extensive_form_game.GameFingerprint;
+import utils.GameConfiguration;
 import utils.Utils;
 
 public class CreateTree {
+	// Part of the fingerprint, increase when a change makes the same inputs generate a different tree
+	private static final int GENERATOR_VERSION = 2;
+	// Branches per worker thread that are generated ahead of the branch being appended
+	private static final int BRANCH_WINDOW_PER_THREAD = 2;
+	private static final List<String> PLAYER_TWO_ACTIONS = Collections.unmodifiableList(Arrays.asList("Class_1", "Class_2"));
 	private ArrayList<String> mChnaceNodeActionList;
 	private ArrayList<String> realHostConfigList;
 	private ArrayList<String> honeypotConfigLIst;
@@ -20,7 +30,7 @@ public class CreateTree {
 	private ArrayList<Double> mChanceNodeProbablityList;
 	private ArrayList<String> operatorsCombinations;
 	private ArrayList<double[]> deltaCombinations;
-	private CreateGambitEFGFile createGambitFile;
+	private GraphFormat[] graphFormats;
 	private Hashtable<String, Integer> mBinarytoIntNumbers;
 	public Hashtable<String, Double> realSystemProbabilities;
 	public Hashtable<String, Double> honeypotProbabilites;
@@ -28,7 +38,7 @@ public class CreateTree {
 	public Hashtable<String, Integer> p2InfoClass;
 	private Node mChanceNode;
 	private int mChaceInfoSetNo = 1;
-	private int mTotalFeatures = Utils.TOTAL_FEATUES_NUMBER_IN_GAME;
+	private final GameConfiguration configuration;
 	private int mOutcomeCnt;
 	private int p2InfoSetCnt = 0;
 	private int defenderActionsCnt = 0;
@@ -38,22 +48,78 @@ public class CreateTree {
 	private double[] realFeatureDistribution;// = new double[(int)Math.pow(2.0,(double) Utils.REAL_HOST_FEATURES_NUM)];
 	private double[] honeypotFeatureDistribution;// = new double[(int)Math.pow(2.0,(double)
 													// Utils.REAL_HOST_FEATURES_NUM)];
-	private double[] deltaValues = {0.1, 0.2, 0.3};
+	private double[] deltaValues;
 	private Hashtable<Character, Double> modificationCostsByOperator;
 	private Hashtable<Double, Double> modificationCostByDelta;
 	
-	private String operators = "!+-";
+	private String operators;
+	private int numThreads = Runtime.getRuntime().availableProcessors();
 
 	public CreateTree(String filename, boolean isModifyBOth, double[] realProb, double[] hpProb) {
-		createGambitFile = new CreateGambitEFGFile(filename);
+		this(isModifyBOth, realProb, hpProb, new CreateGambitEFGFile(filename));
+	}
+
+	/**
+	 * @param graphFormats every node of the tree is passed to each of these, e.g. a CreateGambitEFGFile
+	 * to write the .efg file and/or a CreateGameInMemory to build the Game directly
+	 */
+	public CreateTree(boolean isModifyBOth, double[] realProb, double[] hpProb, GraphFormat... graphFormats) {
+		this(GameConfiguration.getDefault(), isModifyBOth, realProb, hpProb, graphFormats);
+	}
+
+	/**
+	 * @param configuration the hosts, features, operators and deltas of the game
+	 */
+	public CreateTree(GameConfiguration configuration, boolean isModifyBOth, double[] realProb, double[] hpProb,
+			GraphFormat... graphFormats) {
+		this.configuration = configuration;
+		this.graphFormats = graphFormats;
+		operators = configuration.getOperators();
+		deltaValues = new double[configuration.getNumDeltas()];
+		for (int i = 0; i < deltaValues.length; i++) {
+			deltaValues[i] = configuration.getDelta(i);
+		}
 		isModifyBothSystem = isModifyBOth;
 		realFeatureDistribution = realProb;
 		honeypotFeatureDistribution = hpProb;
 	}
 
+	/**
+	 * Returns a fingerprint of everything the generated tree depends on: the feature distributions, the
+	 * modification settings and the GameConfiguration. It is computed without generating the tree, and two
+	 * CreateTree objects with the same fingerprint generate the same game. Increase GENERATOR_VERSION when
+	 * the generation itself changes.
+	 */
+	public String getFingerprint() {
+		GameFingerprint fingerprint = new GameFingerprint().add(GENERATOR_VERSION).add(isModifyBothSystem)
+				.add(configuration.getNumFeatures()).add(configuration.getNumRealHosts()).add(configuration.getNumHoneypots());
+		for (int host = 0; host < configuration.getNumHosts(); host++) {
+			fingerprint.add(configuration.getHostFeatures(host));
+		}
+		fingerprint.add(operators);
+		for (int i = 0; i < operators.length(); i++) {
+			fingerprint.add(configuration.getOperatorCost(operators.charAt(i)));
+		}
+		for (int i = 0; i < deltaValues.length; i++) {
+			fingerprint.add(deltaValues[i]).add(configuration.getDeltaCost(i));
+		}
+		for (int hostClass = 0; hostClass < GameConfiguration.NUM_CLASSES; hostClass++) {
+			fingerprint.add(configuration.getClassValue(hostClass));
+		}
+		return fingerprint.add(realFeatureDistribution).add(honeypotFeatureDistribution).finish();
+	}
+
+	/**
+	 * Number of worker threads that generate the subtrees of the nature branches, defaults to the number
+	 * of cores. 1 generates the tree on the calling thread, see movePlayerOne.
+	 */
+	public void setNumThreads(int numThreads) {
+		this.numThreads = Math.max(1, numThreads);
+	}
+
 	public void init() {
 		mOutcomeCnt = 0;
-		classValues = new double[2];
+		classValues = new double[GameConfiguration.NUM_CLASSES];
 		mChnaceNodeActionList = new ArrayList<String>();
 		realHostConfigList = new ArrayList<String>();
 		honeypotConfigLIst = new ArrayList<String>();
@@ -74,12 +140,14 @@ public class CreateTree {
 		setSystemValues();
 		setModificationCost();
 		addFeaturesInVector(featuresVector);
-		generateNatureActions(Utils.TOTAL_FEATUES_NUMBER_IN_GAME);
+		generateNatureActions(configuration.getNumFeatures() * configuration.getNumHosts());
 
 		mChanceNode = new Node(Utils.CHANCE_NODE_NAME, mChaceInfoSetNo, mChnaceNodeActionList,
 				mChanceNodeProbablityList, 0);
-		createGambitFile.createChanceNode(mChanceNode.getNodeName(), mChanceNode.getInfoSetNumber(),
-				mChanceNode.getActionsList(), mChanceNode.getProbabilitiees(), 0);
+		for (GraphFormat graphFormat : graphFormats) {
+			graphFormat.createChanceNode(mChanceNode.getNodeName(), mChanceNode.getInfoSetNumber(),
+					mChanceNode.getActionsList(), mChanceNode.getProbabilitiees(), 0);
+		}
 
 		movePlayerOne();
 	}
@@ -87,15 +155,14 @@ public class CreateTree {
 	/* index 0 used for the cost rihtmost bit of network and so on */
 	public void setModificationCost() {
 		/* Modification cost for operators*/
-		modificationCostsByOperator.put('!', 0.0); // for operator !
-		modificationCostsByOperator.put('+',2.0);// for operator +
-		modificationCostsByOperator.put('-',1.0); // for operator -
+		for (int i = 0; i < operators.length(); i++) {
+			modificationCostsByOperator.put(operators.charAt(i), configuration.getOperatorCost(operators.charAt(i)));
+		}
 		
 		/*Cost for delta*/
-		modificationCostByDelta.put(deltaValues[0], 0.1);
-		modificationCostByDelta.put(deltaValues[1], 0.5);
-		modificationCostByDelta.put(deltaValues[2], 1.5);
-		//modificationCostByDelta.put(deltaValues[3], 1.5);
+		for (int i = 0; i < deltaValues.length; i++) {
+			modificationCostByDelta.put(deltaValues[i], configuration.getDeltaCost(i));
+		}
 	}
 	
 
@@ -110,8 +177,9 @@ public class CreateTree {
 	}
 
 	public void setSystemValues() {
-		classValues[0] = 1.0;
-		classValues[1] = 1.0;
+		for (int hostClass = 0; hostClass < classValues.length; hostClass++) {
+			classValues[hostClass] = configuration.getClassValue(hostClass);
+		}
 
 	}
 
@@ -144,82 +212,202 @@ public class CreateTree {
 
 	}
 
+	/**
+	 * Generates the subtree of every nature branch. A branch goes through three steps:
+	 * 1. a worker computes the player 1 actions of the branch and removes duplicates within the branch,
+	 * 2. the calling thread, in branch order, assigns the branch its range of node ids and outcome numbers
+	 *    and numbers the player 2 information sets of its actions in first-seen order,
+	 * 3. a worker creates the nodes of the branch into a buffer of every GraphFormat, see createBranch,
+	 * and the calling thread appends the buffers in branch order. Node ids, information sets and outcomes are
+	 * therefore the same as in a serial run. At most BRANCH_WINDOW_PER_THREAD * numThreads branches are
+	 * ahead of the branch being appended in each of the steps, which bounds the memory. p2InformationSet and
+	 * p2InfoClass are only used by the calling thread, the workers only read fields fixed before they start.
+	 * With one thread every step runs inline and the nodes go straight to the GraphFormats.
+	 */
 	private void movePlayerOne() {
-		for (int i = 0; i < mChnaceNodeActionList.size(); i++) {
-			ArrayList<String> actions = new ArrayList<>();
-			ArrayList<Integer> modifiedClass = new ArrayList<>();
-			ArrayList<String> operatorList = new ArrayList<String>();
-			ArrayList<double[]> deltaList = new ArrayList<double[]>();
-			String cAction = mChnaceNodeActionList.get(i);
-			int infoNo = i;
-			List<String> featureList = Arrays.asList(cAction.split(","));
-			int itrNum = featureList.size();
-			for (int l = 0; l < deltaCombinations.size(); l++) {
-				double[] curDel = deltaCombinations.get(l);
-				for (int j = 0; j < operatorsCombinations.size(); j++) {
-					String modifiedStr = "";
-					String oprStr = operatorsCombinations.get(j);
-					for (int it = 0; it < itrNum; it++) {
-						double d = Double.parseDouble(featureList.get(it));
-						if (oprStr.charAt(it) == '+') {
-							d += curDel[it];
-						} else if (oprStr.charAt(it) == '-') {
-							d -= curDel[it];
+		int numBranches = mChnaceNodeActionList.size();
+		int nextNodeId = 1; // the chance node is node 0
+		if (numThreads == 1) {
+			for (int i = 0; i < numBranches; i++) {
+				BranchActions branch = computeBranchActions(mChnaceNodeActionList.get(i));
+				BranchPlan plan = planBranch(i, branch, nextNodeId);
+				nextNodeId += plan.numNodes;
+				createBranchNodes(graphFormats, i, branch, plan);
+			}
+			return;
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+		int window = BRANCH_WINDOW_PER_THREAD * numThreads;
+		try {
+			LinkedList<Future<BranchActions>> actionFutures = new LinkedList<Future<BranchActions>>();
+			LinkedList<Future<GraphFormat[]>> branchFutures = new LinkedList<Future<GraphFormat[]>>();
+			int numSubmitted = 0;
+			for (int i = 0; i < numBranches; i++) {
+				while (numSubmitted < numBranches && numSubmitted < i + window) {
+					final String natureAction = mChnaceNodeActionList.get(numSubmitted++);
+					actionFutures.add(executor.submit(new Callable<BranchActions>() {
+						@Override
+						public BranchActions call() {
+							return computeBranchActions(natureAction);
+						}
+					}));
+				}
+				final BranchActions branch = actionFutures.removeFirst().get();
+				final BranchPlan plan = planBranch(i, branch, nextNodeId);
+				nextNodeId += plan.numNodes;
+				final int branchIndex = i;
+				branchFutures.add(executor.submit(new Callable<GraphFormat[]>() {
+					@Override
+					public GraphFormat[] call() {
+						GraphFormat[] buffers = new GraphFormat[graphFormats.length];
+						for (int f = 0; f < graphFormats.length; f++) {
+							buffers[f] = graphFormats[f].createBranch(plan.firstNodeId);
 						}
-						String strFormat = "%." + 1 + "f";
-						String s = String.format(strFormat, d);
-						modifiedStr += s;
-						if (it != itrNum - 1)
-							modifiedStr += ",";
+						createBranchNodes(buffers, branchIndex, branch, plan);
+						return buffers;
 					}
-					//System.out.println(modifiedStr + " : " + oprStr + " : " + Arrays.toString(curDel));
-
-					    if(p2InfoClass.containsKey(modifiedStr) && p2InfoClass.get(modifiedStr) == i)
-							continue;
-						p2InfoClass.put(modifiedStr, i);
-				        setP2InformationSet(modifiedStr, i);
-						actions.add(modifiedStr);
-						modifiedClass.add(i);
-						operatorList.add(oprStr);
-						deltaList.add(curDel);
-					
-					
+				}));
+				while (!branchFutures.isEmpty() && (branchFutures.size() > window || branchFutures.getFirst().isDone())) {
+					appendBranch(branchFutures.removeFirst().get());
 				}
-		}
-			System.out.println("size " + actions.size());
-			Utils.numOfDefenderActions = actions.size();
-			createGambitFile.createPlayerNode(Utils.PLAYER_NODE_NAME, Utils.PLAYER_ONE, infoNo, cAction, actions, 0);
-
-			for (int k = 0; k < actions.size(); k++) {
-				movePlayerTwo(actions.get(k), modifiedClass.get(k), operatorList.get(k), deltaList.get(k),infoNo,
-						mChnaceNodeActionList.get(i));
-				// System.out.println(actions.get(k));
 			}
-			if (null != actions) {
-				actions.clear();
-				actions = null;
+			while (!branchFutures.isEmpty()) {
+				appendBranch(branchFutures.removeFirst().get());
 			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("CreateTree::movePlayerOne: interrupted", e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException("CreateTree::movePlayerOne: " + e.getCause(), e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
 
+	private void appendBranch(GraphFormat[] buffers) {
+		for (int f = 0; f < graphFormats.length; f++) {
+			graphFormats[f].appendBranch(buffers[f]);
 		}
 	}
 
-	private void movePlayerTwo(String p1ModifiedAction, int cls, String optrs, double[] deltas, int palyerOneInfoSet,
-			String natureAction) {
+	/**
+	 * Applies every operator combination with every delta combination to the features of the nature
+	 * action and keeps the first action for every modified feature string. Only reads fields that are
+	 * fixed before movePlayerOne starts.
+	 */
+	private BranchActions computeBranchActions(String cAction) {
+		BranchActions actions = new BranchActions();
+		HashSet<String> seenInBranch = new HashSet<String>();
+		List<String> featureList = Arrays.asList(cAction.split(","));
+		int itrNum = featureList.size();
+		double[] features = new double[itrNum];
+		for (int it = 0; it < itrNum; it++) {
+			features[it] = Double.parseDouble(featureList.get(it));
+		}
+		StringBuilder modifiedStr = new StringBuilder();
+		for (int l = 0; l < deltaCombinations.size(); l++) {
+			double[] curDel = deltaCombinations.get(l);
+			for (int j = 0; j < operatorsCombinations.size(); j++) {
+				modifiedStr.setLength(0);
+				String oprStr = operatorsCombinations.get(j);
+				for (int it = 0; it < itrNum; it++) {
+					double d = features[it];
+					if (oprStr.charAt(it) == '+') {
+						d += curDel[it];
+					} else if (oprStr.charAt(it) == '-') {
+						d -= curDel[it];
+					}
+					String strFormat = "%." + 1 + "f";
+					String s = String.format(strFormat, d);
+					modifiedStr.append(s);
+					if (it != itrNum - 1)
+						modifiedStr.append(",");
+				}
+				String action = modifiedStr.toString();
+				if (!seenInBranch.add(action))
+					continue;
+				actions.modifiedStrings.add(action);
+				actions.operators.add(oprStr);
+				actions.deltas.add(curDel);
+			}
+		}
+		return actions;
+	}
+
+	/**
+	 * Assigns a branch its first node id and outcome number and the player 2 information sets of its
+	 * actions, on the calling thread in branch order
+	 */
+	private BranchPlan planBranch(int branchIndex, BranchActions branch, int firstNodeId) {
+		int numActions = branch.modifiedStrings.size();
+		int[] p2InformationSets = new int[numActions];
+		for (int k = 0; k < numActions; k++) {
+			String modifiedStr = branch.modifiedStrings.get(k);
+			p2InfoClass.put(modifiedStr, configuration.getHostClass(branchIndex));
+			setP2InformationSet(modifiedStr, branchIndex);
+			p2InformationSets[k] = getP2InofrmationSet(modifiedStr);
+		}
+		System.out.println("size " + numActions);
+		BranchPlan plan = new BranchPlan(firstNodeId, mOutcomeCnt + 1, p2InformationSets);
+		mOutcomeCnt += numActions * PLAYER_TWO_ACTIONS.size();
+		return plan;
+	}
+
+	/**
+	 * Creates the player 1 node of a nature branch and the subtree below it in the given GraphFormats
+	 */
+	private void createBranchNodes(GraphFormat[] formats, int branchIndex, BranchActions branch, BranchPlan plan) {
+		for (GraphFormat graphFormat : formats) {
+			graphFormat.createPlayerNode(Utils.PLAYER_NODE_NAME, Utils.PLAYER_ONE, branchIndex,
+					mChnaceNodeActionList.get(branchIndex), branch.modifiedStrings, 0);
+		}
+		int outcome = plan.firstOutcome;
+		for (int k = 0; k < branch.modifiedStrings.size(); k++) {
+			movePlayerTwo(formats, branch.modifiedStrings.get(k), plan.p2InformationSets[k],
+					configuration.getHostClass(branchIndex), branch.operators.get(k), branch.deltas.get(k), outcome);
+			outcome += PLAYER_TWO_ACTIONS.size();
+		}
+	}
 
-		ArrayList<String> actions = new ArrayList<>();
-		String cl_1 = "Class_1";
-		String cl_2 = "Class_2";
-		actions.add(cl_1);
-		actions.add(cl_2);
+	/**
+	 * Player 1 actions of a nature branch without duplicates, in generation order
+	 */
+	private static class BranchActions {
+		ArrayList<String> modifiedStrings = new ArrayList<String>();
+		ArrayList<String> operators = new ArrayList<String>();
+		ArrayList<double[]> deltas = new ArrayList<double[]>();
+	}
+
+	/**
+	 * The node ids, outcome numbers and player 2 information sets assigned to a nature branch
+	 */
+	private static class BranchPlan {
+		final int firstNodeId;
+		final int firstOutcome;
+		final int[] p2InformationSets; // indexed as [player 1 action]
+		final int numNodes; // the player 1 node, and a player 2 node and its leaves per action
+
+		BranchPlan(int firstNodeId, int firstOutcome, int[] p2InformationSets) {
+			this.firstNodeId = firstNodeId;
+			this.firstOutcome = firstOutcome;
+			this.p2InformationSets = p2InformationSets;
+			numNodes = 1 + p2InformationSets.length * (1 + PLAYER_TWO_ACTIONS.size());
+		}
+	}
+
+	private void movePlayerTwo(GraphFormat[] formats, String p1ModifiedAction, int infosetNo, int cls, String optrs,
+			double[] deltas, int firstOutcome) {
 		// String p2InfoSet = getP2InofrmationSet(p1ModifiedAction); // Making same
 		// infoset for both real and HP
 		// int infosetNo = mBinarytoIntNumbers.get(p2InfoSet); // playerOne action was
 		// used previously. For creating uncertainity for player2 new information set is
 		// used.
-		int infosetNo = getP2InofrmationSet(p1ModifiedAction);
-		createGambitFile.createPlayerNode(Utils.PLAYER_NODE_NAME, Utils.PLAYER_TWO, infosetNo, p1ModifiedAction,
-				actions, 0);
-		setTerminalNode(actions, cls, optrs, deltas, p1ModifiedAction, palyerOneInfoSet, natureAction);
+		for (GraphFormat graphFormat : formats) {
+			graphFormat.createPlayerNode(Utils.PLAYER_NODE_NAME, Utils.PLAYER_TWO, infosetNo, p1ModifiedAction,
+					PLAYER_TWO_ACTIONS, 0);
+		}
+		setTerminalNode(formats, PLAYER_TWO_ACTIONS, cls, optrs, deltas, firstOutcome);
 	}
 
 	private double getModificationCostByOperator(char key) {
@@ -234,8 +422,8 @@ public class CreateTree {
 
 	}
 
-	private void setTerminalNode(List actions, int cl, String operator, double[] deltas, String playerOneAction, int playerOneInfoSet,
-			String natureAction) {
+	private void setTerminalNode(GraphFormat[] formats, List actions, int cl, String operator, double[] deltas,
+			int firstOutcome) {
 		double cost = 0;
 		for (int i = 0; i < operator.length(); i++) {
 			cost += (getModificationCostByOperator(operator.charAt(i))* getModificationCostByOperator(deltas[i]));
@@ -262,8 +450,10 @@ public class CreateTree {
 				payoffs.add(-(payoff));
 			}
 
-			createGambitFile.createTerminalNode(Utils.TERMINAL_NODE_NAME, ++mOutcomeCnt, "Outcome " + mOutcomeCnt,
-					payoffs);
+			int outcome = firstOutcome + k;
+			for (GraphFormat graphFormat : formats) {
+				graphFormat.createTerminalNode(Utils.TERMINAL_NODE_NAME, outcome, "Outcome " + outcome, payoffs);
+			}
 		}
 
 	}
@@ -302,11 +492,11 @@ public class CreateTree {
 	 */
 	
 	private void generateAllPossibleDeltaCombination() {
-		permutation(new double[Utils.REAL_HOST_FEATURES_NUM], 0, deltaValues);
+		permutation(new double[configuration.getNumFeatures()], 0, deltaValues);
 	}
 	private void generateAllPossibleOperatorCombination() {
 
-		char[] perm = new char[Utils.REAL_HOST_FEATURES_NUM];
+		char[] perm = new char[configuration.getNumFeatures()];
 		permutation(perm, 0, operators);
 	}
 
@@ -335,17 +525,26 @@ public class CreateTree {
 	    }
 	}	
 		
+	/**
+	 * Finishes every output: closes the .efg file and/or completes the in-memory Game
+	 */
 	public void closeFile() {
-		createGambitFile.closeFile();
+		for (GraphFormat graphFormat : graphFormats) {
+			graphFormat.finish();
+		}
 	}
 
+	/**
+	 * Adds the features of every host of the configuration as a nature action, e.g. "3.2,0.9"
+	 */
 	public void addFeaturesInVector(ArrayList<String> featureVec) {
-		String class1 = "" + 3.2 + "," + 0.9; // class1
-		String class2 = "" + 3.0 + "," + 0.7; // class2
-		featureVec.add(class1);
-		featureVec.add(class2);  
-		
-
+		for (int host = 0; host < configuration.getNumHosts(); host++) {
+			StringBuilder features = new StringBuilder();
+			for (double feature : configuration.getHostFeatures(host)) {
+				features.append(features.length() > 0 ? "," : "").append(feature);
+			}
+			featureVec.add(features.toString());
+		}
 	}
 
 }
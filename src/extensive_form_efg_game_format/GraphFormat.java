@@ -6,5 +6,19 @@ public interface GraphFormat {
 	public void createChanceNode(String nodeName, int informationSet, List actions, List probabilites, int payoff);
 	public void createPlayerNode(String name, int playerNo, int infoset, String infosetName, List actions, int outcome);
 	public void createTerminalNode(String name, int outcome, String outcomeName, List payoffs);
+	/**
+	 * Called after the last node has been created
+	 */
+	public void finish();
+	/**
+	 * Returns a GraphFormat that buffers the nodes of a subtree, numbered from firstNodeId, so that the
+	 * subtree can be created on another thread. The buffer is added with appendBranch.
+	 */
+	public GraphFormat createBranch(int firstNodeId);
+	/**
+	 * Adds the nodes of a buffer from createBranch once all nodes before its first node have been created.
+	 * Buffers are appended on the thread that creates the other nodes, in node order.
+	 */
+	public void appendBranch(GraphFormat branch);
 
 }
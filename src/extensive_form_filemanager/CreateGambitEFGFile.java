@@ -1,102 +1,245 @@
 package extensive_form_filemanager;
 
-import java.io.BufferedWriter;
-import java.io.File;
-import java.io.FileWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
 import java.util.List;
 
 import extensive_form_efg_game_format.GraphFormat;
+import utils.CompressedChannels;
 import utils.Utils;
 
 
+/**
+ * Writes the game tree as a Gambit .efg file. Every line is built in one reusable StringBuilder,
+ * copied into a reusable char array and encoded as UTF-8 straight into a large ByteBuffer that is
+ * written to a FileChannel whenever it is full, so writing a node allocates nothing per action or payoff.
+ * Payoffs and probabilities take few distinct values, so their text is cached instead of running
+ * Double.toString for every node.
+ *
+ * If the filename ends in .gz (e.g. games/hsg_game.efg.gz) it is used as it is and the file is gzip
+ * compressed on a background thread while the tree is generated. Otherwise .efg is appended.
+ *
+ * A branch from createBranch writes its lines, with node numbers from its first node id, into memory
+ * instead of a file, and appendBranch copies those bytes to the file.
+ */
 public class CreateGambitEFGFile implements GraphFormat {
+	public static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+	private static final int BRANCH_BUFFER_SIZE = 1 << 16;
+	private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+	private static final int MAX_CACHED_NUMBERS = 4096;
 
 	private String mFilename;
-	private BufferedWriter mBw = null;
-	private File mFile;
+	private WritableByteChannel mChannel;
+	private ByteBuffer mBuffer;
+	private CharsetEncoder mEncoder;
+	private StringBuilder mLine;
+	private char[] mChars;
+	private CharBuffer mCharBuffer;
+	private HashMap<Object, String> mNumberText;
 	private int nodeCount;
+	private long bytesWritten;
+	private int firstNodeId; // first node of a branch, 0 for the file
+	private ByteArrayOutputStream branchBytes; // lines of a branch, null for the file
 
 	public CreateGambitEFGFile(String filename) {
+		this(filename, DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * @param filename name of the file without the .efg extension, or a full name ending in .gz
+	 * @param bufferSize size in bytes of the buffer that is written to the file in one call
+	 */
+	public CreateGambitEFGFile(String filename, int bufferSize) {
 		mFilename = filename;
 		nodeCount = 0;
+		mBuffer = ByteBuffer.allocate(Math.max(bufferSize, 1024));
+		mEncoder = StandardCharsets.UTF_8.newEncoder();
+		mLine = new StringBuilder(1024);
+		mChars = new char[1024];
+		mCharBuffer = CharBuffer.wrap(mChars);
+		mNumberText = new HashMap<Object, String>();
 		init();
 
 	}
 
-	private void init() {
+	/**
+	 * Creates a branch that keeps its lines in memory, see createBranch
+	 */
+	private CreateGambitEFGFile(int firstNodeId) {
+		this.firstNodeId = firstNodeId;
+		nodeCount = firstNodeId;
+		mBuffer = ByteBuffer.allocate(BRANCH_BUFFER_SIZE);
+		mEncoder = StandardCharsets.UTF_8.newEncoder();
+		mLine = new StringBuilder(1024);
+		mChars = new char[1024];
+		mCharBuffer = CharBuffer.wrap(mChars);
+		mNumberText = new HashMap<Object, String>();
+		branchBytes = new ByteArrayOutputStream(BRANCH_BUFFER_SIZE);
+		mChannel = Channels.newChannel(branchBytes);
+	}
 
-		mFile = new File(mFilename + Utils.FILE_FORMAT);
-		FileWriter fw;
+	private void init() {
 		try {
-			fw = new FileWriter(mFile);
-			mBw = new BufferedWriter(fw);
-			if (!mFile.exists()) {
-				mFile.createNewFile();
-			}
-
+			String path = CompressedChannels.isCompressed(mFilename) ? mFilename : mFilename + Utils.FILE_FORMAT;
+			mChannel = CompressedChannels.newWriteChannel(path);
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
-		
-		String title = "EFG 2 R \"Honeypot Selection game, One-Shot\" { \"Player 1\" \"Player 2 \" }";
-		writeToFile(mFilename, title);
+
+		mLine.setLength(0);
+		mLine.append("EFG 2 R \"Honeypot Selection game, One-Shot\" { \"Player 1\" \"Player 2 \" }");
+		writeLine();
 	}
 
 	@Override
 	public void createChanceNode(String name, int infoset, List actions, List prob, int outcome) {
-
-		String lineEntries = name + " \""+ (nodeCount++) +"\" " + infoset + " \"\"" + " { ";
+		mLine.setLength(0);
+		mLine.append(name).append(" \"").append(nodeCount++).append("\" ").append(infoset).append(" \"\" { ");
 		for (int i = 0; i < actions.size(); i++) {
-			lineEntries += "\"" + actions.get(i) + "\" " + prob.get(i) + " ";
+			mLine.append('"').append(actions.get(i)).append("\" ");
+			appendNumber(prob.get(i));
+			mLine.append(' ');
 		}
-		lineEntries += "} " + outcome;
-		writeToFile(mFilename, lineEntries);
-		// closeFile();
-
+		mLine.append("} ").append(outcome);
+		writeLine();
 	}
 
 	@Override
 	public void createPlayerNode(String name, int playerNo, int infoset, String infosetName, List actions,
 			int outcome) {
-		String lineEntries = name +" \""+ (nodeCount++) +"\" " + playerNo + " " + infoset + " \"(" + infosetName + ")\" { ";
+		mLine.setLength(0);
+		mLine.append(name).append(" \"").append(nodeCount++).append("\" ").append(playerNo).append(' ')
+				.append(infoset).append(" \"(").append(infosetName).append(")\" { ");
 		for (int i = 0; i < actions.size(); i++) {
-			lineEntries += "\"" + actions.get(i) + "\" ";
+			mLine.append('"').append(actions.get(i)).append("\" ");
 		}
-		lineEntries += "} " + outcome;
-		writeToFile(mFilename, lineEntries);
-
+		mLine.append("} ").append(outcome);
+		writeLine();
 	}
 
 	@Override
 	public void createTerminalNode(String name, int outcome, String outcomeName, List payoffs) {
-		String lineEntries = name + " \""+ (nodeCount++) +"\" " + outcome + " \"" + outcomeName + "\" { ";
+		mLine.setLength(0);
+		mLine.append(name).append(" \"").append(nodeCount++).append("\" ").append(outcome).append(" \"")
+				.append(outcomeName).append("\" { ");
 		for (int i = 0; i < payoffs.size(); i++) {
-			lineEntries +=  payoffs.get(i) + " ";
+			appendNumber(payoffs.get(i));
+			mLine.append(' ');
+		}
+		mLine.append("} ");
+		writeLine();
+	}
+
+	/**
+	 * Appends the same text as String.valueOf(number), looked up in a bounded cache
+	 */
+	private void appendNumber(Object number) {
+		String text = mNumberText.get(number);
+		if (text == null) {
+			text = String.valueOf(number);
+			if (mNumberText.size() < MAX_CACHED_NUMBERS) {
+				mNumberText.put(number, text);
+			}
 		}
-		lineEntries += "} ";
-		writeToFile(mFilename, lineEntries);
+		mLine.append(text);
 	}
 
-	private void writeToFile(String filename, String content) {
+	/**
+	 * Encodes the current line and a line separator into the output buffer, writing the buffer to the
+	 * file whenever it fills up
+	 */
+	private void writeLine() {
+		mLine.append(LINE_SEPARATOR);
+		int length = mLine.length();
+		if (length > mChars.length) {
+			mChars = new char[Math.max(length, 2 * mChars.length)];
+			mCharBuffer = CharBuffer.wrap(mChars);
+		}
+		mLine.getChars(0, length, mChars, 0);
+		mCharBuffer.limit(length).position(0);
 		try {
+			while (true) {
+				CoderResult result = mEncoder.encode(mCharBuffer, mBuffer, false);
+				if (result.isOverflow()) {
+					flushBuffer();
+				} else if (result.isUnderflow()) {
+					break;
+				} else {
+					result.throwException();
+				}
+			}
+		} catch (IOException ioe) {
+			ioe.printStackTrace();
+		}
+	}
+
+	private void flushBuffer() throws IOException {
+		mBuffer.flip();
+		while (mBuffer.hasRemaining()) {
+			bytesWritten += mChannel.write(mBuffer);
+		}
+		mBuffer.clear();
+	}
 
-			mBw.write(content);
-			mBw.newLine();
-			//System.out.println("File written Successfully");
+	@Override
+	public void finish() {
+		closeFile();
+	}
+
+	@Override
+	public GraphFormat createBranch(int firstNodeId) {
+		return new CreateGambitEFGFile(firstNodeId);
+	}
 
+	@Override
+	public void appendBranch(GraphFormat branch) {
+		CreateGambitEFGFile efgBranch = (CreateGambitEFGFile) branch;
+		if (efgBranch.branchBytes == null || efgBranch.firstNodeId != nodeCount) {
+			throw new IllegalStateException("CreateGambitEFGFile::appendBranch: branch starting at node "
+					+ efgBranch.firstNodeId + " appended at node " + nodeCount);
+		}
+		try {
+			efgBranch.flushBuffer();
+			flushBuffer();
+			efgBranch.branchBytes.writeTo(Channels.newOutputStream(mChannel));
+			bytesWritten += efgBranch.branchBytes.size();
 		} catch (IOException ioe) {
 			ioe.printStackTrace();
 		}
+		nodeCount = efgBranch.nodeCount;
 	}
 
 	public void closeFile() {
 		try {
-			if (mBw != null)
-				mBw.close();
+			if (mChannel != null) {
+				mEncoder.encode(CharBuffer.wrap(""), mBuffer, true);
+				mEncoder.flush(mBuffer);
+				flushBuffer();
+				mChannel.close();
+				mChannel = null;
+			}
 		} catch (Exception ex) {
-			System.out.println("Error in closing the BufferedWriter" + ex);
+			System.out.println("Error in closing the EFG file" + ex);
 		}
 	}
 
+	/**
+	 * Number of bytes written to the file so far, not counting what is still in the buffer
+	 */
+	public long getBytesWritten() {
+		return bytesWritten;
+	}
+
+	public int getNodeCount() {
+		return nodeCount;
+	}
+
 }
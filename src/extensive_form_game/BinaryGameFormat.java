@@ -0,0 +1,164 @@
+package extensive_form_game;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Versioned binary file format for a FlatGameTree. The file is a fixed header followed by the
+ * primitive arrays of the tree, each written as one contiguous section, so loading is a memory map
+ * and a bulk copy per section without any per-node parsing.
+ *
+ * Layout (little endian, sections are naturally aligned because they are ordered by element width):
+ * header        8 ints: magic, version, numNodes, numActions, numLeaves, numActionNames,
+ *               string table size in bytes, reserved
+ * doubles       actionProbability[numActions], valuePlayerOne[numLeaves], valuePlayerTwo[numLeaves]
+ * ints          informationSet[numNodes], numActions[numNodes], offset[numNodes],
+ *               childId[numActions], actionNameId[numActions], stringOffset[numActionNames + 1]
+ * bytes         player[numNodes], UTF-8 action names, name i is [stringOffset[i], stringOffset[i+1])
+ */
+public class BinaryGameFormat {
+	public static final int MAGIC = 0x42474645; // "EFGB" in little endian
+	public static final int VERSION = 1;
+	private static final int HEADER_INTS = 8;
+
+	/**
+	 * Writes the tree to filename, replacing an existing file
+	 */
+	public static void write(FlatGameTree tree, String filename) throws IOException {
+		int numNodes = tree.getNumNodes();
+		int numActions = tree.getNumActionsTotal();
+		int numLeaves = tree.getNumLeaves();
+		int numActionNames = tree.getNumActionNames();
+
+		byte[][] names = new byte[numActionNames][];
+		int[] stringOffset = new int[numActionNames + 1];
+		for (int i = 0; i < numActionNames; i++) {
+			names[i] = tree.getActionNameById(i).getBytes(StandardCharsets.UTF_8);
+			stringOffset[i + 1] = stringOffset[i] + names[i].length;
+		}
+		int stringBytes = stringOffset[numActionNames];
+
+		long size = fileSize(numNodes, numActions, numLeaves, numActionNames, stringBytes);
+		if (size > Integer.MAX_VALUE) {
+			throw new IOException("BinaryGameFormat: game too large for a single mapped file: " + size + " bytes");
+		}
+
+		RandomAccessFile file = new RandomAccessFile(filename, "rw");
+		try {
+			file.setLength(0);
+			FileChannel channel = file.getChannel();
+			MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+			out.order(ByteOrder.LITTLE_ENDIAN);
+
+			out.asIntBuffer().put(new int[] { MAGIC, VERSION, numNodes, numActions, numLeaves,
+					numActionNames, stringBytes, 0 });
+			out.position(4 * HEADER_INTS);
+
+			out.asDoubleBuffer().put(tree.actionProbabilityArray(), 0, numActions)
+					.put(tree.valuePlayerOneArray(), 0, numLeaves)
+					.put(tree.valuePlayerTwoArray(), 0, numLeaves);
+			out.position(out.position() + 8 * (numActions + 2 * numLeaves));
+
+			out.asIntBuffer().put(tree.informationSetArray(), 0, numNodes)
+					.put(tree.numActionsArray(), 0, numNodes)
+					.put(tree.offsetArray(), 0, numNodes)
+					.put(tree.childIdArray(), 0, numActions)
+					.put(tree.actionNameIdArray(), 0, numActions)
+					.put(stringOffset);
+			out.position(out.position() + 4 * (3 * numNodes + 2 * numActions + numActionNames + 1));
+
+			out.put(tree.playerArray(), 0, numNodes);
+			for (byte[] name : names) {
+				out.put(name);
+			}
+			out.force();
+		} finally {
+			file.close();
+		}
+	}
+
+	/**
+	 * Maps filename and copies its sections into a new FlatGameTree
+	 */
+	public static FlatGameTree read(String filename) throws IOException {
+		RandomAccessFile file = new RandomAccessFile(filename, "r");
+		try {
+			FileChannel channel = file.getChannel();
+			long length = channel.size();
+			if (length < 4 * HEADER_INTS) {
+				throw new IOException("BinaryGameFormat: file too short: " + filename);
+			}
+			if (length > Integer.MAX_VALUE) {
+				throw new IOException("BinaryGameFormat: file too large: " + filename);
+			}
+			MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+			in.order(ByteOrder.LITTLE_ENDIAN);
+			return read(in, filename);
+		} finally {
+			file.close();
+		}
+	}
+
+	private static FlatGameTree read(ByteBuffer in, String filename) throws IOException {
+		int[] header = new int[HEADER_INTS];
+		in.asIntBuffer().get(header);
+		if (header[0] != MAGIC) {
+			throw new IOException("BinaryGameFormat: not a binary game file: " + filename);
+		}
+		if (header[1] != VERSION) {
+			throw new IOException("BinaryGameFormat: unsupported version " + header[1] + " in " + filename);
+		}
+		int numNodes = header[2];
+		int numActions = header[3];
+		int numLeaves = header[4];
+		int numActionNames = header[5];
+		int stringBytes = header[6];
+		if (numNodes < 0 || numActions < 0 || numLeaves < 0 || numActionNames < 0 || stringBytes < 0
+				|| fileSize(numNodes, numActions, numLeaves, numActionNames, stringBytes) != in.limit()) {
+			throw new IOException("BinaryGameFormat: header does not match file size: " + filename);
+		}
+		in.position(4 * HEADER_INTS);
+
+		double[] actionProbability = new double[numActions];
+		double[] valuePlayerOne = new double[numLeaves];
+		double[] valuePlayerTwo = new double[numLeaves];
+		in.asDoubleBuffer().get(actionProbability).get(valuePlayerOne).get(valuePlayerTwo);
+		in.position(in.position() + 8 * (numActions + 2 * numLeaves));
+
+		int[] informationSet = new int[numNodes];
+		int[] nodeNumActions = new int[numNodes];
+		int[] offset = new int[numNodes];
+		int[] childId = new int[numActions];
+		int[] actionNameId = new int[numActions];
+		int[] stringOffset = new int[numActionNames + 1];
+		in.asIntBuffer().get(informationSet).get(nodeNumActions).get(offset).get(childId).get(actionNameId).get(stringOffset);
+		in.position(in.position() + 4 * (3 * numNodes + 2 * numActions + numActionNames + 1));
+
+		byte[] player = new byte[numNodes];
+		in.get(player);
+		byte[] strings = new byte[stringBytes];
+		in.get(strings);
+		String[] actionNames = new String[numActionNames];
+		for (int i = 0; i < numActionNames; i++) {
+			if (stringOffset[i] < 0 || stringOffset[i] > stringOffset[i + 1] || stringOffset[i + 1] > stringBytes) {
+				throw new IOException("BinaryGameFormat: corrupt string table in " + filename);
+			}
+			actionNames[i] = new String(strings, stringOffset[i], stringOffset[i + 1] - stringOffset[i], StandardCharsets.UTF_8);
+		}
+
+		return FlatGameTree.wrap(player, informationSet, nodeNumActions, offset, childId, actionNameId,
+				actionProbability, valuePlayerOne, valuePlayerTwo, actionNames);
+	}
+
+	private static long fileSize(int numNodes, int numActions, int numLeaves, int numActionNames, int stringBytes) {
+		return 4L * HEADER_INTS
+				+ 8L * (numActions + 2L * numLeaves)
+				+ 4L * (3L * numNodes + 2L * numActions + numActionNames + 1)
+				+ numNodes + stringBytes;
+	}
+}
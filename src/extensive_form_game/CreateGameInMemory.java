@@ -0,0 +1,145 @@
+package extensive_form_game;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import extensive_form_efg_game_format.GraphFormat;
+
+/**
+ * GraphFormat that builds a Game directly from the node callbacks of CreateTree, so a generated game
+ * can be solved without writing and re-parsing an .efg file. Nodes are numbered in the order they are
+ * created, exactly as CreateGambitEFGFile numbers them in the file.
+ *
+ * The Game is built on one thread, so a branch from createBranch only records its player and leaf nodes,
+ * and appendBranch creates them in the Game.
+ */
+public class CreateGameInMemory implements GraphFormat {
+
+	private Game game;
+	private int nodeCount;
+	private String[] actionNames = new String[16];
+
+	public CreateGameInMemory(Game game) {
+		this.game = game;
+		nodeCount = 0;
+		game.startGame();
+	}
+
+	@Override
+	public void createChanceNode(String nodeName, int informationSet, List actions, List probabilites, int payoff) {
+		String[] chanceActionNames = new String[actions.size()];
+		double[] chanceProbabilities = new double[actions.size()];
+		for (int i = 0; i < actions.size(); i++) {
+			chanceActionNames[i] = String.valueOf(actions.get(i));
+			chanceProbabilities[i] = ((Number) probabilites.get(i)).doubleValue();
+		}
+		game.createChanceNode(nodeCount++, chanceActionNames, chanceProbabilities, chanceActionNames.length);
+	}
+
+	@Override
+	public void createPlayerNode(String name, int playerNo, int infoset, String infosetName, List actions, int outcome) {
+		if (actions.size() > actionNames.length) {
+			actionNames = Arrays.copyOf(actionNames, 2 * actions.size());
+		}
+		for (int i = 0; i < actions.size(); i++) {
+			actionNames[i] = String.valueOf(actions.get(i));
+		}
+		game.createPlayerNode(nodeCount++, playerNo, infoset, actionNames, actions.size());
+	}
+
+	@Override
+	public void createTerminalNode(String name, int outcome, String outcomeName, List payoffs) {
+		double valuePlayerOne = ((Number) payoffs.get(0)).doubleValue();
+		double valuePlayerTwo = ((Number) payoffs.get(1)).doubleValue();
+		game.createLeafNode(nodeCount++, valuePlayerOne, valuePlayerTwo);
+	}
+
+	@Override
+	public void finish() {
+		game.endGame();
+	}
+
+	public Game getGame() {
+		return game;
+	}
+
+	@Override
+	public GraphFormat createBranch(int firstNodeId) {
+		return new Branch(firstNodeId);
+	}
+
+	@Override
+	public void appendBranch(GraphFormat branch) {
+		Branch recorded = (Branch) branch;
+		if (recorded.firstNodeId != nodeCount) {
+			throw new IllegalStateException("CreateGameInMemory::appendBranch: branch starting at node "
+					+ recorded.firstNodeId + " appended at node " + nodeCount);
+		}
+		for (int node = 0; node < recorded.players.size(); node++) {
+			int player = recorded.players.get(node);
+			if (player == -2) {
+				double[] values = recorded.values.get(node);
+				game.createLeafNode(nodeCount++, values[0], values[1]);
+			} else {
+				String[] names = recorded.actionNames.get(node);
+				game.createPlayerNode(nodeCount++, player, recorded.informationSets.get(node), names, names.length);
+			}
+		}
+	}
+
+	/**
+	 * The player and leaf nodes of a branch in creation order. Player nodes keep their information set and
+	 * action names, leaves their values, and the player of a leaf is -2.
+	 */
+	private static class Branch implements GraphFormat {
+		private final int firstNodeId;
+		private final List<Integer> players = new ArrayList<Integer>();
+		private final List<Integer> informationSets = new ArrayList<Integer>();
+		private final List<String[]> actionNames = new ArrayList<String[]>();
+		private final List<double[]> values = new ArrayList<double[]>();
+
+		Branch(int firstNodeId) {
+			this.firstNodeId = firstNodeId;
+		}
+
+		@Override
+		public void createChanceNode(String nodeName, int informationSet, List actions, List probabilites, int payoff) {
+			throw new UnsupportedOperationException("CreateGameInMemory::Branch: chance nodes are only created at the root");
+		}
+
+		@Override
+		public void createPlayerNode(String name, int playerNo, int infoset, String infosetName, List actions, int outcome) {
+			String[] names = new String[actions.size()];
+			for (int i = 0; i < names.length; i++) {
+				names[i] = String.valueOf(actions.get(i));
+			}
+			players.add(playerNo);
+			informationSets.add(infoset);
+			actionNames.add(names);
+			values.add(null);
+		}
+
+		@Override
+		public void createTerminalNode(String name, int outcome, String outcomeName, List payoffs) {
+			players.add(-2);
+			informationSets.add(-1);
+			actionNames.add(null);
+			values.add(new double[] { ((Number) payoffs.get(0)).doubleValue(), ((Number) payoffs.get(1)).doubleValue() });
+		}
+
+		@Override
+		public void finish() {
+		}
+
+		@Override
+		public GraphFormat createBranch(int firstNodeId) {
+			throw new UnsupportedOperationException("CreateGameInMemory::Branch: branches do not nest");
+		}
+
+		@Override
+		public void appendBranch(GraphFormat branch) {
+			throw new UnsupportedOperationException("CreateGameInMemory::Branch: branches do not nest");
+		}
+	}
+}
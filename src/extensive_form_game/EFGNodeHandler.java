@@ -0,0 +1,37 @@
+package extensive_form_game;
+
+/**
+ * Receives the nodes of an extensive-form game one at a time, in the order they appear in an .efg file.
+ * Arrays passed to the handler are reused by the caller, so implementations must copy what they keep.
+ */
+public interface EFGNodeHandler {
+
+	/**
+	 * Called before the first node, when the EFG header line is seen
+	 */
+	public void startGame();
+
+	/**
+	 * @param nodeId
+	 * @param actionNames names of the nature actions, only the first numActions entries are valid
+	 * @param probabilities probability of each nature action
+	 * @param numActions
+	 */
+	public void createChanceNode(int nodeId, String[] actionNames, double[] probabilities, int numActions);
+
+	/**
+	 * @param nodeId
+	 * @param player 1 or 2
+	 * @param informationSet
+	 * @param actionNames only the first numActions entries are valid
+	 * @param numActions
+	 */
+	public void createPlayerNode(int nodeId, int player, int informationSet, String[] actionNames, int numActions);
+
+	public void createLeafNode(int nodeId, double valuePlayerOne, double valuePlayerTwo);
+
+	/**
+	 * Called after the last node
+	 */
+	public void endGame();
+}
@@ -0,0 +1,419 @@
+package extensive_form_game;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import gnu.trove.list.array.TLongArrayList;
+
+/**
+ * Loads large .efg files in parallel. The file is split into newline-aligned chunks, each chunk is
+ * memory-mapped with FileChannel.map and parsed by its own EFGParser on a fork-join pool. Since every
+ * line carries an explicit node id, a second parallel pass places the parsed records directly into
+ * the preallocated arrays of a FlatGameTree.
+ */
+public class EFGParallelLoader {
+	public static final int MAX_CHUNK_SIZE = 64 << 20;
+	public static final int MIN_CHUNK_SIZE = 1 << 20;
+
+	private final ForkJoinPool pool;
+	private final int chunkSize;
+
+	private long bytesRead;
+	private long elapsedNanos;
+
+	/**
+	 * Uses a fork-join pool with one worker per available processor
+	 */
+	public EFGParallelLoader() {
+		this(null, 0);
+	}
+
+	/**
+	 * @param pool pool to parse on, or null to create one for each load
+	 * @param chunkSize bytes per chunk, or 0 to pick a size based on the file size and the parallelism
+	 */
+	public EFGParallelLoader(ForkJoinPool pool, int chunkSize) {
+		this.pool = pool;
+		this.chunkSize = chunkSize;
+	}
+
+	public FlatGameTree load(String filename) throws IOException {
+		long start = System.nanoTime();
+		RandomAccessFile file = new RandomAccessFile(filename, "r");
+		ForkJoinPool loadPool = pool != null ? pool : new ForkJoinPool();
+		try {
+			FileChannel channel = file.getChannel();
+			long size = channel.size();
+			int targetChunkSize = chunkSize > 0 ? chunkSize
+					: (int) Math.max(MIN_CHUNK_SIZE, Math.min(MAX_CHUNK_SIZE, size / (4L * loadPool.getParallelism())));
+			TLongArrayList boundaries = findChunkBoundaries(channel, targetChunkSize);
+
+			final List<ParseChunkTask> parseTasks = new ArrayList<ParseChunkTask>();
+			for (int i = 0; i + 1 < boundaries.size(); i++) {
+				long chunkStart = boundaries.get(i);
+				long chunkEnd = boundaries.get(i + 1);
+				parseTasks.add(new ParseChunkTask(channel.map(FileChannel.MapMode.READ_ONLY, chunkStart, chunkEnd - chunkStart)));
+			}
+			invokeAll(loadPool, parseTasks);
+			for (ParseChunkTask task : parseTasks) {
+				if (task.failure != null) {
+					throw task.failure;
+				}
+			}
+
+			FlatGameTree tree = placeChunks(loadPool, parseTasks);
+			bytesRead += size;
+			return tree;
+		} finally {
+			if (pool == null) {
+				loadPool.shutdown();
+			}
+			file.close();
+			elapsedNanos += System.nanoTime() - start;
+		}
+	}
+
+	/**
+	 * Assigns every chunk its range in the global action and payoff arrays, merges the action name
+	 * tables, and copies all chunks into the tree arrays in parallel.
+	 */
+	private FlatGameTree placeChunks(ForkJoinPool loadPool, List<ParseChunkTask> parseTasks) throws IOException {
+		int numNodes = 0;
+		long numNodesParsed = 0;
+		int numActionsTotal = 0;
+		int numLeaves = 0;
+		HashMap<String, Integer> nameToId = new HashMap<String, Integer>();
+		List<String> names = new ArrayList<String>();
+		List<PlaceChunkTask> placeTasks = new ArrayList<PlaceChunkTask>();
+		for (ParseChunkTask task : parseTasks) {
+			Chunk chunk = task.chunk;
+			numNodes = Math.max(numNodes, chunk.maxNodeId + 1);
+			numNodesParsed += chunk.numNodes;
+			int[] nameRemap = new int[chunk.names.size()];
+			for (int i = 0; i < nameRemap.length; i++) {
+				String name = chunk.names.get(i);
+				Integer id = nameToId.get(name);
+				if (id == null) {
+					id = names.size();
+					names.add(name);
+					nameToId.put(name, id);
+				}
+				nameRemap[i] = id;
+			}
+			placeTasks.add(new PlaceChunkTask(chunk, numActionsTotal, numLeaves, nameRemap));
+			numActionsTotal += chunk.numActions;
+			numLeaves += chunk.numLeaves;
+		}
+		if (numNodesParsed != numNodes) {
+			throw new IOException("EFGParallelLoader: expected " + numNodes + " nodes with consecutive ids but parsed " + numNodesParsed);
+		}
+
+		byte[] player = new byte[numNodes];
+		int[] informationSet = new int[numNodes];
+		int[] numActions = new int[numNodes];
+		int[] offset = new int[numNodes];
+		int[] childId = new int[numActionsTotal];
+		int[] actionNameId = new int[numActionsTotal];
+		double[] actionProbability = new double[numActionsTotal];
+		double[] valuePlayerOne = new double[numLeaves];
+		double[] valuePlayerTwo = new double[numLeaves];
+		for (PlaceChunkTask task : placeTasks) {
+			task.setTargets(player, informationSet, numActions, offset, childId, actionNameId, actionProbability, valuePlayerOne, valuePlayerTwo);
+		}
+		invokeAll(loadPool, placeTasks);
+
+		return FlatGameTree.wrap(player, informationSet, numActions, offset, childId, actionNameId, actionProbability,
+				valuePlayerOne, valuePlayerTwo, names.toArray(new String[names.size()]));
+	}
+
+	private static void invokeAll(ForkJoinPool loadPool, final List<? extends RecursiveAction> tasks) {
+		loadPool.invoke(new RecursiveAction() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected void compute() {
+				invokeAll(tasks);
+			}
+		});
+	}
+
+	/**
+	 * @return offsets of the chunk starts, followed by the file size. Every chunk except the last ends
+	 * just after a newline.
+	 */
+	private static TLongArrayList findChunkBoundaries(FileChannel channel, int targetChunkSize) throws IOException {
+		long size = channel.size();
+		TLongArrayList boundaries = new TLongArrayList();
+		ByteBuffer probe = ByteBuffer.allocate(4096);
+		long chunkStart = 0;
+		boundaries.add(0);
+		while (chunkStart < size) {
+			long chunkEnd = chunkStart + targetChunkSize;
+			if (chunkEnd >= size) {
+				chunkEnd = size;
+			} else {
+				chunkEnd = nextLineStart(channel, chunkEnd, probe);
+			}
+			boundaries.add(chunkEnd);
+			chunkStart = chunkEnd;
+		}
+		return boundaries;
+	}
+
+	private static long nextLineStart(FileChannel channel, long position, ByteBuffer probe) throws IOException {
+		long size = channel.size();
+		while (position < size) {
+			probe.clear();
+			int read = channel.read(probe, position);
+			if (read <= 0) {
+				break;
+			}
+			for (int i = 0; i < read; i++) {
+				if (probe.get(i) == '\n') {
+					return position + i + 1;
+				}
+			}
+			position += read;
+		}
+		return size;
+	}
+
+	public long getBytesRead() {
+		return bytesRead;
+	}
+
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	/**
+	 * Throughput of all loads so far, in MB (2^20 bytes) per second
+	 */
+	public double getThroughputMBps() {
+		if (elapsedNanos == 0) {
+			return 0;
+		}
+		return (bytesRead / (1024.0 * 1024.0)) / (elapsedNanos / 1e9);
+	}
+
+	private static class ParseChunkTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final MappedByteBuffer mapped;
+		private final Chunk chunk = new Chunk();
+		private IOException failure;
+
+		ParseChunkTask(MappedByteBuffer mapped) {
+			this.mapped = mapped;
+		}
+
+		@Override
+		protected void compute() {
+			try {
+				new EFGParser(chunk).parse(new ByteBufferChannel(mapped));
+			} catch (IOException e) {
+				failure = e;
+			}
+		}
+	}
+
+	private static class PlaceChunkTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final Chunk chunk;
+		private final int actionBase;
+		private final int leafBase;
+		private final int[] nameRemap;
+		private byte[] player;
+		private int[] informationSet;
+		private int[] numActions;
+		private int[] offset;
+		private int[] childId;
+		private int[] actionNameId;
+		private double[] actionProbability;
+		private double[] valuePlayerOne;
+		private double[] valuePlayerTwo;
+
+		PlaceChunkTask(Chunk chunk, int actionBase, int leafBase, int[] nameRemap) {
+			this.chunk = chunk;
+			this.actionBase = actionBase;
+			this.leafBase = leafBase;
+			this.nameRemap = nameRemap;
+		}
+
+		void setTargets(byte[] player, int[] informationSet, int[] numActions, int[] offset, int[] childId,
+				int[] actionNameId, double[] actionProbability, double[] valuePlayerOne, double[] valuePlayerTwo) {
+			this.player = player;
+			this.informationSet = informationSet;
+			this.numActions = numActions;
+			this.offset = offset;
+			this.childId = childId;
+			this.actionNameId = actionNameId;
+			this.actionProbability = actionProbability;
+			this.valuePlayerOne = valuePlayerOne;
+			this.valuePlayerTwo = valuePlayerTwo;
+		}
+
+		@Override
+		protected void compute() {
+			int actionIndex = 0;
+			int leafIndex = 0;
+			for (int k = 0; k < chunk.numNodes; k++) {
+				int nodeId = chunk.nodeIds[k];
+				player[nodeId] = chunk.players[k];
+				informationSet[nodeId] = chunk.informationSets[k];
+				numActions[nodeId] = chunk.numActionsAtNode[k];
+				if (chunk.players[k] == -2) {
+					offset[nodeId] = leafBase + leafIndex;
+					valuePlayerOne[leafBase + leafIndex] = chunk.valuesPlayerOne[leafIndex];
+					valuePlayerTwo[leafBase + leafIndex] = chunk.valuesPlayerTwo[leafIndex];
+					leafIndex++;
+					continue;
+				}
+				offset[nodeId] = actionBase + actionIndex;
+				for (int i = 0; i < chunk.numActionsAtNode[k]; i++, actionIndex++) {
+					childId[actionBase + actionIndex] = chunk.childIds[actionIndex];
+					actionNameId[actionBase + actionIndex] = nameRemap[chunk.actionNameIds[actionIndex]];
+					actionProbability[actionBase + actionIndex] = chunk.actionProbabilities[actionIndex];
+				}
+			}
+		}
+	}
+
+	/**
+	 * Nodes of one chunk in file order, with chunk-local action name ids
+	 */
+	private static class Chunk implements EFGNodeHandler {
+		int numNodes;
+		int maxNodeId = -1;
+		int[] nodeIds = new int[1024];
+		byte[] players = new byte[1024];
+		int[] informationSets = new int[1024];
+		int[] numActionsAtNode = new int[1024];
+
+		int numActions;
+		int[] childIds = new int[1024];
+		int[] actionNameIds = new int[1024];
+		double[] actionProbabilities = new double[1024];
+
+		int numLeaves;
+		double[] valuesPlayerOne = new double[1024];
+		double[] valuesPlayerTwo = new double[1024];
+
+		// the parser interns names, so identical names arrive as the same String instance
+		final IdentityHashMap<String, Integer> nameToId = new IdentityHashMap<String, Integer>();
+		final List<String> names = new ArrayList<String>();
+
+		@Override
+		public void startGame() {
+		}
+
+		@Override
+		public void endGame() {
+		}
+
+		@Override
+		public void createChanceNode(int nodeId, String[] actionNames, double[] probabilities, int nodeNumActions) {
+			addNode(nodeId, 0, 0, nodeNumActions);
+			// child ids are not in the file, Game.endGame links them
+			for (int i = 0; i < nodeNumActions; i++) {
+				addAction(-1, actionNames[i], probabilities[i]);
+			}
+		}
+
+		@Override
+		public void createPlayerNode(int nodeId, int player, int informationSet, String[] actionNames, int nodeNumActions) {
+			addNode(nodeId, player, informationSet, nodeNumActions);
+			for (int i = 0; i < nodeNumActions; i++) {
+				addAction(-1, actionNames[i], 0);
+			}
+		}
+
+		@Override
+		public void createLeafNode(int nodeId, double valuePlayerOne, double valuePlayerTwo) {
+			addNode(nodeId, -2, -1, 0);
+			if (numLeaves == valuesPlayerOne.length) {
+				valuesPlayerOne = Arrays.copyOf(valuesPlayerOne, 2 * numLeaves);
+				valuesPlayerTwo = Arrays.copyOf(valuesPlayerTwo, 2 * numLeaves);
+			}
+			valuesPlayerOne[numLeaves] = valuePlayerOne;
+			valuesPlayerTwo[numLeaves] = valuePlayerTwo;
+			numLeaves++;
+		}
+
+		private void addNode(int nodeId, int player, int informationSet, int nodeNumActions) {
+			if (numNodes == nodeIds.length) {
+				nodeIds = Arrays.copyOf(nodeIds, 2 * numNodes);
+				players = Arrays.copyOf(players, 2 * numNodes);
+				informationSets = Arrays.copyOf(informationSets, 2 * numNodes);
+				numActionsAtNode = Arrays.copyOf(numActionsAtNode, 2 * numNodes);
+			}
+			nodeIds[numNodes] = nodeId;
+			players[numNodes] = (byte) player;
+			informationSets[numNodes] = informationSet;
+			numActionsAtNode[numNodes] = nodeNumActions;
+			numNodes++;
+			maxNodeId = Math.max(maxNodeId, nodeId);
+		}
+
+		private void addAction(int childId, String name, double probability) {
+			if (numActions == childIds.length) {
+				childIds = Arrays.copyOf(childIds, 2 * numActions);
+				actionNameIds = Arrays.copyOf(actionNameIds, 2 * numActions);
+				actionProbabilities = Arrays.copyOf(actionProbabilities, 2 * numActions);
+			}
+			Integer nameId = nameToId.get(name);
+			if (nameId == null) {
+				nameId = names.size();
+				names.add(name);
+				nameToId.put(name, nameId);
+			}
+			childIds[numActions] = childId;
+			actionNameIds[numActions] = nameId;
+			actionProbabilities[numActions] = probability;
+			numActions++;
+		}
+	}
+
+	/**
+	 * Exposes a mapped chunk as a channel, so chunks go through the same EFGParser as streamed files
+	 */
+	private static class ByteBufferChannel implements ReadableByteChannel {
+		private final ByteBuffer source;
+
+		ByteBufferChannel(ByteBuffer source) {
+			this.source = source;
+		}
+
+		@Override
+		public int read(ByteBuffer destination) {
+			if (!source.hasRemaining()) {
+				return -1;
+			}
+			int length = Math.min(destination.remaining(), source.remaining());
+			ByteBuffer slice = source.duplicate();
+			slice.limit(slice.position() + length);
+			destination.put(slice);
+			source.position(source.position() + length);
+			return length;
+		}
+
+		@Override
+		public boolean isOpen() {
+			return true;
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+}
@@ -0,0 +1,364 @@
+package extensive_form_game;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import utils.NumberParser;
+
+/**
+ * Single pass parser for the Gambit .efg format as written by CreateGambitEFGFile. Input is read from a
+ * ReadableByteChannel into one reusable buffer and tokenized in place: node ids, players, information
+ * sets, probabilities and payoffs are parsed directly from the bytes, and action names are interned so
+ * each distinct name becomes a String only once. Parsed nodes are passed on to an EFGNodeHandler.
+ *
+ * Line formats:
+ * c "nodeId" informationSet "name" { "action" probability ... } outcome
+ * p "nodeId" player informationSet "name" { "action" ... } outcome
+ * t "nodeId" outcome "outcome name" { payoffPlayer1 payoffPlayer2 }
+ */
+public class EFGParser {
+	public static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+
+	private final EFGNodeHandler handler;
+	private ByteBuffer buffer;
+	private final NameTable actionNameTable = new NameTable();
+
+	private String[] actionNames = new String[16];
+	private double[] probabilities = new double[16];
+
+	// Scanner state for the line currently being parsed
+	private byte[] source;
+	private int pos;
+	private int lineEnd;
+	private int tokenStart;
+	private int tokenEnd;
+	private boolean tokenQuoted;
+
+	private long bytesRead;
+	private long elapsedNanos;
+	private long linesParsed;
+
+	public EFGParser(EFGNodeHandler handler) {
+		this(handler, DEFAULT_BUFFER_SIZE);
+	}
+
+	public EFGParser(EFGNodeHandler handler, int bufferSize) {
+		this.handler = handler;
+		this.buffer = ByteBuffer.allocate(bufferSize);
+	}
+
+	/**
+	 * Reads the channel to the end, passing every node to the handler and calling endGame at the end
+	 * of input. The channel is not closed.
+	 */
+	public void parse(ReadableByteChannel channel) throws IOException {
+		long start = System.nanoTime();
+		buffer.clear();
+		boolean endOfInput = false;
+		while (!endOfInput) {
+			int read = channel.read(buffer);
+			if (read < 0) {
+				endOfInput = true;
+			} else {
+				bytesRead += read;
+			}
+			buffer.flip();
+			int parsedUpTo = parseLines(buffer.array(), buffer.position(), buffer.limit(), endOfInput);
+			buffer.position(parsedUpTo);
+			if (!endOfInput && parsedUpTo == 0 && buffer.limit() == buffer.capacity()) {
+				// a single line does not fit into the buffer
+				ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+				larger.put(buffer);
+				buffer = larger;
+			} else {
+				buffer.compact();
+			}
+		}
+		handler.endGame();
+		elapsedNanos += System.nanoTime() - start;
+	}
+
+	/**
+	 * Parses every complete line in [start, end) of the array. A trailing line without a newline is
+	 * only parsed if endOfInput is set.
+	 * @return index just after the last parsed line
+	 */
+	public int parseLines(byte[] input, int start, int end, boolean endOfInput) throws IOException {
+		int lineStart = start;
+		for (int i = start; i < end; i++) {
+			if (input[i] == '\n') {
+				parseLine(input, lineStart, i);
+				lineStart = i + 1;
+			}
+		}
+		if (endOfInput && lineStart < end) {
+			parseLine(input, lineStart, end);
+			lineStart = end;
+		}
+		return lineStart;
+	}
+
+	private void parseLine(byte[] input, int start, int end) throws IOException {
+		source = input;
+		pos = start;
+		lineEnd = end;
+		if (!nextToken()) {
+			return;
+		}
+		linesParsed++;
+		if (tokenEnd - tokenStart != 1 || tokenQuoted) {
+			if (tokenEquals("EFG")) {
+				handler.startGame();
+				return;
+			}
+			throw malformed(start, end);
+		}
+		switch (source[tokenStart]) {
+		case 'c':
+			parseChanceNode(start, end);
+			break;
+		case 'p':
+			parsePlayerNode(start, end);
+			break;
+		case 't':
+			parseLeafNode(start, end);
+			break;
+		default:
+			throw malformed(start, end);
+		}
+	}
+
+	private void parseChanceNode(int start, int end) throws IOException {
+		int nodeId = nextInt(start, end);
+		expectToken(start, end); // information set
+		expectToken(start, end); // node name
+		expectOpenBrace(start, end);
+		int numActions = 0;
+		while (true) {
+			expectToken(start, end);
+			if (!tokenQuoted && tokenEquals("}")) {
+				break;
+			}
+			ensureActionCapacity(numActions + 1);
+			actionNames[numActions] = actionNameTable.intern(source, tokenStart, tokenEnd);
+			probabilities[numActions] = nextDouble(start, end);
+			numActions++;
+		}
+		handler.createChanceNode(nodeId, actionNames, probabilities, numActions);
+	}
+
+	private void parsePlayerNode(int start, int end) throws IOException {
+		int nodeId = nextInt(start, end);
+		int player = nextInt(start, end);
+		int informationSet = nextInt(start, end);
+		expectToken(start, end); // node name
+		expectOpenBrace(start, end);
+		int numActions = 0;
+		while (true) {
+			expectToken(start, end);
+			if (!tokenQuoted && tokenEquals("}")) {
+				break;
+			}
+			ensureActionCapacity(numActions + 1);
+			actionNames[numActions++] = actionNameTable.intern(source, tokenStart, tokenEnd);
+		}
+		handler.createPlayerNode(nodeId, player, informationSet, actionNames, numActions);
+	}
+
+	private void parseLeafNode(int start, int end) throws IOException {
+		int nodeId = nextInt(start, end);
+		expectToken(start, end); // outcome
+		expectToken(start, end); // outcome name
+		expectOpenBrace(start, end);
+		double valuePlayerOne = nextDouble(start, end);
+		double valuePlayerTwo = nextDouble(start, end);
+		handler.createLeafNode(nodeId, valuePlayerOne, valuePlayerTwo);
+	}
+
+	/**
+	 * Advances to the next token of the current line. Quoted tokens exclude the quotes.
+	 * @return false if the line has no more tokens
+	 */
+	private boolean nextToken() {
+		while (pos < lineEnd) {
+			byte c = source[pos];
+			if (c != ' ' && c != '\t' && c != '\r' && c != ',') {
+				break;
+			}
+			pos++;
+		}
+		if (pos >= lineEnd) {
+			return false;
+		}
+		if (source[pos] == '"') {
+			tokenQuoted = true;
+			tokenStart = ++pos;
+			while (pos < lineEnd && source[pos] != '"') {
+				if (source[pos] == '\\') {
+					pos++;
+				}
+				pos++;
+			}
+			tokenEnd = Math.min(pos, lineEnd);
+			pos++;
+			return true;
+		}
+		tokenQuoted = false;
+		tokenStart = pos;
+		while (pos < lineEnd) {
+			byte c = source[pos];
+			if (c == ' ' || c == '\t' || c == '\r' || c == ',') {
+				break;
+			}
+			pos++;
+		}
+		tokenEnd = pos;
+		return true;
+	}
+
+	private void expectToken(int start, int end) throws IOException {
+		if (!nextToken()) {
+			throw malformed(start, end);
+		}
+	}
+
+	private void expectOpenBrace(int start, int end) throws IOException {
+		expectToken(start, end);
+		if (tokenQuoted || !tokenEquals("{")) {
+			throw malformed(start, end);
+		}
+	}
+
+	private int nextInt(int start, int end) throws IOException {
+		expectToken(start, end);
+		try {
+			return NumberParser.parseInt(source, tokenStart, tokenEnd);
+		} catch (NumberFormatException e) {
+			throw malformed(start, end);
+		}
+	}
+
+	private double nextDouble(int start, int end) throws IOException {
+		expectToken(start, end);
+		try {
+			return NumberParser.parseDouble(source, tokenStart, tokenEnd);
+		} catch (NumberFormatException e) {
+			throw malformed(start, end);
+		}
+	}
+
+	private boolean tokenEquals(String text) {
+		if (tokenEnd - tokenStart != text.length()) {
+			return false;
+		}
+		for (int i = 0; i < text.length(); i++) {
+			if (source[tokenStart + i] != text.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void ensureActionCapacity(int capacity) {
+		if (capacity > actionNames.length) {
+			actionNames = Arrays.copyOf(actionNames, 2 * capacity);
+			probabilities = Arrays.copyOf(probabilities, 2 * capacity);
+		}
+	}
+
+	private IOException malformed(int start, int end) {
+		return new IOException("EFGParser: malformed line: " + new String(source, start, end - start, StandardCharsets.UTF_8));
+	}
+
+	public long getBytesRead() {
+		return bytesRead;
+	}
+
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	public long getLinesParsed() {
+		return linesParsed;
+	}
+
+	/**
+	 * Throughput of all parse calls on this parser so far, in MB (2^20 bytes) per second
+	 */
+	public double getThroughputMBps() {
+		if (elapsedNanos == 0) {
+			return 0;
+		}
+		return (bytesRead / (1024.0 * 1024.0)) / (elapsedNanos / 1e9);
+	}
+
+	/**
+	 * Open addressing table from byte sequences to Strings, so repeated action names are decoded once
+	 */
+	private static class NameTable {
+		private byte[][] keys = new byte[256][];
+		private String[] values = new String[256];
+		private int[] hashes = new int[256];
+		private int size;
+
+		String intern(byte[] input, int start, int end) {
+			int hash = 1;
+			for (int i = start; i < end; i++) {
+				hash = 31 * hash + input[i];
+			}
+			int mask = keys.length - 1;
+			int slot = hash & mask;
+			while (keys[slot] != null) {
+				if (hashes[slot] == hash && matches(keys[slot], input, start, end)) {
+					return values[slot];
+				}
+				slot = (slot + 1) & mask;
+			}
+			byte[] key = Arrays.copyOfRange(input, start, end);
+			String value = new String(key, StandardCharsets.UTF_8);
+			keys[slot] = key;
+			values[slot] = value;
+			hashes[slot] = hash;
+			if (++size * 2 > keys.length) {
+				rehash();
+			}
+			return value;
+		}
+
+		private static boolean matches(byte[] key, byte[] input, int start, int end) {
+			if (key.length != end - start) {
+				return false;
+			}
+			for (int i = 0; i < key.length; i++) {
+				if (key[i] != input[start + i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private void rehash() {
+			byte[][] oldKeys = keys;
+			String[] oldValues = values;
+			int[] oldHashes = hashes;
+			keys = new byte[oldKeys.length * 2][];
+			values = new String[oldKeys.length * 2];
+			hashes = new int[oldKeys.length * 2];
+			int mask = keys.length - 1;
+			for (int i = 0; i < oldKeys.length; i++) {
+				if (oldKeys[i] != null) {
+					int slot = oldHashes[i] & mask;
+					while (keys[slot] != null) {
+						slot = (slot + 1) & mask;
+					}
+					keys[slot] = oldKeys[i];
+					values[slot] = oldValues[i];
+					hashes[slot] = oldHashes[i];
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,342 @@
+package extensive_form_game;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+import utils.Utils;
+
+/**
+ * Struct-of-arrays representation of a game tree. Every node is described by a slot in a set of
+ * parallel primitive arrays instead of a Node object with its own Action[] array, which keeps the
+ * tree compact and lets traversals walk contiguous memory.
+ *
+ * Per node we store the player, the information set, the number of actions and an offset. For
+ * internal nodes the offset is the index of the first action in the per-action arrays
+ * (childId, actionNameId, actionProbability), for leaves it is the index into the payoff arrays.
+ * Action names are interned, so each distinct name is stored once.
+ */
+public class FlatGameTree {
+	private static final int INITIAL_CAPACITY = 1024;
+
+	private int numNodes;
+	private byte[] player; // -2 is leaf, 0 is nature, positive integers are actual players
+	private int[] informationSet;
+	private int[] numActions;
+	private int[] offset; // first action index for internal nodes, payoff index for leaves
+
+	private int numActionsTotal;
+	private int[] childId;
+	private int[] actionNameId;
+	private double[] actionProbability; // only meaningful at nature nodes
+
+	private int numLeaves;
+	private double[] valuePlayerOne;
+	private double[] valuePlayerTwo;
+
+	private int numActionNames;
+	private String[] actionNames;
+	private HashMap<String, Integer> actionNameToId;
+
+	public FlatGameTree() {
+		this(INITIAL_CAPACITY, INITIAL_CAPACITY);
+	}
+
+	public FlatGameTree(int nodeCapacity, int actionCapacity) {
+		nodeCapacity = Math.max(nodeCapacity, 1);
+		actionCapacity = Math.max(actionCapacity, 1);
+		player = new byte[nodeCapacity];
+		informationSet = new int[nodeCapacity];
+		numActions = new int[nodeCapacity];
+		offset = new int[nodeCapacity];
+		childId = new int[actionCapacity];
+		actionNameId = new int[actionCapacity];
+		actionProbability = new double[actionCapacity];
+		valuePlayerOne = new double[nodeCapacity];
+		valuePlayerTwo = new double[nodeCapacity];
+		actionNames = new String[16];
+		actionNameToId = new HashMap<String, Integer>();
+	}
+
+	/**
+	 * Wraps fully populated arrays, e.g. filled by a parallel loader or read from a binary file.
+	 * The arrays are used as they are, not copied.
+	 */
+	static FlatGameTree wrap(byte[] player, int[] informationSet, int[] numActions, int[] offset,
+			int[] childId, int[] actionNameId, double[] actionProbability,
+			double[] valuePlayerOne, double[] valuePlayerTwo, String[] actionNames) {
+		FlatGameTree tree = new FlatGameTree(1, 1);
+		tree.numNodes = player.length;
+		tree.player = player;
+		tree.informationSet = informationSet;
+		tree.numActions = numActions;
+		tree.offset = offset;
+		tree.numActionsTotal = childId.length;
+		tree.childId = childId;
+		tree.actionNameId = actionNameId;
+		tree.actionProbability = actionProbability;
+		tree.numLeaves = valuePlayerOne.length;
+		tree.valuePlayerOne = valuePlayerOne;
+		tree.valuePlayerTwo = valuePlayerTwo;
+		tree.numActionNames = actionNames.length;
+		tree.actionNames = actionNames.length > 0 ? actionNames : new String[1];
+		for (int i = 0; i < actionNames.length; i++) {
+			tree.actionNameToId.put(actionNames[i], i);
+		}
+		return tree;
+	}
+
+	/**
+	 * Builds the flat representation of a game that is currently held as Node objects
+	 * @param game
+	 * @return
+	 */
+	public static FlatGameTree fromGame(Game game) {
+		int numNodes = 0;
+		int numActions = 0;
+		for (int nodeId = 0; nodeId < game.getNumNodes(); nodeId++) {
+			Game.Node node = game.getNodeById(nodeId);
+			if (node == null) continue;
+			numNodes = nodeId + 1;
+			if (!node.isLeaf()) {
+				numActions += node.getActions().length;
+			}
+		}
+
+		FlatGameTree tree = new FlatGameTree(numNodes, numActions);
+		for (int nodeId = 0; nodeId < numNodes; nodeId++) {
+			Game.Node node = game.getNodeById(nodeId);
+			if (node == null) {
+				continue;
+			}
+			if (node.isLeaf()) {
+				tree.addLeafNode(nodeId, node.getPlayerOneValue(), node.getPlayerTwoValue());
+				continue;
+			}
+			Game.Action[] actions = node.getActions();
+			int firstAction = tree.addInternalNode(nodeId, node.getPlayer(), node.getInformationSet(), actions.length);
+			for (int i = 0; i < actions.length; i++) {
+				tree.setAction(firstAction + i, tree.internActionName(actions[i].getName()), actions[i].getChildId(), actions[i].getProbability());
+			}
+		}
+		tree.trimToSize();
+		return tree;
+	}
+
+	/**
+	 * Adds a nature or player node and reserves room for its actions
+	 * @return index of the first action of the node in the per-action arrays
+	 */
+	public int addInternalNode(int nodeId, int nodePlayer, int nodeInformationSet, int nodeNumActions) {
+		ensureNodeCapacity(nodeId + 1);
+		ensureActionCapacity(numActionsTotal + nodeNumActions);
+		player[nodeId] = (byte) nodePlayer;
+		informationSet[nodeId] = nodeInformationSet;
+		numActions[nodeId] = nodeNumActions;
+		offset[nodeId] = numActionsTotal;
+		numActionsTotal += nodeNumActions;
+		numNodes = Math.max(numNodes, nodeId + 1);
+		return offset[nodeId];
+	}
+
+	public void addLeafNode(int nodeId, double nodeValuePlayerOne, double nodeValuePlayerTwo) {
+		ensureNodeCapacity(nodeId + 1);
+		if (numLeaves == valuePlayerOne.length) {
+			int capacity = grow(valuePlayerOne.length, numLeaves + 1);
+			valuePlayerOne = Arrays.copyOf(valuePlayerOne, capacity);
+			valuePlayerTwo = Arrays.copyOf(valuePlayerTwo, capacity);
+		}
+		player[nodeId] = -2;
+		informationSet[nodeId] = -1;
+		numActions[nodeId] = 0;
+		offset[nodeId] = numLeaves;
+		valuePlayerOne[numLeaves] = nodeValuePlayerOne;
+		valuePlayerTwo[numLeaves] = nodeValuePlayerTwo;
+		numLeaves++;
+		numNodes = Math.max(numNodes, nodeId + 1);
+	}
+
+	public void setAction(int actionIndex, int nameId, int actionChildId, double probability) {
+		childId[actionIndex] = actionChildId;
+		actionNameId[actionIndex] = nameId;
+		actionProbability[actionIndex] = probability;
+	}
+
+	public int internActionName(String name) {
+		Integer id = actionNameToId.get(name);
+		if (id != null) {
+			return id;
+		}
+		if (numActionNames == actionNames.length) {
+			actionNames = Arrays.copyOf(actionNames, Math.max(16, numActionNames * 2));
+		}
+		actionNames[numActionNames] = name;
+		actionNameToId.put(name, numActionNames);
+		return numActionNames++;
+	}
+
+	/**
+	 * Shrinks all arrays to their used length
+	 */
+	public void trimToSize() {
+		player = Arrays.copyOf(player, numNodes);
+		informationSet = Arrays.copyOf(informationSet, numNodes);
+		numActions = Arrays.copyOf(numActions, numNodes);
+		offset = Arrays.copyOf(offset, numNodes);
+		childId = Arrays.copyOf(childId, numActionsTotal);
+		actionNameId = Arrays.copyOf(actionNameId, numActionsTotal);
+		actionProbability = Arrays.copyOf(actionProbability, numActionsTotal);
+		valuePlayerOne = Arrays.copyOf(valuePlayerOne, numLeaves);
+		valuePlayerTwo = Arrays.copyOf(valuePlayerTwo, numLeaves);
+		actionNames = Arrays.copyOf(actionNames, numActionNames);
+	}
+
+	private void ensureNodeCapacity(int capacity) {
+		if (capacity <= player.length) {
+			return;
+		}
+		int newCapacity = grow(player.length, capacity);
+		player = Arrays.copyOf(player, newCapacity);
+		informationSet = Arrays.copyOf(informationSet, newCapacity);
+		numActions = Arrays.copyOf(numActions, newCapacity);
+		offset = Arrays.copyOf(offset, newCapacity);
+	}
+
+	private void ensureActionCapacity(int capacity) {
+		if (capacity <= childId.length) {
+			return;
+		}
+		int newCapacity = grow(childId.length, capacity);
+		childId = Arrays.copyOf(childId, newCapacity);
+		actionNameId = Arrays.copyOf(actionNameId, newCapacity);
+		actionProbability = Arrays.copyOf(actionProbability, newCapacity);
+	}
+
+	private static int grow(int current, int required) {
+		return Math.max(required, current + (current >> 1) + 1);
+	}
+
+	// Raw arrays for BinaryGameFormat. They may be longer than the counts above unless trimmed.
+
+	byte[] playerArray() {
+		return player;
+	}
+
+	int[] informationSetArray() {
+		return informationSet;
+	}
+
+	int[] numActionsArray() {
+		return numActions;
+	}
+
+	int[] offsetArray() {
+		return offset;
+	}
+
+	int[] childIdArray() {
+		return childId;
+	}
+
+	int[] actionNameIdArray() {
+		return actionNameId;
+	}
+
+	double[] actionProbabilityArray() {
+		return actionProbability;
+	}
+
+	double[] valuePlayerOneArray() {
+		return valuePlayerOne;
+	}
+
+	double[] valuePlayerTwoArray() {
+		return valuePlayerTwo;
+	}
+
+	public int getNumNodes() {
+		return numNodes;
+	}
+
+	public int getNumActionsTotal() {
+		return numActionsTotal;
+	}
+
+	public int getNumLeaves() {
+		return numLeaves;
+	}
+
+	public int getNumActionNames() {
+		return numActionNames;
+	}
+
+	public int getPlayer(int nodeId) {
+		return player[nodeId];
+	}
+
+	public boolean isLeaf(int nodeId) {
+		return player[nodeId] == -2;
+	}
+
+	public int getInformationSet(int nodeId) {
+		return informationSet[nodeId];
+	}
+
+	public int getNumActions(int nodeId) {
+		return numActions[nodeId];
+	}
+
+	public int getFirstActionIndex(int nodeId) {
+		return offset[nodeId];
+	}
+
+	public int getChildId(int nodeId, int actionId) {
+		return childId[offset[nodeId] + actionId];
+	}
+
+	public double getActionProbability(int nodeId, int actionId) {
+		return actionProbability[offset[nodeId] + actionId];
+	}
+
+	public int getActionNameId(int nodeId, int actionId) {
+		return actionNameId[offset[nodeId] + actionId];
+	}
+
+	public String getActionName(int nodeId, int actionId) {
+		return actionNames[actionNameId[offset[nodeId] + actionId]];
+	}
+
+	public String getActionNameById(int nameId) {
+		return actionNames[nameId];
+	}
+
+	public double getPlayerOneValue(int nodeId) {
+		return player[nodeId] == -2 ? valuePlayerOne[offset[nodeId]] : 0;
+	}
+
+	public double getPlayerTwoValue(int nodeId) {
+		return player[nodeId] == -2 ? valuePlayerTwo[offset[nodeId]] : 0;
+	}
+
+	/**
+	 * Name of the node as used in the .efg format: "c" for nature, "t" for leaves and "p" otherwise
+	 */
+	public String getNodeName(int nodeId) {
+		if (player[nodeId] == -2) return Utils.TERMINAL_NODE_NAME;
+		if (player[nodeId] == 0) return Utils.CHANCE_NODE_NAME;
+		return Utils.PLAYER_NODE_NAME;
+	}
+
+	/**
+	 * Approximate number of bytes retained by the arrays of this tree, ignoring object headers
+	 */
+	public long estimateFootprintBytes() {
+		long bytes = (long) player.length
+				+ 4L * (informationSet.length + numActions.length + offset.length)
+				+ 4L * (childId.length + actionNameId.length)
+				+ 8L * (actionProbability.length + valuePlayerOne.length + valuePlayerTwo.length);
+		for (int i = 0; i < numActionNames; i++) {
+			bytes += 40 + 2L * actionNames[i].length();
+		}
+		return bytes;
+	}
+}
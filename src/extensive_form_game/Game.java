@@ -1,16 +1,17 @@
 package extensive_form_game;
 
+import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 
 import org.apache.commons.lang3.*;
 import org.apache.commons.math3.distribution.NormalDistribution;
 
-import au.com.bytecode.opencsv.CSVReader;
 import extensive_form_game_abstraction.SignalAbstraction;
 import gnu.trove.list.array.TIntArrayList;
 import gnu.trove.map.TIntIntMap;
@@ -18,9 +19,11 @@ import gnu.trove.map.TObjectDoubleMap;
 import gnu.trove.map.TObjectIntMap;
 import gnu.trove.map.hash.TIntIntHashMap;
 import gnu.trove.map.hash.TObjectIntHashMap;
+import utils.CompressedChannels;
+import utils.GameConfiguration;
 import utils.Utils;
 
-public class Game implements GameGenerator {
+public class Game implements GameGenerator, EFGNodeHandler {
 	
 	
 	public class Action {	
@@ -127,8 +130,12 @@ public class Game implements GameGenerator {
 	private TIntArrayList [] [] informationSets; // indexed as [player][information set]
 	private boolean [] [] informationSetsSeen; // indexed as [player]
 	private Node [] nodes;
-	private TIntIntMap [] childNodeIdBySignalId; // indexed as [nodeId][signalId], returns the child node reached when nature selects the signal
-	private TIntIntMap [] actionIdBySignalId;// indexed as [nodeId][signalId], returns the index of the signal in the action vector at the node
+	private FlatGameTree flatTree; // when set, the tree is held in flat arrays and nodes is null
+	private Action[][][] flatActionsAtInformationSet; // [player][informationSetId], filled on demand in the flat representation
+	private TIntIntMap [] childNodeIdBySignalId; // indexed as [nodeId][signalId], returns the child node reached when nature selects the signal. Created lazily
+	private TIntIntMap [] actionIdBySignalId;// indexed as [nodeId][signalId], returns the index of the signal in the action vector at the node. Created lazily
+	private SequenceFormIndex sequenceFormIndex; // created lazily
+	private SequenceFormMatrices sequenceFormMatrices; // created lazily
 	@SuppressWarnings("unchecked")
 	private HashMap<List<String>, Integer>[] observedActionsToInformationSetId = new HashMap[3];
 	
@@ -139,6 +146,7 @@ public class Game implements GameGenerator {
 	private int numNodes;
 	private int numInformationSetsPlayer1;
 	private int numInformationSetsPlayer2;
+	private int numInformationSetsAllocated[]; // indexed as [player], capacity of informationSets while loading
 	private int smallestInformationSetId[]; // indexed as [player], keeps track of the base index for the information sets
 	private int [] numSequences;
 	
@@ -155,7 +163,11 @@ public class Game implements GameGenerator {
 	private int[][] abstraction; 
 	private int[][][] actionAbstractionMapping;
 	private HashMap<String, Double>[] systemProbability = new HashMap[2];
+	private GameConfiguration configuration = GameConfiguration.getDefault();
 	private boolean useIdentityActionMap;
+	private boolean reportLoadStatistics; // print the load time and throughput of the file loaders
+	private long loadBytesRead; // bytes read by the last file loader
+	private long loadElapsedNanos; // time taken by the last file loader
 	SignalAbstraction signalAbstraction;
 	
 	public Game() {
@@ -165,6 +177,7 @@ public class Game implements GameGenerator {
 		numSequences = new int[2];
 		numSequences[0] = 1;
 		numSequences[1] = 1;
+		numInformationSetsAllocated = new int[2];
 		smallestInformationSetId = new int[2];
 		smallestInformationSetId[0] = Integer.MAX_VALUE;
 		smallestInformationSetId[1] = Integer.MAX_VALUE;
@@ -180,16 +193,30 @@ public class Game implements GameGenerator {
 		this();
 		//createGameFromFile(filename);
 	}
+
+	/**
+	 * @param configuration the configuration the game was generated with, used to split nature actions
+	 * into the features of the real host and the honeypot
+	 */
+	public Game(GameConfiguration configuration) {
+		this();
+		this.configuration = configuration;
+	}
+
+	public GameConfiguration getConfiguration() {
+		return configuration;
+	}
 	
 	public void applySignalAbstraction(SignalAbstraction signalAbstraction) {
 		for (int nodeId = 0; nodeId < getNumNodes(); nodeId++) {
-			Node node = getNodeById(nodeId);
-			if (node.getPlayer() == 1 || node.getPlayer() == 2) {
+			int player = getNodePlayer(nodeId);
+			if (player == 1 || player == 2) {
+				String nodeName = getNodeName(nodeId);
 				// Get observed nature actions, then concatenate observed player actions
-				List<String> observedActions = extractObservedNatureActionsFromNodeName(node.getName(), node.getPlayer());
-				observedActions.addAll(extractObservedPlayerActionsFromNodeName(node.getName(), node.getPlayer()));
+				List<String> observedActions = extractObservedNatureActionsFromNodeName(nodeName, player);
+				observedActions.addAll(extractObservedPlayerActionsFromNodeName(nodeName, player));
 				// Uniquely identify each information set by the (out of order) list of observed actions. This works for signal-decomposable games.
-				observedActionsToInformationSetId[node.getPlayer()].put(observedActions, node.getInformationSet());
+				observedActionsToInformationSetId[player].put(observedActions, getNodeInformationSet(nodeId));
 			}
 		}
 		this.signalAbstraction = signalAbstraction;
@@ -202,124 +229,344 @@ public class Game implements GameGenerator {
 	}
 	
 	private void applySignalAbstractionRecursive(int currentNodeId, List<Integer> natureIndices) {
-		Node node = getNodeById(currentNodeId);
-		if (node.isLeaf()) {
+		if (isLeafNode(currentNodeId)) {
 			return;
 		}
 		
-		if (node.getPlayer() == 1 || node.getPlayer() ==2) {
-			List<String> natureSignals = extractObservedNatureActionsFromNodeName(node.getName(), node.getPlayer());
+		int player = getNodePlayer(currentNodeId);
+		if (player == 1 || player ==2) {
+			String nodeName = getNodeName(currentNodeId);
+			List<String> natureSignals = extractObservedNatureActionsFromNodeName(nodeName, player);
 			List<String> abstractNatureSignals = signalAbstraction.getAbstractSignalsByName(natureSignals);
-			List<String> observedPlayerActions = extractObservedPlayerActionsFromNodeName(node.getName(), node.getPlayer());
+			List<String> observedPlayerActions = extractObservedPlayerActionsFromNodeName(nodeName, player);
 			// Make abstract observed list
 			List<String> abstractActions = new ArrayList<String>(abstractNatureSignals);
 			abstractActions.addAll(observedPlayerActions);
-			int abstractInformationSetId = observedActionsToInformationSetId[node.getPlayer()].get(abstractActions);
-			node.setAbstractInformationSet(abstractInformationSetId);
-			if (node.getInformationSet() != abstractInformationSetId) {
-				int t = 1;
+			int abstractInformationSetId = observedActionsToInformationSetId[player].get(abstractActions);
+			if (flatTree == null) {
+				// the flat representation has no per-node field, the abstraction array below is the source of truth
+				nodes[currentNodeId].setAbstractInformationSet(abstractInformationSetId);
 			}
-			abstraction[node.getPlayer()][node.getInformationSet()] = abstractInformationSetId;
+			abstraction[player][getNodeInformationSet(currentNodeId)] = abstractInformationSetId;
 		}
-		for (Action action : node.getActions()) {
-			if (node.getPlayer() == 0) {
+		for (int actionId = 0; actionId < getNumActionsAtNode(currentNodeId); actionId++) {
+			if (player == 0) {
 				natureIndices.add(depth);
-				applySignalAbstractionRecursive(action.getChildId(), natureIndices);
+				applySignalAbstractionRecursive(getChildId(currentNodeId, actionId), natureIndices);
 				natureIndices.remove(natureIndices.size()-1);
 			} else {
-				applySignalAbstractionRecursive(action.getChildId(), natureIndices);
+				applySignalAbstractionRecursive(getChildId(currentNodeId, actionId), natureIndices);
 			}			
 		}
 	}
 	
+	/**
+	 * Replaces the Node objects of this game by a FlatGameTree. Afterwards getNodeById returns
+	 * read-only views that are materialized on demand, while the GameGenerator methods and the
+	 * primitive node accessors read the flat arrays directly.
+	 */
+	public void useFlatRepresentation() {
+		if (flatTree != null) {
+			return;
+		}
+		flatTree = FlatGameTree.fromGame(this);
+		nodes = null;
+		numNodes = flatTree.getNumNodes();
+	}
+
+	public boolean usesFlatRepresentation() {
+		return flatTree != null;
+	}
+
+	public FlatGameTree getFlatTree() {
+		return flatTree;
+	}
+
+	/**
+	 * Prints the load time and throughput of the file loaders, off by default so that timed loads do not
+	 * print. The numbers of the last load are available from getLoadBytesRead and getLoadElapsedNanos.
+	 */
+	public void setReportLoadStatistics(boolean reportLoadStatistics) {
+		this.reportLoadStatistics = reportLoadStatistics;
+	}
+
+	/**
+	 * Returns the number of bytes the last file loader read
+	 */
+	public long getLoadBytesRead() {
+		return loadBytesRead;
+	}
+
+	/**
+	 * Returns the time the last file loader took in nanoseconds
+	 */
+	public long getLoadElapsedNanos() {
+		return loadElapsedNanos;
+	}
+
+	/**
+	 * Returns the read throughput of the last file loader in MB/s
+	 */
+	public double getLoadThroughputMBps() {
+		if (loadElapsedNanos == 0) {
+			return 0;
+		}
+		return (loadBytesRead / (1024.0 * 1024.0)) / (loadElapsedNanos / 1e9);
+	}
+
+	/**
+	 * Loads a game from an .efg file with a single pass EFGParser and records the read throughput.
+	 * Files ending in .gz are decompressed on a background thread while they are parsed.
+	 * @param filename
+	 */
 	public void createGameFromFileZerosumPackageFormat(String filename) {
-		//BufferedReader in = null;
-		CSVReader in = null;
+		ReadableByteChannel in = null;
 		try {
-			in= new CSVReader(new FileReader(filename), ' ', '\'');
-			//in = new BufferedReader(new FileReader(filename));
+			in = CompressedChannels.newReadChannel(filename);
 		} catch (FileNotFoundException e) {
 			System.out.println("Game::CreateGameFromFile: File not found");
 			System.out.println("filename: " + filename);
 			System.exit(0);
+		} catch (IOException e) {
+			System.out.println("Game::CreateGameFromFile: Open exception");
+			System.out.println(e.getMessage());
+			return;
 		}
 		
-		String[] splitLine;
+		EFGParser parser = new EFGParser(this);
 		try {
-			while ((splitLine = in.readNext()) != null) {
-				// splitLine may contain empty strings. We filter these out here. This should preferably be handled by a library function. 
-				List<String> filtered = new ArrayList<String>();
-				for(String s : splitLine) {
-					if(!s.equals("")) {
-						filtered.add(s);
-					}
-				}
-			splitLine = filtered.toArray(new String[0]);
-
-				if (splitLine.length == 0) {
-					continue;
-				} else if (splitLine[0].equals("EFG")) {
-					readGameInfoLine(splitLine);
-					continue;
-				} /*else if (!StringUtils.isNumeric(splitLine[0])) {
-					readGameInfoLine(splitLine);
-				} */else {
-					if (splitLine[0].equals("t")) {
-						CreateLeafNode(splitLine);
-						//System.out.println("T");
-					} else if (splitLine[0].equals("c")) {
-						CreateZeroSumPackageStyleNatureNode(splitLine);
-					
-					} else {
-						CreatePlayerNode(splitLine);
-						//System.out.println("p");
-					}
-				}
-			}
+			parser.parse(in);
 		} catch (IOException e) {
 			System.out.println("Game::CreateGameFromFile: Read exception");
+			System.out.println(e.getMessage());
+		} finally {
+			try {
+				in.close();
+			} catch (IOException e) {
+				System.out.println("Game::CreateGameFromFile: Close exception");
+			}
+		}
+		loadBytesRead = parser.getBytesRead();
+		loadElapsedNanos = parser.getElapsedNanos();
+		if (reportLoadStatistics) {
+			System.out.println(String.format("Game::CreateGameFromFile: read %d bytes in %.1f ms (%.1f MB/s)",
+					loadBytesRead, loadElapsedNanos / 1e6, getLoadThroughputMBps()));
 		}
-		
 	}
 	
 	
 	
-	private void readGameInfoLine(String [] split_line) {
-		numNodes = Utils.TOTAL_NUMBER_OF_NODE;
-		numInformationSetsPlayer1 = Utils.NUM_INFO_SET_PLAYER_1;
-		numInformationSetsPlayer2 = Utils.NUM_INFO_SET_PLAYER_2;
-		
-		informationSets[0] = new TIntArrayList [numInformationSetsPlayer1];
-		informationSets[1] = new TIntArrayList [numInformationSetsPlayer2];
+	/**
+	 * Loads a game from an .efg file with EFGParallelLoader, which memory-maps the file and parses
+	 * newline-aligned chunks on a fork-join pool. The game is held in the flat representation afterwards.
+	 * @param filename
+	 */
+	public void createGameFromFileParallel(String filename) {
+		if (CompressedChannels.isCompressed(filename)) {
+			// compressed files cannot be split into mapped chunks
+			createGameFromFileZerosumPackageFormat(filename);
+			return;
+		}
+		EFGParallelLoader loader = new EFGParallelLoader();
+		try {
+			loadFlatTree(loader.load(filename));
+			loadBytesRead = loader.getBytesRead();
+			loadElapsedNanos = loader.getElapsedNanos();
+			if (reportLoadStatistics) {
+				System.out.println(String.format("Game::CreateGameFromFileParallel: read %d bytes in %.1f ms (%.1f MB/s)",
+						loadBytesRead, loadElapsedNanos / 1e6, getLoadThroughputMBps()));
+			}
+		} catch (FileNotFoundException e) {
+			System.out.println("Game::CreateGameFromFileParallel: File not found");
+			System.out.println("filename: " + filename);
+			System.exit(0);
+		} catch (IOException e) {
+			System.out.println("Game::CreateGameFromFileParallel: Read exception");
+			System.out.println(e.getMessage());
+		}
+	}
+
+	/**
+	 * Loads a game written by writeGameToBinaryFile. The file is memory-mapped and its sections are
+	 * copied into a FlatGameTree, so the game is held in the flat representation afterwards.
+	 * @param filename
+	 */
+	public void createGameFromBinaryFile(String filename) {
+		long start = System.nanoTime();
+		try {
+			loadFlatTree(BinaryGameFormat.read(filename));
+			loadBytesRead = new File(filename).length();
+			loadElapsedNanos = System.nanoTime() - start;
+			if (reportLoadStatistics) {
+				System.out.println(String.format("Game::CreateGameFromBinaryFile: loaded %d nodes in %.1f ms",
+						numNodes, loadElapsedNanos / 1e6));
+			}
+		} catch (FileNotFoundException e) {
+			System.out.println("Game::CreateGameFromBinaryFile: File not found");
+			System.out.println("filename: " + filename);
+			System.exit(0);
+		} catch (IOException e) {
+			System.out.println("Game::CreateGameFromBinaryFile: Read exception");
+			System.out.println(e.getMessage());
+		}
+	}
+
+	/**
+	 * Writes the game tree in the BinaryGameFormat, e.g. games/hsg_game.efgb
+	 * @param filename
+	 */
+	public void writeGameToBinaryFile(String filename) {
+		FlatGameTree tree = flatTree != null ? flatTree : FlatGameTree.fromGame(this);
+		try {
+			BinaryGameFormat.write(tree, filename);
+		} catch (IOException e) {
+			System.out.println("Game::WriteGameToBinaryFile: Write exception");
+			System.out.println(e.getMessage());
+		}
+	}
+
+	/**
+	 * Uses the given tree as the flat representation of this game and derives the information sets,
+	 * sequence counts and feature probabilities from it in one pass over the nodes.
+	 * @param tree
+	 */
+	public void loadFlatTree(FlatGameTree tree) {
+		startGame();
+		nodes = null;
+		flatTree = tree;
+		numNodes = tree.getNumNodes();
+		for (int nodeId = 0; nodeId < numNodes; nodeId++) {
+			int player = tree.getPlayer(nodeId);
+			int numActions = tree.getNumActions(nodeId);
+			if (player == 0) {
+				for (int i = 0; i < numActions; i++) {
+					insertFeatureProbability(tree.getActionName(nodeId, i), tree.getActionProbability(nodeId, i));
+				}
+				root = nodeId;
+			} else if (player > 0) {
+				int informationSet = tree.getInformationSet(nodeId);
+				if (player == 1)
+					parentInfoSet = informationSet;
+				if (informationSet < smallestInformationSetId[player-1]) {
+					smallestInformationSetId[player-1] = informationSet;
+				}
+				numSequences[player-1] += numActions;
+				ensureInformationSetCapacity(player - 1, informationSet);
+				informationSets[player - 1][informationSet].add(nodeId);
+				informationSetsSeen[player - 1][informationSet] = true;
+			}
+		}
+		endGame();
+	}
+
+	/**
+	 * Sets up empty node and information set storage. The game size is not known up front, so the
+	 * arrays start small and grow on demand while nodes are read. endGame trims them to the
+	 * actual number of nodes and information sets.
+	 */
+	@Override
+	public void startGame() {
+		numNodes = 0;
+		numInformationSetsPlayer1 = 0;
+		numInformationSetsPlayer2 = 0;
 		
-		informationSetsSeen[0] = new boolean[numInformationSetsPlayer1];
-		informationSetsSeen[1] = new boolean[numInformationSetsPlayer2];
+		informationSets[0] = new TIntArrayList [0];
+		informationSets[1] = new TIntArrayList [0];
+		informationSetsSeen[0] = new boolean[0];
+		informationSetsSeen[1] = new boolean[0];
+		numInformationSetsAllocated[0] = 0;
+		numInformationSetsAllocated[1] = 0;
 		
-		for (int i = 0; i < numInformationSetsPlayer1; i++) {
-			informationSets[0][i] = new TIntArrayList();
+		nodes = new Node[1024];
+		flatTree = null;
+		childNodeIdBySignalId = null;
+		actionIdBySignalId = null;
+		sequenceFormIndex = null;
+		sequenceFormMatrices = null;
+	}
+	
+	private void addNode(Node node) {
+		if (node.nodeId >= nodes.length) {
+			nodes = Arrays.copyOf(nodes, Math.max(node.nodeId + 1, 2 * nodes.length));
 		}
-		for (int i = 0; i < numInformationSetsPlayer2; i++) {
-			informationSets[1][i] = new TIntArrayList();
+		nodes[node.nodeId] = node;
+		numNodes = Math.max(numNodes, node.nodeId + 1);
+	}
+	
+	private void ensureInformationSetCapacity(int playerIndex, int informationSetId) {
+		int allocated = numInformationSetsAllocated[playerIndex];
+		if (informationSetId >= informationSets[playerIndex].length) {
+			int capacity = Math.max(informationSetId + 1, 2 * informationSets[playerIndex].length);
+			informationSets[playerIndex] = Arrays.copyOf(informationSets[playerIndex], capacity);
+			informationSetsSeen[playerIndex] = Arrays.copyOf(informationSetsSeen[playerIndex], capacity);
 		}
-		
-		nodes = new Node[numNodes];
-		childNodeIdBySignalId = new TIntIntMap [numNodes];
-		actionIdBySignalId = new TIntIntMap [numNodes];
-		for (int i = 0; i < numNodes; i++) {
-			childNodeIdBySignalId[i] = new TIntIntHashMap();
-			actionIdBySignalId[i] = new TIntIntHashMap();
+		for (int i = allocated; i <= informationSetId; i++) {
+			informationSets[playerIndex][i] = new TIntArrayList(1);
+		}
+		numInformationSetsAllocated[playerIndex] = Math.max(allocated, informationSetId + 1);
+	}
+	
+	/**
+	 * Trims node and information set storage to the sizes seen in the file
+	 */
+	@Override
+	public void endGame() {
+		if (nodes != null) {
+			nodes = Arrays.copyOf(nodes, numNodes);
 		}
+		for (int playerIndex = 0; playerIndex < 2; playerIndex++) {
+			int count = numInformationSetsAllocated[playerIndex];
+			informationSets[playerIndex] = Arrays.copyOf(informationSets[playerIndex], count);
+			informationSetsSeen[playerIndex] = Arrays.copyOf(informationSetsSeen[playerIndex], count);
+		}
+		numInformationSetsPlayer1 = numInformationSetsAllocated[0];
+		numInformationSetsPlayer2 = numInformationSetsAllocated[1];
+		linkChildren();
 	}
 	
-	// CreateLeafNode handles both Zerosum format files, and the more heavily annotated files of this package
-	private void CreateLeafNode(String[] line) {
+	/**
+	 * Sets the child ids of every node from the tree itself. Child ids are not stored in the .efg file,
+	 * but nodes are stored in preorder: the first child of a node comes right after it and every further
+	 * child right after the subtree of the previous one. A stack of the nodes whose children are not
+	 * all linked yet gives the parent of each node, so no game sizes are needed.
+	 */
+	private void linkChildren() {
+		int[] parents = new int[16];
+		int[] nextActions = new int[16];
+		int depth = -1;
+		for (int nodeId = root; nodeId < numNodes; nodeId++) {
+			if (depth >= 0) {
+				int parentId = parents[depth];
+				int actionId = nextActions[depth]++;
+				if (flatTree != null) {
+					flatTree.setAction(flatTree.getFirstActionIndex(parentId) + actionId, flatTree.getActionNameId(parentId, actionId),
+							nodeId, flatTree.getActionProbability(parentId, actionId));
+				} else {
+					nodes[parentId].actions[actionId].childId = nodeId;
+				}
+				if (nextActions[depth] == getNumActionsAtNode(parentId)) {
+					depth--;
+				}
+			}
+			if (getNumActionsAtNode(nodeId) > 0) {
+				if (++depth == parents.length) {
+					parents = Arrays.copyOf(parents, 2 * depth);
+					nextActions = Arrays.copyOf(nextActions, 2 * depth);
+				}
+				parents[depth] = nodeId;
+				nextActions[depth] = 0;
+			}
+		}
+	}
+	
+	@Override
+	public void createLeafNode(int nodeId, double valuePlayerOne, double valuePlayerTwo) {
 		Node node = new Node();
-		String line1 = line[1].replace("\"", "");
-		node.nodeId = Integer.parseInt(line1);
-		node.name = line[0];
+		node.nodeId = nodeId;
+		node.name = Utils.TERMINAL_NODE_NAME;
 		node.player = -2;
-		node.valuePlayerOne = Double.parseDouble(line[6]);
-		node.valuePlayerTwo = Double.parseDouble(line[7]);
+		node.valuePlayerOne = valuePlayerOne;
+		node.valuePlayerTwo = valuePlayerTwo;
 		
 		/*
 		if (node.value < smallestPayoff) {
@@ -329,54 +576,37 @@ public class Game implements GameGenerator {
 			biggestPayoff = node.value;
 		}*/
 		//System.out.println("Node val:" + node.value);
-		nodes[node.nodeId] = node;
+		addNode(node);
 	}
 
 	// The format is the same for player nodes in the Zerosum package and our format 
-	private void CreatePlayerNode(String[] line) {
+	@Override
+	public void createPlayerNode(int nodeId, int player, int informationSet, String[] actionNames, int numActions) {
 		Node node = new Node();
-		String line1 = line[1].replace("\"", "");
-		node.nodeId = Integer.parseInt(line1);
-		node.player = Integer.parseInt(line[2]);
-		node.informationSet = Integer.parseInt(line[3]);
+		node.nodeId = nodeId;
+		node.player = player;
+		node.informationSet = informationSet;
 		if(node.player == 1)
 			parentInfoSet = node.informationSet;
-		//System.out.println("Player: " + (node.player-1) + ", info set: " + node.informationSet);
 		if (node.informationSet < smallestInformationSetId[node.player-1]) {
 			smallestInformationSetId[node.player-1] = node.informationSet;
 		}
 		
-		node.name = line[0];
-		//System.out.println("Player: " + (node.player-1) + ", info set: " + node.informationSet);
-		//informationSets[node.player-1][node.informationSet].add(node.nodeId);
+		node.name = Utils.PLAYER_NODE_NAME;
 		
-		int numActions = line.length-8;
 		node.actions = new Action[numActions];
 		for (int i = 0; i < numActions; i++) {
-			/*if (!informationSetsSeen[node.player-1][node.informationSet]) {
-				numSequences[node.player-1]++;
-			}else {
-				System.out.println("Information already seen");
-			}*/
 			numSequences[node.player-1]++;
 			Action action = new Action();
-			action.name = line[6+i].replace("\"", "");
-			//System.out.println("action name = " + action.name + "info :" + node.informationSet);
-			if(node.player == 1) {
-				action.childId = node.nodeId + (i*(Utils.MAX_NO_ATTACKER_ACTIONS+1)) + 1;
-				//System.out.println("node id : " + node.nodeId + "  child id:" + action.childId);
-			}
-			else {
-				action.childId = node.nodeId + i + 1;
-				//System.out.println("action name = " + action.name + "child id:" + action.childId);
-			}
+			action.name = actionNames[i];
+			action.childId = -1; // set by linkChildren
 			node.actions[i] = action;
 		}
-			//System.out.println("Info : " + node.informationSet + "node Id: " + node.nodeId);
-			informationSets[node.player - 1][node.informationSet].add(node.nodeId);
-			informationSetsSeen[node.player - 1][node.informationSet] = true;
+		ensureInformationSetCapacity(node.player - 1, node.informationSet);
+		informationSets[node.player - 1][node.informationSet].add(node.nodeId);
+		informationSetsSeen[node.player - 1][node.informationSet] = true;
 
-		nodes[node.nodeId] = node;
+		addNode(node);
 	}
 	
 	
@@ -448,11 +678,12 @@ public class Game implements GameGenerator {
 		String realFeature, hpFeature;
 /*		if (action.substring(0, 1).equals("1")) {
 
-			realFeature = action.substring(1, Utils.REAL_HOST_FEATURES_NUM + 1);
-			hpFeature = action.substring(Utils.REAL_HOST_FEATURES_NUM + 2);
+			realFeature = action.substring(1, configuration.getNumFeatures() + 1);
+			hpFeature = action.substring(configuration.getNumFeatures() + 2);
 		} else*/ {
-			realFeature = action.substring(0, Utils.REAL_HOST_FEATURES_NUM);
-			hpFeature = action.substring(Utils.REAL_HOST_FEATURES_NUM);
+			int split = Math.min(configuration.getNumFeatures(), action.length());
+			realFeature = action.substring(0, split);
+			hpFeature = action.substring(split);
 			//System.out.println(realFeature + " : " + hpFeature);
 		}
 		
@@ -472,41 +703,25 @@ public class Game implements GameGenerator {
 		//System.out.println(realFeature+  "real"+ systemProbability[0].get(realFeature));
 	}
 	
-	private void CreateZeroSumPackageStyleNatureNode(String[] line) {
-		
-		
+	@Override
+	public void createChanceNode(int nodeId, String[] actionNames, double[] probabilities, int numActions) {
 		Node node = new Node();
-		String line1 = line[1].replace("\"", "");
-		node.nodeId = Integer.parseInt(line1);
-		//System.out.println("Node" + node.nodeId);
-		node.name = line[0];
+		node.nodeId = nodeId;
+		node.name = Utils.CHANCE_NODE_NAME;
 		node.player = 0;
-		int numActions = (line.length - 7)/2;
 		node.actions = new Action[numActions];
-		nodes = new Node[numNodes]; // TODO programaticlly need to handle
-		double sum = 0;
 		for (int i = 0; i < numActions; i++) {
 			Action action = new Action();
-			action.name = line[((3+i)*2)-1].replace("\"", "");
-			action.childId = i*(((Utils.MAX_NO_ATTACKER_ACTIONS+1)*Utils.numOfDefenderActions)+1) + 1;
-			//System.out.println(action.name + " child id : " + action.childId);
-			action.probability = Double.parseDouble(line[(3+i)*2]);
-			sum += action.probability;
+			action.name = actionNames[i];
+			action.childId = -1; // set by linkChildren
+			action.probability = probabilities[i];
 			node.actions[i] = action;		
-			//System.out.println("Prob :" + action.probability);
 			insertFeatureProbability(action.name, action.probability);
 		}
 		
-
-		/*
-		for (int i = 0; i < numActions; i++) {
-			node.actions[i].probability = (double) node.actions[i].probability / sum;
-			//System.out.println("Normalize prob :" + node.actions[i].probability);
-		}*/
 		// the root node is the empty history
-	
 		root = node.nodeId;
-		nodes[node.nodeId] = node;
+		addNode(node);
 	}
 
 
@@ -552,7 +767,7 @@ public class Game implements GameGenerator {
 	private enum ZeroBranchOption {ZERO, UNIFORM} // TODO: implement UNIFORM option
 
 	private double fillExpectedValueArrayRecursive(double[] array, int currentNode, TObjectDoubleMap<String>[] strategyP1, TObjectDoubleMap<String>[] strategyP2, boolean negateValues, ZeroBranchOption zeroBranchOption, boolean inZeroBranch, NormalDistribution distribution) {
-		Node node = nodes[currentNode];
+		Node node = getNodeById(currentNode);
 		//biggestPayoff = 0;
 		//smallestPayoff = 0;
 		if (node.isLeaf()) {
@@ -597,18 +812,34 @@ public class Game implements GameGenerator {
 	}
 
 	public int getNumActionsAtInformationSet(int player, int informationSetId) {
-		if(informationSets[player-1][informationSetId].size() > 0)
-			return nodes[informationSets[player-1][informationSetId].get(0)].getActions().length;
+		if(informationSetId < informationSets[player-1].length && informationSets[player-1][informationSetId].size() > 0)
+			return getNumActionsAtNode(informationSets[player-1][informationSetId].get(0));
 		return 0;
 		
 	}
 
+	/**
+	 * In the flat representation the actions are materialized once per information set and cached
+	 */
 	public Action[] getActionsAtInformationSet(int player, int informationSetId) {
-		return nodes[informationSets[player-1][informationSetId].get(0)].getActions();
+		int nodeId = informationSets[player-1][informationSetId].get(0);
+		if (flatTree == null) {
+			return nodes[nodeId].getActions();
+		}
+		if (flatActionsAtInformationSet == null) {
+			flatActionsAtInformationSet = new Action[][][] { null, new Action[informationSets[0].length][],
+					new Action[informationSets[1].length][] };
+		}
+		Action[] actions = flatActionsAtInformationSet[player][informationSetId];
+		if (actions == null) {
+			actions = materializeActions(nodeId);
+			flatActionsAtInformationSet[player][informationSetId] = actions;
+		}
+		return actions;
 	}
 	
 	public int getNumActionsForNature(GameState gs) {
-		return nodes[gs.getCurrentNodeId()].getActions().length;
+		return getNumActionsAtNode(gs.getCurrentNodeId());
 	}
 
 	
@@ -616,18 +847,54 @@ public class Game implements GameGenerator {
 		return informationSetsSeen;
 	}
 
+	/**
+	 * In the flat representation this materializes a view for every node
+	 */
 	public Node[] getNodes() {
+		if (flatTree != null) {
+			Node[] views = new Node[numNodes];
+			for (int nodeId = 0; nodeId < numNodes; nodeId++) {
+				views[nodeId] = materializeNode(nodeId);
+			}
+			return views;
+		}
 		return nodes;
 	}
 
 	public TIntIntMap[] getChildNodeIdBySignalId() {
+		for (int nodeId = 0; nodeId < numNodes; nodeId++) {
+			getChildNodeIdBySignalId(nodeId);
+		}
 		return childNodeIdBySignalId;
 	}
 
+	public TIntIntMap getChildNodeIdBySignalId(int nodeId) {
+		if (childNodeIdBySignalId == null || childNodeIdBySignalId.length < numNodes) {
+			childNodeIdBySignalId = childNodeIdBySignalId == null ? new TIntIntMap[numNodes] : Arrays.copyOf(childNodeIdBySignalId, numNodes);
+		}
+		if (childNodeIdBySignalId[nodeId] == null) {
+			childNodeIdBySignalId[nodeId] = new TIntIntHashMap();
+		}
+		return childNodeIdBySignalId[nodeId];
+	}
+
 	public TIntIntMap[] getActionIdBySignalId() {
+		for (int nodeId = 0; nodeId < numNodes; nodeId++) {
+			getActionIdBySignalId(nodeId);
+		}
 		return actionIdBySignalId;
 	}
 
+	public TIntIntMap getActionIdBySignalId(int nodeId) {
+		if (actionIdBySignalId == null || actionIdBySignalId.length < numNodes) {
+			actionIdBySignalId = actionIdBySignalId == null ? new TIntIntMap[numNodes] : Arrays.copyOf(actionIdBySignalId, numNodes);
+		}
+		if (actionIdBySignalId[nodeId] == null) {
+			actionIdBySignalId[nodeId] = new TIntIntHashMap();
+		}
+		return actionIdBySignalId[nodeId];
+	}
+
 	public int getRoot() {
 		return root;
 	}
@@ -660,6 +927,26 @@ public class Game implements GameGenerator {
 		return numSequences;
 	}
 	
+	/**
+	 * Returns the sequence ids of both players, built on the first call
+	 */
+	public SequenceFormIndex getSequenceFormIndex() {
+		if (sequenceFormIndex == null) {
+			sequenceFormIndex = new SequenceFormIndex(this);
+		}
+		return sequenceFormIndex;
+	}
+
+	/**
+	 * Returns the sequence form constraint and payoff matrices, compiled on the first call
+	 */
+	public SequenceFormMatrices getSequenceFormMatrices() {
+		if (sequenceFormMatrices == null) {
+			sequenceFormMatrices = new SequenceFormMatrices(this);
+		}
+		return sequenceFormMatrices;
+	}
+
 	public int getNumSequencesP1() {
 		return numSequences[0];
 	}
@@ -688,10 +975,90 @@ public class Game implements GameGenerator {
 		return numPrivateSignals;
 	}
 
+	/**
+	 * In the flat representation this allocates a new view on every call, traversals should use the
+	 * primitive node accessors below instead
+	 */
 	public Node getNodeById(int currentNodeId) {
+		if (flatTree != null) {
+			return materializeNode(currentNodeId);
+		}
 		return nodes[currentNodeId];
 	}
 
+	private Node materializeNode(int nodeId) {
+		Node node = new Node();
+		node.nodeId = nodeId;
+		node.name = flatTree.getNodeName(nodeId);
+		node.player = flatTree.getPlayer(nodeId);
+		if (node.isLeaf()) {
+			node.valuePlayerOne = flatTree.getPlayerOneValue(nodeId);
+			node.valuePlayerTwo = flatTree.getPlayerTwoValue(nodeId);
+			return node;
+		}
+		node.informationSet = flatTree.getInformationSet(nodeId);
+		node.abstractInformationSet = node.informationSet;
+		node.actions = materializeActions(nodeId);
+		return node;
+	}
+
+	private Action[] materializeActions(int nodeId) {
+		Action[] actions = new Action[flatTree.getNumActions(nodeId)];
+		for (int i = 0; i < actions.length; i++) {
+			Action action = new Action();
+			action.name = flatTree.getActionName(nodeId, i);
+			action.childId = flatTree.getChildId(nodeId, i);
+			action.probability = flatTree.getActionProbability(nodeId, i);
+			actions[i] = action;
+		}
+		return actions;
+	}
+
+	// Primitive node accessors. These work for both representations without materializing Node objects.
+
+	public String getNodeName(int nodeId) {
+		return flatTree != null ? flatTree.getNodeName(nodeId) : nodes[nodeId].name;
+	}
+
+	public int getNodePlayer(int nodeId) {
+		return flatTree != null ? flatTree.getPlayer(nodeId) : nodes[nodeId].player;
+	}
+
+	public boolean isLeafNode(int nodeId) {
+		return getNodePlayer(nodeId) == -2;
+	}
+
+	public int getNodeInformationSet(int nodeId) {
+		return flatTree != null ? flatTree.getInformationSet(nodeId) : nodes[nodeId].informationSet;
+	}
+
+	public int getNumActionsAtNode(int nodeId) {
+		if (flatTree != null) {
+			return flatTree.getNumActions(nodeId);
+		}
+		return nodes[nodeId].actions == null ? 0 : nodes[nodeId].actions.length;
+	}
+
+	public int getChildId(int nodeId, int actionId) {
+		return flatTree != null ? flatTree.getChildId(nodeId, actionId) : nodes[nodeId].actions[actionId].childId;
+	}
+
+	public double getActionProbability(int nodeId, int actionId) {
+		return flatTree != null ? flatTree.getActionProbability(nodeId, actionId) : nodes[nodeId].actions[actionId].probability;
+	}
+
+	public String getActionName(int nodeId, int actionId) {
+		return flatTree != null ? flatTree.getActionName(nodeId, actionId) : nodes[nodeId].actions[actionId].name;
+	}
+
+	public double getNodePlayerOneValue(int nodeId) {
+		return flatTree != null ? flatTree.getPlayerOneValue(nodeId) : nodes[nodeId].valuePlayerOne;
+	}
+
+	public double getNodePlayerTwoValue(int nodeId) {
+		return flatTree != null ? flatTree.getPlayerTwoValue(nodeId) : nodes[nodeId].valuePlayerTwo;
+	}
+
 	public int getSmallestInformationSetIdPlayer1() {
 		return smallestInformationSetId[0];
 	}
@@ -707,6 +1074,10 @@ public class Game implements GameGenerator {
 		return systemProbability[type].get(action);
 	}
 
+	public HashMap<String, Double> getSystemProbabilities(int type) {
+		return systemProbability[type];
+	}
+
 	public void setSystemProbability(int type,String action, double probability) {
 		systemProbability[type].put(action,probability);
 	}
@@ -742,7 +1113,7 @@ public class Game implements GameGenerator {
 	public void updateGameStateWithAction(GameState gs, int actionId, double probability) {
 		gs.addHistory(gs.getCurrentPlayer(), actionId);
 		gs.addProbability(gs.getCurrentPlayer(), probability);
-		int childNodeId = nodes[gs.nodeIdHistory.get(gs.nodeIdHistory.size()-1)].actions[actionId].getChildId();
+		int childNodeId = getChildId(gs.nodeIdHistory.get(gs.nodeIdHistory.size()-1), actionId);
 		gs.nodeIdHistory.add(childNodeId);
 		updateGameStateInfo(gs);
 	}
@@ -756,24 +1127,28 @@ public class Game implements GameGenerator {
 	}
 
 	private void updateGameStateInfo(GameState gs) {
-		Node newNode = nodes[gs.getCurrentNodeId()];
+		int newNodeId = gs.getCurrentNodeId();
+		int player = getNodePlayer(newNodeId);
+		boolean isLeaf = player == -2;
 		
 		//gs.nodeIdHistory.add(newNode.getNodeId());
-		if (!newNode.isLeaf() && hasAbstraction && newNode.player != 0 && abstraction[newNode.getPlayer()][newNode.getInformationSet()] != newNode.getInformationSet()) {
-			gs.setCurrentInformationSetId(abstraction[newNode.getPlayer()][newNode.getInformationSet()]);
-			gs.setOriginalInformationSetId(newNode.getInformationSet());
-		} else if (!newNode.isLeaf() && newNode.player != 0){
-			gs.setCurrentInformationSetId(newNode.getInformationSet());
-			gs.setOriginalInformationSetId(newNode.getInformationSet());
+		if (!isLeaf && player != 0) {
+			int informationSet = getNodeInformationSet(newNodeId);
+			if (hasAbstraction && abstraction[player][informationSet] != informationSet) {
+				gs.setCurrentInformationSetId(abstraction[player][informationSet]);
+			} else {
+				gs.setCurrentInformationSetId(informationSet);
+			}
+			gs.setOriginalInformationSetId(informationSet);
 		}
 		//gs.setCurrentInformationSetId(newNode.getInformationSet());
 		
-		gs.setCurrentPlayer(newNode.getPlayer());
+		gs.setCurrentPlayer(player);
 		
-		if (newNode.isLeaf()) {
+		if (isLeaf) {
 			gs.setIsLeaf(true);
-			gs.setValueP1(newNode.getPlayerOneValue());
-			gs.setValueP2(newNode.getPlayerTwoValue());
+			gs.setValueP1(getNodePlayerOneValue(newNodeId));
+			gs.setValueP2(getNodePlayerTwoValue(newNodeId));
 		} else {
 			gs.setIsLeaf(false);
 		}
@@ -783,7 +1158,7 @@ public class Game implements GameGenerator {
 		if (gs.getCurrentPlayer() != 0) {
 			throw new Exception("Not a nature state");
 		}
-		return this.nodes[gs.getCurrentNodeId()].actions[action].getProbability();
+		return getActionProbability(gs.getCurrentNodeId(), action);
 	}
 
 	@Override
@@ -847,16 +1222,15 @@ public class Game implements GameGenerator {
 	}
 
 	private double computeGameValueRecursive(int currentNodeId, double[][][] strategyProfile) {
-		Node currentNode = getNodeById(currentNodeId);
-		if (currentNode.isLeaf()) {
-			return currentNode.getValue();
+		int player = getNodePlayer(currentNodeId);
+		if (player == -2) {
+			return getNodePlayerOneValue(currentNodeId);
 		}
 		
 		double value = 0;
-		for (int actionId = 0; actionId < currentNode.getActions().length; actionId++) {
-			Action action = currentNode.actions[actionId];
-			double probability = currentNode.player == 0 ? action.getProbability() : strategyProfile[currentNode.getPlayer()][currentNode.getInformationSet()][actionId];
-			value += probability * computeGameValueRecursive(action.getChildId(), strategyProfile);
+		for (int actionId = 0; actionId < getNumActionsAtNode(currentNodeId); actionId++) {
+			double probability = player == 0 ? getActionProbability(currentNodeId, actionId) : strategyProfile[player][getNodeInformationSet(currentNodeId)][actionId];
+			value += probability * computeGameValueRecursive(getChildId(currentNodeId, actionId), strategyProfile);
 		}
 		
 		return value;
@@ -0,0 +1,118 @@
+package extensive_form_game;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * Builds a 128 bit fingerprint, as 32 hex digits, from a sequence of values with SHA-256. of(Game)
+ * fingerprints the content of a game: the tree shape, the information sets, the nature probabilities and
+ * the payoffs, but not the names of nodes and actions. Two games with the same fingerprint have the same
+ * solutions, so it can be used as the key of a solution cache.
+ */
+public class GameFingerprint {
+	private static final int NUM_BYTES = 16;
+
+	private final MessageDigest digest;
+	private final byte[] scratch = new byte[8];
+
+	public GameFingerprint() {
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			// every Java platform is required to support SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Fingerprints the game with a pre-order walk. Every node adds its player, information set and number
+	 * of actions, nature nodes the probabilities of their actions and leaves their payoffs.
+	 */
+	public static String of(Game game) {
+		GameFingerprint fingerprint = new GameFingerprint();
+		int[] nodeStack = new int[16];
+		int depth = 0;
+		nodeStack[0] = game.getRoot();
+		while (depth >= 0) {
+			int nodeId = nodeStack[depth--];
+			int player = game.getNodePlayer(nodeId);
+			fingerprint.add(player);
+			if (player == -2) {
+				fingerprint.add(game.getNodePlayerOneValue(nodeId)).add(game.getNodePlayerTwoValue(nodeId));
+				continue;
+			}
+			int numActions = game.getNumActionsAtNode(nodeId);
+			fingerprint.add(game.getNodeInformationSet(nodeId)).add(numActions);
+			for (int actionId = 0; player == 0 && actionId < numActions; actionId++) {
+				fingerprint.add(game.getActionProbability(nodeId, actionId));
+			}
+			if (depth + numActions >= nodeStack.length) {
+				nodeStack = Arrays.copyOf(nodeStack, 2 * (depth + numActions + 1));
+			}
+			// pushed in reverse so the first action is walked first
+			for (int actionId = numActions - 1; actionId >= 0; actionId--) {
+				nodeStack[++depth] = game.getChildId(nodeId, actionId);
+			}
+		}
+		return fingerprint.finish();
+	}
+
+	public GameFingerprint add(int value) {
+		for (int i = 0; i < 4; i++) {
+			scratch[i] = (byte) (value >>> (8 * i));
+		}
+		digest.update(scratch, 0, 4);
+		return this;
+	}
+
+	public GameFingerprint add(long value) {
+		for (int i = 0; i < 8; i++) {
+			scratch[i] = (byte) (value >>> (8 * i));
+		}
+		digest.update(scratch, 0, 8);
+		return this;
+	}
+
+	/**
+	 * Adds the bits of the value, with all NaNs the same and 0.0 different from -0.0
+	 */
+	public GameFingerprint add(double value) {
+		return add(Double.doubleToLongBits(value));
+	}
+
+	public GameFingerprint add(boolean value) {
+		return add(value ? 1 : 0);
+	}
+
+	/**
+	 * Adds the length of the array followed by its values
+	 */
+	public GameFingerprint add(double[] values) {
+		add(values.length);
+		for (double value : values) {
+			add(value);
+		}
+		return this;
+	}
+
+	public GameFingerprint add(String value) {
+		add(value.length());
+		for (int i = 0; i < value.length(); i++) {
+			add((int) value.charAt(i));
+		}
+		return this;
+	}
+
+	/**
+	 * Returns the fingerprint of the values added so far and starts a new one
+	 */
+	public String finish() {
+		byte[] hash = digest.digest();
+		StringBuilder hex = new StringBuilder(2 * NUM_BYTES);
+		for (int i = 0; i < NUM_BYTES; i++) {
+			hex.append(Character.forDigit((hash[i] >> 4) & 0xF, 16)).append(Character.forDigit(hash[i] & 0xF, 16));
+		}
+		return hex.toString();
+	}
+}
@@ -103,6 +103,11 @@ public class GameState {
 	public boolean priorSampleExists(int player, int informationSetId) { return playerSampleHistories[player].containsKey(informationSetId);	}
 	public int getPriorSample(int player, int informationSetId) { return playerSampleHistories[player].get(informationSetId); }
 	public void addSample(int player, int informationSetId, int action) { playerSampleHistories[player].put(informationSetId, action); }
+	public void clearSamples() {
+		for (int player = 0; player < 3; player++) {
+			playerSampleHistories[player].clear();
+		}
+	}
 	
 	
 	public boolean isLeaf() {
@@ -0,0 +1,130 @@
+package extensive_form_game;
+
+import java.util.Arrays;
+
+/**
+ * Sequence ids of both players, addressed by (player, information set, action id) through flat int
+ * arrays instead of maps keyed by action names. Obtain it with Game.getSequenceFormIndex(), which builds
+ * it once per game.
+ *
+ * The numbering is the one the LP solvers have always used: the empty sequence is 0 and the actions of
+ * an information set get their ids, in action order, when a pre-order walk of the tree first reaches the
+ * information set, so the ids of an action and the sequences below it are consecutive. The actions of an
+ * information set are identified by their position, which is the same at every node of the set.
+ */
+public class SequenceFormIndex {
+
+	private final int[][] firstActionOffset; // indexed as [player][informationSetId], position of action 0 in sequenceIds
+	private final int[][] sequenceIds; // indexed as [player][firstActionOffset + actionId], -1 if the walk never reaches the set
+	private final int[][] informationSetBySequenceId; // indexed as [player][sequenceId], -1 for the empty sequence
+	private final int[][] actionIdBySequenceId; // indexed as [player][sequenceId], -1 for the empty sequence
+	private final int[] numSequences; // indexed as [player]
+
+	public SequenceFormIndex(Game game) {
+		firstActionOffset = new int[3][];
+		sequenceIds = new int[3][];
+		informationSetBySequenceId = new int[3][];
+		actionIdBySequenceId = new int[3][];
+		numSequences = new int[3];
+		for (int player = 1; player < 3; player++) {
+			int numInformationSets = game.getNumInformationSets(player);
+			firstActionOffset[player] = new int[numInformationSets + 1];
+			for (int informationSetId = 0; informationSetId < numInformationSets; informationSetId++) {
+				firstActionOffset[player][informationSetId + 1] = firstActionOffset[player][informationSetId]
+						+ game.getNumActionsAtInformationSet(player, informationSetId);
+			}
+			sequenceIds[player] = new int[firstActionOffset[player][numInformationSets]];
+			Arrays.fill(sequenceIds[player], -1);
+			informationSetBySequenceId[player] = new int[sequenceIds[player].length + 1];
+			actionIdBySequenceId[player] = new int[sequenceIds[player].length + 1];
+			informationSetBySequenceId[player][0] = actionIdBySequenceId[player][0] = -1;
+			numSequences[player] = 1;
+		}
+		numberSequences(game);
+	}
+
+	/**
+	 * Pre-order walk with an explicit stack. A frame is a node and the next action to descend into; an
+	 * information set gets the id of an action when the walk descends into that action at the first node
+	 * of the set it reaches.
+	 */
+	private void numberSequences(Game game) {
+		int[] nodeStack = new int[16];
+		int[] actionStack = new int[16];
+		boolean[][] numbering = new boolean[3][]; // indexed as [player][informationSetId], true while the first node of the set is on the stack
+		boolean[][] numbered = new boolean[3][];
+		for (int player = 1; player < 3; player++) {
+			numbering[player] = new boolean[firstActionOffset[player].length];
+			numbered[player] = new boolean[firstActionOffset[player].length];
+		}
+
+		int depth = 0;
+		nodeStack[0] = game.getRoot();
+		actionStack[0] = 0;
+		while (depth >= 0) {
+			int nodeId = nodeStack[depth];
+			int actionId = actionStack[depth];
+			int player = game.getNodePlayer(nodeId);
+			if (player < 0 || actionId >= game.getNumActionsAtNode(nodeId)) {
+				if (player > 0 && numbering[player][game.getNodeInformationSet(nodeId)]) {
+					int informationSetId = game.getNodeInformationSet(nodeId);
+					numbering[player][informationSetId] = false;
+					numbered[player][informationSetId] = true;
+				}
+				depth--;
+				continue;
+			}
+			if (player > 0) {
+				int informationSetId = game.getNodeInformationSet(nodeId);
+				if (actionId == 0 && !numbered[player][informationSetId] && !numbering[player][informationSetId]) {
+					numbering[player][informationSetId] = true;
+				}
+				if (numbering[player][informationSetId] && sequenceIds[player][firstActionOffset[player][informationSetId] + actionId] < 0) {
+					int sequenceId = numSequences[player]++;
+					sequenceIds[player][firstActionOffset[player][informationSetId] + actionId] = sequenceId;
+					informationSetBySequenceId[player][sequenceId] = informationSetId;
+					actionIdBySequenceId[player][sequenceId] = actionId;
+				}
+			}
+			actionStack[depth] = actionId + 1;
+			if (++depth == nodeStack.length) {
+				nodeStack = Arrays.copyOf(nodeStack, 2 * depth);
+				actionStack = Arrays.copyOf(actionStack, 2 * depth);
+			}
+			nodeStack[depth] = game.getChildId(nodeId, actionId);
+			actionStack[depth] = 0;
+		}
+	}
+
+	/**
+	 * Returns the id of the sequence that ends with the action at the information set
+	 */
+	public int getSequenceId(int player, int informationSetId, int actionId) {
+		return sequenceIds[player][firstActionOffset[player][informationSetId] + actionId];
+	}
+
+	/**
+	 * Returns the number of sequences of the player, including the empty sequence
+	 */
+	public int getNumSequences(int player) {
+		return numSequences[player];
+	}
+
+	/**
+	 * Returns the information set the last action of the sequence is taken at, -1 for the empty sequence
+	 */
+	public int getInformationSet(int player, int sequenceId) {
+		return informationSetBySequenceId[player][sequenceId];
+	}
+
+	/**
+	 * Returns the last action of the sequence, -1 for the empty sequence
+	 */
+	public int getActionId(int player, int sequenceId) {
+		return actionIdBySequenceId[player][sequenceId];
+	}
+
+	public int getNumActions(int player, int informationSetId) {
+		return firstActionOffset[player][informationSetId + 1] - firstActionOffset[player][informationSetId];
+	}
+}
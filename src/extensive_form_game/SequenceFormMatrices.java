@@ -0,0 +1,345 @@
+package extensive_form_game;
+
+import java.util.Arrays;
+
+import gnu.trove.impl.Constants;
+import gnu.trove.list.array.TDoubleArrayList;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.TLongIntMap;
+import gnu.trove.map.hash.TLongIntHashMap;
+
+/**
+ * The sequence form of a game as sparse matrices in compressed sparse row (CSR) form, compiled in one
+ * walk of the tree. Obtain it with Game.getSequenceFormMatrices(), which compiles it once per game.
+ *
+ * The constraint matrix of Player 1 is E and that of Player 2 is F: row 0 is the empty sequence,
+ * x[0] = 1, and row informationSetId + 1 is sum over the actions a of x[sequence(I, a)] - x[parent(I)] = 0,
+ * so E x = e with e = (1, 0, ..., 0). The payoff matrices A have an entry for every pair of sequences
+ * that is the last pair of sequences of the two players on the path to at least one leaf: the payoffs of
+ * those leaves weighted by the nature probabilities on their paths, summed. The number of leaves of each
+ * entry is kept with the same structure. Sequence ids are those of SequenceFormIndex, and the columns of
+ * every row are sorted.
+ */
+public class SequenceFormMatrices {
+
+	/**
+	 * A sparse matrix in CSR form. The entries of row i are rowStarts[i] until rowStarts[i + 1] of
+	 * columns and values. The arrays are shared with the solvers for bulk loading and must not be changed.
+	 */
+	public static class SparseMatrix {
+		private final int numRows;
+		private final int numColumns;
+		private final int[] rowStarts;
+		private final int[] columns;
+		private final double[] values;
+
+		SparseMatrix(int numRows, int numColumns, int[] rowStarts, int[] columns, double[] values) {
+			this.numRows = numRows;
+			this.numColumns = numColumns;
+			this.rowStarts = rowStarts;
+			this.columns = columns;
+			this.values = values;
+		}
+
+		public int getNumRows() {
+			return numRows;
+		}
+
+		public int getNumColumns() {
+			return numColumns;
+		}
+
+		public int getNumNonZeros() {
+			return columns.length;
+		}
+
+		public int getRowStart(int row) {
+			return rowStarts[row];
+		}
+
+		public int getRowEnd(int row) {
+			return rowStarts[row + 1];
+		}
+
+		public int getColumn(int entry) {
+			return columns[entry];
+		}
+
+		public double getValue(int entry) {
+			return values[entry];
+		}
+
+		/**
+		 * Returns the position of the entry in row and column, -1 if the matrix has no such entry
+		 */
+		public int find(int row, int column) {
+			int entry = Arrays.binarySearch(columns, rowStarts[row], rowStarts[row + 1], column);
+			return entry >= 0 ? entry : -1;
+		}
+
+		public double get(int row, int column) {
+			int entry = find(row, column);
+			return entry >= 0 ? values[entry] : 0;
+		}
+
+		public int[] getRowStarts() {
+			return rowStarts;
+		}
+
+		public int[] getColumns() {
+			return columns;
+		}
+
+		public double[] getValues() {
+			return values;
+		}
+	}
+
+	private final int[] numSequences; // indexed as [player]
+	private final int[][] parentSequences; // indexed as [player][informationSetId], -1 if the walk never reaches the set
+	private final SparseMatrix[] constraintMatrices; // indexed as [player]
+	private final SparseMatrix[][] payoffMatrices; // indexed as [rowPlayer][player]
+	private final SparseMatrix[] leafCounts; // indexed as [rowPlayer]
+
+	/**
+	 * Entries of the payoff matrices in the order the walk finds them
+	 */
+	private static class PayoffEntries {
+		final TLongIntMap entryBySequencePair = new TLongIntHashMap(Constants.DEFAULT_CAPACITY,
+				Constants.DEFAULT_LOAD_FACTOR, -1, -1);
+		final TIntArrayList sequencesP1 = new TIntArrayList();
+		final TIntArrayList sequencesP2 = new TIntArrayList();
+		final TDoubleArrayList payoffsP1 = new TDoubleArrayList();
+		final TDoubleArrayList payoffsP2 = new TDoubleArrayList();
+		final TDoubleArrayList leafCounts = new TDoubleArrayList();
+		final int numSequencesP2;
+
+		PayoffEntries(int numSequencesP2) {
+			this.numSequencesP2 = numSequencesP2;
+		}
+
+		void addLeaf(int sequenceP1, int sequenceP2, double natureProbability, double valueP1, double valueP2) {
+			long key = (long) sequenceP1 * numSequencesP2 + sequenceP2;
+			int entry = entryBySequencePair.get(key);
+			if (entry < 0) {
+				entry = sequencesP1.size();
+				entryBySequencePair.put(key, entry);
+				sequencesP1.add(sequenceP1);
+				sequencesP2.add(sequenceP2);
+				payoffsP1.add(0);
+				payoffsP2.add(0);
+				leafCounts.add(0);
+			}
+			payoffsP1.set(entry, payoffsP1.get(entry) + natureProbability * valueP1);
+			payoffsP2.set(entry, payoffsP2.get(entry) + natureProbability * valueP2);
+			leafCounts.set(entry, leafCounts.get(entry) + 1);
+		}
+	}
+
+	public SequenceFormMatrices(Game game) {
+		SequenceFormIndex index = game.getSequenceFormIndex();
+		numSequences = new int[3];
+		parentSequences = new int[3][];
+		for (int player = 1; player < 3; player++) {
+			numSequences[player] = index.getNumSequences(player);
+			parentSequences[player] = new int[game.getNumInformationSets(player)];
+			Arrays.fill(parentSequences[player], -1);
+		}
+
+		PayoffEntries entries = new PayoffEntries(numSequences[2]);
+		compile(game, index, entries);
+
+		constraintMatrices = new SparseMatrix[3];
+		for (int player = 1; player < 3; player++) {
+			constraintMatrices[player] = createConstraintMatrix(index, player);
+		}
+
+		int[] sequencesP1 = entries.sequencesP1.toArray();
+		int[] sequencesP2 = entries.sequencesP2.toArray();
+		double[][] entryValues = { entries.payoffsP1.toArray(), entries.payoffsP2.toArray(), entries.leafCounts.toArray() };
+		payoffMatrices = new SparseMatrix[3][];
+		leafCounts = new SparseMatrix[3];
+		SparseMatrix[] rowsP1 = createMatrices(numSequences[1], numSequences[2], sequencesP1, sequencesP2, entryValues);
+		SparseMatrix[] rowsP2 = createMatrices(numSequences[2], numSequences[1], sequencesP2, sequencesP1, entryValues);
+		payoffMatrices[1] = new SparseMatrix[] { null, rowsP1[0], rowsP1[1] };
+		payoffMatrices[2] = new SparseMatrix[] { null, rowsP2[0], rowsP2[1] };
+		leafCounts[1] = rowsP1[2];
+		leafCounts[2] = rowsP2[2];
+	}
+
+	/**
+	 * Pre-order walk with an explicit stack. A frame is a node, the next action to descend into, the last
+	 * sequence of each player on the path to the node and the product of the nature probabilities on it.
+	 */
+	private void compile(Game game, SequenceFormIndex index, PayoffEntries entries) {
+		int[] nodeStack = new int[16];
+		int[] actionStack = new int[16];
+		int[] sequenceStackP1 = new int[16];
+		int[] sequenceStackP2 = new int[16];
+		double[] probabilityStack = new double[16];
+
+		int depth = 0;
+		nodeStack[0] = game.getRoot();
+		probabilityStack[0] = 1;
+		while (depth >= 0) {
+			int nodeId = nodeStack[depth];
+			int actionId = actionStack[depth];
+			int player = game.getNodePlayer(nodeId);
+			if (player == -2) {
+				entries.addLeaf(sequenceStackP1[depth], sequenceStackP2[depth], probabilityStack[depth],
+						game.getNodePlayerOneValue(nodeId), game.getNodePlayerTwoValue(nodeId));
+				depth--;
+				continue;
+			}
+			if (actionId >= game.getNumActionsAtNode(nodeId)) {
+				depth--;
+				continue;
+			}
+
+			int sequenceP1 = sequenceStackP1[depth];
+			int sequenceP2 = sequenceStackP2[depth];
+			double probability = probabilityStack[depth];
+			if (player == 0) {
+				probability *= game.getActionProbability(nodeId, actionId);
+			} else {
+				int informationSetId = game.getNodeInformationSet(nodeId);
+				if (player == 1) {
+					if (actionId == 0 && parentSequences[1][informationSetId] < 0) {
+						parentSequences[1][informationSetId] = sequenceP1;
+					}
+					sequenceP1 = index.getSequenceId(1, informationSetId, actionId);
+				} else {
+					if (actionId == 0 && parentSequences[2][informationSetId] < 0) {
+						parentSequences[2][informationSetId] = sequenceP2;
+					}
+					sequenceP2 = index.getSequenceId(2, informationSetId, actionId);
+				}
+			}
+
+			actionStack[depth] = actionId + 1;
+			if (++depth == nodeStack.length) {
+				nodeStack = Arrays.copyOf(nodeStack, 2 * depth);
+				actionStack = Arrays.copyOf(actionStack, 2 * depth);
+				sequenceStackP1 = Arrays.copyOf(sequenceStackP1, 2 * depth);
+				sequenceStackP2 = Arrays.copyOf(sequenceStackP2, 2 * depth);
+				probabilityStack = Arrays.copyOf(probabilityStack, 2 * depth);
+			}
+			nodeStack[depth] = game.getChildId(nodeId, actionId);
+			actionStack[depth] = 0;
+			sequenceStackP1[depth] = sequenceP1;
+			sequenceStackP2[depth] = sequenceP2;
+			probabilityStack[depth] = probability;
+		}
+	}
+
+	private SparseMatrix createConstraintMatrix(SequenceFormIndex index, int player) {
+		int numInformationSets = parentSequences[player].length;
+		TIntArrayList rows = new TIntArrayList();
+		TIntArrayList columns = new TIntArrayList();
+		TDoubleArrayList values = new TDoubleArrayList();
+		rows.add(0);
+		columns.add(0);
+		values.add(1);
+		for (int informationSetId = 0; informationSetId < numInformationSets; informationSetId++) {
+			if (parentSequences[player][informationSetId] < 0) {
+				continue;
+			}
+			rows.add(informationSetId + 1);
+			columns.add(parentSequences[player][informationSetId]);
+			values.add(-1);
+			for (int actionId = 0; actionId < index.getNumActions(player, informationSetId); actionId++) {
+				rows.add(informationSetId + 1);
+				columns.add(index.getSequenceId(player, informationSetId, actionId));
+				values.add(1);
+			}
+		}
+		return createMatrices(numInformationSets + 1, numSequences[player], rows.toArray(), columns.toArray(),
+				new double[][] { values.toArray() })[0];
+	}
+
+	/**
+	 * Sorts entries given as (row, column) pairs into CSR matrices with sorted columns, one matrix per
+	 * array of values, all sharing the same rowStarts and columns arrays. Two stable counting sorts, by
+	 * column and then by row.
+	 */
+	private static SparseMatrix[] createMatrices(int numRows, int numColumns, int[] entryRows, int[] entryColumns,
+			double[][] entryValues) {
+		int numEntries = entryRows.length;
+		int[] byColumn = countingSort(entryColumns, numColumns, null);
+		int[] order = countingSort(entryRows, numRows, byColumn);
+
+		int[] rowStarts = new int[numRows + 1];
+		for (int entry = 0; entry < numEntries; entry++) {
+			rowStarts[entryRows[entry] + 1]++;
+		}
+		for (int row = 0; row < numRows; row++) {
+			rowStarts[row + 1] += rowStarts[row];
+		}
+		int[] columns = new int[numEntries];
+		for (int k = 0; k < numEntries; k++) {
+			columns[k] = entryColumns[order[k]];
+		}
+		SparseMatrix[] matrices = new SparseMatrix[entryValues.length];
+		for (int i = 0; i < entryValues.length; i++) {
+			double[] values = new double[numEntries];
+			for (int k = 0; k < numEntries; k++) {
+				values[k] = entryValues[i][order[k]];
+			}
+			matrices[i] = new SparseMatrix(numRows, numColumns, rowStarts, columns, values);
+		}
+		return matrices;
+	}
+
+	/**
+	 * Returns the entries in the given order, null for their natural order, stably sorted by key
+	 */
+	private static int[] countingSort(int[] keys, int numKeys, int[] order) {
+		int[] starts = new int[numKeys + 1];
+		for (int key : keys) {
+			starts[key + 1]++;
+		}
+		for (int key = 0; key < numKeys; key++) {
+			starts[key + 1] += starts[key];
+		}
+		int[] sorted = new int[keys.length];
+		for (int k = 0; k < keys.length; k++) {
+			int entry = order == null ? k : order[k];
+			sorted[starts[keys[entry]]++] = entry;
+		}
+		return sorted;
+	}
+
+	/**
+	 * Returns E for Player 1 and F for Player 2, with a row per information set after the row of the empty
+	 * sequence and a column per sequence
+	 */
+	public SparseMatrix getConstraintMatrix(int player) {
+		return constraintMatrices[player];
+	}
+
+	/**
+	 * Returns the last sequence of the player before the information set, -1 if the set is never reached
+	 */
+	public int getParentSequence(int player, int informationSetId) {
+		return parentSequences[player][informationSetId];
+	}
+
+	/**
+	 * Returns the payoff matrix of the player with a row per sequence of rowPlayer and a column per
+	 * sequence of the other player
+	 */
+	public SparseMatrix getPayoffMatrix(int player, int rowPlayer) {
+		return payoffMatrices[rowPlayer][player];
+	}
+
+	/**
+	 * Returns the number of leaves of every entry of the payoff matrices with rows of rowPlayer
+	 */
+	public SparseMatrix getLeafCounts(int rowPlayer) {
+		return leafCounts[rowPlayer];
+	}
+
+	public int getNumSequences(int player) {
+		return numSequences[player];
+	}
+}
@@ -3,27 +3,25 @@ package extensive_form_game_solver;
 import gnu.trove.map.TIntDoubleMap;
 import gnu.trove.map.TIntObjectMap;
 import gnu.trove.map.TObjectDoubleMap;
-import gnu.trove.map.TObjectIntMap;
 import gnu.trove.map.hash.TIntDoubleHashMap;
 import gnu.trove.map.hash.TIntObjectHashMap;
 import gnu.trove.map.hash.TObjectDoubleHashMap;
-import gnu.trove.map.hash.TObjectIntHashMap;
 import gnu.trove.set.TIntSet;
 import gnu.trove.set.hash.TIntHashSet;
-import ilog.concert.IloConstraint;
-import ilog.concert.IloException;
-import ilog.concert.IloLinearNumExpr;
-import ilog.concert.IloNumVar;
-import ilog.cplex.IloCplex;
-import ilog.cplex.IloCplex.UnknownObjectException;
+import linear_program.LPConstraint;
+import linear_program.LPException;
+import linear_program.LPLinearExpression;
+import linear_program.LPModel;
+import linear_program.LPStatus;
+import linear_program.LPVariable;
 
 import java.io.FileWriter;
 import java.io.IOException;
-import java.util.HashMap;
 
 import extensive_form_game.Game;
 import extensive_form_game.Game.Action;
 import extensive_form_game.Game.Node;
+import extensive_form_game.SequenceFormIndex;
 
 public class BestResponseLPSolver extends ZeroSumGameSolver {
 	
@@ -35,23 +33,18 @@ public class BestResponseLPSolver extends ZeroSumGameSolver {
 	double[][] opponentStrategy;
 	int cnt = 0;
 	
-	IloCplex cplex;
-	//IloNumVar[] modelStrategyVars;
-	HashMap<String, IloNumVar>[] strategyVarsByInformationSet; // indexed as [inforationSetId][action.name]
-	IloLinearNumExpr objective;
+	LPModel model;
+	//LPVariable[] modelStrategyVars;
+	LPLinearExpression objective;
 	
-	TObjectIntMap<String>[] sequenceIdByInformationSetAndActionP1; // indexed as [informationSetId][action.name]
-	TObjectIntMap<String>[] sequenceIdByInformationSetAndActionP2; // indexed as [informationSetId][action.name]
-	IloNumVar[] strategyVarsBySequenceId;
+	SequenceFormIndex sequenceFormIndex;
+	LPVariable[] strategyVarsBySequenceId;
 	int numSequencesP1;
 	int numSequencesP2;
 	int numPrimalSequences;
 	int numPrimalInformationSets;
 
-	
-	String[] primalSequenceNames;
-	
-	TIntObjectMap<IloConstraint> primalConstraints; // indexed as [informationSetId], without correcting for 1-indexing
+	TIntObjectMap<LPConstraint> primalConstraints; // indexed as [informationSetId], without correcting for 1-indexing
 
 	double[] nodeNatureProbabilities; // indexed as [nodeId]. Returns the probability of that node being reached when considering only nature nodes
 	int[] sequenceIdForNodeP1; // indexed as [nodeId]. Returns the sequenceId of the last sequence belonging to Player 1 on the path to the node. 
@@ -62,9 +55,9 @@ public class BestResponseLPSolver extends ZeroSumGameSolver {
 		this.game = game;
 		this.opponentStrategy = opponentStrategy;
 		try {
-			cplex = new IloCplex();
-		} catch (IloException e) {
-			System.out.println("Error SequenceFormLPSolver(): CPLEX setup failed");
+			model = new LPModel();
+		} catch (LPException e) {
+			System.out.println("Error SequenceFormLPSolver(): LP model setup failed");
 		}
 		
 		this.playerToSolveFor = playerToSolveFor;
@@ -72,13 +65,13 @@ public class BestResponseLPSolver extends ZeroSumGameSolver {
 		
 		
 		initializeDataStructures();
-		//modelStrategyVars = new ArrayList<IloNumVar>();
-		//dualVars = new ArrayList<IloNumVar>();
-		//strategyVarsByRealGameSequences = new ArrayList<IloNumVar>();
+		//modelStrategyVars = new ArrayList<LPVariable>();
+		//dualVars = new ArrayList<LPVariable>();
+		//strategyVarsByRealGameSequences = new ArrayList<LPVariable>();
 		
 		try {
 			setUpModel();
-		} catch (IloException e) {
+		} catch (LPException e) {
 			e.printStackTrace();
 		}
 	}
@@ -86,46 +79,18 @@ public class BestResponseLPSolver extends ZeroSumGameSolver {
 	/** 
 	 * Initializes the arrays and other data structure objects that we use.
 	 */
-	@SuppressWarnings("unchecked")
 	private void initializeDataStructures() {
-		int numInformationSets = 0;
-		
-		if (playerToSolveFor == 1) {
-			numInformationSets = game.getNumInformationSetsPlayer1();
-		} else {
-			numInformationSets = game.getNumInformationSetsPlayer2();
-		}
-		this.strategyVarsByInformationSet = (HashMap<String, IloNumVar>[]) new HashMap[numInformationSets+1];
-		for (int i = 0; i <= numInformationSets; i++) {
-			this.strategyVarsByInformationSet[i] = new HashMap<String, IloNumVar>();
-		}
-		
-		
 		numPrimalSequences = playerToSolveFor == 1 ? game.getNumSequencesP1() : game.getNumSequencesP2();
 		numPrimalInformationSets = playerToSolveFor == 1 ? game.getNumInformationSetsPlayer1() : game.getNumInformationSetsPlayer2();
-
-		
-		primalSequenceNames = new String[numPrimalSequences];
-		
-		
-		// ensure that we have a large enough array for both the case where information sets start at 1 and 0
-		sequenceIdByInformationSetAndActionP1 = new TObjectIntMap[game.getNumInformationSetsPlayer1()+1];
-		sequenceIdByInformationSetAndActionP2 = new TObjectIntMap[game.getNumInformationSetsPlayer2()+1];
-		
-		for (int i = 0; i <= game.getNumInformationSetsPlayer1(); i++) {
-			sequenceIdByInformationSetAndActionP1[i] = new TObjectIntHashMap<String>();
-		}
-		for (int i = 0; i <= game.getNumInformationSetsPlayer2(); i++) {
-			sequenceIdByInformationSetAndActionP2[i] = new TObjectIntHashMap<String>();
-		}
+		sequenceFormIndex = game.getSequenceFormIndex();
 
 		if (playerToSolveFor == 1) {
-			strategyVarsBySequenceId = new IloNumVar[game.getNumSequencesP1()];
+			strategyVarsBySequenceId = new LPVariable[game.getNumSequencesP1()];
 		} else {
-			strategyVarsBySequenceId = new IloNumVar[game.getNumSequencesP2()];
+			strategyVarsBySequenceId = new LPVariable[game.getNumSequencesP2()];
 		}
 		
-		primalConstraints = new TIntObjectHashMap<IloConstraint>();
+		primalConstraints = new TIntObjectHashMap<LPConstraint>();
 		nodeNatureProbabilities = new double[game.getNumNodes()+1]; // Use +1 to be robust for non-zero indexed nodes
 		sequenceIdForNodeP1 = new int[game.getNumNodes()+1];
 		sequenceIdForNodeP2 = new int[game.getNumNodes()+1];
@@ -133,42 +98,40 @@ public class BestResponseLPSolver extends ZeroSumGameSolver {
 	}
 	
 	/**
-	 * Tries to solve the current model. Currently relies on CPLEX to throw an exception if no model has been built.
+	 * Tries to solve the current model. Currently relies on LPModel to throw an exception if no model has been built.
 	 */
 	@Override
 	public void solveGame() {
 		try {
-			if (cplex.solve()) {
+			if (model.solve()) {
 				/*for (int i = 0; i < strategyVarsBySequenceId.length; i++) {
-					IloNumVar v = strategyVarsBySequenceId[i];
-					cplex.getValue(v);
+					LPVariable v = strategyVarsBySequenceId[i];
+					model.getValue(v);
 				}*/
 				//System.out.println("Strategy ID :" + strategyVarsBySequenceId.length);
-				//strategyVars = cplex.getValues(strategyVarsBySequenceId);
-				valueOfGame = playerToSolveFor == player1 ? cplex.getObjValue() : cplex.getObjValue();
+				//strategyVars = model.getValues(strategyVarsBySequenceId);
+				valueOfGame = playerToSolveFor == player1 ? model.getObjValue() : model.getObjValue();
 				System.out.println("Attacker's utility : " + valueOfGame);
 			}
-		} catch (IloException e) {
+		} catch (LPException e) {
 			e.printStackTrace();
 			System.out.println("Error SequenceFormLPSolver::solveGame: solve exception");
 		}
 	}
 
 	/**
-	 * Creates and returns a mapping from variable names to the values they take on in the solution computed by CPLEX.
+	 * Creates and returns a mapping from variable names to the values they take on in the solution computed by the LP backend.
 	 */
 	public TObjectDoubleMap<String> getStrategyVarMap() {
 		TObjectDoubleMap<String> map = new TObjectDoubleHashMap<String>();
-		for (IloNumVar v : strategyVarsBySequenceId) {
+		for (LPVariable v : strategyVarsBySequenceId) {
 			try {
 				/*Mapping only best response sequences*/
-				if(null != v && cplex.getValue(v) > 0) {
-				map.put(v.getName(), cplex.getValue(v));
+				if(null != v && model.getValue(v) > 0) {
+				map.put(v.getName(), model.getValue(v));
 				
 				} 
-			} catch (UnknownObjectException e) {
-				e.printStackTrace();
-			} catch (IloException e) {
+			} catch (LPException e) {
 				e.printStackTrace();
 			}
 		}
@@ -184,22 +147,16 @@ public class BestResponseLPSolver extends ZeroSumGameSolver {
 		TObjectDoubleMap<String>[] map = new TObjectDoubleHashMap[numPrimalInformationSets];
 		for (int informationSetId = 0; informationSetId < numPrimalInformationSets; informationSetId++) {
 			map[informationSetId] = new TObjectDoubleHashMap();
-			double sum = 0;
-			for (String actionName : strategyVarsByInformationSet[informationSetId].keySet()) {
-				try {
-					sum += cplex.getValue(strategyVarsByInformationSet[informationSetId].get(actionName));
-				} catch (IloException e) {
-					e.printStackTrace();
-				}
-			}
-			for (String actionName : strategyVarsByInformationSet[informationSetId].keySet()) {
+			double sum = getSumOfStrategyValues(informationSetId);
+			for (int actionId = 0; actionId < game.getNumActionsAtInformationSet(playerToSolveFor, informationSetId); actionId++) {
+				String actionName = game.getActionsAtInformationSet(playerToSolveFor, informationSetId)[actionId].getName();
 				try {
 					if (sum > 0) {
-						map[informationSetId].put(actionName, cplex.getValue(strategyVarsByInformationSet[informationSetId].get(actionName)) / sum);
+						map[informationSetId].put(actionName, model.getValue(getStrategyVar(informationSetId, actionId)) / sum);
 					} else {
 						map[informationSetId].put(actionName, 0);
 					}
-				} catch (IloException e) {
+				} catch (LPException e) {
 					e.printStackTrace();
 				}
 			}
@@ -214,23 +171,15 @@ public class BestResponseLPSolver extends ZeroSumGameSolver {
 		TIntDoubleMap[] map = new TIntDoubleHashMap[numPrimalInformationSets];
 		for (int informationSetId = 0; informationSetId < numPrimalInformationSets; informationSetId++) {
 			map[informationSetId] = new TIntDoubleHashMap();
-			double sum = 0;
-			for (String actionName : strategyVarsByInformationSet[informationSetId].keySet()) {
-				try {
-					sum += cplex.getValue(strategyVarsByInformationSet[informationSetId].get(actionName));
-				} catch (IloException e) {
-					e.printStackTrace();
-				}
-			}
+			double sum = getSumOfStrategyValues(informationSetId);
 			for (int actionId = 0; actionId < game.getNumActionsAtInformationSet(playerToSolveFor, informationSetId); actionId++) {
-				String actionName = game.getActionsAtInformationSet(playerToSolveFor, informationSetId)[actionId].getName();
 				try {
 					if (sum > 0) {
-						map[informationSetId].put(actionId, cplex.getValue(strategyVarsByInformationSet[informationSetId].get(actionName)) / sum);
+						map[informationSetId].put(actionId, model.getValue(getStrategyVar(informationSetId, actionId)) / sum);
 					} else {
 						map[informationSetId].put(actionId, 0);
 					}
-				} catch (IloException e) {
+				} catch (LPException e) {
 					e.printStackTrace();
 				}
 			}
@@ -248,24 +197,16 @@ public class BestResponseLPSolver extends ZeroSumGameSolver {
 		map[playerToSolveFor] = new double[numPrimalInformationSets][];
 		for (int informationSetId = 0; informationSetId < numPrimalInformationSets; informationSetId++) {
 			map[playerToSolveFor][informationSetId] = new double[game.getNumActionsAtInformationSet(playerToSolveFor, informationSetId)];
-			double sum = 0;
-			for (String actionName : strategyVarsByInformationSet[informationSetId].keySet()) {
-				try {
-					sum += cplex.getValue(strategyVarsByInformationSet[informationSetId].get(actionName));
-				} catch (IloException e) {
-					e.printStackTrace();
-				}
-			}
+			double sum = getSumOfStrategyValues(informationSetId);
 			for (int actionId = 0; actionId < game.getNumActionsAtInformationSet(playerToSolveFor, informationSetId); actionId++) {
-				String actionName = game.getActionsAtInformationSet(playerToSolveFor, informationSetId)[actionId].getName();
 				try {
 					if (sum > 0) {
-						map[playerToSolveFor][informationSetId][actionId] = cplex.getValue(strategyVarsByInformationSet[informationSetId].get(actionName)) / sum;
+						map[playerToSolveFor][informationSetId][actionId] = model.getValue(getStrategyVar(informationSetId, actionId)) / sum;
 					} else {
 						map[playerToSolveFor][informationSetId][actionId] = 0.5;
 					}
-					System.out.println(strategyVarsByInformationSet[informationSetId].get(actionName) + " :  " + map[playerToSolveFor][informationSetId][actionId]);
-				} catch (IloException e) {
+					System.out.println(getStrategyVar(informationSetId, actionId) + " :  " + map[playerToSolveFor][informationSetId][actionId]);
+				} catch (LPException e) {
 					e.printStackTrace();
 				}
 			}
@@ -282,29 +223,23 @@ public class BestResponseLPSolver extends ZeroSumGameSolver {
 	@Override
 	public void printStrategyVarsAndGameValue() {
 		printGameValue();
-		for (IloNumVar v : strategyVarsBySequenceId) {
+		for (LPVariable v : strategyVarsBySequenceId) {
 			try {
-				System.out.println(v.getName() + ": \t" + cplex.getValue(v));
-			} catch (UnknownObjectException e) {
-				e.printStackTrace();
-			} catch (IloException e) {
+				System.out.println(v.getName() + ": \t" + model.getValue(v));
+			} catch (LPException e) {
 				e.printStackTrace();
 			}
 		}
 	}
 
 	/**
-	 * Prints the value of the game, as computed by CPLEX. If solve() has not been called, an exception will be thrown.
+	 * Prints the value of the game, as computed by the LP backend. If solve() has not been called, an exception will be thrown.
 	 */
 	@Override
 	public void printGameValue() {
-		try {
-			System.out.println("Solve status: " + cplex.getStatus());
-			if	(cplex.getStatus() == IloCplex.Status.Optimal) {
-				System.out.println("Objective value: " + this.getValueOfGame());
-			} 				
-		} catch (IloException e) {
-			e.printStackTrace();
+		System.out.println("Solve status: " + model.getStatus());
+		if	(model.getStatus() == LPStatus.OPTIMAL) {
+			System.out.println("Objective value: " + this.getValueOfGame());
 		}
 
 	}
@@ -313,12 +248,12 @@ public class BestResponseLPSolver extends ZeroSumGameSolver {
 	 * Writes the computed strategy to a file. An exception is thrown if solve() has not been called. 
 	 * @param filename the absolute path to the file being written to
 	 */
-	public void writeStrategyToFile(String filename) throws IloException{
+	public void writeStrategyToFile(String filename) throws LPException{
 		try {
 			FileWriter fw = new FileWriter(filename);
-			for (IloNumVar v : strategyVarsBySequenceId) {
+			for (LPVariable v : strategyVarsBySequenceId) {
 				if(v != null)
-				fw.write(v.getName() + ": \t" + cplex.getValue(v) + "\n");
+				fw.write(v.getName() + ": \t" + model.getValue(v) + "\n");
 			}
 			fw.close();
 		} catch (IOException e) {
@@ -327,54 +262,39 @@ public class BestResponseLPSolver extends ZeroSumGameSolver {
 	}
 	
 	/**
-	 * Writes the current model to a file. CPLEX throws an exception if the model is faulty or the path does not exist.
+	 * Writes the current model to a file. LPModel throws an exception if the model is faulty or the path does not exist.
 	 * @param filename the absolute path to the file being written to
 	 */
 	public void writeModelToFile(String filename) {
 		try {
-			cplex.exportModel(filename);
-		} catch (IloException e) {
+			model.exportModel(filename);
+		} catch (LPException e) {
 			e.printStackTrace();
 		}
 	}
 	
 	/**
-	 * Sets the parameters of CPLEX such that minimal output is produced.
+	 * Sets the parameters of the LP model such that minimal output is produced.
 	 */
-	private void setCplexParameters() {
-		try {
-			cplex.setParam(IloCplex.IntParam.SimDisplay, 0);
-			cplex.setParam(IloCplex.IntParam.MIPDisplay, 0);
-			cplex.setParam(IloCplex.IntParam.MIPInterval, 0);
-			cplex.setParam(IloCplex.IntParam.TuningDisplay, 0);
-			cplex.setParam(IloCplex.IntParam.BarDisplay, 0);
-			cplex.setParam(IloCplex.IntParam.SiftDisplay, 0);
-			cplex.setParam(IloCplex.IntParam.ConflictDisplay, 0);
-			cplex.setParam(IloCplex.IntParam.NetDisplay, 0);
-			cplex.setParam(IloCplex.DoubleParam.TiLim, 1e+75);
-		} catch (IloException e) {
-			e.printStackTrace();
-		}
+	private void setModelParameters() {
+		model.setQuiet(true);
 	}
 	
 	/**
 	 * Builds the LP model based on the game instance.
-	 * @throws IloException
+	 * @throws LPException
 	 */
-	private void setUpModel() throws IloException {
-		setCplexParameters();
+	private void setUpModel() throws LPException {
+		setModelParameters();
 
-		objective = cplex.linearNumExpr();
+		objective = model.linearNumExpr();
 		
 		// The empty sequence is the 0'th sequence for each player
-		numSequencesP1 = numSequencesP2 = 1;
-		primalSequenceNames[0] = "root";
-		CreateSequenceFormIds(game.getRoot(), new TIntHashSet(), new TIntHashSet());
-		assert(numSequencesP1 == game.getNumSequencesP1()); // Ensure that our recursive function agrees with the game reader on how many sequences there are
-		assert(numSequencesP2 == game.getNumSequencesP2());
+		numSequencesP1 = sequenceFormIndex.getNumSequences(1);
+		numSequencesP2 = sequenceFormIndex.getNumSequences(2);
 		
 		// create root sequence var
-		IloNumVar rootSequence = cplex.numVar(1, 1, "Xroot");
+		LPVariable rootSequence = model.numVar(1, 1, "Xroot");
 		strategyVarsBySequenceId[0] = rootSequence;
 		CreateSequenceFormVariablesAndConstraints(game.getRoot(), rootSequence, new TIntHashSet(), 1);
 		
@@ -382,122 +302,100 @@ public class BestResponseLPSolver extends ZeroSumGameSolver {
 		setObjective();
 	}
 
-	/**
-	 * Recursive function that traverses the game tree, assigning Id values, starting at 1 due to the empty sequence, to sequences in pre-order. Sequence IDs are only assigned if an information set has not previously been visited
-	 * @param currentNodeId id into the game.nodes array
-	 * @param visitedP1 an integer set indicating which information sets have already been visited for Player 1
-	 * @param visitedP2 an integer set indicating which information sets have already been visited for Player 2
-	 */
-	private void CreateSequenceFormIds(int currentNodeId, TIntSet visitedP1, TIntSet visitedP2) {
-		Node node = game.getNodeById(currentNodeId);
-		if (node.isLeaf() || null == node) return;
-		
-		for (Action action : node.getActions()) {
-			if (node.getPlayer() == 1 && !visitedP1.contains(node.getInformationSet())) {
-				sequenceIdByInformationSetAndActionP1[node.getInformationSet()].put(action.getName(), numSequencesP1++);
-				if (playerToSolveFor ==1) {
-					primalSequenceNames[numSequencesP1-1] = Integer.toString(node.getInformationSet()) + ";" + action.getName();
-				}
-			} else if (node.getPlayer() == 2 && !visitedP2.contains(node.getInformationSet())) {
-				sequenceIdByInformationSetAndActionP2[node.getInformationSet()].put(action.getName(), numSequencesP2++);
-				if (playerToSolveFor == 2) {
-					primalSequenceNames[numSequencesP2-1] = Integer.toString(node.getInformationSet()) + ";" + action.getName();
-				}
-			}
-			if(action != null)
-				CreateSequenceFormIds(action.getChildId(), visitedP1, visitedP2);
-		}		
-		if (node.getPlayer() == 1) {
-			visitedP1.add(node.getInformationSet());
-		} else if (node.getPlayer() == 2) {
-			visitedP2.add(node.getInformationSet());
-		}
-	}
-
 	/**
 	 * Creates sequence form variables in pre-order traversal. A constraint is also added to ensure that the probability sum over the new sequences sum to the value of the last seen sequence on the path to this information set 
 	 * @param currentNodeId
 	 * @param parentSequence last seen sequence belonging to the primal player
 	 * @param visited keeps track of which information sets have been visited
-	 * @throws IloException
+	 * @throws LPException
 	 */
 	
-	private void CreateSequenceFormVariablesAndConstraints(int currentNodeId, IloNumVar parentSequence, TIntSet visited, double probability) throws IloException{
-		Node node = game.getNodeById(currentNodeId);
-		if (node.isLeaf()) {
-			double value = playerToSolveFor == player1 ? node.getPlayerOneValue() : node.getPlayerTwoValue();
+	private void CreateSequenceFormVariablesAndConstraints(int currentNodeId, LPVariable parentSequence, TIntSet visited, double probability) throws LPException{
+		if (game.isLeafNode(currentNodeId)) {
+			double value = playerToSolveFor == player1 ? game.getNodePlayerOneValue(currentNodeId) : game.getNodePlayerTwoValue(currentNodeId);
 			objective.addTerm(probability * value, parentSequence);
 			return;
 		}
 		
-		if (node.getPlayer() == playerToSolveFor && !visited.contains(node.getInformationSet())) {
-			visited.add(node.getInformationSet());
-			IloLinearNumExpr sum = cplex.linearNumExpr();
+		int player = game.getNodePlayer(currentNodeId);
+		int informationSet = game.getNodeInformationSet(currentNodeId);
+		int numActions = game.getNumActionsAtNode(currentNodeId);
+		if (player == playerToSolveFor && !visited.contains(informationSet)) {
+			visited.add(informationSet);
+			LPLinearExpression sum = model.linearNumExpr();
 			//sum.addTerm(-1, parentSequence);
-			for (Action action : node.getActions()) {
+			for (int actionId = 0; actionId < numActions; actionId++) {
 				// real-valued variable in (0,1)
-				IloNumVar v = null;
-				if (!strategyVarsByInformationSet[node.getInformationSet()].containsKey(action.getName())) {
-					v = cplex.numVar(0, 1, "I:" + node.getInformationSet() + " action:" + action.getName());
-					strategyVarsByInformationSet[node.getInformationSet()].put(action.getName(), v);
-					int sequenceId = getSequenceIdForPlayerToSolveFor(node.getInformationSet(), action.getName());
+				int sequenceId = getSequenceIdForPlayerToSolveFor(informationSet, actionId);
+				LPVariable v = strategyVarsBySequenceId[sequenceId];
+				if (v == null) {
+					v = model.numVar(0, 1, "I:" + informationSet + " action:" + game.getActionName(currentNodeId, actionId));
 					strategyVarsBySequenceId[sequenceId] = v;
 					// add 1*v to the sum over all the sequences at the information set
 					sum.addTerm(1, v);
-				} else {
-					v = strategyVarsByInformationSet[node.getInformationSet()].get(action.getName());
 				}
-				CreateSequenceFormVariablesAndConstraints(action.getChildId(), v, visited, probability);
+				CreateSequenceFormVariablesAndConstraints(game.getChildId(currentNodeId, actionId), v, visited, probability);
 			}
-			primalConstraints.put(node.getInformationSet(), cplex.addEq(sum, parentSequence,"Primal"+node.getInformationSet()));
+			primalConstraints.put(informationSet, model.addEq(sum, parentSequence,"Primal"+informationSet));
 		} else {
-			for (int actionId = 0; actionId < node.getActions().length; actionId++) {
-			Action action = node.getActions()[actionId];
-				if (node.getPlayer() == playerToSolveFor) {
+			for (int actionId = 0; actionId < numActions; actionId++) {
+				if (player == playerToSolveFor) {
 					// update parentSequence to be the current sequence
-					IloNumVar v = strategyVarsByInformationSet[node.getInformationSet()].get(action.getName());
-					CreateSequenceFormVariablesAndConstraints(action.getChildId(), v, visited, probability);
+					LPVariable v = getStrategyVar(informationSet, actionId);
+					CreateSequenceFormVariablesAndConstraints(game.getChildId(currentNodeId, actionId), v, visited, probability);
 				} else {
-					double newProbability = getProbabilityOfAction(node, actionId) * probability;
-					if(action != null) // sujan
-						CreateSequenceFormVariablesAndConstraints(action.getChildId(), parentSequence, visited, newProbability);
+					double newProbability = getProbabilityOfAction(currentNodeId, actionId) * probability;
+					CreateSequenceFormVariablesAndConstraints(game.getChildId(currentNodeId, actionId), parentSequence, visited, newProbability);
 				}
 			}
 		}
 	}
 	
-	private double getProbabilityOfAction(Node node, int actionId) throws IloException {
-		if (node.getPlayer() == nature) {
-			//if(cplex.solve())
-			//System.out.println(" getProbabilityOfAction " + node.getNodeId() + "action :" + cplex.getObjValue()  );
-			return node.getActions()[actionId].getProbability();
-		} else if (node.getPlayer() == playerNotToSolveFor){
-			//System.out.println("Strategy: " + opponentStrategy[node.getInformationSet()][actionId]);
-			return opponentStrategy[node.getInformationSet()][actionId];
+	private double getProbabilityOfAction(int nodeId, int actionId) throws LPException {
+		int player = game.getNodePlayer(nodeId);
+		if (player == nature) {
+			return game.getActionProbability(nodeId, actionId);
+		} else if (player == playerNotToSolveFor){
+			return opponentStrategy[game.getNodeInformationSet(nodeId)][actionId];
 		} else {
 			System.out.println("BestResponseLPSolver::getProbabilityOfAction error: tried to get probability of playerToSolveFor action");
 			return -1;
 		}
 	}
 
-	private void setObjective() throws IloException {
-		cplex.addMaximize(objective);
+	private void setObjective() throws LPException {
+		model.addMaximize(objective);
 	}
 
-	int getSequenceIdForPlayerToSolveFor(int informationSet, String actionName) {
-		if (playerToSolveFor == 1) {
-			return sequenceIdByInformationSetAndActionP1[informationSet].get(actionName);
-		} else {
-			return sequenceIdByInformationSetAndActionP2[informationSet].get(actionName);
-		}
+	int getSequenceIdForPlayerToSolveFor(int informationSet, int actionId) {
+		return sequenceFormIndex.getSequenceId(playerToSolveFor, informationSet, actionId);
 	}
 	
-	int getSequenceIdForPlayerNotToSolveFor(int informationSet, String actionName) {
-		if (playerNotToSolveFor == 1) {
-			return sequenceIdByInformationSetAndActionP1[informationSet].get(actionName);
-		} else {
-			return sequenceIdByInformationSetAndActionP2[informationSet].get(actionName);
+	int getSequenceIdForPlayerNotToSolveFor(int informationSet, int actionId) {
+		return sequenceFormIndex.getSequenceId(playerNotToSolveFor, informationSet, actionId);
+	}
+
+	LPVariable getStrategyVar(int informationSet, int actionId) {
+		return strategyVarsBySequenceId[getSequenceIdForPlayerToSolveFor(informationSet, actionId)];
+	}
+
+	/**
+	 * Returns the sum of the values of the sequences at the information set in the solution
+	 */
+	private double getSumOfStrategyValues(int informationSet) {
+		double sum = 0;
+		for (int actionId = 0; actionId < game.getNumActionsAtInformationSet(playerToSolveFor, informationSet); actionId++) {
+			try {
+				sum += model.getValue(getStrategyVar(informationSet, actionId));
+			} catch (LPException e) {
+				e.printStackTrace();
+			}
 		}
+		return sum;
+	}
+
+	public LPModel getModel() {
+		return model;
 	}
 	
 }
@@ -0,0 +1,244 @@
+package extensive_form_game_solver;
+
+import java.util.Arrays;
+
+import extensive_form_game.Game;
+
+/**
+ * Computes a best response of one player to a fixed strategy of the other player by walking the tree,
+ * instead of building and solving the sequence form LP of BestResponseLPSolver. Assumes perfect recall.
+ *
+ * The constructor numbers the sequences of the responding player once: the empty sequence is 0 and the
+ * actions at an information set get consecutive ids, with information sets numbered in the order a
+ * depth-first walk first reaches them. A best response is then two passes over primitive arrays:
+ * a walk down the tree adds the payoff of every leaf, weighted by the probability of nature and the
+ * opponent reaching it, to the last sequence of the responding player on the path to the leaf, and a
+ * pass over the information sets in reverse discovery order, which handles every information set before
+ * the one its parent sequence starts at, adds the value of the best action to the parent sequence.
+ * Subtrees the opponent never plays into are skipped. After construction no memory is allocated, so a
+ * solver can be kept and called repeatedly, e.g. from double oracle or to measure exploitability.
+ */
+public class BestResponseSolver extends ZeroSumGameSolver {
+
+	Game game;
+
+	int playerToSolveFor;
+	int playerNotToSolveFor;
+
+	double[][] opponentStrategy;
+
+	int numInformationSets;
+	int numSequences;
+	int[] firstSequenceOfInformationSet; // indexed as [informationSetId]. Sequence id of action 0, action a has id first + a
+	int[] parentSequenceOfInformationSet; // indexed as [informationSetId]
+	int[] numActionsAtInformationSet; // indexed as [informationSetId]
+	int[] informationSetOrder; // information set ids in the order the depth-first walk first reaches them
+
+	double[] sequenceValues; // indexed as [sequenceId]. Reach weighted payoff of the subtree below the sequence under the best response
+	int[] bestActions; // indexed as [informationSetId]
+	double[][] bestResponse; // indexed as [informationSetId][actionId], pure
+
+	public BestResponseSolver(Game game, int playerToSolveFor) {
+		super(game);
+		this.game = game;
+		this.playerToSolveFor = playerToSolveFor;
+		this.playerNotToSolveFor = (playerToSolveFor % 2) + 1;
+		initializeDataStructures();
+	}
+
+	/**
+	 * Creates a solver for a fixed opponent strategy, a drop-in replacement for BestResponseLPSolver
+	 * @param opponentStrategy indexed as [informationSetId][actionId]
+	 */
+	public BestResponseSolver(Game game, int playerToSolveFor, double[][] opponentStrategy) {
+		this(game, playerToSolveFor);
+		this.opponentStrategy = opponentStrategy;
+	}
+
+	private void initializeDataStructures() {
+		numInformationSets = game.getNumInformationSets(playerToSolveFor);
+		firstSequenceOfInformationSet = new int[numInformationSets];
+		parentSequenceOfInformationSet = new int[numInformationSets];
+		numActionsAtInformationSet = new int[numInformationSets];
+		informationSetOrder = new int[numInformationSets];
+		Arrays.fill(firstSequenceOfInformationSet, -1);
+
+		numSequences = 1;
+		int numDiscovered = numberSequences(game.getRoot(), 0, 0);
+		if (numDiscovered < numInformationSets) {
+			// Information sets that no node of the tree belongs to keep a pure strategy on action 0
+			informationSetOrder = Arrays.copyOf(informationSetOrder, numDiscovered);
+		}
+
+		sequenceValues = new double[numSequences];
+		bestActions = new int[numInformationSets];
+		bestResponse = new double[numInformationSets][];
+		for (int informationSetId = 0; informationSetId < numInformationSets; informationSetId++) {
+			bestResponse[informationSetId] = new double[game.getNumActionsAtInformationSet(playerToSolveFor, informationSetId)];
+			if (bestResponse[informationSetId].length > 0) {
+				bestResponse[informationSetId][0] = 1;
+			}
+		}
+	}
+
+	/**
+	 * Depth-first walk that assigns sequence ids to the actions of the responding player
+	 * @param parentSequence last sequence of the responding player on the path to the node
+	 * @param numDiscovered number of information sets reached so far
+	 * @return number of information sets reached after walking the subtree
+	 */
+	private int numberSequences(int nodeId, int parentSequence, int numDiscovered) {
+		if (game.isLeafNode(nodeId)) {
+			return numDiscovered;
+		}
+		int numActions = game.getNumActionsAtNode(nodeId);
+		if (game.getNodePlayer(nodeId) == playerToSolveFor) {
+			int informationSetId = game.getNodeInformationSet(nodeId);
+			if (firstSequenceOfInformationSet[informationSetId] < 0) {
+				firstSequenceOfInformationSet[informationSetId] = numSequences;
+				parentSequenceOfInformationSet[informationSetId] = parentSequence;
+				numActionsAtInformationSet[informationSetId] = numActions;
+				informationSetOrder[numDiscovered++] = informationSetId;
+				numSequences += numActions;
+			} else if (parentSequenceOfInformationSet[informationSetId] != parentSequence) {
+				System.out.println("BestResponseSolver::numberSequences: information set " + informationSetId + " of player " + playerToSolveFor + " violates perfect recall");
+			}
+			for (int actionId = 0; actionId < numActions; actionId++) {
+				numDiscovered = numberSequences(game.getChildId(nodeId, actionId), firstSequenceOfInformationSet[informationSetId] + actionId, numDiscovered);
+			}
+		} else {
+			for (int actionId = 0; actionId < numActions; actionId++) {
+				numDiscovered = numberSequences(game.getChildId(nodeId, actionId), parentSequence, numDiscovered);
+			}
+		}
+		return numDiscovered;
+	}
+
+	@Override
+	public void solveGame() {
+		if (opponentStrategy == null) {
+			System.out.println("BestResponseSolver::solveGame: no opponent strategy given");
+			return;
+		}
+		computeBestResponse(opponentStrategy);
+	}
+
+	/**
+	 * Computes a best response to the strategy of the opponent in the profile
+	 * @param strategyProfile indexed as [player][informationSetId][actionId], only the opponent's strategy is read
+	 * @return the expected payoff of the responding player when playing the best response
+	 */
+	public double computeBestResponse(double[][][] strategyProfile) {
+		return computeBestResponse(strategyProfile[playerNotToSolveFor]);
+	}
+
+	/**
+	 * Computes a best response to the given opponent strategy
+	 * @param opponentStrategy indexed as [informationSetId][actionId]
+	 * @return the expected payoff of the responding player when playing the best response
+	 */
+	public double computeBestResponse(double[][] opponentStrategy) {
+		this.opponentStrategy = opponentStrategy;
+		Arrays.fill(sequenceValues, 0);
+		accumulateLeafValues(game.getRoot(), 0, 1, opponentStrategy);
+		valueOfGame = selectBestActions();
+		return valueOfGame;
+	}
+
+	/**
+	 * Picks the best action at every information set from the reach weighted leaf payoffs in
+	 * sequenceValues, bottom up, and adds the value of the best action to the parent sequence
+	 * @return the value of the empty sequence, i.e. the best response value
+	 */
+	double selectBestActions() {
+		for (int i = informationSetOrder.length - 1; i >= 0; i--) {
+			int informationSetId = informationSetOrder[i];
+			int firstSequence = firstSequenceOfInformationSet[informationSetId];
+			int bestAction = 0;
+			double bestValue = sequenceValues[firstSequence];
+			for (int actionId = 1; actionId < numActionsAtInformationSet[informationSetId]; actionId++) {
+				if (sequenceValues[firstSequence + actionId] > bestValue) {
+					bestValue = sequenceValues[firstSequence + actionId];
+					bestAction = actionId;
+				}
+			}
+			double[] actionProbabilities = bestResponse[informationSetId];
+			actionProbabilities[bestActions[informationSetId]] = 0;
+			actionProbabilities[bestAction] = 1;
+			bestActions[informationSetId] = bestAction;
+			sequenceValues[parentSequenceOfInformationSet[informationSetId]] += bestValue;
+		}
+		return sequenceValues[0];
+	}
+
+	private void accumulateLeafValues(int nodeId, int sequence, double probability, double[][] opponentStrategy) {
+		int player = game.getNodePlayer(nodeId);
+		if (player == -2) {
+			double value = playerToSolveFor == player1 ? game.getNodePlayerOneValue(nodeId) : game.getNodePlayerTwoValue(nodeId);
+			sequenceValues[sequence] += probability * value;
+			return;
+		}
+
+		int numActions = game.getNumActionsAtNode(nodeId);
+		if (player == playerToSolveFor) {
+			int firstSequence = firstSequenceOfInformationSet[game.getNodeInformationSet(nodeId)];
+			for (int actionId = 0; actionId < numActions; actionId++) {
+				accumulateLeafValues(game.getChildId(nodeId, actionId), firstSequence + actionId, probability, opponentStrategy);
+			}
+		} else {
+			double[] actionProbabilities = player == nature ? null : opponentStrategy[game.getNodeInformationSet(nodeId)];
+			for (int actionId = 0; actionId < numActions; actionId++) {
+				double actionProbability = player == nature ? game.getActionProbability(nodeId, actionId) : actionProbabilities[actionId];
+				if (actionProbability > 0) {
+					accumulateLeafValues(game.getChildId(nodeId, actionId), sequence, probability * actionProbability, opponentStrategy);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the pure best response of the last computation, indexed as [informationSetId][actionId].
+	 * The arrays are reused by the next computation.
+	 */
+	public double[][] getBestResponse() {
+		return bestResponse;
+	}
+
+	/**
+	 * Returns the action the best response of the last computation takes at the information set
+	 */
+	public int getBestAction(int informationSetId) {
+		return bestActions[informationSetId];
+	}
+
+	public int getPlayerToSolveFor() {
+		return playerToSolveFor;
+	}
+
+	/**
+	 * Returns the best response together with the opponent strategy it responds to
+	 */
+	@Override
+	public double[][][] getStrategyProfile() {
+		double[][][] map = new double[3][][];
+		map[playerToSolveFor] = new double[numInformationSets][];
+		for (int informationSetId = 0; informationSetId < numInformationSets; informationSetId++) {
+			map[playerToSolveFor][informationSetId] = bestResponse[informationSetId].clone();
+		}
+		map[playerNotToSolveFor] = opponentStrategy;
+		return map;
+	}
+
+	@Override
+	public void printStrategyVarsAndGameValue() {
+		printGameValue();
+		for (int informationSetId = 0; informationSetId < numInformationSets; informationSetId++) {
+			System.out.println("I:" + informationSetId + " action:" + bestActions[informationSetId]);
+		}
+	}
+
+	@Override
+	public void printGameValue() {
+		System.out.println("Best response value: " + valueOfGame);
+	}
+}
@@ -1,15 +1,35 @@
 package extensive_form_game_solver;
 
+import java.util.ArrayList;
 import java.util.Arrays;
-
-import org.apache.commons.math3.distribution.UniformRealDistribution;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import extensive_form_game.GameGenerator;
 import extensive_form_game.GameState;
+import gnu.trove.list.array.TIntArrayList;
 import gnu.trove.map.TIntDoubleMap;
 import gnu.trove.map.hash.TIntDoubleHashMap;
 
+/**
+ * Counterfactual regret minimization with three update rules:
+ * CFR, the original algorithm with simultaneous updates and a uniform average strategy,
+ * CFR_PLUS, which floors cumulative regrets at zero, weights the average strategy by the iteration
+ * number and updates the players alternately, and
+ * DCFR, discounted CFR, which scales positive regrets by t^alpha/(t^alpha+1), negative regrets by
+ * t^beta/(t^beta+1) after every iteration t and scales the average strategy by ((t-1)/t)^gamma before
+ * adding iteration t.
+ * All three share the same traversal.
+ */
 public class CounterFactualRegretSolver extends ZeroSumGameSolver {
+	public enum Variant {CFR, CFR_PLUS, DCFR}
+
+	// The parameters recommended for DCFR by Brown and Sandholm
+	public static final double DEFAULT_DCFR_ALPHA = 1.5;
+	public static final double DEFAULT_DCFR_BETA = 0;
+	public static final double DEFAULT_DCFR_GAMMA = 2;
+
 	int numNodesTouched;
 	int nature = 0;
 	int player1 = 1;
@@ -17,16 +37,36 @@ public class CounterFactualRegretSolver extends ZeroSumGameSolver {
 	
 	int totalIterationsRun = 0;
 	
+	private Variant variant = Variant.CFR;
+	private double alpha = DEFAULT_DCFR_ALPHA;
+	private double beta = DEFAULT_DCFR_BETA;
+	private double gamma = DEFAULT_DCFR_GAMMA;
+	// Player whose regrets and average strategy the running traversal updates, 0 for both players
+	private int updatingPlayer = 0;
+	
 	double[][][] averagedStrategy;
 	double[][][] currentStrategy;
 	double[][][] regretTable;
 	double[][] informationSetProbabilityForPlayer;
-	final UniformRealDistribution distribution = new UniformRealDistribution(0, 1);
+	
+	// Number of chunks the nature branches at the root are split into in parallel mode. Fixed, so that
+	// results do not depend on the number of threads
+	private static final int NUM_BRANCH_CHUNKS = 64;
+	private int parallelism = 1;
+	private ForkJoinPool pool;
+	private CFRTraversal sequentialTraversal;
+	private CFRTraversal[] branchChunks;
 
 	public CounterFactualRegretSolver (GameGenerator game) {
+		this(game, Variant.CFR);
+	}
+
+	public CounterFactualRegretSolver (GameGenerator game, Variant variant) {
 		super(game);
+		this.variant = variant;
 		setNumNodesTouched(0); // this is set in the constructor to signify that it changes as we run more iterations
 		initializeDataStructures();
+		sequentialTraversal = new CFRTraversal(false);
 	}
 
 	@Override
@@ -167,133 +207,351 @@ public class CounterFactualRegretSolver extends ZeroSumGameSolver {
 	}
 	
 	
+	/**
+	 * Traverses the nature branches at the root on a fork-join pool with the given number of threads.
+	 * 1, the default, runs the sequential traversal.
+	 */
+	public void setParallelism(int parallelism) {
+		this.parallelism = Math.max(1, parallelism);
+		if (pool != null && pool.getParallelism() != this.parallelism) {
+			pool.shutdown();
+			pool = null;
+		}
+	}
+
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	public Variant getVariant() {
+		return variant;
+	}
+
+	/**
+	 * Sets the discounting of DCFR. alpha = 1.5, beta = 0 and gamma = 2 are the defaults.
+	 */
+	public void setDiscountParameters(double alpha, double beta, double gamma) {
+		this.alpha = alpha;
+		this.beta = beta;
+		this.gamma = gamma;
+	}
+
+	public int getTotalIterationsRun() {
+		return totalIterationsRun;
+	}
+
 	public void runCFR(int iterations) {
-		totalIterationsRun += iterations;
-		// TODO update existing averagedStrategy
 		for (int iteration = 0; iteration < iterations; iteration++) {
-			Arrays.fill(informationSetProbabilityForPlayer[1], 0);
-			Arrays.fill(informationSetProbabilityForPlayer[2], 0);
-			GameState gs = game.getInitialGameState();
-			traverseGameState(gs);
-			regretMatch();
+			totalIterationsRun++;
+			if (variant == Variant.CFR_PLUS) {
+				// alternating updates, Player 2 already plays against the updated Player 1 strategy
+				traverse(player1);
+				regretMatch(player1);
+				traverse(player2);
+				regretMatch(player2);
+			} else {
+				traverse(0);
+				regretMatch(player1);
+				regretMatch(player2);
+			}
 		}
 	}
 
 	/**
-	 * Dispatch method for performing an iteration. 
-	 * @param player
-	 * @param gs
-	 * @param iteration
-	 * @return
+	 * Runs one traversal of the game with the current strategies
+	 * @param player the player whose regrets are updated, 0 for both
 	 */
-	private double[] traverseGameState(GameState gs) {
-		//System.out.println("Val : " + gs.getCurrentPlayer());
-		numNodesTouched++;
-		if (gs.isLeaf()) {
-			double[] plaerValues = {0,0};
-			plaerValues[0] = gs.getValueP1();
-			plaerValues[1] = gs.getValueP2();
-			return plaerValues;
-		} else if (gs.getCurrentPlayer() == nature){
-			double[] value = {0,0};
-			for (int action = 0; action < game.getNumActionsForNature(gs); action++) {
-				double probabilityOfAction = getProbabilityOfAction(gs, action);
-				game.updateGameStateWithAction(gs, action, probabilityOfAction);
-				double[] resValue = traverseGameState(gs);
-				value[0] += probabilityOfAction * resValue[0];
-				value[1] += probabilityOfAction * resValue[1];
-				game.removeActionFromGameState(gs, action, nature);
-			}
-			return value;
+	private void traverse(int player) {
+		updatingPlayer = player;
+		Arrays.fill(informationSetProbabilityForPlayer[1], 0);
+		Arrays.fill(informationSetProbabilityForPlayer[2], 0);
+		GameState gs = game.getInitialGameState();
+		if (parallelism > 1 && gs.getCurrentPlayer() == nature) {
+			traverseNatureBranchesInParallel(gs);
 		} else {
-			return traversePlayerGameState(gs);
+			sequentialTraversal.traverseGameState(gs, 0, 1, 1, 1);
+			numNodesTouched += sequentialTraversal.takeNumNodesTouched();
 		}
 	}
 
 	/**
-	 * Perform iteration for non-nature player. This updates regrets.
-	 * @param player
-	 * @param gs
-	 * @param iteration
-	 * @return
+	 * Splits the nature actions at the root into NUM_BRANCH_CHUNKS contiguous chunks and traverses the
+	 * chunks on the pool, each with its own GameState and its own regret and reach accumulators. After
+	 * all chunks are done the accumulators are added to the shared tables in chunk order. The chunks do
+	 * not depend on the number of threads, so the result is the same for any parallelism.
 	 */
-	private double[] traversePlayerGameState(GameState gs) {
-		int numActions = game.getNumActionsAtInformationSet(gs);
-		int currentPlayer = gs.getCurrentPlayer();
-		
-		double[] sumOfUtilities = {0, 0};
-		double[] actionUtilitiesP1 = new double[numActions];
-		double[] actionUtilitiesP2 = new double[numActions];
-		
-		for (int originalAction = 0; originalAction < numActions; originalAction++) {
-			int abstractAction = game.getAbstractActionMapping(gs, originalAction);
-			// use the abstract action probability
-			double probabilityOfAction = getProbabilityOfAction(gs, abstractAction);
-			// take original action in game tree
-			game.updateGameStateWithAction(gs, originalAction, probabilityOfAction);
-			// treat as abstract action when calculating regrets
-			System.out.println("Cur p : " + currentPlayer);
-			double[] pValues = traverseGameState(gs);
-			actionUtilitiesP1[abstractAction] = pValues[0];
-			actionUtilitiesP2[abstractAction] = pValues[1];
-			// remove original action from game tree
-			game.removeActionFromGameState(gs, originalAction, currentPlayer);
-			// treat as abstract action when calculating regrets
-			sumOfUtilities[0] += probabilityOfAction * actionUtilitiesP1[abstractAction];
-			sumOfUtilities[1] += probabilityOfAction * actionUtilitiesP2[abstractAction];
+	private void traverseNatureBranchesInParallel(GameState rootState) {
+		final int numBranches = game.getNumActionsForNature(rootState);
+		int numChunks = Math.min(numBranches, NUM_BRANCH_CHUNKS);
+		if (branchChunks == null || branchChunks.length != numChunks) {
+			branchChunks = new CFRTraversal[numChunks];
+			for (int chunk = 0; chunk < numChunks; chunk++) {
+				branchChunks[chunk] = new CFRTraversal(true);
+			}
+		}
+		if (pool == null) {
+			pool = new ForkJoinPool(parallelism);
+		}
+
+		final List<RecursiveAction> tasks = new ArrayList<RecursiveAction>(numChunks);
+		for (int chunk = 0; chunk < numChunks; chunk++) {
+			final CFRTraversal traversal = branchChunks[chunk];
+			final int fromBranch = (int) ((long) numBranches * chunk / numChunks);
+			final int toBranch = (int) ((long) numBranches * (chunk + 1) / numChunks);
+			tasks.add(new RecursiveAction() {
+				@Override
+				protected void compute() {
+					GameState gs = game.getInitialGameState();
+					for (int action = fromBranch; action < toBranch; action++) {
+						double probabilityOfAction = getProbabilityOfAction(gs, action);
+						game.updateGameStateWithAction(gs, action, probabilityOfAction);
+						traversal.traverseGameState(gs, 1, probabilityOfAction, 1, 1);
+						game.removeActionFromGameState(gs, action, nature);
+					}
+				}
+			});
+		}
+		pool.invoke(new RecursiveAction() {
+			@Override
+			protected void compute() {
+				invokeAll(tasks);
+			}
+		});
+
+		numNodesTouched++; // the root
+		for (CFRTraversal traversal : branchChunks) {
+			traversal.mergeInto(regretTable, informationSetProbabilityForPlayer);
+			numNodesTouched += traversal.takeNumNodesTouched();
+		}
+	}
+
+	/**
+	 * One CFR traversal with its own scratch state. Reach probabilities are passed down the recursion as
+	 * scalars, the utilities of the subtree are returned in utilityP1 and utilityP2, and action utilities
+	 * are kept in per-depth buffers, so traversing does not allocate.
+	 *
+	 * The sequential traversal adds regrets and reach directly to the solver tables. A chunk traversal
+	 * for the parallel mode adds them to its own rows, which are allocated on the first visit of an
+	 * information set and added to the solver tables by mergeInto.
+	 */
+	private class CFRTraversal {
+		private final double[][][] regrets;
+		private final double[][] reach;
+		private final TIntArrayList[] touchedInformationSets;
+		private double utilityP1;
+		private double utilityP2;
+		private double[][] actionUtilitiesP1ByDepth = new double[16][];
+		private double[][] actionUtilitiesP2ByDepth = new double[16][];
+		private int nodesTouched;
+
+		CFRTraversal(boolean ownAccumulators) {
+			if (ownAccumulators) {
+				regrets = new double[3][][];
+				reach = new double[3][];
+				touchedInformationSets = new TIntArrayList[3];
+				for (int player = 1; player < 3; player++) {
+					regrets[player] = new double[game.getNumInformationSets(player)][];
+					reach[player] = new double[game.getNumInformationSets(player)];
+					touchedInformationSets[player] = new TIntArrayList();
+				}
+			} else {
+				regrets = regretTable;
+				reach = informationSetProbabilityForPlayer;
+				touchedInformationSets = null;
+			}
 		}
-		// Perform second loop to update regret table, redundant check for whether player is nature
-		if (gs.getCurrentPlayer() != nature) {
-			int utilityMultiplier = currentPlayer == player1 ? 1 : 1;
+
+		/**
+		 * @param gs
+		 * @param depth number of actions taken to reach gs, used to index the scratch buffers
+		 * @param reachNature product of the nature probabilities on the path to gs
+		 * @param reachP1 product of the Player 1 probabilities on the path to gs
+		 * @param reachP2 product of the Player 2 probabilities on the path to gs
+		 */
+		void traverseGameState(GameState gs, int depth, double reachNature, double reachP1, double reachP2) {
+			nodesTouched++;
+			if (gs.isLeaf()) {
+				utilityP1 = gs.getValueP1();
+				utilityP2 = gs.getValueP2();
+			} else if (gs.getCurrentPlayer() == nature){
+				double valueP1 = 0;
+				double valueP2 = 0;
+				int numActions = game.getNumActionsForNature(gs);
+				for (int action = 0; action < numActions; action++) {
+					double probabilityOfAction = getProbabilityOfAction(gs, action);
+					game.updateGameStateWithAction(gs, action, probabilityOfAction);
+					traverseGameState(gs, depth + 1, reachNature * probabilityOfAction, reachP1, reachP2);
+					valueP1 += probabilityOfAction * utilityP1;
+					valueP2 += probabilityOfAction * utilityP2;
+					game.removeActionFromGameState(gs, action, nature);
+				}
+				utilityP1 = valueP1;
+				utilityP2 = valueP2;
+			} else {
+				traversePlayerGameState(gs, depth, reachNature, reachP1, reachP2);
+			}
+		}
+
+		/**
+		 * Perform iteration for non-nature player. This updates regrets.
+		 */
+		private void traversePlayerGameState(GameState gs, int depth, double reachNature, double reachP1, double reachP2) {
+			int numActions = game.getNumActionsAtInformationSet(gs);
+			int currentPlayer = gs.getCurrentPlayer();
+			int informationSetId = gs.getCurrentInformationSetId();
+			
+			double sumOfUtilitiesP1 = 0;
+			double sumOfUtilitiesP2 = 0;
+			ensureScratchDepth(depth);
+			double[] actionUtilitiesP1 = scratchBuffer(actionUtilitiesP1ByDepth, depth, numActions);
+			double[] actionUtilitiesP2 = scratchBuffer(actionUtilitiesP2ByDepth, depth, numActions);
+			
+			for (int originalAction = 0; originalAction < numActions; originalAction++) {
+				int abstractAction = game.getAbstractActionMapping(gs, originalAction);
+				// use the abstract action probability
+				double probabilityOfAction = getProbabilityOfAction(gs, abstractAction);
+				// take original action in game tree
+				game.updateGameStateWithAction(gs, originalAction, probabilityOfAction);
+				// treat as abstract action when calculating regrets
+				if (currentPlayer == player1) {
+					traverseGameState(gs, depth + 1, reachNature, reachP1 * probabilityOfAction, reachP2);
+				} else {
+					traverseGameState(gs, depth + 1, reachNature, reachP1, reachP2 * probabilityOfAction);
+				}
+				actionUtilitiesP1[abstractAction] = utilityP1;
+				actionUtilitiesP2[abstractAction] = utilityP2;
+				// remove original action from game tree
+				game.removeActionFromGameState(gs, originalAction, currentPlayer);
+				// treat as abstract action when calculating regrets
+				sumOfUtilitiesP1 += probabilityOfAction * actionUtilitiesP1[abstractAction];
+				sumOfUtilitiesP2 += probabilityOfAction * actionUtilitiesP2[abstractAction];
+			}
+			
+			utilityP1 = sumOfUtilitiesP1;
+			utilityP2 = sumOfUtilitiesP2;
+			if (updatingPlayer != 0 && currentPlayer != updatingPlayer) {
+				return;
+			}
+
+			// Counterfactual reach excludes the acting player, reach with player is the acting player's own probability
+			double reachWithoutPlayer = currentPlayer == player1 ? reachNature * reachP2 : reachNature * reachP1;
+			double reachWithPlayer = currentPlayer == player1 ? reachP1 : reachP2;
+			double[] regretRow = regretRow(currentPlayer, informationSetId);
 			for (int originalAction = 0; originalAction < numActions; originalAction++) {
-				int informationSetId = gs.getCurrentInformationSetId();
 				// treat as abstract action when calculating regrets
 				int action = game.getAbstractActionMapping(gs, originalAction);
 				if(currentPlayer == player1)
-					regretTable[currentPlayer][gs.getCurrentInformationSetId()][action] += utilityMultiplier * gs.getProbabilityWithoutPlayer(currentPlayer) * (actionUtilitiesP1[action] - sumOfUtilities[0]);
+					regretRow[action] += reachWithoutPlayer * (actionUtilitiesP1[action] - sumOfUtilitiesP1);
 				else
-					regretTable[currentPlayer][gs.getCurrentInformationSetId()][action] += utilityMultiplier * gs.getProbabilityWithoutPlayer(currentPlayer) * (actionUtilitiesP2[action] - sumOfUtilities[1]);
+					regretRow[action] += reachWithoutPlayer * (actionUtilitiesP2[action] - sumOfUtilitiesP2);
 					
 				// TODO should this be a sum of some sorts? Imperfect recall may cause some funky behavior
-				informationSetProbabilityForPlayer[currentPlayer][gs.getCurrentInformationSetId()] += gs.getProbabilityWithPlayer(currentPlayer);
+				reach[currentPlayer][informationSetId] += reachWithPlayer;
+			}
+		}
+
+		private double[] regretRow(int player, int informationSetId) {
+			double[] row = regrets[player][informationSetId];
+			if (row == null) {
+				row = new double[regretTable[player][informationSetId].length];
+				regrets[player][informationSetId] = row;
+				touchedInformationSets[player].add(informationSetId);
+			}
+			return row;
+		}
+
+		/**
+		 * Adds the accumulated regrets and reach to the given tables and resets the accumulators
+		 */
+		void mergeInto(double[][][] regretTarget, double[][] reachTarget) {
+			for (int player = 1; player < 3; player++) {
+				for (int i = 0; i < touchedInformationSets[player].size(); i++) {
+					int informationSetId = touchedInformationSets[player].get(i);
+					double[] row = regrets[player][informationSetId];
+					double[] target = regretTarget[player][informationSetId];
+					for (int action = 0; action < row.length; action++) {
+						target[action] += row[action];
+						row[action] = 0;
+					}
+					reachTarget[player][informationSetId] += reach[player][informationSetId];
+					reach[player][informationSetId] = 0;
+				}
+			}
+		}
+
+		int takeNumNodesTouched() {
+			int touched = nodesTouched;
+			nodesTouched = 0;
+			return touched;
+		}
+
+		private void ensureScratchDepth(int depth) {
+			if (depth >= actionUtilitiesP1ByDepth.length) {
+				actionUtilitiesP1ByDepth = Arrays.copyOf(actionUtilitiesP1ByDepth, 2 * depth + 1);
+				actionUtilitiesP2ByDepth = Arrays.copyOf(actionUtilitiesP2ByDepth, 2 * depth + 1);
 			}
 		}
+	}
 
-		return sumOfUtilities;
+	/**
+	 * Returns the scratch array for the given depth, growing it only the first time a larger one is needed
+	 */
+	private static double[] scratchBuffer(double[][] buffersByDepth, int depth, int size) {
+		if (buffersByDepth[depth] == null || buffersByDepth[depth].length < size) {
+			buffersByDepth[depth] = new double[size];
+		}
+		return buffersByDepth[depth];
 	}
 	
 
 	/**
-	 * Updates the current strategy for gs.getCurrentPlayer() based on the regret tables
-	 * @param gs
+	 * Adds the strategy played in this iteration to the average strategy of the player, applies the
+	 * flooring or discounting of the variant to the cumulative regrets and updates the current strategy
+	 * of the player based on the regret tables
+	 * @param player
 	 */
-	private void regretMatch() {
-		for (int player = 1; player < 3; player++) {
-			for (int informationSetId = 0; informationSetId < game.getNumInformationSets(player); informationSetId++) {
-				// We only need to update regret for abstracted information sets
-				if (game.informationSetAbstracted(player, informationSetId)) {
-					continue;
-				}
-				
-				double regretSum = 0;
-				int numActions = game.getNumActionsAtInformationSet(player, informationSetId);
-				//System.out.println("Num of action" + numActions);
-				for (int action = 0; action < numActions; action++) {
-					regretSum += Math.max(0, regretTable[player][informationSetId][action]);
-					averagedStrategy[player][informationSetId][action] += informationSetProbabilityForPlayer[player][informationSetId] * currentStrategy[player][informationSetId][action];
+	private void regretMatch(int player) {
+		double t = totalIterationsRun;
+		// CFR+ weights iteration t by t, DCFR discounts what has been accumulated so far
+		double averageWeight = variant == Variant.CFR_PLUS ? t : 1;
+		double averageDiscount = variant == Variant.DCFR ? Math.pow((t - 1) / t, gamma) : 1;
+		double positiveRegretDiscount = Math.pow(t, alpha) / (Math.pow(t, alpha) + 1);
+		double negativeRegretDiscount = Math.pow(t, beta) / (Math.pow(t, beta) + 1);
+		
+		for (int informationSetId = 0; informationSetId < game.getNumInformationSets(player); informationSetId++) {
+			// We only need to update regret for abstracted information sets
+			if (game.informationSetAbstracted(player, informationSetId)) {
+				continue;
+			}
+			
+			double[] regrets = regretTable[player][informationSetId];
+			double[] average = averagedStrategy[player][informationSetId];
+			double[] strategy = currentStrategy[player][informationSetId];
+			double reach = informationSetProbabilityForPlayer[player][informationSetId];
+			double regretSum = 0;
+			int numActions = game.getNumActionsAtInformationSet(player, informationSetId);
+			//System.out.println("Num of action" + numActions);
+			for (int action = 0; action < numActions; action++) {
+				if (variant == Variant.CFR_PLUS) {
+					regrets[action] = Math.max(0, regrets[action]);
+				} else if (variant == Variant.DCFR) {
+					regrets[action] *= regrets[action] > 0 ? positiveRegretDiscount : negativeRegretDiscount;
+					average[action] *= averageDiscount;
 				}
-				
-				double probabilitySum = 0;
-				for (int action = 0; action < numActions; action++) {
-					if (regretSum > 0) {
-						currentStrategy[player][informationSetId][action] = Math.max(0, regretTable[player][informationSetId][action]) / regretSum;
-					} else {
-						currentStrategy[player][informationSetId][action] = 1.0 / numActions;
-					}
-					probabilitySum += currentStrategy[player][informationSetId][action];
+				regretSum += Math.max(0, regrets[action]);
+				average[action] += averageWeight * reach * strategy[action];
+			}
+			
+			double probabilitySum = 0;
+			for (int action = 0; action < numActions; action++) {
+				if (regretSum > 0) {
+					strategy[action] = Math.max(0, regrets[action]) / regretSum;
+				} else {
+					strategy[action] = 1.0 / numActions;
 				}
-				assert probabilitySum > 0.99999999 && probabilitySum < 1.00000001;
+				probabilitySum += strategy[action];
 			}
+			assert probabilitySum > 0.99999999 && probabilitySum < 1.00000001;
 		}
 	}
 
@@ -2,33 +2,30 @@ package extensive_form_game_solver;
 
 import java.io.FileWriter;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-
-import org.omg.CORBA.SystemException;
-
 import extensive_form_game.Game;
 import extensive_form_game.Game.Action;
 import extensive_form_game.Game.Node;
-import gnu.trove.iterator.TIntDoubleIterator;
+import extensive_form_game.SequenceFormIndex;
+import extensive_form_game.SequenceFormMatrices;
+import extensive_form_game.SequenceFormMatrices.SparseMatrix;
+import gnu.trove.iterator.TIntIterator;
 import gnu.trove.iterator.TIntObjectIterator;
-import gnu.trove.list.TIntList;
 import gnu.trove.list.array.TIntArrayList;
 import gnu.trove.map.TIntDoubleMap;
 import gnu.trove.map.TIntObjectMap;
 import gnu.trove.map.TObjectDoubleMap;
-import gnu.trove.map.TObjectIntMap;
 import gnu.trove.map.hash.TIntDoubleHashMap;
 import gnu.trove.map.hash.TIntObjectHashMap;
 import gnu.trove.map.hash.TObjectDoubleHashMap;
-import gnu.trove.map.hash.TObjectIntHashMap;
 import gnu.trove.set.TIntSet;
 import gnu.trove.set.hash.TIntHashSet;
-import ilog.cplex.*;
-import ilog.concert.*;
-import ilog.cplex.IloCplex;
-import ilog.cplex.IloCplex.UnknownObjectException;
+import linear_program.LPConstraint;
+import linear_program.LPException;
+import linear_program.LPLinearExpression;
+import linear_program.LPModel;
+import linear_program.LPStatus;
+import linear_program.LPVariable;
+import linear_program.LPVariableType;
 import utils.Utils;
 
 public class DoubleOracleLPSolver<E> extends ZeroSumGameSolver {
@@ -37,48 +34,46 @@ public class DoubleOracleLPSolver<E> extends ZeroSumGameSolver {
 	int playerToSolveFor;
 	int playerNotToSolveFor;
 
-	IloCplex cplex;
-	IloLinearNumExpr objective;
-	IloLinearNumExpr natureConstraints;
-	// IloNumVar[] modelStrategyVars;
-	IloNumVar[] dualVars; // indexed as [informationSetId]. Note that we expect information sets to be
+	LPModel model;
+	LPVariable rootSequence;
+	// LPVariable[] modelStrategyVars;
+	LPVariable[] dualVars; // indexed as [informationSetId]. Note that we expect information sets to be
 							// 1-indexed, but the code corrects for when this is not the case
-	HashMap<String, IloNumVar>[] strategyVarsByInformationSet; // indexed as [inforationSetId][action.name]
-	HashMap<String, IloNumVar>[] opponentStrategyVarsByInformationSet; // indexed as [inforationSetId][action.name]
-	HashMap<String, Integer>[] p2SymmetricActionNumByInformationSet;
-
-	TIntList[] sequenceFormDualMatrix; // indexed as [dual sequence id][information set]
-	TIntDoubleMap[] sequenceFormDualProbMatrix;
-	TIntDoubleMap[] sequenceFormDualP1Matrix;
-	TIntDoubleMap[] dualPayoffMatrix; // indexed as [dual sequence][primal sequence]
-	TIntDoubleMap[] p1PayoffMatrix;
-	TIntDoubleMap[] symmetricActionCntInP2InformationSet;
-	TIntObjectMap<IloNumVar>[] modelStrategyVars;
-	TObjectIntMap<String>[] sequenceIdByInformationSetAndActionChance;
-	TObjectIntMap<String>[] sequenceIdByInformationSetAndActionP1; // indexed as [informationSetId][action.name]
-	TObjectIntMap<String>[] sequenceIdByInformationSetAndActionP2; // indexed as [informationSetId][action.name]
-	IloNumVar[] strategyVarsBySequenceId;
-	IloNumVar[] opponentStrategyVarsBySequenceId;
-	IloNumVar[] zVarsBySequenceId;
+
+	SequenceFormMatrices sequenceFormMatrices;
+	SparseMatrix payoffMatrix; // indexed as [dual sequence][primal sequence], payoffs of the primal player
+	SparseMatrix dualPayoffMatrix; // indexed as [dual sequence][primal sequence], payoffs of the dual player
+	SparseMatrix leafCounts; // indexed as [dual sequence][primal sequence]
+	TIntObjectMap<LPVariable>[] modelStrategyVars; // indexed as [dual sequence][primal sequence], the pairs in the model
+	SequenceFormIndex sequenceFormIndex;
+	LPVariable[] strategyVarsBySequenceId;
+	LPVariable[] opponentStrategyVarsBySequenceId;
+	LPVariable[] zVarsBySequenceId;
 	private int[][] restictedInformationSet; 
 	private int[][][] actionRestrictionMapping;
-	@SuppressWarnings("unchecked")
-	private HashMap<String, Integer>[][] restrictedInformationSetIdToActions = new HashMap[3][];
+	private boolean[][] restrictedSequences = new boolean[3][]; // indexed as [player][sequenceId]. True for the sequences of the restricted game
 	
 	
-	int[] p2InformationSetBySequenceId;
+	int[] p2InformationSetBySequenceId; // indexed as [dual sequence id]
 	int numSequencesP1;
 	int numSequencesP2;
 	int numPrimalSequences;
 	int numDualSequences;
 	int numPrimalInformationSets;
 	int numDualInformationSets;
-	int numSequencesNature;
-	String[] dualSequenceNames;
-	String[] primalSequenceNames;
 
-	TIntObjectMap<IloConstraint> primalConstraints; // indexed as [informationSetId], without correcting for 1-indexing
-	TIntObjectMap<IloRange> dualConstraints; // indexed as [sequenceId]
+	TIntObjectMap<LPConstraint> primalConstraints; // indexed as [informationSetId], without correcting for 1-indexing
+	TIntObjectMap<LPConstraint> opponentConstraints; // indexed as [informationSetId], without correcting for 1-indexing
+	TIntObjectMap<LPConstraint> dualConstraints; // indexed as [sequenceId]
+	boolean[] nodeInModel; // indexed as [nodeId]. True once the node is part of the restricted game in the model
+	// Actions added to the restricted game by updateRestrictedGame that are not in the model yet
+	TIntArrayList pendingActionPlayers = new TIntArrayList();
+	TIntArrayList pendingActionInformationSets = new TIntArrayList();
+	TIntArrayList pendingActionIds = new TIntArrayList();
+	int[] numRestrictedActions = new int[3]; // indexed as [player]
+	// Pairs of dual and primal sequences whose z variable was created since the coefficients were last set
+	TIntArrayList newPairDualSequences = new TIntArrayList();
+	TIntArrayList newPairPrimalSequences = new TIntArrayList();
 	double[] nodeNatureProbabilities; // indexed as [nodeId]. Returns the probability of that node being reached when
 										// considering only nature nodes
 	int[] sequenceIdForNodeP1; // indexed as [nodeId]. Returns the sequenceId of the last sequence belonging to
@@ -102,7 +97,7 @@ public class DoubleOracleLPSolver<E> extends ZeroSumGameSolver {
 
 		try {
 			setUpModel(tol);
-		} catch (IloException e) {
+		} catch (LPException e) {
 			e.printStackTrace();
 		}
 	}
@@ -112,88 +107,40 @@ public class DoubleOracleLPSolver<E> extends ZeroSumGameSolver {
 	 */
 	@SuppressWarnings("unchecked")
 	private void initializeDataStructures() {
-		int numInformationSets = 0;
-		int opponentNumInformationSets = 0;
-
-		if (playerToSolveFor == 1) {
-			numInformationSets = game.getNumInformationSetsPlayer1();
-			opponentNumInformationSets = game.getNumInformationSetsPlayer2();
-		} else {
-			numInformationSets = game.getNumInformationSetsPlayer2();
-			opponentNumInformationSets = game.getNumInformationSetsPlayer1();
-		}
-		this.strategyVarsByInformationSet = (HashMap<String, IloNumVar>[]) new HashMap[numInformationSets + 1];
-		this.opponentStrategyVarsByInformationSet = (HashMap<String, IloNumVar>[]) new HashMap[opponentNumInformationSets
-				+ 1];
-		this.p2SymmetricActionNumByInformationSet = (HashMap<String, Integer>[]) new HashMap[opponentNumInformationSets
-		                                                                       				+ 1];
-		
-		for (int i = 0; i <= numInformationSets; i++) {
-			this.strategyVarsByInformationSet[i] = new HashMap<String, IloNumVar>();
-		}
-
-		for (int i = 0; i <= opponentNumInformationSets; i++) {
-			this.opponentStrategyVarsByInformationSet[i] = new HashMap<String, IloNumVar>();
-			this.p2SymmetricActionNumByInformationSet[i] = new HashMap<String, Integer>();
-		}
 		numPrimalSequences = playerToSolveFor == 1 ? game.getNumSequencesP1() : game.getNumSequencesP2();
 		numDualSequences = playerNotToSolveFor == 1 ? game.getNumSequencesP1() : game.getNumSequencesP2();
 
-		sequenceFormDualMatrix = new TIntList[numDualSequences];
-		sequenceFormDualProbMatrix = new TIntDoubleHashMap[numDualSequences];
-		sequenceFormDualP1Matrix = new TIntDoubleHashMap[numDualSequences];
-		for (int i = 0; i < numDualSequences; i++) {
-			sequenceFormDualMatrix[i] = new TIntArrayList();
-			sequenceFormDualProbMatrix[i] = new TIntDoubleHashMap();
-			sequenceFormDualP1Matrix[i] = new TIntDoubleHashMap();
-		}
-
 		numPrimalInformationSets = playerToSolveFor == 1 ? game.getNumInformationSetsPlayer1()
 				: game.getNumInformationSetsPlayer2();
 		numDualInformationSets = playerNotToSolveFor == 1 ? game.getNumInformationSetsPlayer1()
 				: game.getNumInformationSetsPlayer2();
 
-		dualSequenceNames = new String[numDualSequences];
-		primalSequenceNames = new String[numDualSequences];
-
-		dualPayoffMatrix = new TIntDoubleHashMap[numDualSequences];
-		symmetricActionCntInP2InformationSet = new TIntDoubleHashMap[numDualSequences];
+		sequenceFormMatrices = game.getSequenceFormMatrices();
+		payoffMatrix = sequenceFormMatrices.getPayoffMatrix(playerToSolveFor, playerNotToSolveFor);
+		dualPayoffMatrix = sequenceFormMatrices.getPayoffMatrix(playerNotToSolveFor, playerNotToSolveFor);
+		leafCounts = sequenceFormMatrices.getLeafCounts(playerNotToSolveFor);
 		modelStrategyVars = new TIntObjectHashMap[numDualSequences];
-		p1PayoffMatrix = new TIntDoubleHashMap[numDualSequences];
-
 		for (int i = 0; i < numDualSequences; i++) {
-			dualPayoffMatrix[i] = new TIntDoubleHashMap();
-			symmetricActionCntInP2InformationSet[i] = new TIntDoubleHashMap();
-			p1PayoffMatrix[i] = new TIntDoubleHashMap();
 			modelStrategyVars[i] = new TIntObjectHashMap<>();
 		}
-		// ensure that we have a large enough array for both the case where information
-		// sets start at 1 and 0
-		sequenceIdByInformationSetAndActionChance = new TObjectIntMap[1 + 1];
-		sequenceIdByInformationSetAndActionP1 = new TObjectIntMap[game.getNumInformationSetsPlayer1() + 1];
-		sequenceIdByInformationSetAndActionP2 = new TObjectIntMap[game.getNumInformationSetsPlayer2() + 1];
-		for (int i = 0; i < 2; i++) {
-			sequenceIdByInformationSetAndActionChance[i] = new TObjectIntHashMap<String>();
-		}
-		for (int i = 0; i <= game.getNumInformationSetsPlayer1(); i++) {
-			sequenceIdByInformationSetAndActionP1[i] = new TObjectIntHashMap<String>();
-		}
-		for (int i = 0; i <= game.getNumInformationSetsPlayer2(); i++) {
-			sequenceIdByInformationSetAndActionP2[i] = new TObjectIntHashMap<String>();
-		}
+		sequenceFormIndex = game.getSequenceFormIndex();
 
 		if (playerToSolveFor == 1) {
-			strategyVarsBySequenceId = new IloNumVar[game.getNumSequencesP1()];
-			opponentStrategyVarsBySequenceId = new IloNumVar[game.getNumSequencesP2()];
-			zVarsBySequenceId = new IloNumVar[game.getNumSequencesP1()];
-			p2InformationSetBySequenceId = new int[game.getNumSequencesP1()];
-		} else {
-			strategyVarsBySequenceId = new IloNumVar[game.getNumSequencesP2()];
+			strategyVarsBySequenceId = new LPVariable[game.getNumSequencesP1()];
+			opponentStrategyVarsBySequenceId = new LPVariable[game.getNumSequencesP2()];
+			zVarsBySequenceId = new LPVariable[game.getNumSequencesP1()];
 			p2InformationSetBySequenceId = new int[game.getNumSequencesP2()];
+		} else {
+			strategyVarsBySequenceId = new LPVariable[game.getNumSequencesP2()];
+			opponentStrategyVarsBySequenceId = new LPVariable[game.getNumSequencesP1()];
+			zVarsBySequenceId = new LPVariable[game.getNumSequencesP2()];
+			p2InformationSetBySequenceId = new int[game.getNumSequencesP1()];
 		}
 
-		primalConstraints = new TIntObjectHashMap<IloConstraint>();
-		dualConstraints = new TIntObjectHashMap<IloRange>();
+		primalConstraints = new TIntObjectHashMap<LPConstraint>();
+		opponentConstraints = new TIntObjectHashMap<LPConstraint>();
+		dualConstraints = new TIntObjectHashMap<LPConstraint>();
+		nodeInModel = new boolean[game.getNumNodes() + 1];
 		nodeNatureProbabilities = new double[game.getNumNodes() + 1]; // Use +1 to be robust for non-zero indexed nodes
 		sequenceIdForNodeP1 = new int[game.getNumNodes() + 1];
 		sequenceIdForNodeP2 = new int[game.getNumNodes() + 1];
@@ -215,17 +162,8 @@ public class DoubleOracleLPSolver<E> extends ZeroSumGameSolver {
 		restictedInformationSet[1] = new int[numInformationSets];
 		restictedInformationSet[2]= new int[opponentNumInformationSets];
 		
-
-		restrictedInformationSetIdToActions[1] = (HashMap<String, Integer>[]) new HashMap[numInformationSets + 1];
-		restrictedInformationSetIdToActions[2] = (HashMap<String, Integer>[]) new HashMap[opponentNumInformationSets + 1];
-		
-		for (int i = 0; i <= numInformationSets; i++) {
-			this.restrictedInformationSetIdToActions[1][i] = new HashMap<String, Integer>();
-		}
-		
-		for (int i = 0; i <= opponentNumInformationSets; i++) {
-			this.restrictedInformationSetIdToActions[2][i] = new HashMap<String, Integer>();
-		}
+		restrictedSequences[1] = new boolean[game.getSequenceFormIndex().getNumSequences(1)];
+		restrictedSequences[2] = new boolean[game.getSequenceFormIndex().getNumSequences(2)];
 
 		/*
 		actionRestrictionMapping = new int[3][][];
@@ -235,7 +173,7 @@ public class DoubleOracleLPSolver<E> extends ZeroSumGameSolver {
 	}
 	
 	/**
-	 * Tries to solve the current model. Currently relies on CPLEX to throw an
+	 * Tries to solve the current model. Currently relies on LPModel to throw an
 	 * exception if no model has been built.
 	 */
 	@Override
@@ -243,20 +181,20 @@ public class DoubleOracleLPSolver<E> extends ZeroSumGameSolver {
 		try {
 			System.out.println(" Length " + strategyVarsBySequenceId.length);
 
-			if (cplex.solve()) {
+			if (model.solve()) {
 				for (int i = 0; i < strategyVarsBySequenceId.length; i++) {
 					// System.out.println("Sequence = " + strategyVarsBySequenceId[i]);
-					IloNumVar v = strategyVarsBySequenceId[i];
+					LPVariable v = strategyVarsBySequenceId[i];
 					// if(v != null)
-					// System.out.println("Cplex val : " + cplex.getValue(v));
+					// System.out.println("Cplex val : " + model.getValue(v));
 				}
-				valueOfGame = cplex.getObjValue();
+				valueOfGame = model.getObjValue();
 				System.out.println("Defender's utility : " + valueOfGame);
 			}else {
 				System.out.println("Game is not Solveable" );
 			}
 
-		} catch (IloException e) {
+		} catch (LPException e) {
 			e.printStackTrace();
 			System.out.println("Error SequenceFormLPSolver::solveGame: solve exception");
 		}
@@ -264,16 +202,14 @@ public class DoubleOracleLPSolver<E> extends ZeroSumGameSolver {
 
 	/**
 	 * Creates and returns a mapping from variable names to the values they take on
-	 * in the solution computed by CPLEX.
+	 * in the solution computed by the LP backend.
 	 */
 	public TObjectDoubleMap<String> getStrategyVarMap() {
 		TObjectDoubleMap<String> map = new TObjectDoubleHashMap<String>();
-		for (IloNumVar v : strategyVarsBySequenceId) {
+		for (LPVariable v : strategyVarsBySequenceId) {
 			try {
-				map.put(v.getName(), cplex.getValue(v));
-			} catch (UnknownObjectException e) {
-				e.printStackTrace();
-			} catch (IloException e) {
+				map.put(v.getName(), model.getValue(v));
+			} catch (LPException e) {
 				e.printStackTrace();
 			}
 		}
@@ -290,23 +226,22 @@ public class DoubleOracleLPSolver<E> extends ZeroSumGameSolver {
 		TObjectDoubleMap<String>[] map = new TObjectDoubleHashMap[numPrimalInformationSets];
 		for (int informationSetId = 0; informationSetId < numPrimalInformationSets; informationSetId++) {
 			map[informationSetId] = new TObjectDoubleHashMap();
-			double sum = 0;
-			for (String actionName : strategyVarsByInformationSet[informationSetId].keySet()) {
-				try {
-					sum += cplex.getValue(strategyVarsByInformationSet[informationSetId].get(actionName));
-				} catch (IloException e) {
-					e.printStackTrace();
+			double sum = getSumOfStrategyValues(informationSetId);
+			for (int actionId = 0; actionId < game.getNumActionsAtInformationSet(playerToSolveFor,
+					informationSetId); actionId++) {
+				LPVariable v = getStrategyVar(informationSetId, actionId);
+				if (v == null) {
+					continue;
 				}
-			}
-			for (String actionName : strategyVarsByInformationSet[informationSetId].keySet()) {
+				String actionName = game.getActionsAtInformationSet(playerToSolveFor, informationSetId)[actionId]
+						.getName();
 				try {
 					if (sum > 0) {
-						map[informationSetId].put(actionName,
-								cplex.getValue(strategyVarsByInformationSet[informationSetId].get(actionName)) / sum);
+						map[informationSetId].put(actionName, model.getValue(v) / sum);
 					} else {
 						map[informationSetId].put(actionName, 0);
 					}
-				} catch (IloException e) {
+				} catch (LPException e) {
 					e.printStackTrace();
 				}
 			}
@@ -322,26 +257,17 @@ public class DoubleOracleLPSolver<E> extends ZeroSumGameSolver {
 		TIntDoubleMap[] map = new TIntDoubleHashMap[numPrimalInformationSets];
 		for (int informationSetId = 0; informationSetId < numPrimalInformationSets; informationSetId++) {
 			map[informationSetId] = new TIntDoubleHashMap();
-			double sum = 0;
-			for (String actionName : strategyVarsByInformationSet[informationSetId].keySet()) {
-				try {
-					sum += cplex.getValue(strategyVarsByInformationSet[informationSetId].get(actionName));
-				} catch (IloException e) {
-					e.printStackTrace();
-				}
-			}
+			double sum = getSumOfStrategyValues(informationSetId);
 			for (int actionId = 0; actionId < game.getNumActionsAtInformationSet(playerToSolveFor,
 					informationSetId); actionId++) {
-				String actionName = game.getActionsAtInformationSet(playerToSolveFor, informationSetId)[actionId]
-						.getName();
+				LPVariable v = getStrategyVar(informationSetId, actionId);
 				try {
-					if (sum > 0) {
-						map[informationSetId].put(actionId,
-								cplex.getValue(strategyVarsByInformationSet[informationSetId].get(actionName)) / sum);
+					if (sum > 0 && v != null) {
+						map[informationSetId].put(actionId, model.getValue(v) / sum);
 					} else {
 						map[informationSetId].put(actionId, 0);
 					}
-				} catch (IloException e) {
+				} catch (LPException e) {
 					e.printStackTrace();
 				}
 			}
@@ -356,31 +282,25 @@ public class DoubleOracleLPSolver<E> extends ZeroSumGameSolver {
 	@Override
 	public void printStrategyVarsAndGameValue() {
 		printGameValue();
-		for (IloNumVar v : strategyVarsBySequenceId) {
+		for (LPVariable v : strategyVarsBySequenceId) {
 			try {
 				if (null != v)
-					System.out.println(v.getName() + ": \t" + cplex.getValue(v));
-			} catch (UnknownObjectException e) {
-				e.printStackTrace();
-			} catch (IloException e) {
+					System.out.println(v.getName() + ": \t" + model.getValue(v));
+			} catch (LPException e) {
 				e.printStackTrace();
 			}
 		}
 	}
 
 	/**
-	 * Prints the value of the game, as computed by CPLEX. If solve() has not been
+	 * Prints the value of the game, as computed by the LP backend. If solve() has not been
 	 * called, an exception will be thrown.
 	 */
 	@Override
 	public void printGameValue() {
-		try {
-			System.out.println("Solve status: " + cplex.getStatus());
-			if (cplex.getStatus() == IloCplex.Status.Optimal) {
-				System.out.println("Objective value: " + this.valueOfGame);
-			}
-		} catch (IloException e) {
-			e.printStackTrace();
+		System.out.println("Solve status: " + model.getStatus());
+		if (model.getStatus() == LPStatus.OPTIMAL) {
+			System.out.println("Objective value: " + this.valueOfGame);
 		}
 
 	}
@@ -392,44 +312,44 @@ public class DoubleOracleLPSolver<E> extends ZeroSumGameSolver {
 	 * @param filename
 	 *            the absolute path to the file being written to
 	 */
-	public void writeStrategyToFile(String filename) throws IloException {
+	public void writeStrategyToFile(String filename) throws LPException {
 		try {
 			FileWriter fw = new FileWriter(filename);
 			fw.write("...............Defender's strategy................\n");
-			for (IloNumVar v : strategyVarsBySequenceId) {
+			for (LPVariable v : strategyVarsBySequenceId) {
 				if (v != null)
-					//cplex.add(v);
+					//model.add(v);
 					//System.out.println(v);
 
-					if (cplex.getValue(v) < 0.00005)
+					if (model.getValue(v) < 0.00005)
 						fw.write(v.getName() + ": \t" + 0.0 + "\n");
 					else
-						fw.write(v.getName() + ": \t" + cplex.getValue(v) + "\n");
+						fw.write(v.getName() + ": \t" + model.getValue(v) + "\n");
 			}
 			fw.write("...............Attacker's strategy................\n");
 			
-			for (IloNumVar v : opponentStrategyVarsBySequenceId) {
+			for (LPVariable v : opponentStrategyVarsBySequenceId) {
 				if (v != null)
-					//cplex.add(v);
+					//model.add(v);
 					//System.out.println(v);
 
-					if (cplex.getValue(v) < 0.00005)
+					if (model.getValue(v) < 0.00005)
 						fw.write(v.getName() + ": \t" + 0.0 + "\n");
 					else
-						fw.write(v.getName() + ": \t" + cplex.getValue(v) + "\n");
+						fw.write(v.getName() + ": \t" + model.getValue(v) + "\n");
 			}
 			
 			fw.write("............... Z variables................\n");
 			
-			for (IloNumVar v : zVarsBySequenceId) {
+			for (LPVariable v : zVarsBySequenceId) {
 				if (v != null)
-					//cplex.add(v);
+					//model.add(v);
 					//System.out.println(v);
 
-					if (cplex.getValue(v) < 0.00005)
+					if (model.getValue(v) < 0.00005)
 						fw.write(v.getName() + ": \t" + 0.0 + "\n");
 					else
-						fw.write(v.getName() + ": \t" + cplex.getValue(v) + "\n");
+						fw.write(v.getName() + ": \t" + model.getValue(v) + "\n");
 			}
 			
 			fw.close();
@@ -439,7 +359,7 @@ public class DoubleOracleLPSolver<E> extends ZeroSumGameSolver {
 	}
 
 	/**
-	 * Writes the current model to a file. CPLEX throws an exception if the model is
+	 * Writes the current model to a file. LPModel throws an exception if the model is
 	 * faulty or the path does not exist.
 	 * 
 	 * @param filename
@@ -447,488 +367,290 @@ public class DoubleOracleLPSolver<E> extends ZeroSumGameSolver {
 	 */
 	public void writeModelToFile(String filename) {
 		try {
-			cplex.exportModel(filename);
-		} catch (IloException e) {
+			model.exportModel(filename);
+		} catch (LPException e) {
 			e.printStackTrace();
 		}
 	}
 
 	/**
-	 * Sets the parameters of CPLEX such that minimal output is produced.
+	 * Sets the optimality tolerance and asks for the barrier method, which only the CPLEX backend uses.
 	 */
-	private void setCplexParameters(double tol) {
-		try {
-			cplex.setParam(IloCplex.IntParam.RootAlg, IloCplex.Algorithm.Barrier);
-			cplex.setParam(IloCplex.DoubleParam.EpOpt, tol);
-			cplex.setParam(IloCplex.DoubleParam.BarEpComp, tol);
-			cplex.setParam(IloCplex.IntParam.BarCrossAlg, -1);
-			// cplex.setParam(IloCplex.IntParam.SimDisplay, 0);
-			// cplex.setParam(IloCplex.IntParam.MIPDisplay, 0);
-			// cplex.setParam(IloCplex.IntParam.MIPInterval, -1);
-			// cplex.setParam(IloCplex.IntParam.TuningDisplay, 0);
-			// cplex.setParam(IloCplex.IntParam.BarDisplay, 0);
-			// cplex.setParam(IloCplex.IntParam.SiftDisplay, 0);
-			// cplex.setParam(IloCplex.IntParam.ConflictDisplay, 0);
-			// cplex.setParam(IloCplex.IntParam.NetDisplay, 0);
-			cplex.setParam(IloCplex.DoubleParam.TiLim, 1e+75);
-		} catch (IloException e) {
-			e.printStackTrace();
-		}
+	private void setModelParameters(double tol) {
+		model.setUseBarrier(true);
+		model.setTolerance(tol);
 	}
 
 	/**
-	 * Builds the LP model based on the game instance.
+	 * Builds the LP model for the current restricted game. Sequence ids and the per-node sequences and
+	 * nature probabilities are computed for the whole game once, later restricted games only extend the
+	 * model, see solveRestrictedGame.
 	 * 
-	 * @throws IloException
+	 * @throws LPException
 	 */
-	private void setUpModel(double tol) throws IloException {
+	private void setUpModel(double tol) throws LPException {
 		try {
-			cplex = new IloCplex();
-		} catch (IloException e) {
-			System.out.println("Error SequenceFormLPSolver(): CPLEX setup failed");
+			model = new LPModel();
+		} catch (LPException e) {
+			System.out.println("Error SequenceFormLPSolver(): LP model setup failed");
 		}
 
-		setCplexParameters(tol);
-		objective = cplex.linearNumExpr();
-		natureConstraints = cplex.linearNumExpr();
+		setModelParameters(tol);
 		// The empty sequence is the 0'th sequence for each player
-		numSequencesNature = numSequencesP1 = numSequencesP2 = 1;
-		primalSequenceNames[0] = "root";
-		dualSequenceNames[0] = "root";
-		CreateSequenceFormIds(game.getRoot(), new TIntHashSet(), new TIntHashSet());
-		assert (numSequencesP1 == game.getNumSequencesP1()); // Ensure that our recursive function agrees with the game
-																// reader on how many sequences there are
-		assert (numSequencesP2 == game.getNumSequencesP2());
+		numSequencesP1 = sequenceFormIndex.getNumSequences(1);
+		numSequencesP2 = sequenceFormIndex.getNumSequences(2);
+		computeAuxiliaryInformationForNodes();
 
 		// create root sequence var
-		IloNumVar rootSequence = cplex.numVar(1, 1, "I_root");
+		rootSequence = model.numVar(1, 1, "I_root");
 		strategyVarsBySequenceId[0] = rootSequence;
+		CreateDualVariables();
+		model.addMaximize(model.linearNumExpr());
 
-		System.out.println("************************ Equation no 4  ************************************");
-		CreateSequenceFormVariablesAndConstraints(game.getRoot(),0,0, rootSequence, rootSequence, new TIntHashSet(), new TIntHashSet(),
-				1,1);
-
-		CreateDualVariablesAndConstraints();
-		// System.out.println(natureConstraints);
-		// cplex.addEq(natureConstraints, rootSequence);
-		SetObjective();
+		addSubtreeToModel(game.getRoot(), 0, 0, rootSequence, rootSequence, 1);
+		addNewSequencePairsToModel();
 	}
-
 	/**
-	 * Recursive function that traverses the game tree, assigning Id values,
-	 * starting at 1 due to the empty sequence, to sequences in pre-order. Sequence
-	 * IDs are only assigned if an information set has not previously been visited
+	 * Adds a node of the restricted game and the part of the restricted game below it to the model, in
+	 * pre-order. Nodes that are already in the model are skipped, so only the new part of the restricted
+	 * game is walked.
 	 * 
-	 * @param currentNodeId
-	 *            id into the game.nodes array
-	 * @param visitedP1
-	 *            an integer set indicating which information sets have already been
-	 *            visited for Player 1
-	 * @param visitedP2
-	 *            an integer set indicating which information sets have already been
-	 *            visited for Player 2
+	 * @param primalSequenceId
+	 *            last sequence of the primal player on the path to the node
+	 * @param dualSequenceId
+	 *            last sequence of the dual player on the path to the node
+	 * @param parentSequence
+	 *            variable of the primal sequence
+	 * @param childSequence
+	 *            variable of the dual sequence
+	 * @throws LPException
 	 */
-	private void CreateSequenceFormIds(int currentNodeId, TIntSet visitedP1, TIntSet visitedP2) {
-		Node node = game.getNodeById(currentNodeId);
-		if (node.isLeaf())
+	private void addSubtreeToModel(int currentNodeId, int primalSequenceId, int dualSequenceId, LPVariable parentSequence,
+			LPVariable childSequence, double natureProbability) throws LPException {
+		nodeInModel[currentNodeId] = true;
+		int player = game.getNodePlayer(currentNodeId);
+		if (player == -2) {
+			addLeafToModel(currentNodeId, primalSequenceId, dualSequenceId, parentSequence, childSequence, natureProbability);
 			return;
-
-		for (Action action : node.getActions()) {
-			if (node.getPlayer() == 0) {
-				sequenceIdByInformationSetAndActionChance[node.getInformationSet()].put(action.getName(),
-						numSequencesNature++);
-			} else if (node.getPlayer() == 1 && !visitedP1.contains(node.getInformationSet())) {
-				//if(!sequenceIdByInformationSetAndActionP2[node.getInformationSet()].containsKey(action.getName()))
-					sequenceIdByInformationSetAndActionP1[node.getInformationSet()].put(action.getName(), numSequencesP1++);
-				if (playerToSolveFor == 1)
-					primalSequenceNames[numSequencesP1 - 1] = Integer.toString(node.getInformationSet()) + ";"
-							+ action.getName();
-				else
-					dualSequenceNames[numSequencesP1 - 1] = Integer.toString(node.getInformationSet()) + ";"
-							+ action.getName();
-			} else if (node.getPlayer() == 2 && !visitedP2.contains(node.getInformationSet())) {
-				if (!sequenceIdByInformationSetAndActionP2[node.getInformationSet()].containsKey(action.getName()))
-					p2SymmetricActionNumByInformationSet[node.getInformationSet()].put(action.getName(), 1);
-				else
-					p2SymmetricActionNumByInformationSet[node.getInformationSet()].put(action.getName(),
-							p2SymmetricActionNumByInformationSet[node.getInformationSet()].get(action.getName()) + 1);
-				
-					sequenceIdByInformationSetAndActionP2[node.getInformationSet()].put(action.getName(), numSequencesP2++);
-				if (playerToSolveFor == 2)
-					primalSequenceNames[numSequencesP2 - 1] = Integer.toString(node.getInformationSet()) + ";"
-							+ action.getName();
-				else
-					dualSequenceNames[numSequencesP2 - 1] = Integer.toString(node.getInformationSet()) + ";"
-							+ action.getName();
-			}
-			CreateSequenceFormIds(action.getChildId(), visitedP1, visitedP2);
 		}
-		if (node.getPlayer() == 1) {
-			visitedP1.add(node.getInformationSet());
-		} else if (node.getPlayer() == 2) {
-			visitedP2.add(node.getInformationSet());
+		if (player != nature) {
+			addInformationSetToModel(currentNodeId, parentSequence);
+		}
+		for (int actionId = 0; actionId < game.getNumActionsAtNode(currentNodeId); actionId++) {
+			addChildToModel(currentNodeId, actionId, primalSequenceId, dualSequenceId, parentSequence, childSequence,
+					natureProbability);
 		}
 	}
 
 	/**
-	 * Creates sequence form variables in pre-order traversal. A constraint is also
-	 * added to ensure that the probability sum over the new sequences sum to the
-	 * value of the last seen sequence on the path to this information set
-	 * 
-	 * @param currentNodeId
-	 * @param parentSequence
-	 *            last seen sequence belonging to the primal player
-	 * @param visited
-	 *            keeps track of which information sets have been visited
-	 * @throws IloException
+	 * Adds the subtree below an action of a node in the model, if the action is in the restricted game and
+	 * the subtree is not in the model yet
 	 */
-	private void CreateSequenceFormVariablesAndConstraints(int currentNodeId, int primalSequeceId, int dualSequeceId, IloNumVar parentSequence, IloNumVar childSequence, TIntSet visited,
-			TIntSet opponentVisited, double natureProbability, int infoset) throws IloException {
-		Node node = game.getNodeById(currentNodeId);
-		if (null == node)
+	private void addChildToModel(int currentNodeId, int actionId, int primalSequenceId, int dualSequenceId,
+			LPVariable parentSequence, LPVariable childSequence, double natureProbability) throws LPException {
+		int childId = game.getChildId(currentNodeId, actionId);
+		if (nodeInModel[childId]) {
 			return;
-
-		if (node.isLeaf()) { // Objective function
-			double value = playerToSolveFor == player1 ? node.getPlayerOneValue() : node.getPlayerTwoValue();
-			
-			//System.out.println(childSequence + " : " + value);
-			/* Linearizing constraints*/
-
-			IloLinearNumExpr lz1 = cplex.linearNumExpr();
-			IloLinearNumExpr lz2 = cplex.linearNumExpr();
-			IloLinearNumExpr lz3 = cplex.linearNumExpr();
-			//IloNumVar z = cplex.numVar(0, 1, parentSequence+" -> "+childSequence);
-			
-			IloNumVar z ;
-			if (modelStrategyVars[dualSequeceId].containsKey(primalSequeceId)) {
-				z = modelStrategyVars[dualSequeceId].get(primalSequeceId);
-				p1PayoffMatrix[dualSequeceId].put(primalSequeceId, (p1PayoffMatrix[dualSequeceId].get(primalSequeceId)+(value*natureProbability)));
-				//System.out.println("Z:" +z );
-			} else {
-				z = cplex.numVar(0, 1, parentSequence +" -> "+ childSequence);
-			    
-			    /*z-A <= 0 upper bound is 1*/
-				lz1.addTerm(1, z);
-				lz1.addTerm(-1, parentSequence);
-				primalConstraints.put(node.getInformationSet(),
-						cplex.addLe(lz1, 0, "TLZ1" + dualSequeceId));
-				
-				/*Z-A+x<=1 */
-				/*
-				lz1.addTerm(1, childSequence);
-				primalConstraints.put(node.getInformationSet(),
-						cplex.addLe(lz1, 1, "TLZ1" + node.getInformationSet()));
-				*/
-				/*z- x <= 0 */
-				lz2.addTerm(1, z);
-				lz2.addTerm(-1, childSequence);
-				primalConstraints.put(node.getInformationSet(),
-						cplex.addLe(lz2, 0, "TLZ2" + dualSequeceId));
-				
-				//System.out.println("lz2: " + lz2);
-				
-				/*A+x-Z <= 1*/
-				lz3.addTerm(-1, z);
-				lz3.addTerm(1, parentSequence);
-				lz3.addTerm(1, childSequence);
-				//System.out.println(lz3);
-				primalConstraints.put(node.getInformationSet(),
-						cplex.addLe(lz3, 1, "TLZ3" + dualSequeceId));
-
-			    modelStrategyVars[dualSequeceId].put(primalSequeceId,z);
-			    p1PayoffMatrix[dualSequeceId].put(primalSequeceId,value*natureProbability);
-			    zVarsBySequenceId[primalSequeceId] = z;
-			}
-			
-			
-		   // System.out.println(parentSequence + "->" + childSequence + " : " +value);
-		    //objective.addTerm(value*natureProbability, z);
-			//System.out.println("********************************* Equation no 1 **************************************");
-			//System.out.println("Objective :" + objective);
+		}
+		int player = game.getNodePlayer(currentNodeId);
+		if (player == nature) {
+			addSubtreeToModel(childId, primalSequenceId, dualSequenceId, parentSequence, childSequence,
+					natureProbability * game.getActionProbability(currentNodeId, actionId));
+			return;
+		}
+		int sequenceId = sequenceFormIndex.getSequenceId(player, game.getNodeInformationSet(currentNodeId), actionId);
+		if (!restrictedSequences[player][sequenceId]) {
 			return;
 		}
+		if (player == playerToSolveFor) {
+			addSubtreeToModel(childId, sequenceId, dualSequenceId, strategyVarsBySequenceId[sequenceId], childSequence,
+					natureProbability);
+		} else {
+			addSubtreeToModel(childId, primalSequenceId, sequenceId, parentSequence,
+					opponentStrategyVarsBySequenceId[sequenceId], natureProbability);
+		}
+	}
 
-		if (node.getPlayer() == playerToSolveFor && !visited.contains(node.getInformationSet())) {
-			visited.add(node.getInformationSet());
-			IloLinearNumExpr sum = cplex.linearNumExpr();
-			for (Action action : node.getActions()) {
-				
-				if(!restrictedInformationSetIdToActions[node.getPlayer()][node.getInformationSet()].containsKey(action.getName()))
-					continue;
+	/**
+	 * Creates the variables of the restricted actions at the information set of the node that are not in
+	 * the model yet. The first time the information set is reached its constraint is added: the primal
+	 * sequences sum to the parent sequence, the binary dual sequences sum to 1. Later variables are added
+	 * to the existing constraint.
+	 * 
+	 * @param parentSequence
+	 *            last primal sequence on the path to the node
+	 * @throws LPException
+	 */
+	private void addInformationSetToModel(int currentNodeId, LPVariable parentSequence) throws LPException {
+		int player = game.getNodePlayer(currentNodeId);
+		int informationSetId = game.getNodeInformationSet(currentNodeId);
+		boolean primal = player == playerToSolveFor;
+		LPVariable[] varsBySequenceId = primal ? strategyVarsBySequenceId : opponentStrategyVarsBySequenceId;
+		LPConstraint constraint = primal ? primalConstraints.get(informationSetId) : opponentConstraints.get(informationSetId);
+		LPLinearExpression sum = constraint == null ? model.linearNumExpr() : null;
+
+		for (int actionId = 0; actionId < game.getNumActionsAtNode(currentNodeId); actionId++) {
+			int sequenceId = sequenceFormIndex.getSequenceId(player, informationSetId, actionId);
+			if (!restrictedSequences[player][sequenceId] || varsBySequenceId[sequenceId] != null) {
+				continue;
+			}
+			String actionName = game.getActionName(currentNodeId, actionId);
+			LPVariable v;
+			if (primal) {
 				// real-valued variable in (0,1)
-				
-				//IloNumVar v = cplex.numVar(0, 1, IloNumVarType.Int, "I:" + node.getInformationSet() + "  action:" + action.getName());
-				IloNumVar v = cplex.numVar(0, 1, "I:" + node.getInformationSet() + "  action:" + action.getName());
-				strategyVarsByInformationSet[node.getInformationSet()].put(action.getName(), v);
-				int sequenceId = getSequenceIdForPlayerToSolveFor(node.getInformationSet(), action.getName());
-				strategyVarsBySequenceId[sequenceId] = v;
-				p2InformationSetBySequenceId[sequenceId] = node.getInformationSet();
-				// add 1*v to the sum over all the sequences at the information set
-				sum.addTerm(1, v);
-				natureConstraints.addTerm(1, v);
-				CreateSequenceFormVariablesAndConstraints(action.getChildId(),sequenceId, dualSequeceId, v, childSequence, visited, opponentVisited,
-						natureProbability,node.getInformationSet());
+				v = model.numVar(0, 1, "I:" + informationSetId + "  action:" + actionName);
+			} else {
+				v = model.numVar(0, 1, LPVariableType.BOOLEAN, "I:" + informationSetId + "  action:" + actionName);
+				p2InformationSetBySequenceId[sequenceId] = informationSetId;
 			}
-
-			
-			primalConstraints.put(node.getInformationSet(),
-					cplex.addEq(sum, parentSequence, "Primal" + node.getInformationSet()));
-			System.out.println("Sum : " + sum + " = " + 1);
-			
-		} else if (node.getPlayer() == playerNotToSolveFor && !opponentVisited.contains(node.getInformationSet())) {
-			opponentVisited.add(node.getInformationSet());
-			IloLinearNumExpr sum = cplex.linearNumExpr();
-			for (Action action : node.getActions()) {
-				// real-valued variable in (0,1) 
-				if(!restrictedInformationSetIdToActions[node.getPlayer()][node.getInformationSet()].containsKey(action.getName()))
-					continue;
-				IloNumVar v = null;
-				int sequenceId = getSequenceIdForPlayerNotToSolveFor(node.getInformationSet(), action.getName());
-				//System.out.println( action + " Sequecne id : " + sequenceId);
-
-				if (!opponentStrategyVarsByInformationSet[node.getInformationSet()].containsKey(action.getName())) {
-					v = cplex.numVar(0, 1, IloNumVarType.Bool,
-							"I:" + node.getInformationSet() + "  action:" + action.getName());
-					opponentStrategyVarsByInformationSet[node.getInformationSet()].put(action.getName(), v);
-					//p2SymmetricActionNumByInformationSet[node.getInformationSet()].put(action.getName(), 1);
-					opponentStrategyVarsBySequenceId[sequenceId] = v;
-					p2InformationSetBySequenceId[sequenceId] = node.getInformationSet();
-					// add 1*v to the sum over all the sequences at the information set
-					sum.addTerm(1, v);
-					
-				} else {
-				    v = opponentStrategyVarsByInformationSet[node.getInformationSet()].get(action.getName());
-				  //  p2SymmetricActionNumByInformationSet[node.getInformationSet()].put(action.getName(), 
-				  //  		p2SymmetricActionNumByInformationSet[node.getInformationSet()].get(action.getName())+1);
-				}
-				CreateSequenceFormVariablesAndConstraints(action.getChildId(),primalSequeceId, sequenceId, parentSequence, v, visited,
-						opponentVisited, natureProbability,node.getInformationSet());
+			varsBySequenceId[sequenceId] = v;
+			if (sum != null) {
+				sum.addTerm(1, v);
+			} else {
+				model.setLinearCoef(constraint, 1, v);
 			}
+		}
 
-			primalConstraints.put(node.getInformationSet(),
-				cplex.addEq(sum,1, "P2" + node.getInformationSet()));
-			System.out.println("Sum P2: " + sum + " = " + 1);
-			
-		} 
-		
-		else {
-			for (Action action : node.getActions()) {
-
-				if (null != action) {
-
-					if(node.getPlayer() !=0 && !restrictedInformationSetIdToActions[node.getPlayer()][node.getInformationSet()].containsKey(action.getName()))
-						continue;
-					int newPrimalSequence = node.getPlayer() == playerToSolveFor
-							? getSequenceIdForPlayerToSolveFor(node.getInformationSet(), action.getName())
-							: primalSequeceId;
-					int newDualSequence = node.getPlayer() == playerNotToSolveFor
-							? getSequenceIdForPlayerNotToSolveFor(node.getInformationSet(), action.getName())
-							: dualSequeceId;
-					double newNatureProbability = node.getPlayer() == 0 ? natureProbability * action.getProbability()
-							: natureProbability;
-					//System.out.println(action + " Prob: " + newNatureProbability);
-					if (node.getPlayer() == playerToSolveFor) {
-						// update parentSequence to be the current sequence
-						IloNumVar v = strategyVarsByInformationSet[node.getInformationSet()].get(action.getName());
-						if (null != action) {
-
-							CreateSequenceFormVariablesAndConstraints(action.getChildId(),newPrimalSequence, newDualSequence,v, childSequence,visited, opponentVisited,
-									newNatureProbability,node.getInformationSet());
-						}
-					} else if (node.getPlayer() == playerNotToSolveFor) {
-						IloNumVar v = opponentStrategyVarsByInformationSet[node.getInformationSet()].get(action.getName());
-						if (null != action) {
-							CreateSequenceFormVariablesAndConstraints(action.getChildId(), newPrimalSequence,newDualSequence, parentSequence, v,visited, opponentVisited,
-									newNatureProbability,node.getInformationSet());
-						}
-						
-					} else {
-						if (null != action) {
-					
-							CreateSequenceFormVariablesAndConstraints(action.getChildId(),newPrimalSequence,newPrimalSequence, parentSequence, childSequence, visited,
-									opponentVisited, newNatureProbability,node.getInformationSet());
-						}
-					}
-				}
+		if (constraint == null) {
+			if (primal) {
+				primalConstraints.put(informationSetId, model.addEq(sum, parentSequence, "Primal" + informationSetId));
+			} else {
+				opponentConstraints.put(informationSetId, model.addEq(sum, 1, "P2" + informationSetId));
 			}
 		}
 	}
 
-	private void CreateDualVariablesAndConstraints() throws IloException {
+	/**
+	 * The first leaf of a pair of primal and dual sequences creates the variable z for the product of the
+	 * two sequences, linearized by z <= x, z <= y and x + y - z <= 1. The coefficients of z are set by
+	 * addNewSequencePairsToModel from the payoffs of the pair in the compiled sequence form.
+	 */
+	private void addLeafToModel(int currentNodeId, int primalSequenceId, int dualSequenceId, LPVariable parentSequence,
+			LPVariable childSequence, double natureProbability) throws LPException {
+		if (!modelStrategyVars[dualSequenceId].containsKey(primalSequenceId)) {
+			LPVariable z = model.numVar(0, 1, parentSequence + " -> " + childSequence);
+
+			/* z - x <= 0 */
+			LPLinearExpression lz1 = model.linearNumExpr();
+			lz1.addTerm(1, z);
+			lz1.addTerm(-1, parentSequence);
+			model.addLe(lz1, 0, "TLZ1" + dualSequenceId);
+
+			/* z - y <= 0 */
+			LPLinearExpression lz2 = model.linearNumExpr();
+			lz2.addTerm(1, z);
+			lz2.addTerm(-1, childSequence);
+			model.addLe(lz2, 0, "TLZ2" + dualSequenceId);
+
+			/* x + y - z <= 1 */
+			LPLinearExpression lz3 = model.linearNumExpr();
+			lz3.addTerm(-1, z);
+			lz3.addTerm(1, parentSequence);
+			lz3.addTerm(1, childSequence);
+			model.addLe(lz3, 1, "TLZ3" + dualSequenceId);
+
+			modelStrategyVars[dualSequenceId].put(primalSequenceId, z);
+			zVarsBySequenceId[primalSequenceId] = z;
+			newPairDualSequences.add(dualSequenceId);
+			newPairPrimalSequences.add(primalSequenceId);
+		}
+	}
+	private void CreateDualVariables() throws LPException {
 		
 		int numVars = 0;
-		int otherPlayerNumVars = 0;
 		if (playerToSolveFor == 1) {
 			numVars = game.getNumInformationSetsPlayer2() + 1;
-			otherPlayerNumVars = game.getNumInformationSetsPlayer1() + 1;
 		} else {
 			numVars = game.getNumInformationSetsPlayer1() + 1;
-			otherPlayerNumVars = game.getNumInformationSetsPlayer2() + 1;
 		}
 		String[] names = new String[numVars];
 		for (int i = 0; i < numVars; i++) {
 			names[i] = "Y" + i;
 		}
-		this.dualVars = cplex.numVarArray(numVars, -Double.MAX_VALUE, Utils.PLAYER_ONE_MAX_VAL, names);
-
-		InitializeDualSequenceMatrix();
-		InitializeDualPayoffMatrix();
-	    System.out.println("***************************************** Equation No 2 ************************************************");
-
-	    for (int sequenceId = 1; sequenceId < numSequencesP2; sequenceId += Utils.MAX_NO_ATTACKER_ACTIONS) {
-
-			CreateDualConstraintForSequence(sequenceId);
-		}
-
+		this.dualVars = model.numVarArray(numVars, -Double.MAX_VALUE, Utils.PLAYER_ONE_MAX_VAL, names);
 	}
 
-	private void InitializeDualSequenceMatrix() throws IloException {
-		sequenceFormDualMatrix[0].add(0);
-		InitializeDualSequenceMatrixRecursive(game.getRoot(), new TIntHashSet(), 0, 1);
-	}
-
-	private void InitializeDualSequenceMatrixRecursive(int currentNodeId, TIntSet visited, int parentSequenceId,
-			double natureProbability) throws IloException {
-		Node node = this.game.getNodeById(currentNodeId);
-
-		if (null == node || node.isLeaf())
-			return;
-
-		if (playerNotToSolveFor == node.getPlayer() && !visited.contains(node.getInformationSet())) {
-			visited.add(node.getInformationSet());
-			int informationSetMatrixId = node.getInformationSet();// +
-																	// (1-game.getSmallestInformationSetId(playerNotToSolveFor));
-																	// // map information set ID to 1 indexing. Assumes
-																	// that information sets are named by consecutive
-																	// integers
-			sequenceFormDualMatrix[parentSequenceId].add(informationSetMatrixId);
-			// sequenceFormDualProbMatrix[parentSequenceId].put(parentSequenceId,
-			// natureProbability);
-			for (Action action : node.getActions()) {
-				if (null != action) {
-					int newSequenceId = getSequenceIdForPlayerNotToSolveFor(node.getInformationSet(), action.getName());
-					sequenceFormDualMatrix[newSequenceId].add(informationSetMatrixId);
-					InitializeDualSequenceMatrixRecursive(action.getChildId(), visited, newSequenceId,
-							natureProbability);
-				}
+	/**
+	 * Sets the coefficients of the z variables created since the last call. The dual sequences are grouped
+	 * into blocks, the actions of one attacker information set, and every
+	 * dual sequence d of a block has the constraint
+	 *   sum over the sequences d' of the block and primal sequences p of c(d', p) z(d', p) >= sum over p of c(d, p) x(p),
+	 * where c(d, p) is the dual payoff of the pair averaged over its leaves: the attacker does not gain by
+	 * switching to d. A new z enters the objective and the left side of the existing constraints of its
+	 * block, its x the right side of the constraint of d. Dual sequences without a constraint yet get one
+	 * over the whole block.
+	 */
+	private void addNewSequencePairsToModel() throws LPException {
+		TIntHashSet newDualSequences = new TIntHashSet();
+		for (int k = 0; k < newPairDualSequences.size(); k++) {
+			int dualSequenceId = newPairDualSequences.get(k);
+			int primalSequenceId = newPairPrimalSequences.get(k);
+			LPVariable z = modelStrategyVars[dualSequenceId].get(primalSequenceId);
+			int entry = payoffMatrix.find(dualSequenceId, primalSequenceId);
+			model.setObjectiveCoef(z, payoffMatrix.getValue(entry) / leafCounts.getValue(entry));
+			if (dualSequenceId == 0) {
+				continue;
 			}
-		} else {
-			for (Action action : node.getActions()) {
-
-				if (null != action) {
-					int newSequenceId = playerNotToSolveFor == node.getPlayer()
-							? getSequenceIdForPlayerNotToSolveFor(node.getInformationSet(), action.getName())
-							: parentSequenceId;
-					double newNatureProbability = node.getPlayer() == 0 ? natureProbability * action.getProbability()
-							: natureProbability;
-					InitializeDualSequenceMatrixRecursive(action.getChildId(), visited, newSequenceId,
-							newNatureProbability);
+
+			double coefficient = dualPayoffMatrix.getValue(entry) / leafCounts.getValue(entry);
+			int firstSequenceOfBlock = getFirstDualSequenceOfBlock(dualSequenceId);
+			for (int sequenceId = firstSequenceOfBlock; sequenceId < getEndOfBlock(firstSequenceOfBlock); sequenceId++) {
+				LPConstraint constraint = dualConstraints.get(sequenceId);
+				if (constraint != null) {
+					model.setLinearCoef(constraint, coefficient, z);
 				}
 			}
-		}
-
-	}
-
-	private void InitializeDualPayoffMatrix() throws IloException {
-
-		InitializeDualPayoffMatrixRecursive(game.getRoot(), 0, 0, 1); // Start with the root sequences
-
-	}
-
-	private void InitializeDualPayoffMatrixRecursive(int currentNodeId, int primalSequence, int dualSequence,
-			double natureProbability) throws IloException {
-		
-		Node node = this.game.getNodeById(currentNodeId);
-		if (null == node)
-			return;
-		if (node.isLeaf()) {
-			double valueMultiplier = playerNotToSolveFor == 1 ? node.getPlayerOneValue() : node.getPlayerTwoValue();
-			double leafValue = (natureProbability*valueMultiplier);
-			if (dualPayoffMatrix[dualSequence].containsKey(primalSequence)) {
-				dualPayoffMatrix[dualSequence].put(primalSequence,
-						(dualPayoffMatrix[dualSequence].get(primalSequence) + leafValue));
-				symmetricActionCntInP2InformationSet[dualSequence].put(primalSequence,
-						(symmetricActionCntInP2InformationSet[dualSequence].get(primalSequence) + 1));
+			LPConstraint constraint = dualConstraints.get(dualSequenceId);
+			if (constraint != null) {
+				model.setLinearCoef(constraint, -coefficient, strategyVarsBySequenceId[primalSequenceId]);
 			} else {
-				dualPayoffMatrix[dualSequence].put(primalSequence, leafValue);
-				symmetricActionCntInP2InformationSet[dualSequence].put(primalSequence, 1);
-				
+				newDualSequences.add(dualSequenceId);
 			}
-			sequenceFormDualProbMatrix[dualSequence].put(primalSequence, natureProbability);
+		}
 
-		} else {
-			for (Action action : node.getActions()) {
-				if (action != null) {
-					if(node.getPlayer() !=0  && 
-						!restrictedInformationSetIdToActions[node.getPlayer()][node.getInformationSet()].containsKey(action.getName()))
-						continue;
-					
-					int newPrimalSequence = node.getPlayer() == playerToSolveFor
-							? getSequenceIdForPlayerToSolveFor(node.getInformationSet(), action.getName())
-							: primalSequence;
-					int newDualSequence = node.getPlayer() == playerNotToSolveFor
-							? getSequenceIdForPlayerNotToSolveFor(node.getInformationSet(), action.getName())
-							: dualSequence;
-					double newNatureProbability = node.getPlayer() == 0 ? natureProbability * action.getProbability()
-							: natureProbability;
-					//System.out.println("Primal Seq " + newDualSequence );
-					InitializeDualPayoffMatrixRecursive(action.getChildId(), newPrimalSequence, newDualSequence,
-							newNatureProbability);
+		for (TIntIterator it = newDualSequences.iterator(); it.hasNext();) {
+			int dualSequenceId = it.next();
+			LPLinearExpression lhs = model.linearNumExpr();
+			int firstSequenceOfBlock = getFirstDualSequenceOfBlock(dualSequenceId);
+			for (int sequenceId = firstSequenceOfBlock; sequenceId < getEndOfBlock(firstSequenceOfBlock); sequenceId++) {
+				for (TIntObjectIterator<LPVariable> zIt = modelStrategyVars[sequenceId].iterator(); zIt.hasNext();) {
+					zIt.advance();
+					lhs.addTerm(getDualCoefficient(sequenceId, zIt.key()), zIt.value());
 				}
 			}
+			LPLinearExpression rhs = model.linearNumExpr();
+			for (TIntIterator pIt = modelStrategyVars[dualSequenceId].keySet().iterator(); pIt.hasNext();) {
+				int primalSequenceId = pIt.next();
+				rhs.addTerm(getDualCoefficient(dualSequenceId, primalSequenceId), strategyVarsBySequenceId[primalSequenceId]);
+			}
+			dualConstraints.put(dualSequenceId, model.addGe(lhs, rhs, "Dual" + dualSequenceId));
 		}
+
+		newPairDualSequences.resetQuick();
+		newPairPrimalSequences.resetQuick();
 	}
 
-	private void CreateDualConstraintForSequence(int sequenceId) throws IloException {
-		
+	/**
+	 * Returns the dual payoff of the pair of sequences averaged over its leaves
+	 */
+	private double getDualCoefficient(int dualSequenceId, int primalSequenceId) {
+		int entry = dualPayoffMatrix.find(dualSequenceId, primalSequenceId);
+		return dualPayoffMatrix.getValue(entry) / leafCounts.getValue(entry);
+	}
 
-      //int p2InformationSet = p2InformationSetBySequenceId[sequenceId];
-      //int numOfActionsInInformationSet = opponentStrategyVarsByInformationSet[p2InformationSet].size();
-
-        /* lhs is linear expression of expected payoff in each information set*/
-		IloLinearNumExpr lhs = cplex.linearNumExpr();
-		for (int actionNo = 0; actionNo < Utils.MAX_NO_ATTACKER_ACTIONS; actionNo++) {
-			int tmpIndex = sequenceId + actionNo;
-			TIntDoubleIterator it = dualPayoffMatrix[tmpIndex].iterator();
-			TIntObjectIterator<IloNumVar> itt1 = modelStrategyVars[tmpIndex].iterator();
-			TIntDoubleIterator itt2 = symmetricActionCntInP2InformationSet[tmpIndex].iterator();
-			for (int i = dualPayoffMatrix[tmpIndex].size(); i-- > 0;) {
-				it.advance();
-				itt1.advance();
-				itt2.advance();
-				double  totValue = it.value()/itt2.value();
-				//System.out.println(itt2.value());
-				lhs.addTerm(totValue, itt1.value());
-			}
-		}
-		
-		for (int actionNo = 0; actionNo < Utils.MAX_NO_ATTACKER_ACTIONS; actionNo++) {
-			int tmpIndex = sequenceId + actionNo;
-			IloLinearNumExpr rhs  = null;
-			if (dualPayoffMatrix[tmpIndex].size() > 0) {
-				rhs = cplex.linearNumExpr();
-				TIntDoubleIterator it = dualPayoffMatrix[tmpIndex].iterator();
-				TIntObjectIterator<IloNumVar> itt1 = modelStrategyVars[tmpIndex].iterator();
-				TIntDoubleIterator itt2 = symmetricActionCntInP2InformationSet[tmpIndex].iterator();
-				for (int i = dualPayoffMatrix[tmpIndex].size(); i-- > 0;) {
-					it.advance();
-					itt1.advance();
-					itt2.advance();
-					double  totValue = it.value()/itt2.value();
-					 //rhs.addTerm(totValue, opponentStrategyVarsBySequenceId[tmpIndex]);					
-					//rhs.addTerm(totValue, itt1.value());
-					rhs.addTerm(totValue, strategyVarsBySequenceId[it.key()]);
-				}
-				System.out.println(rhs);
-				if(rhs != null)	
-					cplex.addGe(lhs,rhs, "Dual" + tmpIndex);
-			}
-		}
-		//System.out.println(lhs);
-		
-	
+	/**
+	 * Returns the first sequence of the information set of the dual sequence. The sequences of the actions
+	 * of an information set have consecutive ids when the actions lead to leaves.
+	 */
+	private int getFirstDualSequenceOfBlock(int dualSequenceId) {
+		int informationSetId = sequenceFormIndex.getInformationSet(playerNotToSolveFor, dualSequenceId);
+		return sequenceFormIndex.getSequenceId(playerNotToSolveFor, informationSetId, 0);
 	}
 
+	private int getEndOfBlock(int firstSequenceOfBlock) {
+		int informationSetId = sequenceFormIndex.getInformationSet(playerNotToSolveFor, firstSequenceOfBlock);
+		return Math.min(firstSequenceOfBlock + sequenceFormIndex.getNumActions(playerNotToSolveFor, informationSetId), numDualSequences);
+	}
 	/**
 	 * Fills in the convenience arrays nodeNatureProbabilities and
 	 * sequenceIdForNodeP1/2
@@ -939,129 +661,158 @@ public class DoubleOracleLPSolver<E> extends ZeroSumGameSolver {
 
 	private void computeAuxiliaryInformationForNodesRecursive(int currentNodeId, int sequenceIdP1, int sequenceIdP2,
 			double natureProbability) {
-		Node node = this.game.getNodeById(currentNodeId);
-
-		nodeNatureProbabilities[node.getNodeId()] = natureProbability;
+		nodeNatureProbabilities[currentNodeId] = natureProbability;
 		sequenceIdForNodeP1[currentNodeId] = sequenceIdP1;
 		sequenceIdForNodeP2[currentNodeId] = sequenceIdP2;
-		if (node.isLeaf())
+		if (game.isLeafNode(currentNodeId))
 			return;
 
-		for (Action action : node.getActions()) {
-			int newSequenceIdP1 = node.getPlayer() == 1
-					? sequenceIdByInformationSetAndActionP1[node.getInformationSet()].get(action.getName())
+		int player = game.getNodePlayer(currentNodeId);
+		int informationSet = game.getNodeInformationSet(currentNodeId);
+		for (int actionId = 0; actionId < game.getNumActionsAtNode(currentNodeId); actionId++) {
+			int newSequenceIdP1 = player == 1
+					? sequenceFormIndex.getSequenceId(1, informationSet, actionId)
 					: sequenceIdP1;
-			int newSequenceIdP2 = node.getPlayer() == 2
-					? sequenceIdByInformationSetAndActionP2[node.getInformationSet()].get(action.getName())
+			int newSequenceIdP2 = player == 2
+					? sequenceFormIndex.getSequenceId(2, informationSet, actionId)
 					: sequenceIdP2;
-			double newNatureProbability = node.getPlayer() == 0 ? natureProbability * action.getProbability()
+			double newNatureProbability = player == 0 ? natureProbability * game.getActionProbability(currentNodeId, actionId)
 					: natureProbability;
-			computeAuxiliaryInformationForNodesRecursive(action.getChildId(), newSequenceIdP1, newSequenceIdP2,
-					newNatureProbability);
+			computeAuxiliaryInformationForNodesRecursive(game.getChildId(currentNodeId, actionId), newSequenceIdP1,
+					newSequenceIdP2, newNatureProbability);
 		}
 	}
 
-	int getSequenceIdForPlayerNature(int informationSet, String actionName) {
-		return sequenceIdByInformationSetAndActionChance[informationSet].get(actionName);
-
+	int getSequenceIdForPlayerToSolveFor(int informationSet, int actionId) {
+		return sequenceFormIndex.getSequenceId(playerToSolveFor, informationSet, actionId);
 	}
 
-	int getSequenceIdForPlayerToSolveFor(int informationSet, String actionName) {
-		if (playerToSolveFor == 1) {
-			return sequenceIdByInformationSetAndActionP1[informationSet].get(actionName);
-		} else {
-			return sequenceIdByInformationSetAndActionP2[informationSet].get(actionName);
-		}
+	int getSequenceIdForPlayerNotToSolveFor(int informationSet, int actionId) {
+		return sequenceFormIndex.getSequenceId(playerNotToSolveFor, informationSet, actionId);
 	}
 
-	int getSequenceIdForPlayerNotToSolveFor(int informationSet, String actionName) {
-		if (playerNotToSolveFor == 1) {
-			return sequenceIdByInformationSetAndActionP1[informationSet].get(actionName);
-		} else {
-			return sequenceIdByInformationSetAndActionP2[informationSet].get(actionName);
-		}
+	/**
+	 * Returns the variable of the sequence of the player to solve for, null if it is not in the model
+	 */
+	LPVariable getStrategyVar(int informationSet, int actionId) {
+		return strategyVarsBySequenceId[getSequenceIdForPlayerToSolveFor(informationSet, actionId)];
 	}
 
-	private void SetObjective() throws IloException {
-		for (int sequenceId = 1; sequenceId < numSequencesP2; sequenceId++) {
-
-			TIntDoubleIterator it = p1PayoffMatrix[sequenceId].iterator();
-			TIntObjectIterator<IloNumVar> itt1 = modelStrategyVars[sequenceId].iterator();
-			TIntDoubleIterator itt2 = symmetricActionCntInP2InformationSet[sequenceId].iterator();
-			for (int i = p1PayoffMatrix[sequenceId].size(); i-- > 0;) {
-				it.advance();
-				itt1.advance();
-				itt2.advance();
-				double totValue = it.value() / itt2.value();
-				objective.addTerm(totValue, itt1.value());
+	/**
+	 * Returns the sum of the values of the sequences of the player at the information set that are in the model
+	 */
+	private double getSumOfStrategyValues(int player, int informationSet) {
+		LPVariable[] varsBySequenceId = player == playerToSolveFor ? strategyVarsBySequenceId : opponentStrategyVarsBySequenceId;
+		double sum = 0;
+		for (int actionId = 0; actionId < game.getNumActionsAtInformationSet(player, informationSet); actionId++) {
+			LPVariable v = varsBySequenceId[sequenceFormIndex.getSequenceId(player, informationSet, actionId)];
+			if (v == null) {
+				continue;
+			}
+			try {
+				sum += model.getValue(v);
+			} catch (LPException e) {
+				e.printStackTrace();
 			}
-
-			
 		}
-		
-		cplex.addMaximize(objective);
-		System.out.println("************************************************ Equation no 1 ***************************");
-		System.out.println("Objective Function : " + objective);
+		return sum;
+	}
+
+	private double getSumOfStrategyValues(int informationSet) {
+		return getSumOfStrategyValues(playerToSolveFor, informationSet);
 	}
 
-	public void solveRestrictedGame() throws IloException
+	/**
+	 * Extends the model with the actions updateRestrictedGame added to the restricted game since the last
+	 * call. For every new action only the subtrees below it at the nodes of its information set that are
+	 * already in the model are walked, the variables and constraints already in the model are kept and
+	 * new variables are added to existing constraints. The cost of an iteration therefore grows with the
+	 * new part of the restricted game, and the next solve starts from the previous basis.
+	 */
+	public void solveRestrictedGame() throws LPException
 	{
-		initializeDataStructures();
-		setUpModel(1e-6);
+		for (int k = 0; k < pendingActionIds.size(); k++) {
+			int player = pendingActionPlayers.get(k);
+			int pendingActionId = pendingActionIds.get(k);
+			TIntArrayList nodes = game.getInformationSet(player, pendingActionInformationSets.get(k));
+			for (int i = 0; i < nodes.size(); i++) {
+				int nodeId = nodes.get(i);
+				if (!nodeInModel[nodeId]) {
+					continue;
+				}
+				int primalSequenceId = playerToSolveFor == 1 ? sequenceIdForNodeP1[nodeId] : sequenceIdForNodeP2[nodeId];
+				int dualSequenceId = playerNotToSolveFor == 1 ? sequenceIdForNodeP1[nodeId] : sequenceIdForNodeP2[nodeId];
+				LPVariable parentSequence = strategyVarsBySequenceId[primalSequenceId];
+				LPVariable childSequence = dualSequenceId == 0 ? rootSequence : opponentStrategyVarsBySequenceId[dualSequenceId];
+				addInformationSetToModel(nodeId, parentSequence);
+				addChildToModel(nodeId, pendingActionId, primalSequenceId, dualSequenceId, parentSequence, childSequence,
+						nodeNatureProbabilities[nodeId]);
+			}
+		}
+		pendingActionPlayers.resetQuick();
+		pendingActionInformationSets.resetQuick();
+		pendingActionIds.resetQuick();
+		addNewSequencePairsToModel();
 	}
 	
-	public void updateRestrictedGame(int currentNodeId, TObjectDoubleMap<String>[] brSequences,TIntSet visited,
-			TIntSet opponentVisited) throws IloException {
+	private void addPendingAction(int player, int informationSetId, int actionId) {
+		restrictedSequences[player][sequenceFormIndex.getSequenceId(player, informationSetId, actionId)] = true;
+		pendingActionPlayers.add(player);
+		pendingActionInformationSets.add(informationSetId);
+		pendingActionIds.add(actionId);
+		numRestrictedActions[player]++;
+	}
+
+	/**
+	 * Returns the number of actions updateRestrictedGame added that solveRestrictedGame has not put in the model yet
+	 */
+	public int getNumPendingActions() {
+		return pendingActionIds.size();
+	}
+
+	/**
+	 * Returns the number of actions of the player in the restricted game, summed over information sets
+	 */
+	public int getNumRestrictedActions(int player) {
+		return numRestrictedActions[player];
+	}
+
+	/**
+	 * Adds the actions of the best responses that the restricted game reaches to the restricted game
+	 * 
+	 * @param bestResponses
+	 *            indexed as [player][informationSetId][actionId], actions with a positive entry are added
+	 */
+	public void updateRestrictedGame(int currentNodeId, double[][][] bestResponses, TIntSet visited,
+			TIntSet opponentVisited) throws LPException {
 
-		Node node = game.getNodeById(currentNodeId);
-		if (node.isLeaf()) {
+		if (game.isLeafNode(currentNodeId)) {
 			return;
 		}
 		
-		if (node.getPlayer() == playerToSolveFor &&  !visited.contains(node.getInformationSet())) {
-			visited.add(node.getInformationSet());
-			for (Action action : node.getActions()) {
-				String v = "I:" + node.getInformationSet() + " action:" + action.getName();
-				if(brSequences[node.getPlayer()].containsKey(v)
-						&& !restrictedInformationSetIdToActions[node.getPlayer()][node.getInformationSet()].containsKey(action.getName())) {
-					
-					restictedInformationSet[node.getPlayer()][node.getInformationSet()] = node.getInformationSet();
-					restrictedInformationSetIdToActions[node.getPlayer()][node.getInformationSet()].put(action.getName(), node.getInformationSet());
-					//System.out.println(node.getInformationSet()+ " : " + action.getName());
-				}else if(!restrictedInformationSetIdToActions[node.getPlayer()][node.getInformationSet()].containsKey(action.getName())) {
+		int player = game.getNodePlayer(currentNodeId);
+		int numActions = game.getNumActionsAtNode(currentNodeId);
+		TIntSet visitedInformationSets = player == playerToSolveFor ? visited : opponentVisited;
+		int informationSetId = game.getNodeInformationSet(currentNodeId);
+		if (player != nature && !visitedInformationSets.contains(informationSetId)) {
+			visitedInformationSets.add(informationSetId);
+			for (int actionId = 0; actionId < numActions; actionId++) {
+				if (!restrictedSequences[player][sequenceFormIndex.getSequenceId(player, informationSetId, actionId)]) {
+					if (bestResponses[player][informationSetId][actionId] <= 0) {
 						continue;
-				} 
-
-				System.out.println( " Restricted sequences I: " + node.getInformationSet() + " action:"+action.getName());
-					updateRestrictedGame(action.getChildId(),brSequences, visited, opponentVisited);
-			}
-		} else if (node.getPlayer() == playerNotToSolveFor &&  !opponentVisited.contains(node.getInformationSet())) {
-			opponentVisited.add(node.getInformationSet());
-			for (Action action : node.getActions()) {
-				String v = "I:" + node.getInformationSet() + " action:" + action.getName();
-				
-					if(brSequences[node.getPlayer()].containsKey(v) && !restrictedInformationSetIdToActions[node.getPlayer()][node.getInformationSet()].containsKey(action.getName())) {
-						//System.out.println(node.getInformationSet()+ " : " + action.getName());
-						restictedInformationSet[node.getPlayer()][node.getInformationSet()] = node.getInformationSet();
-						restrictedInformationSetIdToActions[node.getPlayer()][node.getInformationSet()].put(action.getName(), node.getInformationSet());
-					}else if(!restrictedInformationSetIdToActions[node.getPlayer()][node.getInformationSet()].containsKey(action.getName())) {
-							continue;
 					}
-					//System.out.println( " Restricted sequences I: " + node.getInformationSet() + " action:"+action.getName());
-					updateRestrictedGame(action.getChildId(),brSequences, visited, opponentVisited);
+					restictedInformationSet[player][informationSetId] = informationSetId;
+					addPendingAction(player, informationSetId, actionId);
+				}
+				updateRestrictedGame(game.getChildId(currentNodeId, actionId), bestResponses, visited, opponentVisited);
 			}
-		} 
-		
-		else {
-			for (int actionId = 0; actionId < node.getActions().length; actionId++) {
-				Action action = node.getActions()[actionId];
-				updateRestrictedGame(action.getChildId(), brSequences, visited, opponentVisited);
-				
+		} else {
+			for (int actionId = 0; actionId < numActions; actionId++) {
+				updateRestrictedGame(game.getChildId(currentNodeId, actionId), bestResponses, visited, opponentVisited);
 			}
 		}
-	
-		
 	}
+
 	public int getPlayerToSolveFor() {
 		return playerToSolveFor;
 	}
@@ -1070,39 +821,31 @@ public class DoubleOracleLPSolver<E> extends ZeroSumGameSolver {
 		return playerNotToSolveFor;
 	} 
 
-	public IloCplex getCplex() {
-		return cplex;
+	public LPModel getModel() {
+		return model;
 	}
 
-	public IloNumVar[] getDualVars() {
+	public LPVariable[] getDualVars() {
 		return dualVars;
 	}
 
-	public HashMap<String, IloNumVar>[] getStrategyVarsByInformationSet() {
-		return strategyVarsByInformationSet;
-	}
-	
-	public HashMap<String, IloNumVar>[] getOpponetStrategyVarsByInformationSet() {
-		return opponentStrategyVarsByInformationSet;
+	public LPVariable[] getOpponentStrategyVarsBySequenceId() {
+		return opponentStrategyVarsBySequenceId;
 	}
 
-	public TIntList[] getSequenceFormDualMatrix() {
-		return sequenceFormDualMatrix;
+	public SequenceFormMatrices getSequenceFormMatrices() {
+		return sequenceFormMatrices;
 	}
 
-	public TIntDoubleMap[] getDualPayoffMatrix() {
+	public SparseMatrix getDualPayoffMatrix() {
 		return dualPayoffMatrix;
 	}
 
-	public TObjectIntMap<String>[] getSequenceIdByInformationSetAndActionP1() {
-		return sequenceIdByInformationSetAndActionP1;
+	public SequenceFormIndex getSequenceFormIndex() {
+		return sequenceFormIndex;
 	}
 
-	public TObjectIntMap<String>[] getSequenceIdByInformationSetAndActionP2() {
-		return sequenceIdByInformationSetAndActionP2;
-	}
-
-	public IloNumVar[] getStrategyVarsBySequenceId() {
+	public LPVariable[] getStrategyVarsBySequenceId() {
 		return strategyVarsBySequenceId;
 	}
 
@@ -1122,83 +865,37 @@ public class DoubleOracleLPSolver<E> extends ZeroSumGameSolver {
 		return numDualSequences;
 	}
 
-	public TIntObjectMap<IloConstraint> getPrimalConstraints() {
+	public TIntObjectMap<LPConstraint> getPrimalConstraints() {
 		return primalConstraints;
 	}
 
-	public TIntObjectMap<IloRange> getDualConstraints() {
+	public TIntObjectMap<LPConstraint> getDualConstraints() {
 		return dualConstraints;
 	}
 
 	@Override
 	public double[][][] getStrategyProfile() {
 		double[][][] profile = new double[3][][];
-		int numSequences = 0;
+		int numInformationSets = 0;
 		for (int player = 1; player < 3; player++) {
-			numSequences= player ==1 ? numSequencesP1 : numSequencesP2;
-			HashMap<String, IloNumVar>[] strategyVarsByInfoset = player == 1 ? getStrategyVarsByInformationSet() : getOpponetStrategyVarsByInformationSet();
-			profile[player] = new double[numSequences + 1][];
-			for (int informationSetId = 0; informationSetId < numSequences; informationSetId++) {
-				boolean isDeafualtAction = true;
-				String defaultActionName = null;
+			numInformationSets = player == 1 ? game.getNumInformationSetsPlayer1() : game.getNumInformationSetsPlayer2();
+			LPVariable[] varsBySequenceId = player == playerToSolveFor ? strategyVarsBySequenceId : opponentStrategyVarsBySequenceId;
+			profile[player] = new double[numInformationSets + 1][];
+			for (int informationSetId = 0; informationSetId < numInformationSets; informationSetId++) {
 				profile[player][informationSetId] = new double[game
 						.getNumActionsAtInformationSet(player, informationSetId)];
-				double sum = 0;
-				for (String actionName : strategyVarsByInfoset[informationSetId].keySet()) {
-					if(!restrictedInformationSetIdToActions[player][informationSetId].containsKey(actionName))
-						continue;
-					try {
-						sum += cplex.getValue(strategyVarsByInfoset[informationSetId].get(actionName));
-
-					} catch (IloException e) {
-						e.printStackTrace();
-					}
+				double sum = getSumOfStrategyValues(player, informationSetId);
+				if (sum <= 0) {
+					// Outside the restricted game, or not reached by the solution: play the first action
+					profile[player][informationSetId][0] = 1.0;
+					continue;
 				}
 
-				for (int actionId = 0; actionId < game.getNumActionsAtInformationSet(player,
-						informationSetId); actionId++) {
-					String actionName = game.getActionsAtInformationSet(player, informationSetId)[actionId]
-							.getName();
+				for (int actionId = 0; actionId < profile[player][informationSetId].length; actionId++) {
+					LPVariable v = varsBySequenceId[sequenceFormIndex.getSequenceId(player, informationSetId, actionId)];
 					try {
-						if (sum > 0) {
-							if (!restrictedInformationSetIdToActions[player][informationSetId].containsKey(actionName))
-								profile[player][informationSetId][actionId] = 0;
-							else {
-								if (player == 2) {
-
-									profile[player][informationSetId][actionId] = cplex
-											.getValue(strategyVarsByInfoset[informationSetId].get(actionName))
-											/ p2SymmetricActionNumByInformationSet[informationSetId].get(actionName);
-								} else {
-									System.out.println(informationSetId + " : " + actionName);
-									profile[player][informationSetId][actionId] = cplex
-											.getValue(strategyVarsByInfoset[informationSetId].get(actionName));
-								}
-							}
-						} else {
-							if(player == 2 && isDeafualtAction) {
-							    profile[player][informationSetId][actionId] = 1.0/p2SymmetricActionNumByInformationSet[informationSetId].get(actionName);
-							    isDeafualtAction = false;
-							    defaultActionName = actionName;
-							}
-						    else if(player == 1 && isDeafualtAction) {
-								profile[player][informationSetId][actionId] = 1.0;
-								isDeafualtAction = false;
-								defaultActionName = actionName;
-						    }
-							else {
-								if(actionName.equals(defaultActionName) && player == 2)
-									profile[player][informationSetId][actionId] = 1.0/p2SymmetricActionNumByInformationSet[informationSetId].get(actionName);
-								else
-									profile[player][informationSetId][actionId] = 0.0;
-							}
-						}
-						/*
-						System.out.println("I:"+informationSetId+" action:"+
-								 actionName + " : " + profile[player][informationSetId][actionId]);
-*/
-						//System.out.println(player + " Sum :" + sum);
-					} catch (IloException e) {
+						profile[player][informationSetId][actionId] = v == null ? 0 : model.getValue(v);
+					} catch (LPException e) {
 						e.printStackTrace();
 					}
 				}
@@ -0,0 +1,403 @@
+package extensive_form_game_solver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import extensive_form_game.Game;
+import gnu.trove.set.hash.TIntHashSet;
+import linear_program.LPException;
+import linear_program.LPModel;
+import linear_program.LPStatus;
+
+/**
+ * Double oracle for the zero-sum game defined by the payoffs of the player to solve for, the opponent gets
+ * their negation. Every iteration solves the restricted game with a RestrictedGameLPSolver for each player,
+ * computes the best response of both players to the restricted strategies in the full game with
+ * ExploitabilityEvaluator and adds the best response actions to the restricted game.
+ *
+ * The bounds are on the zero-sum value of the player to solve for. The lower bound is the value of the
+ * restricted strategy of the player against the opponent's best response to it in the full game, the
+ * upper bound is the value of the player's best response to the restricted strategy of the opponent. Both
+ * are kept as the best seen so far and bracket the value. Once the best responses are in the restricted
+ * game both bounds equal the restricted game value, so the loop converges when the gap is at most epsilon,
+ * or stops when the time budget is used up or after the maximum number of iterations. Stalled, the best
+ * responses in the restricted game with the gap still above epsilon, only happens when epsilon is below
+ * the tolerance of the LP. In a general-sum game such as games/hsg_game.efg this is the value of the
+ * player's payoffs against an adversarial opponent, not the Stackelberg value of DoubleOracleLPSolver.
+ */
+public class DoubleOracleSolver extends ZeroSumGameSolver {
+
+	Game game;
+
+	int playerToSolveFor;
+	int playerNotToSolveFor;
+
+	RestrictedGameLPSolver restrictedGameSolver;
+	RestrictedGameLPSolver opponentRestrictedGameSolver;
+	ExploitabilityEvaluator evaluator;
+
+	double epsilon = 1e-3;
+	double timeBudget = Double.MAX_VALUE; // seconds
+	int maxIterations = Integer.MAX_VALUE;
+
+	double lowerBound;
+	double upperBound;
+	boolean converged;
+	boolean stalled;
+	double[][][] strategyProfile; // indexed as [player][informationSetId][actionId], behavioral strategies of the last restricted solution
+	int[] numRestrictedActions = new int[3]; // indexed as [player]
+	List<IterationStatistics> iterationStatistics = new ArrayList<IterationStatistics>();
+
+	public DoubleOracleSolver(Game game, int playerToSolveFor) {
+		this(game, playerToSolveFor, 1e-6);
+	}
+
+	public DoubleOracleSolver(Game game, int playerToSolveFor, double tol) {
+		super(game);
+		this.game = game;
+		this.playerToSolveFor = playerToSolveFor;
+		this.playerNotToSolveFor = (playerToSolveFor % 2) + 1;
+		restrictedGameSolver = new RestrictedGameLPSolver(game, playerToSolveFor, playerToSolveFor, tol);
+		opponentRestrictedGameSolver = new RestrictedGameLPSolver(game, playerNotToSolveFor, playerToSolveFor, tol);
+		evaluator = new ExploitabilityEvaluator(game);
+		evaluator.setZeroSumPlayer(playerToSolveFor);
+	}
+
+	/**
+	 * Stops once the upper bound is at most epsilon above the lower bound
+	 */
+	public void setEpsilon(double epsilon) {
+		this.epsilon = epsilon;
+	}
+
+	/**
+	 * Wall-clock budget of solveGame in seconds. Every restricted solve gets the remaining budget as its
+	 * time limit.
+	 */
+	public void setTimeBudget(double timeBudget) {
+		this.timeBudget = timeBudget;
+	}
+
+	public void setMaxIterations(int maxIterations) {
+		this.maxIterations = maxIterations;
+	}
+
+	/**
+	 * Silences the output of the LP backend of both restricted game models
+	 */
+	public void setQuiet(boolean quiet) {
+		restrictedGameSolver.getModel().setQuiet(quiet);
+		opponentRestrictedGameSolver.getModel().setQuiet(quiet);
+	}
+
+	/**
+	 * Walks the root nature branches of the best response computations on a fork-join pool, see
+	 * ExploitabilityEvaluator
+	 */
+	public void setParallelism(int parallelism) {
+		evaluator.setParallelism(parallelism);
+	}
+
+	@Override
+	public void solveGame() {
+		long start = System.nanoTime();
+		lowerBound = -Double.MAX_VALUE;
+		upperBound = Double.MAX_VALUE;
+		converged = false;
+		stalled = false;
+		iterationStatistics.clear();
+
+		try {
+			// The restricted game starts with the best responses to the uniform strategies
+			long updateStart = System.nanoTime();
+			double[][][] uniformProfile = new double[3][][];
+			uniformProfile[player1] = uniformStrategy(player1);
+			uniformProfile[player2] = uniformStrategy(player2);
+			evaluator.evaluate(uniformProfile);
+			addBestResponsesToRestrictedGame();
+			restrictedGameSolver.solveRestrictedGame();
+			opponentRestrictedGameSolver.solveRestrictedGame();
+			double updateSeconds = (System.nanoTime() - updateStart) / 1e9;
+
+			LPModel model = restrictedGameSolver.getModel();
+			LPModel opponentModel = opponentRestrictedGameSolver.getModel();
+			for (int iteration = 1; iteration <= maxIterations; iteration++) {
+				long solveStart = System.nanoTime();
+				if (!solveRestrictedGame(restrictedGameSolver, start) || !solveRestrictedGame(opponentRestrictedGameSolver, start)) {
+					break;
+				}
+				double solveSeconds = (System.nanoTime() - solveStart) / 1e9;
+				valueOfGame = restrictedGameSolver.getValueOfGame();
+
+				long bestResponseStart = System.nanoTime();
+				strategyProfile = new double[3][][];
+				strategyProfile[playerToSolveFor] = restrictedGameSolver.getStrategy();
+				strategyProfile[playerNotToSolveFor] = opponentRestrictedGameSolver.getStrategy();
+				evaluator.evaluate(strategyProfile);
+				upperBound = Math.min(upperBound, evaluator.getBestResponseValue(playerToSolveFor));
+				// The opponent's best response value is the negated value of the restricted strategy against it
+				lowerBound = Math.max(lowerBound, -evaluator.getBestResponseValue(playerNotToSolveFor));
+				double[][][] bestResponses = getBestResponses();
+				double bestResponseSeconds = (System.nanoTime() - bestResponseStart) / 1e9;
+
+				IterationStatistics statistics = new IterationStatistics(iteration, valueOfGame, lowerBound, upperBound,
+						solveSeconds, bestResponseSeconds, updateSeconds, (System.nanoTime() - start) / 1e9,
+						numRestrictedActions[player1], numRestrictedActions[player2],
+						model.getNumConstraints() + opponentModel.getNumConstraints(),
+						model.getNumVariables() + opponentModel.getNumVariables(),
+						model.getNumNonZeros() + opponentModel.getNumNonZeros());
+				iterationStatistics.add(statistics);
+
+				if (upperBound - lowerBound <= epsilon) {
+					converged = true;
+					break;
+				}
+				updateStart = System.nanoTime();
+				if (addBestResponsesToRestrictedGame(bestResponses) == 0) {
+					// The best responses are already in the restricted game but the gap is open
+					stalled = true;
+					break;
+				}
+				restrictedGameSolver.solveRestrictedGame();
+				opponentRestrictedGameSolver.solveRestrictedGame();
+				updateSeconds = (System.nanoTime() - updateStart) / 1e9;
+			}
+		} catch (LPException e) {
+			e.printStackTrace();
+			System.out.println("Error DoubleOracleSolver::solveGame: restricted game exception");
+		}
+	}
+
+	/**
+	 * Solves the restricted game of one player with the remaining time budget as time limit
+	 * @return false if the budget is used up or the restricted game was not solved
+	 */
+	private boolean solveRestrictedGame(RestrictedGameLPSolver solver, long start) {
+		double remainingSeconds = timeBudget - (System.nanoTime() - start) / 1e9;
+		if (remainingSeconds <= 0) {
+			return false;
+		}
+		LPModel model = solver.getModel();
+		model.setTimeLimit(remainingSeconds);
+		solver.solveGame();
+		LPStatus status = model.getStatus();
+		if (status != LPStatus.OPTIMAL && status != LPStatus.FEASIBLE) {
+			System.out.println("DoubleOracleSolver::solveGame: restricted game of player " + solver.getPlayerToSolveFor()
+					+ " not solved, status " + status);
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Adds the actions of the best responses of the last evaluation to the restricted game
+	 * @return the number of actions that were not in the restricted game yet
+	 */
+	private int addBestResponsesToRestrictedGame() throws LPException {
+		return addBestResponsesToRestrictedGame(getBestResponses());
+	}
+
+	private int addBestResponsesToRestrictedGame(double[][][] bestResponses) throws LPException {
+		int numPendingActions = restrictedGameSolver.getNumPendingActions();
+		restrictedGameSolver.updateRestrictedGame(game.getRoot(), bestResponses, new TIntHashSet(), new TIntHashSet());
+		opponentRestrictedGameSolver.updateRestrictedGame(game.getRoot(), bestResponses, new TIntHashSet(), new TIntHashSet());
+		int numNewActions = restrictedGameSolver.getNumPendingActions() - numPendingActions;
+		numRestrictedActions[player1] = restrictedGameSolver.getNumRestrictedActions(player1);
+		numRestrictedActions[player2] = restrictedGameSolver.getNumRestrictedActions(player2);
+		return numNewActions;
+	}
+
+	/**
+	 * Returns a copy of the best responses of the last evaluation, indexed as [player][informationSetId][actionId]
+	 */
+	private double[][][] getBestResponses() {
+		double[][][] bestResponses = new double[3][][];
+		bestResponses[player1] = copy(evaluator.getBestResponse(player1));
+		bestResponses[player2] = copy(evaluator.getBestResponse(player2));
+		return bestResponses;
+	}
+
+	private double[][] uniformStrategy(int player) {
+		double[][] strategy = new double[game.getNumInformationSets(player)][];
+		for (int informationSetId = 0; informationSetId < strategy.length; informationSetId++) {
+			int numActions = game.getNumActionsAtInformationSet(player, informationSetId);
+			strategy[informationSetId] = new double[numActions];
+			for (int actionId = 0; actionId < numActions; actionId++) {
+				strategy[informationSetId][actionId] = 1.0 / numActions;
+			}
+		}
+		return strategy;
+	}
+
+	private static double[][] copy(double[][] strategy) {
+		double[][] copy = new double[strategy.length][];
+		for (int informationSetId = 0; informationSetId < strategy.length; informationSetId++) {
+			copy[informationSetId] = strategy[informationSetId].clone();
+		}
+		return copy;
+	}
+
+	public double getLowerBound() {
+		return lowerBound;
+	}
+
+	public double getUpperBound() {
+		return upperBound;
+	}
+
+	public double getGap() {
+		return upperBound - lowerBound;
+	}
+
+	/**
+	 * Returns true if the last solveGame stopped because the gap closed to at most epsilon
+	 */
+	public boolean isConverged() {
+		return converged;
+	}
+
+	/**
+	 * Returns true if the last solveGame stopped with the gap open because the best responses were already
+	 * in the restricted game, see the class comment
+	 */
+	public boolean isStalled() {
+		return stalled;
+	}
+
+	public int getNumIterations() {
+		return iterationStatistics.size();
+	}
+
+	public List<IterationStatistics> getIterationStatistics() {
+		return Collections.unmodifiableList(iterationStatistics);
+	}
+
+	/**
+	 * Returns the restricted game solver of the player to solve for
+	 */
+	public RestrictedGameLPSolver getRestrictedGameSolver() {
+		return restrictedGameSolver;
+	}
+
+	/**
+	 * Returns the restricted game solver of the opponent, whose value is the negated restricted game value
+	 */
+	public RestrictedGameLPSolver getOpponentRestrictedGameSolver() {
+		return opponentRestrictedGameSolver;
+	}
+
+	public int getPlayerToSolveFor() {
+		return playerToSolveFor;
+	}
+
+	/**
+	 * Returns the behavioral strategies of the last restricted game solution
+	 */
+	@Override
+	public double[][][] getStrategyProfile() {
+		return strategyProfile;
+	}
+
+	@Override
+	public void printStrategyVarsAndGameValue() {
+		printGameValue();
+		restrictedGameSolver.printStrategyVarsAndGameValue();
+	}
+
+	@Override
+	public void printGameValue() {
+		System.out.println("Restricted game value: " + valueOfGame + ", bounds [" + lowerBound + ", " + upperBound + "] after "
+				+ getNumIterations() + " iterations");
+	}
+
+	/**
+	 * Timing and restricted game size of one double oracle iteration. The update time is the time spent
+	 * adding the best responses of the previous iteration to the model.
+	 */
+	public static class IterationStatistics {
+		private final int iteration;
+		private final double restrictedGameValue;
+		private final double lowerBound;
+		private final double upperBound;
+		private final double solveSeconds;
+		private final double bestResponseSeconds;
+		private final double updateSeconds;
+		private final double elapsedSeconds;
+		private final int numRestrictedActionsP1;
+		private final int numRestrictedActionsP2;
+		private final int numConstraints;
+		private final int numVariables;
+		private final int numNonZeros;
+
+		IterationStatistics(int iteration, double restrictedGameValue, double lowerBound, double upperBound,
+				double solveSeconds, double bestResponseSeconds, double updateSeconds, double elapsedSeconds,
+				int numRestrictedActionsP1, int numRestrictedActionsP2, int numConstraints, int numVariables, int numNonZeros) {
+			this.iteration = iteration;
+			this.restrictedGameValue = restrictedGameValue;
+			this.lowerBound = lowerBound;
+			this.upperBound = upperBound;
+			this.solveSeconds = solveSeconds;
+			this.bestResponseSeconds = bestResponseSeconds;
+			this.updateSeconds = updateSeconds;
+			this.elapsedSeconds = elapsedSeconds;
+			this.numRestrictedActionsP1 = numRestrictedActionsP1;
+			this.numRestrictedActionsP2 = numRestrictedActionsP2;
+			this.numConstraints = numConstraints;
+			this.numVariables = numVariables;
+			this.numNonZeros = numNonZeros;
+		}
+
+		public int getIteration() {
+			return iteration;
+		}
+
+		public double getRestrictedGameValue() {
+			return restrictedGameValue;
+		}
+
+		public double getLowerBound() {
+			return lowerBound;
+		}
+
+		public double getUpperBound() {
+			return upperBound;
+		}
+
+		public double getGap() {
+			return upperBound - lowerBound;
+		}
+
+		public double getSolveSeconds() {
+			return solveSeconds;
+		}
+
+		public double getBestResponseSeconds() {
+			return bestResponseSeconds;
+		}
+
+		public double getUpdateSeconds() {
+			return updateSeconds;
+		}
+
+		public double getElapsedSeconds() {
+			return elapsedSeconds;
+		}
+
+		public int getNumRestrictedActions(int player) {
+			return player == 1 ? numRestrictedActionsP1 : numRestrictedActionsP2;
+		}
+
+		public int getNumConstraints() {
+			return numConstraints;
+		}
+
+		public int getNumVariables() {
+			return numVariables;
+		}
+
+		public int getNumNonZeros() {
+			return numNonZeros;
+		}
+	}
+}
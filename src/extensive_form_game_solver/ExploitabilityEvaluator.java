@@ -0,0 +1,295 @@
+package extensive_form_game_solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import extensive_form_game.Game;
+
+/**
+ * Measures how far a strategy profile is from equilibrium. For a profile (x, y) it computes the best
+ * response values BR1(y) and BR2(x) and the values u1(x, y) and u2(x, y) of the profile, and reports
+ * NashConv = BR1(y) - u1(x, y) + BR2(x) - u2(x, y) and the exploitability NashConv / 2. Works for the
+ * strategy profile of any ZeroSumGameSolver.
+ *
+ * Both best responses come from a single walk of the tree: every leaf adds its payoff, weighted by the
+ * reach of nature and the other player, to the last sequence of each player on the path to it, and the
+ * BestResponseSolver of each player then picks the best actions bottom up. Subtrees that neither player
+ * reaches are skipped. With a parallelism above 1 the nature branches at the root are walked on a
+ * fork-join pool in the same fixed chunks as CounterFactualRegretSolver, so the result does not depend
+ * on the number of threads. Apart from the first evaluation nothing is allocated, so it can be called
+ * every few CFR iterations.
+ *
+ * With a zero-sum player set, the other player's payoffs are taken as the negated payoffs of the zero-sum
+ * player, which is how DoubleOracleSolver bounds the value of the zero-sum restricted games.
+ */
+public class ExploitabilityEvaluator {
+	// Number of chunks the nature branches at the root are split into in parallel mode
+	private static final int NUM_BRANCH_CHUNKS = 64;
+
+	int nature = 0;
+	int player1 = 1;
+	int player2 = 2;
+
+	Game game;
+	BestResponseSolver[] bestResponseSolvers; // indexed as [player]
+
+	double[] bestResponseValues = new double[3]; // indexed as [player]
+	double[] profileValues = new double[3]; // indexed as [player]
+	double nashConv;
+	int zeroSumPlayer = 0; // 0 evaluates the payoffs of the game as they are
+
+	private int parallelism = 1;
+	private ForkJoinPool pool;
+	private ExploitabilityTraversal sequentialTraversal;
+	private ExploitabilityTraversal[] branchChunks;
+
+	public ExploitabilityEvaluator(Game game) {
+		this.game = game;
+		bestResponseSolvers = new BestResponseSolver[3];
+		bestResponseSolvers[player1] = new BestResponseSolver(game, player1);
+		bestResponseSolvers[player2] = new BestResponseSolver(game, player2);
+		sequentialTraversal = new ExploitabilityTraversal(bestResponseSolvers[player1].sequenceValues, bestResponseSolvers[player2].sequenceValues);
+	}
+
+	/**
+	 * Walks the nature branches at the root on a fork-join pool with the given number of threads.
+	 * 1, the default, walks the tree sequentially.
+	 */
+	public void setParallelism(int parallelism) {
+		this.parallelism = Math.max(1, parallelism);
+		if (pool != null && pool.getParallelism() != this.parallelism) {
+			pool.shutdown();
+			pool = null;
+		}
+	}
+
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * Evaluates the zero-sum game in which the other player gets the negated payoffs of this player.
+	 * 0, the default, uses the payoffs of both players.
+	 */
+	public void setZeroSumPlayer(int zeroSumPlayer) {
+		this.zeroSumPlayer = zeroSumPlayer;
+	}
+
+	/**
+	 * Evaluates the current strategy profile of a solver
+	 * @return NashConv of the profile
+	 */
+	public double evaluate(ZeroSumGameSolver solver) {
+		return evaluate(solver.getStrategyProfile());
+	}
+
+	/**
+	 * Evaluates a strategy profile
+	 * @param strategyProfile indexed as [player][informationSetId][actionId]
+	 * @return NashConv of the profile
+	 */
+	public double evaluate(double[][][] strategyProfile) {
+		int root = game.getRoot();
+		if (parallelism > 1 && game.getNodePlayer(root) == nature) {
+			traverseNatureBranchesInParallel(root, strategyProfile);
+		} else {
+			sequentialTraversal.clear();
+			sequentialTraversal.traverse(root, 0, 0, 1, 1, 1, strategyProfile);
+			profileValues[player1] = sequentialTraversal.profileValueP1;
+			profileValues[player2] = sequentialTraversal.profileValueP2;
+		}
+
+		nashConv = 0;
+		for (int player = 1; player < 3; player++) {
+			BestResponseSolver solver = bestResponseSolvers[player];
+			solver.opponentStrategy = strategyProfile[solver.playerNotToSolveFor];
+			bestResponseValues[player] = solver.valueOfGame = solver.selectBestActions();
+			nashConv += bestResponseValues[player] - profileValues[player];
+		}
+		return nashConv;
+	}
+
+	/**
+	 * Splits the nature actions at the root into NUM_BRANCH_CHUNKS contiguous chunks and walks the
+	 * chunks on the pool, each with its own sequence value accumulators. After all chunks are done the
+	 * accumulators are added to the best response solvers in chunk order.
+	 */
+	private void traverseNatureBranchesInParallel(final int root, final double[][][] strategyProfile) {
+		final int numBranches = game.getNumActionsAtNode(root);
+		int numChunks = Math.min(numBranches, NUM_BRANCH_CHUNKS);
+		if (branchChunks == null || branchChunks.length != numChunks) {
+			branchChunks = new ExploitabilityTraversal[numChunks];
+			for (int chunk = 0; chunk < numChunks; chunk++) {
+				branchChunks[chunk] = new ExploitabilityTraversal(new double[bestResponseSolvers[player1].numSequences],
+						new double[bestResponseSolvers[player2].numSequences]);
+			}
+		}
+		if (pool == null) {
+			pool = new ForkJoinPool(parallelism);
+		}
+
+		final List<RecursiveAction> tasks = new ArrayList<RecursiveAction>(numChunks);
+		for (int chunk = 0; chunk < numChunks; chunk++) {
+			final ExploitabilityTraversal traversal = branchChunks[chunk];
+			final int fromBranch = (int) ((long) numBranches * chunk / numChunks);
+			final int toBranch = (int) ((long) numBranches * (chunk + 1) / numChunks);
+			tasks.add(new RecursiveAction() {
+				@Override
+				protected void compute() {
+					traversal.clear();
+					for (int action = fromBranch; action < toBranch; action++) {
+						double probabilityOfAction = game.getActionProbability(root, action);
+						if (probabilityOfAction > 0) {
+							traversal.traverse(game.getChildId(root, action), 0, 0, probabilityOfAction, 1, 1, strategyProfile);
+						}
+					}
+				}
+			});
+		}
+		pool.invoke(new RecursiveAction() {
+			@Override
+			protected void compute() {
+				invokeAll(tasks);
+			}
+		});
+
+		double[] sequenceValuesP1 = bestResponseSolvers[player1].sequenceValues;
+		double[] sequenceValuesP2 = bestResponseSolvers[player2].sequenceValues;
+		Arrays.fill(sequenceValuesP1, 0);
+		Arrays.fill(sequenceValuesP2, 0);
+		profileValues[player1] = profileValues[player2] = 0;
+		for (ExploitabilityTraversal traversal : branchChunks) {
+			for (int sequence = 0; sequence < sequenceValuesP1.length; sequence++) {
+				sequenceValuesP1[sequence] += traversal.sequenceValuesP1[sequence];
+			}
+			for (int sequence = 0; sequence < sequenceValuesP2.length; sequence++) {
+				sequenceValuesP2[sequence] += traversal.sequenceValuesP2[sequence];
+			}
+			profileValues[player1] += traversal.profileValueP1;
+			profileValues[player2] += traversal.profileValueP2;
+		}
+	}
+
+	public double getNashConv() {
+		return nashConv;
+	}
+
+	/**
+	 * Returns NashConv / 2, the average amount the players gain by deviating to a best response
+	 */
+	public double getExploitability() {
+		return nashConv / 2;
+	}
+
+	/**
+	 * Returns the value the player gets by best responding to the other player's strategy in the last evaluated profile
+	 */
+	public double getBestResponseValue(int player) {
+		return bestResponseValues[player];
+	}
+
+	/**
+	 * Returns the value of the last evaluated profile for the player
+	 */
+	public double getProfileValue(int player) {
+		return profileValues[player];
+	}
+
+	/**
+	 * Returns the pure best response of the player in the last evaluation, indexed as [informationSetId][actionId]
+	 */
+	public double[][] getBestResponse(int player) {
+		return bestResponseSolvers[player].getBestResponse();
+	}
+
+	/**
+	 * One walk of the tree with its own accumulators. Reach probabilities and the current sequence of
+	 * each player are passed down the recursion as scalars.
+	 */
+	private class ExploitabilityTraversal {
+		private final double[] sequenceValuesP1;
+		private final double[] sequenceValuesP2;
+		private final int[] firstSequenceP1;
+		private final int[] firstSequenceP2;
+		private double profileValueP1;
+		private double profileValueP2;
+
+		ExploitabilityTraversal(double[] sequenceValuesP1, double[] sequenceValuesP2) {
+			this.sequenceValuesP1 = sequenceValuesP1;
+			this.sequenceValuesP2 = sequenceValuesP2;
+			this.firstSequenceP1 = bestResponseSolvers[player1].firstSequenceOfInformationSet;
+			this.firstSequenceP2 = bestResponseSolvers[player2].firstSequenceOfInformationSet;
+		}
+
+		void clear() {
+			Arrays.fill(sequenceValuesP1, 0);
+			Arrays.fill(sequenceValuesP2, 0);
+			profileValueP1 = profileValueP2 = 0;
+		}
+
+		/**
+		 * @param sequenceP1 last sequence of Player 1 on the path to the node
+		 * @param sequenceP2 last sequence of Player 2 on the path to the node
+		 * @param probabilityNature product of the nature probabilities on the path
+		 * @param probabilityP1 product of the Player 1 probabilities on the path
+		 * @param probabilityP2 product of the Player 2 probabilities on the path
+		 */
+		void traverse(int nodeId, int sequenceP1, int sequenceP2, double probabilityNature, double probabilityP1,
+				double probabilityP2, double[][][] strategyProfile) {
+			int player = game.getNodePlayer(nodeId);
+			if (player == -2) {
+				double valueP1 = game.getNodePlayerOneValue(nodeId);
+				double valueP2 = game.getNodePlayerTwoValue(nodeId);
+				if (zeroSumPlayer == player1) {
+					valueP2 = -valueP1;
+				} else if (zeroSumPlayer == player2) {
+					valueP1 = -valueP2;
+				}
+				sequenceValuesP1[sequenceP1] += probabilityNature * probabilityP2 * valueP1;
+				sequenceValuesP2[sequenceP2] += probabilityNature * probabilityP1 * valueP2;
+				double probability = probabilityNature * probabilityP1 * probabilityP2;
+				profileValueP1 += probability * valueP1;
+				profileValueP2 += probability * valueP2;
+				return;
+			}
+
+			int numActions = game.getNumActionsAtNode(nodeId);
+			if (player == nature) {
+				for (int actionId = 0; actionId < numActions; actionId++) {
+					double probabilityOfAction = game.getActionProbability(nodeId, actionId);
+					if (probabilityOfAction > 0) {
+						traverse(game.getChildId(nodeId, actionId), sequenceP1, sequenceP2, probabilityNature * probabilityOfAction,
+								probabilityP1, probabilityP2, strategyProfile);
+					}
+				}
+				return;
+			}
+
+			int informationSetId = game.getNodeInformationSet(nodeId);
+			double[] actionProbabilities = strategyProfile[player][informationSetId];
+			if (player == player1) {
+				int firstSequence = firstSequenceP1[informationSetId];
+				for (int actionId = 0; actionId < numActions; actionId++) {
+					double newProbabilityP1 = probabilityP1 * actionProbabilities[actionId];
+					// Player 1's best response needs the subtree as long as Player 2 reaches it
+					if (newProbabilityP1 > 0 || probabilityP2 > 0) {
+						traverse(game.getChildId(nodeId, actionId), firstSequence + actionId, sequenceP2, probabilityNature,
+								newProbabilityP1, probabilityP2, strategyProfile);
+					}
+				}
+			} else {
+				int firstSequence = firstSequenceP2[informationSetId];
+				for (int actionId = 0; actionId < numActions; actionId++) {
+					double newProbabilityP2 = probabilityP2 * actionProbabilities[actionId];
+					if (newProbabilityP2 > 0 || probabilityP1 > 0) {
+						traverse(game.getChildId(nodeId, actionId), sequenceP1, firstSequence + actionId, probabilityNature,
+								probabilityP1, newProbabilityP2, strategyProfile);
+					}
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,72 @@
+package extensive_form_game_solver;
+
+import extensive_form_game.GameGenerator;
+import extensive_form_game.GameState;
+import utils.RandomSource;
+
+/**
+ * External sampling Monte Carlo CFR (Lanctot et al. 2009). When traversing for a player, all actions of
+ * that player are explored, while one action is sampled at every nature node and at every information
+ * set of the opponent. The opponent's average strategy is updated at the nodes where it is sampled.
+ */
+public class ExternalSamplingCFRSolver extends MonteCarloCFRSolver {
+
+	public ExternalSamplingCFRSolver(GameGenerator game) {
+		super(game);
+	}
+
+	public ExternalSamplingCFRSolver(GameGenerator game, RandomSource random) {
+		super(game, random);
+	}
+
+	@Override
+	void iterate(GameState gs, int updatingPlayer) {
+		traverseGameState(gs, 0, updatingPlayer);
+	}
+
+	/**
+	 * @return the sampled counterfactual value of gs for updatingPlayer
+	 */
+	private double traverseGameState(GameState gs, int depth, int updatingPlayer) {
+		numNodesTouched++;
+		if (gs.isLeaf()) {
+			return utility(gs, updatingPlayer);
+		}
+		int currentPlayer = gs.getCurrentPlayer();
+		if (currentPlayer == nature) {
+			int action = sampleNatureAction(gs);
+			game.updateGameStateWithAction(gs, action, getProbabilityOfNatureAction(gs, action));
+			double value = traverseGameState(gs, depth + 1, updatingPlayer);
+			game.removeActionFromGameState(gs, action, nature);
+			return value;
+		}
+
+		int numActions = game.getNumActionsAtInformationSet(gs);
+		double[] strategy = currentStrategy(gs, depth);
+		if (currentPlayer != updatingPlayer) {
+			double[] average = averagedStrategy[currentPlayer][gs.getCurrentInformationSetId()];
+			for (int action = 0; action < numActions; action++) {
+				average[game.getAbstractActionMapping(gs, action)] += strategy[action];
+			}
+			int action = sampleActionAtInformationSet(gs, strategy, numActions);
+			game.updateGameStateWithAction(gs, action, strategy[action]);
+			double value = traverseGameState(gs, depth + 1, updatingPlayer);
+			game.removeActionFromGameState(gs, action, currentPlayer);
+			return value;
+		}
+
+		double[] actionValues = actionBuffer(depth, numActions);
+		double value = 0;
+		for (int action = 0; action < numActions; action++) {
+			game.updateGameStateWithAction(gs, action, strategy[action]);
+			actionValues[action] = traverseGameState(gs, depth + 1, updatingPlayer);
+			game.removeActionFromGameState(gs, action, currentPlayer);
+			value += strategy[action] * actionValues[action];
+		}
+		double[] regrets = regretTable[currentPlayer][gs.getCurrentInformationSetId()];
+		for (int action = 0; action < numActions; action++) {
+			regrets[game.getAbstractActionMapping(gs, action)] += actionValues[action] - value;
+		}
+		return value;
+	}
+}
@@ -0,0 +1,270 @@
+package extensive_form_game_solver;
+
+import java.util.Arrays;
+
+import extensive_form_game.GameGenerator;
+import extensive_form_game.GameState;
+import gnu.trove.map.TIntObjectMap;
+import gnu.trove.map.hash.TIntObjectHashMap;
+import utils.RandomSource;
+import utils.XorShiftRandom;
+
+/**
+ * Base class for the Monte Carlo CFR solvers. Instead of traversing the whole game, every iteration
+ * traverses a sampled part of it once for each player, and the regrets are updated with unbiased
+ * estimates of the counterfactual values. Subclasses decide what is sampled.
+ *
+ * The current strategy is not stored, it is computed from the regrets by regret matching when an
+ * information set is visited. Actions sampled at an information set are stored in the GameState with
+ * addSample, so within an iteration every visit of an information set uses the same sample. The
+ * random numbers come from a RandomSource, which can be seeded to make runs reproducible.
+ */
+public abstract class MonteCarloCFRSolver extends ZeroSumGameSolver {
+	public static final long DEFAULT_SEED = 0;
+
+	int numNodesTouched;
+	int totalIterationsRun = 0;
+
+	double[][][] averagedStrategy;
+	double[][][] regretTable;
+
+	RandomSource random;
+	private GameState gameState;
+	// Cumulative probabilities of the nature actions, by node id, built on the first visit of a nature node
+	private TIntObjectMap<double[]> natureCumulativeProbabilities = new TIntObjectHashMap<double[]>();
+	// Per-depth buffers for the strategies and action values at player nodes, reused across visits and iterations
+	private double[][] strategiesByDepth = new double[16][];
+	private double[][] valuesByDepth = new double[16][];
+
+	public MonteCarloCFRSolver(GameGenerator game) {
+		this(game, new XorShiftRandom(DEFAULT_SEED));
+	}
+
+	public MonteCarloCFRSolver(GameGenerator game, RandomSource random) {
+		super(game);
+		this.random = random;
+		initializeDataStructures();
+	}
+
+	@Override
+	public void solveGame() {
+		solveGame(1000);
+	}
+
+	/**
+	 * Runs the given number of iterations. Each iteration samples one traversal for Player 1 and one for Player 2.
+	 */
+	public void solveGame(int numIterations) {
+		if (gameState == null) {
+			gameState = game.getInitialGameState();
+		}
+		for (int iteration = 0; iteration < numIterations; iteration++) {
+			totalIterationsRun++;
+			for (int player = 1; player < 3; player++) {
+				gameState.clearSamples();
+				iterate(gameState, player);
+			}
+		}
+	}
+
+	/**
+	 * Samples one traversal from the root and updates the regrets of updatingPlayer. The game state must
+	 * be at the root again when this returns.
+	 */
+	abstract void iterate(GameState gs, int updatingPlayer);
+
+	public void setRandom(RandomSource random) {
+		this.random = random;
+	}
+
+	public RandomSource getRandom() {
+		return random;
+	}
+
+	@Override
+	public void printStrategyVarsAndGameValue() {
+		printGameValue();
+	}
+
+	@Override
+	public void printGameValue() {
+		System.out.println("Game value after " + totalIterationsRun + " iterations: " + getValueOfGame());
+	}
+
+	@Override
+	public double getValueOfGame() {
+		return game.computeGameValueForStrategies(getStrategyProfile());
+	}
+
+	public int getNumNodesTouched() {
+		return numNodesTouched;
+	}
+
+	public int getTotalIterationsRun() {
+		return totalIterationsRun;
+	}
+
+	@Override
+	public double[][][] getStrategyProfile() {
+		double[][][] map = new double[3][][];
+		for (int player = 1; player < 3; player++) {
+			int numInformationSets = game.getNumInformationSets(player);
+			map[player] = new double[numInformationSets][];
+			for (int informationSetId = 0; informationSetId < numInformationSets; informationSetId++) {
+				int abstractInformationSetId = game.getAbstractInformationSetId(player, informationSetId);
+				int numActions = game.getNumActionsAtInformationSet(player, informationSetId);
+				map[player][informationSetId] = new double[numActions];
+				double sum = 0;
+				for (int actionId = 0; actionId < numActions; actionId++) {
+					int abstractActionId = game.getAbstractActionMapping(player, informationSetId, actionId);
+					sum += averagedStrategy[player][abstractInformationSetId][abstractActionId];
+				}
+				for (int actionId = 0; actionId < numActions; actionId++) {
+					int abstractActionId = game.getAbstractActionMapping(player, informationSetId, actionId);
+					// information sets that were never sampled play uniformly
+					map[player][informationSetId][actionId] = sum > 0 ? averagedStrategy[player][abstractInformationSetId][abstractActionId] / sum : 1.0 / numActions;
+				}
+			}
+		}
+		return map;
+	}
+
+	private void initializeDataStructures() {
+		averagedStrategy = new double[3][][];
+		regretTable = new double[3][][];
+		for (int player = 1; player < 3; player++) {
+			int numInformationSets = game.getNumInformationSets(player);
+			averagedStrategy[player] = new double[numInformationSets][];
+			regretTable[player] = new double[numInformationSets][];
+			for (int informationSetId = 0; informationSetId < numInformationSets; informationSetId++) {
+				if (game.informationSetAbstracted(player, informationSetId)) {
+					continue;
+				}
+				int numActions = game.getNumActionsAtInformationSet(player, informationSetId);
+				averagedStrategy[player][informationSetId] = new double[numActions];
+				regretTable[player][informationSetId] = new double[numActions];
+			}
+		}
+	}
+
+	/**
+	 * Fills the strategy buffer for the given depth with the probabilities of the original actions at the
+	 * current information set of gs, computed by regret matching on the (abstract) information set
+	 */
+	double[] currentStrategy(GameState gs, int depth) {
+		int numActions = game.getNumActionsAtInformationSet(gs);
+		double[] regrets = regretTable[gs.getCurrentPlayer()][gs.getCurrentInformationSetId()];
+		ensureScratchDepth(depth);
+		double[] strategy = scratch(strategiesByDepth, depth, numActions);
+		double regretSum = 0;
+		for (int action = 0; action < regrets.length; action++) {
+			regretSum += Math.max(0, regrets[action]);
+		}
+		for (int action = 0; action < numActions; action++) {
+			int abstractAction = game.getAbstractActionMapping(gs, action);
+			strategy[action] = regretSum > 0 ? Math.max(0, regrets[abstractAction]) / regretSum : 1.0 / regrets.length;
+		}
+		return strategy;
+	}
+
+	/**
+	 * Returns the second per-depth buffer, zeroed, for action values or sampling probabilities
+	 */
+	double[] actionBuffer(int depth, int numActions) {
+		ensureScratchDepth(depth);
+		double[] values = scratch(valuesByDepth, depth, numActions);
+		Arrays.fill(values, 0, numActions, 0);
+		return values;
+	}
+
+	private void ensureScratchDepth(int depth) {
+		if (depth >= strategiesByDepth.length) {
+			strategiesByDepth = Arrays.copyOf(strategiesByDepth, 2 * depth + 1);
+			valuesByDepth = Arrays.copyOf(valuesByDepth, 2 * depth + 1);
+		}
+	}
+
+	private static double[] scratch(double[][] buffersByDepth, int depth, int size) {
+		if (buffersByDepth[depth] == null || buffersByDepth[depth].length < size) {
+			buffersByDepth[depth] = new double[size];
+		}
+		return buffersByDepth[depth];
+	}
+
+	/**
+	 * Samples an action from the first numActions entries of probabilities, which need not sum to exactly one
+	 */
+	int sampleAction(double[] probabilities, int numActions) {
+		double sum = 0;
+		for (int action = 0; action < numActions; action++) {
+			sum += probabilities[action];
+		}
+		double target = random.nextDouble() * sum;
+		double cumulative = 0;
+		for (int action = 0; action < numActions - 1; action++) {
+			cumulative += probabilities[action];
+			if (target < cumulative) {
+				return action;
+			}
+		}
+		return numActions - 1;
+	}
+
+	/**
+	 * Returns the action sampled earlier in this iteration at the current information set of gs, or
+	 * samples one from probabilities and remembers it
+	 */
+	int sampleActionAtInformationSet(GameState gs, double[] probabilities, int numActions) {
+		int player = gs.getCurrentPlayer();
+		int informationSetId = gs.getOriginalInformationSetId();
+		if (gs.priorSampleExists(player, informationSetId)) {
+			return gs.getPriorSample(player, informationSetId);
+		}
+		int action = sampleAction(probabilities, numActions);
+		gs.addSample(player, informationSetId, action);
+		return action;
+	}
+
+	/**
+	 * Samples a nature action by binary search in the cumulative probabilities of the current node
+	 */
+	int sampleNatureAction(GameState gs) {
+		double[] cumulative = natureCumulativeProbabilities.get(gs.getCurrentNodeId());
+		if (cumulative == null) {
+			int numActions = game.getNumActionsForNature(gs);
+			cumulative = new double[numActions];
+			double sum = 0;
+			for (int action = 0; action < numActions; action++) {
+				sum += getProbabilityOfNatureAction(gs, action);
+				cumulative[action] = sum;
+			}
+			natureCumulativeProbabilities.put(gs.getCurrentNodeId(), cumulative);
+		}
+		// first action whose cumulative probability exceeds the target, which skips actions with probability zero
+		double target = random.nextDouble() * cumulative[cumulative.length - 1];
+		int low = 0;
+		int high = cumulative.length - 1;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (cumulative[middle] > target) {
+				high = middle;
+			} else {
+				low = middle + 1;
+			}
+		}
+		return low;
+	}
+
+	double getProbabilityOfNatureAction(GameState gs, int action) {
+		try {
+			return game.getProbabilityOfNatureAction(gs, action);
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+		return 0; // failure
+	}
+
+	static double utility(GameState gs, int player) {
+		return player == 1 ? gs.getValueP1() : gs.getValueP2();
+	}
+}
@@ -0,0 +1,106 @@
+package extensive_form_game_solver;
+
+import extensive_form_game.GameGenerator;
+import extensive_form_game.GameState;
+import utils.RandomSource;
+
+/**
+ * Outcome sampling Monte Carlo CFR (Lanctot et al. 2009). Every traversal follows a single sampled path
+ * from the root to a leaf, so its cost is the depth of the game rather than its size. The updating
+ * player samples from its current strategy mixed with exploration, the opponent and nature sample from
+ * their own strategies, and the values are importance weighted by the probability of the sampled path.
+ */
+public class OutcomeSamplingCFRSolver extends MonteCarloCFRSolver {
+	public static final double DEFAULT_EXPLORATION = 0.6;
+
+	private double exploration = DEFAULT_EXPLORATION;
+
+	public OutcomeSamplingCFRSolver(GameGenerator game) {
+		super(game);
+	}
+
+	public OutcomeSamplingCFRSolver(GameGenerator game, RandomSource random) {
+		super(game, random);
+	}
+
+	/**
+	 * @param exploration weight of the uniform strategy in the sampling strategy of the updating player
+	 */
+	public void setExploration(double exploration) {
+		this.exploration = exploration;
+	}
+
+	public double getExploration() {
+		return exploration;
+	}
+
+	@Override
+	void iterate(GameState gs, int updatingPlayer) {
+		traverseGameState(gs, 0, updatingPlayer, 1, 1, 1);
+	}
+
+	/**
+	 * @param reachPlayer probability of updatingPlayer's actions on the path to gs
+	 * @param reachOthers probability of the opponent's and nature's actions on the path to gs
+	 * @param reachSample probability that the path to gs was sampled
+	 * @return the sampled value of gs for updatingPlayer, divided by the probability of sampling the rest of the path
+	 */
+	private double traverseGameState(GameState gs, int depth, int updatingPlayer, double reachPlayer, double reachOthers, double reachSample) {
+		numNodesTouched++;
+		if (gs.isLeaf()) {
+			return utility(gs, updatingPlayer);
+		}
+		int currentPlayer = gs.getCurrentPlayer();
+		if (currentPlayer == nature) {
+			int action = sampleNatureAction(gs);
+			double probability = getProbabilityOfNatureAction(gs, action);
+			game.updateGameStateWithAction(gs, action, probability);
+			double value = traverseGameState(gs, depth + 1, updatingPlayer, reachPlayer, reachOthers * probability, reachSample * probability);
+			game.removeActionFromGameState(gs, action, nature);
+			return value;
+		}
+
+		int numActions = game.getNumActionsAtInformationSet(gs);
+		double[] strategy = currentStrategy(gs, depth);
+		double[] samplingStrategy = strategy;
+		if (currentPlayer == updatingPlayer) {
+			samplingStrategy = actionBuffer(depth, numActions);
+			for (int action = 0; action < numActions; action++) {
+				samplingStrategy[action] = exploration / numActions + (1 - exploration) * strategy[action];
+			}
+		}
+		int sampledAction = sampleActionAtInformationSet(gs, samplingStrategy, numActions);
+		double probability = strategy[sampledAction];
+		double samplingProbability = samplingStrategy[sampledAction];
+
+		game.updateGameStateWithAction(gs, sampledAction, probability);
+		double childValue;
+		if (currentPlayer == updatingPlayer) {
+			childValue = traverseGameState(gs, depth + 1, updatingPlayer, reachPlayer * probability, reachOthers, reachSample * samplingProbability);
+		} else {
+			childValue = traverseGameState(gs, depth + 1, updatingPlayer, reachPlayer, reachOthers * probability, reachSample * samplingProbability);
+		}
+		game.removeActionFromGameState(gs, sampledAction, currentPlayer);
+
+		// the values of the actions that were not sampled are estimated as 0
+		double sampledActionValue = childValue / samplingProbability;
+		double value = probability * sampledActionValue;
+		int informationSetId = gs.getCurrentInformationSetId();
+		if (currentPlayer == updatingPlayer) {
+			double[] regrets = regretTable[currentPlayer][informationSetId];
+			double weight = reachOthers / reachSample;
+			for (int action = 0; action < numActions; action++) {
+				double actionValue = action == sampledAction ? sampledActionValue : 0;
+				regrets[game.getAbstractActionMapping(gs, action)] += weight * (actionValue - value);
+			}
+		} else {
+			// the opponent's own reach is part of reachOthers, nature's probability cancels against reachSample
+			double[] average = averagedStrategy[currentPlayer][informationSetId];
+			double weight = reachOthers / reachSample;
+			for (int action = 0; action < numActions; action++) {
+				average[game.getAbstractActionMapping(gs, action)] += weight * strategy[action];
+			}
+		}
+		return value;
+	}
+}
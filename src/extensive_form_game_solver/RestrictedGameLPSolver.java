@@ -0,0 +1,438 @@
+package extensive_form_game_solver;
+
+import extensive_form_game.Game;
+import extensive_form_game.SequenceFormIndex;
+import extensive_form_game.SequenceFormMatrices;
+import extensive_form_game.SequenceFormMatrices.SparseMatrix;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.TIntObjectMap;
+import gnu.trove.map.hash.TIntObjectHashMap;
+import gnu.trove.set.TIntSet;
+import gnu.trove.set.hash.TIntHashSet;
+import linear_program.LPConstraint;
+import linear_program.LPException;
+import linear_program.LPLinearExpression;
+import linear_program.LPModel;
+import linear_program.LPVariable;
+
+/**
+ * The restricted game of DoubleOracleSolver as the sequence form LP of a zero-sum game. The game is made
+ * zero-sum with the payoffs of the zero-sum player, the other player gets their negation, and the LP
+ * computes a Nash equilibrium strategy of the player to solve for and the value of the restricted game:
+ *   max v(root) s.t. for every restricted sequence d of the opponent
+ *   v(I(d)) - sum over the opponent information sets I' that start at d of v(I') <= sum over p of A(d, p) x(p),
+ * where I(d) is the information set of d, the root for the empty sequence, A(d, p) are the payoffs of the
+ * player to solve for summed over the leaves of the pair, weighted by nature, and x is the realization plan
+ * of the player over its restricted sequences. All variables are continuous. The opponent's strategy comes
+ * from the same LP solved for the opponent.
+ *
+ * The restricted game grows like that of DoubleOracleLPSolver: updateRestrictedGame marks the actions of
+ * best responses and solveRestrictedGame walks only the new part of the restricted game below the nodes
+ * already in the model, adding variables to the existing constraints.
+ */
+public class RestrictedGameLPSolver extends ZeroSumGameSolver {
+	Game game;
+
+	int playerToSolveFor;
+	int playerNotToSolveFor;
+	int zeroSumPlayer;
+
+	LPModel model;
+	LPVariable rootSequence;
+	LPVariable rootValue;
+	LPVariable[] strategyVarsBySequenceId; // indexed as [primal sequence id]
+	LPVariable[] dualVars; // indexed as [opponent informationSetId], value of the opponent at the information set
+	LPConstraint[] dualConstraints; // indexed as [dual sequence id]
+	TIntObjectMap<LPConstraint> primalConstraints; // indexed as [informationSetId]
+
+	SequenceFormIndex sequenceFormIndex;
+	SparseMatrix payoffMatrix; // indexed as [dual sequence][primal sequence], payoffs of the zero-sum player
+	double payoffSign; // 1 if the player to solve for is the zero-sum player, -1 otherwise
+	TIntSet[] primalSequencesInModel; // indexed as [dual sequence id], the pairs whose payoff is in the model
+
+	private boolean[][] restrictedSequences = new boolean[3][]; // indexed as [player][sequenceId]. True for the sequences of the restricted game
+	boolean[] nodeInModel; // indexed as [nodeId]. True once the node is part of the restricted game in the model
+	int[] sequenceIdForNodeP1; // indexed as [nodeId]. Last sequence of Player 1 on the path to the node
+	int[] sequenceIdForNodeP2; // indexed as [nodeId]. Last sequence of Player 2 on the path to the node
+	// Actions added to the restricted game by updateRestrictedGame that are not in the model yet
+	TIntArrayList pendingActionPlayers = new TIntArrayList();
+	TIntArrayList pendingActionInformationSets = new TIntArrayList();
+	TIntArrayList pendingActionIds = new TIntArrayList();
+	int[] numRestrictedActions = new int[3]; // indexed as [player]
+
+	public RestrictedGameLPSolver(Game game, int playerToSolveFor, int zeroSumPlayer) {
+		this(game, playerToSolveFor, zeroSumPlayer, 1e-6);
+	}
+
+	/**
+	 * @param zeroSumPlayer the player whose payoffs define the zero-sum game
+	 */
+	public RestrictedGameLPSolver(Game game, int playerToSolveFor, int zeroSumPlayer, double tol) {
+		super(game);
+		this.game = game;
+		this.playerToSolveFor = playerToSolveFor;
+		this.playerNotToSolveFor = (playerToSolveFor % 2) + 1;
+		this.zeroSumPlayer = zeroSumPlayer;
+		initializeDataStructures();
+
+		try {
+			setUpModel(tol);
+		} catch (LPException e) {
+			e.printStackTrace();
+			System.out.println("Error RestrictedGameLPSolver(): LP model setup failed");
+		}
+	}
+
+	private void initializeDataStructures() {
+		sequenceFormIndex = game.getSequenceFormIndex();
+		SequenceFormMatrices sequenceFormMatrices = game.getSequenceFormMatrices();
+		payoffMatrix = sequenceFormMatrices.getPayoffMatrix(zeroSumPlayer, playerNotToSolveFor);
+		payoffSign = zeroSumPlayer == playerToSolveFor ? 1 : -1;
+
+		int numPrimalSequences = sequenceFormIndex.getNumSequences(playerToSolveFor);
+		int numDualSequences = sequenceFormIndex.getNumSequences(playerNotToSolveFor);
+		strategyVarsBySequenceId = new LPVariable[numPrimalSequences];
+		dualVars = new LPVariable[game.getNumInformationSets(playerNotToSolveFor)];
+		dualConstraints = new LPConstraint[numDualSequences];
+		primalConstraints = new TIntObjectHashMap<LPConstraint>();
+		primalSequencesInModel = new TIntSet[numDualSequences];
+
+		restrictedSequences[1] = new boolean[sequenceFormIndex.getNumSequences(1)];
+		restrictedSequences[2] = new boolean[sequenceFormIndex.getNumSequences(2)];
+		nodeInModel = new boolean[game.getNumNodes()];
+		sequenceIdForNodeP1 = new int[game.getNumNodes()];
+		sequenceIdForNodeP2 = new int[game.getNumNodes()];
+	}
+
+	/**
+	 * Builds the model of the empty restricted game: the root sequence, the value of the root and its
+	 * constraint. The restricted game is added by updateRestrictedGame and solveRestrictedGame.
+	 */
+	private void setUpModel(double tol) throws LPException {
+		model = new LPModel();
+		model.setTolerance(tol);
+		computeAuxiliaryInformationForNodesRecursive(game.getRoot(), 0, 0);
+
+		rootSequence = model.numVar(1, 1, "I_root");
+		strategyVarsBySequenceId[0] = rootSequence;
+		rootValue = model.numVar(-LPModel.INFINITY, LPModel.INFINITY, "V_root");
+		LPLinearExpression objective = model.linearNumExpr();
+		objective.addTerm(1, rootValue);
+		model.addMaximize(objective);
+		LPLinearExpression rootConstraint = model.linearNumExpr();
+		rootConstraint.addTerm(1, rootValue);
+		dualConstraints[0] = model.addLe(rootConstraint, 0, "Dual0");
+
+		addSubtreeToModel(game.getRoot(), 0, 0);
+	}
+
+	/**
+	 * Fills in sequenceIdForNodeP1/2
+	 */
+	private void computeAuxiliaryInformationForNodesRecursive(int currentNodeId, int sequenceIdP1, int sequenceIdP2) {
+		sequenceIdForNodeP1[currentNodeId] = sequenceIdP1;
+		sequenceIdForNodeP2[currentNodeId] = sequenceIdP2;
+		if (game.isLeafNode(currentNodeId))
+			return;
+
+		int player = game.getNodePlayer(currentNodeId);
+		int informationSet = game.getNodeInformationSet(currentNodeId);
+		for (int actionId = 0; actionId < game.getNumActionsAtNode(currentNodeId); actionId++) {
+			int newSequenceIdP1 = player == 1 ? sequenceFormIndex.getSequenceId(1, informationSet, actionId) : sequenceIdP1;
+			int newSequenceIdP2 = player == 2 ? sequenceFormIndex.getSequenceId(2, informationSet, actionId) : sequenceIdP2;
+			computeAuxiliaryInformationForNodesRecursive(game.getChildId(currentNodeId, actionId), newSequenceIdP1, newSequenceIdP2);
+		}
+	}
+
+	private int getPrimalSequenceForNode(int nodeId) {
+		return playerToSolveFor == 1 ? sequenceIdForNodeP1[nodeId] : sequenceIdForNodeP2[nodeId];
+	}
+
+	private int getDualSequenceForNode(int nodeId) {
+		return playerNotToSolveFor == 1 ? sequenceIdForNodeP1[nodeId] : sequenceIdForNodeP2[nodeId];
+	}
+
+	/**
+	 * Adds a node of the restricted game and the part of the restricted game below it to the model, in
+	 * pre-order. Nodes that are already in the model are skipped.
+	 *
+	 * @param primalSequenceId
+	 *            last sequence of the player to solve for on the path to the node
+	 * @param dualSequenceId
+	 *            last sequence of the opponent on the path to the node
+	 */
+	private void addSubtreeToModel(int currentNodeId, int primalSequenceId, int dualSequenceId) throws LPException {
+		nodeInModel[currentNodeId] = true;
+		int player = game.getNodePlayer(currentNodeId);
+		if (player == -2) {
+			addLeafToModel(primalSequenceId, dualSequenceId);
+			return;
+		}
+		if (player != nature) {
+			addInformationSetToModel(currentNodeId);
+		}
+		for (int actionId = 0; actionId < game.getNumActionsAtNode(currentNodeId); actionId++) {
+			addChildToModel(currentNodeId, actionId, primalSequenceId, dualSequenceId);
+		}
+	}
+
+	/**
+	 * Adds the subtree below an action of a node in the model, if the action is in the restricted game and
+	 * the subtree is not in the model yet
+	 */
+	private void addChildToModel(int currentNodeId, int actionId, int primalSequenceId, int dualSequenceId) throws LPException {
+		int childId = game.getChildId(currentNodeId, actionId);
+		if (nodeInModel[childId]) {
+			return;
+		}
+		int player = game.getNodePlayer(currentNodeId);
+		if (player == nature) {
+			addSubtreeToModel(childId, primalSequenceId, dualSequenceId);
+			return;
+		}
+		int sequenceId = sequenceFormIndex.getSequenceId(player, game.getNodeInformationSet(currentNodeId), actionId);
+		if (!restrictedSequences[player][sequenceId]) {
+			return;
+		}
+		if (player == playerToSolveFor) {
+			addSubtreeToModel(childId, sequenceId, dualSequenceId);
+		} else {
+			addSubtreeToModel(childId, primalSequenceId, sequenceId);
+		}
+	}
+
+	/**
+	 * Adds the restricted actions at the information set of the node that are not in the model yet. For the
+	 * player to solve for these are sequence variables, which sum to the parent sequence. For the opponent
+	 * every action gets a constraint on the value of the information set, and the first action adds the
+	 * value to the constraint of the parent sequence.
+	 */
+	private void addInformationSetToModel(int currentNodeId) throws LPException {
+		int player = game.getNodePlayer(currentNodeId);
+		int informationSetId = game.getNodeInformationSet(currentNodeId);
+		if (player == playerToSolveFor) {
+			LPConstraint constraint = primalConstraints.get(informationSetId);
+			LPLinearExpression sum = constraint == null ? model.linearNumExpr() : null;
+			for (int actionId = 0; actionId < game.getNumActionsAtNode(currentNodeId); actionId++) {
+				int sequenceId = sequenceFormIndex.getSequenceId(player, informationSetId, actionId);
+				if (!restrictedSequences[player][sequenceId] || strategyVarsBySequenceId[sequenceId] != null) {
+					continue;
+				}
+				LPVariable v = model.numVar(0, 1, "I:" + informationSetId + "  action:" + game.getActionName(currentNodeId, actionId));
+				strategyVarsBySequenceId[sequenceId] = v;
+				if (sum != null) {
+					sum.addTerm(1, v);
+				} else {
+					model.setLinearCoef(constraint, 1, v);
+				}
+			}
+			if (constraint == null) {
+				LPVariable parentSequence = strategyVarsBySequenceId[getPrimalSequenceForNode(currentNodeId)];
+				primalConstraints.put(informationSetId, model.addEq(sum, parentSequence, "Primal" + informationSetId));
+			}
+			return;
+		}
+
+		for (int actionId = 0; actionId < game.getNumActionsAtNode(currentNodeId); actionId++) {
+			int sequenceId = sequenceFormIndex.getSequenceId(player, informationSetId, actionId);
+			if (!restrictedSequences[player][sequenceId] || dualConstraints[sequenceId] != null) {
+				continue;
+			}
+			if (dualVars[informationSetId] == null) {
+				// The value is only bounded once the information set has an action
+				dualVars[informationSetId] = model.numVar(-LPModel.INFINITY, LPModel.INFINITY, "V" + informationSetId);
+				model.setLinearCoef(dualConstraints[getDualSequenceForNode(currentNodeId)], -1, dualVars[informationSetId]);
+			}
+			LPLinearExpression lhs = model.linearNumExpr();
+			lhs.addTerm(1, dualVars[informationSetId]);
+			dualConstraints[sequenceId] = model.addLe(lhs, 0, "Dual" + sequenceId);
+		}
+	}
+
+	/**
+	 * The first leaf of a pair of sequences adds the payoff of the pair, summed over all its leaves, to the
+	 * constraint of the dual sequence. All leaves of a pair are in the restricted game once the pair is.
+	 */
+	private void addLeafToModel(int primalSequenceId, int dualSequenceId) throws LPException {
+		if (primalSequencesInModel[dualSequenceId] == null) {
+			primalSequencesInModel[dualSequenceId] = new TIntHashSet();
+		}
+		if (!primalSequencesInModel[dualSequenceId].add(primalSequenceId)) {
+			return;
+		}
+		double payoff = payoffSign * payoffMatrix.get(dualSequenceId, primalSequenceId);
+		if (payoff != 0) {
+			model.setLinearCoef(dualConstraints[dualSequenceId], -payoff, strategyVarsBySequenceId[primalSequenceId]);
+		}
+	}
+
+	/**
+	 * Adds the actions of the best responses that the restricted game reaches to the restricted game
+	 *
+	 * @param bestResponses
+	 *            indexed as [player][informationSetId][actionId], actions with a positive entry are added
+	 */
+	public void updateRestrictedGame(int currentNodeId, double[][][] bestResponses, TIntSet visited, TIntSet opponentVisited) {
+		if (game.isLeafNode(currentNodeId)) {
+			return;
+		}
+
+		int player = game.getNodePlayer(currentNodeId);
+		int numActions = game.getNumActionsAtNode(currentNodeId);
+		TIntSet visitedInformationSets = player == playerToSolveFor ? visited : opponentVisited;
+		int informationSetId = game.getNodeInformationSet(currentNodeId);
+		if (player != nature && !visitedInformationSets.contains(informationSetId)) {
+			visitedInformationSets.add(informationSetId);
+			for (int actionId = 0; actionId < numActions; actionId++) {
+				if (!restrictedSequences[player][sequenceFormIndex.getSequenceId(player, informationSetId, actionId)]) {
+					if (bestResponses[player][informationSetId][actionId] <= 0) {
+						continue;
+					}
+					addPendingAction(player, informationSetId, actionId);
+				}
+				updateRestrictedGame(game.getChildId(currentNodeId, actionId), bestResponses, visited, opponentVisited);
+			}
+		} else {
+			for (int actionId = 0; actionId < numActions; actionId++) {
+				updateRestrictedGame(game.getChildId(currentNodeId, actionId), bestResponses, visited, opponentVisited);
+			}
+		}
+	}
+
+	private void addPendingAction(int player, int informationSetId, int actionId) {
+		restrictedSequences[player][sequenceFormIndex.getSequenceId(player, informationSetId, actionId)] = true;
+		pendingActionPlayers.add(player);
+		pendingActionInformationSets.add(informationSetId);
+		pendingActionIds.add(actionId);
+		numRestrictedActions[player]++;
+	}
+
+	/**
+	 * Extends the model with the actions updateRestrictedGame added to the restricted game since the last
+	 * call, walking only the subtrees below them at the nodes of their information sets that are already
+	 * in the model
+	 */
+	public void solveRestrictedGame() throws LPException {
+		for (int k = 0; k < pendingActionIds.size(); k++) {
+			int pendingActionId = pendingActionIds.get(k);
+			TIntArrayList nodes = game.getInformationSet(pendingActionPlayers.get(k), pendingActionInformationSets.get(k));
+			for (int i = 0; i < nodes.size(); i++) {
+				int nodeId = nodes.get(i);
+				if (!nodeInModel[nodeId]) {
+					continue;
+				}
+				addInformationSetToModel(nodeId);
+				addChildToModel(nodeId, pendingActionId, getPrimalSequenceForNode(nodeId), getDualSequenceForNode(nodeId));
+			}
+		}
+		pendingActionPlayers.resetQuick();
+		pendingActionInformationSets.resetQuick();
+		pendingActionIds.resetQuick();
+	}
+
+	/**
+	 * Returns the number of actions updateRestrictedGame added that solveRestrictedGame has not put in the model yet
+	 */
+	public int getNumPendingActions() {
+		return pendingActionIds.size();
+	}
+
+	/**
+	 * Returns the number of actions of the player in the restricted game, summed over information sets
+	 */
+	public int getNumRestrictedActions(int player) {
+		return numRestrictedActions[player];
+	}
+
+	@Override
+	public void solveGame() {
+		try {
+			if (model.solve()) {
+				valueOfGame = model.getObjValue();
+			}
+		} catch (LPException e) {
+			e.printStackTrace();
+			System.out.println("Error RestrictedGameLPSolver::solveGame: solve exception");
+		}
+	}
+
+	/**
+	 * Returns the behavioral strategy of the player to solve for, indexed as [informationSetId][actionId].
+	 * Information sets the solution does not reach play their first action.
+	 */
+	public double[][] getStrategy() {
+		double[][] strategy = new double[game.getNumInformationSets(playerToSolveFor)][];
+		for (int informationSetId = 0; informationSetId < strategy.length; informationSetId++) {
+			strategy[informationSetId] = new double[game.getNumActionsAtInformationSet(playerToSolveFor, informationSetId)];
+			double sum = 0;
+			for (int actionId = 0; actionId < strategy[informationSetId].length; actionId++) {
+				LPVariable v = strategyVarsBySequenceId[sequenceFormIndex.getSequenceId(playerToSolveFor, informationSetId, actionId)];
+				try {
+					strategy[informationSetId][actionId] = v == null ? 0 : model.getValue(v);
+				} catch (LPException e) {
+					e.printStackTrace();
+				}
+				sum += strategy[informationSetId][actionId];
+			}
+			if (sum <= 0) {
+				if (strategy[informationSetId].length > 0) {
+					strategy[informationSetId][0] = 1;
+				}
+				continue;
+			}
+			for (int actionId = 0; actionId < strategy[informationSetId].length; actionId++) {
+				strategy[informationSetId][actionId] /= sum;
+			}
+		}
+		return strategy;
+	}
+
+	/**
+	 * Returns a profile with only the strategy of the player to solve for, see getStrategy
+	 */
+	@Override
+	public double[][][] getStrategyProfile() {
+		double[][][] profile = new double[3][][];
+		profile[playerToSolveFor] = getStrategy();
+		return profile;
+	}
+
+	@Override
+	public void printStrategyVarsAndGameValue() {
+		printGameValue();
+		for (LPVariable v : strategyVarsBySequenceId) {
+			try {
+				if (null != v)
+					System.out.println(v.getName() + ": \t" + model.getValue(v));
+			} catch (LPException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	@Override
+	public void printGameValue() {
+		System.out.println("Solve status: " + model.getStatus());
+		System.out.println("Restricted game value of player " + playerToSolveFor + ": " + valueOfGame);
+	}
+
+	/**
+	 * Writes the current model to a file. LPModel throws an exception if the model is faulty or the path
+	 * does not exist.
+	 */
+	public void writeModelToFile(String filename) {
+		try {
+			model.exportModel(filename);
+		} catch (LPException e) {
+			e.printStackTrace();
+		}
+	}
+
+	public LPModel getModel() {
+		return model;
+	}
+
+	public int getPlayerToSolveFor() {
+		return playerToSolveFor;
+	}
+}
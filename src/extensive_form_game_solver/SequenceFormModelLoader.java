@@ -0,0 +1,91 @@
+package extensive_form_game_solver;
+
+import extensive_form_game.Game;
+import extensive_form_game.SequenceFormIndex;
+import extensive_form_game.SequenceFormMatrices;
+import extensive_form_game.SequenceFormMatrices.SparseMatrix;
+import linear_program.LPConstraint;
+import linear_program.LPException;
+import linear_program.LPModel;
+import linear_program.LPVariable;
+import linear_program.LPVariableType;
+
+/**
+ * Loads the sequence form compiled by SequenceFormMatrices into an LPModel in bulk: the variables of all
+ * the sequences of a player in one call, and the constraints of all the information sets of a player as
+ * one block of rows.
+ */
+class SequenceFormModelLoader {
+
+	private SequenceFormModelLoader() {
+	}
+
+	/**
+	 * Creates a variable in [0, 1] for every sequence of the player except the empty sequence, named
+	 * "I:informationSetId  action:actionName", and stores it in varsBySequenceId
+	 */
+	static void addSequenceVariables(LPModel model, Game game, int player, LPVariableType type,
+			LPVariable[] varsBySequenceId) throws LPException {
+		SequenceFormIndex index = game.getSequenceFormIndex();
+		int numSequences = index.getNumSequences(player);
+		String[] names = new String[numSequences - 1];
+		for (int sequenceId = 1; sequenceId < numSequences; sequenceId++) {
+			int informationSetId = index.getInformationSet(player, sequenceId);
+			names[sequenceId - 1] = "I:" + informationSetId + "  action:"
+					+ game.getActionsAtInformationSet(player, informationSetId)[index.getActionId(player, sequenceId)].getName();
+		}
+		LPVariable[] vars = model.numVarArray(numSequences - 1, 0, 1, type, names);
+		System.arraycopy(vars, 0, varsBySequenceId, 1, vars.length);
+	}
+
+	/**
+	 * Adds a row for every information set of the player that the tree reaches, named namePrefix +
+	 * informationSetId. With sumToParent the sequences of the set sum to the parent sequence, the rows
+	 * of E or F, otherwise they sum to 1.
+	 *
+	 * @param varsBySequenceId
+	 *            variables of the player's sequences, including the empty sequence if sumToParent
+	 * @return the rows indexed as [informationSetId], null for sets that are never reached
+	 */
+	static LPConstraint[] addInformationSetConstraints(LPModel model, SequenceFormMatrices matrices, int player,
+			LPVariable[] varsBySequenceId, boolean sumToParent, String namePrefix) throws LPException {
+		SparseMatrix constraintMatrix = matrices.getConstraintMatrix(player);
+		int numInformationSets = constraintMatrix.getNumRows() - 1;
+		int[] informationSetOfRow = new int[numInformationSets];
+		int[] rowStarts = new int[numInformationSets + 1];
+		int[] columns = new int[constraintMatrix.getNumNonZeros()];
+		double[] coefficients = new double[columns.length];
+		int numRows = 0;
+		int numEntries = 0;
+		for (int informationSetId = 0; informationSetId < numInformationSets; informationSetId++) {
+			int row = informationSetId + 1;
+			if (constraintMatrix.getRowStart(row) == constraintMatrix.getRowEnd(row)) {
+				continue;
+			}
+			for (int k = constraintMatrix.getRowStart(row); k < constraintMatrix.getRowEnd(row); k++) {
+				int sequenceId = constraintMatrix.getColumn(k);
+				if (!sumToParent && sequenceId == matrices.getParentSequence(player, informationSetId)) {
+					continue;
+				}
+				columns[numEntries] = varsBySequenceId[sequenceId].getIndex();
+				coefficients[numEntries++] = constraintMatrix.getValue(k);
+			}
+			informationSetOfRow[numRows++] = informationSetId;
+			rowStarts[numRows] = numEntries;
+		}
+
+		double[] bounds = new double[numRows];
+		String[] names = new String[numRows];
+		for (int i = 0; i < numRows; i++) {
+			bounds[i] = sumToParent ? 0 : 1;
+			names[i] = namePrefix + informationSetOfRow[i];
+		}
+		LPConstraint[] rows = model.addRows(rowStarts, columns, coefficients, bounds, bounds, names);
+
+		LPConstraint[] constraintsByInformationSet = new LPConstraint[numInformationSets];
+		for (int i = 0; i < numRows; i++) {
+			constraintsByInformationSet[informationSetOfRow[i]] = rows[i];
+		}
+		return constraintsByInformationSet;
+	}
+}
@@ -0,0 +1,221 @@
+package extensive_form_game_solver;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Solutions of games by key, usually a GameFingerprint: the game value and strategy profile computed by
+ * a solver, and a free-form description such as the results of an experiment. The most recently used
+ * capacity solutions are kept in memory. With a directory every solution is also written to a file named
+ * after its key, from which solutions evicted from memory or stored by an earlier run are read back.
+ *
+ * The cache can be shared by threads. A file is written under a temporary name and then renamed, so
+ * processes sharing a directory never read a partial file.
+ */
+public class SolutionCache {
+	private static final int MAGIC = 0x534f4c43; // "SOLC"
+	private static final int FORMAT_VERSION = 1;
+	public static final String FILE_EXTENSION = ".sol";
+
+	public static class Solution {
+		private final double gameValue;
+		private final double[][][] strategyProfile; // indexed as [player][informationSetId][actionId], entries may be null
+		private final String description;
+
+		public Solution(double gameValue, double[][][] strategyProfile, String description) {
+			this.gameValue = gameValue;
+			this.strategyProfile = strategyProfile;
+			this.description = description;
+		}
+
+		public double getGameValue() {
+			return gameValue;
+		}
+
+		public double[][][] getStrategyProfile() {
+			return strategyProfile;
+		}
+
+		public String getDescription() {
+			return description;
+		}
+	}
+
+	private final Map<String, Solution> solutions;
+	private final File directory;
+	private long hits;
+	private long misses;
+
+	/**
+	 * Creates a cache that only keeps solutions in memory
+	 */
+	public SolutionCache(int capacity) {
+		this(capacity, null);
+	}
+
+	/**
+	 * @param directory where solutions are stored, created if missing. null keeps solutions in memory only
+	 */
+	@SuppressWarnings("serial")
+	public SolutionCache(final int capacity, String directory) {
+		solutions = new LinkedHashMap<String, Solution>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Solution> eldest) {
+				return size() > capacity;
+			}
+		};
+		this.directory = directory == null ? null : new File(directory);
+		if (this.directory != null && !this.directory.isDirectory() && !this.directory.mkdirs()) {
+			System.out.println("SolutionCache: cannot create directory " + directory);
+		}
+	}
+
+	/**
+	 * Returns the solution stored under the key, or null
+	 */
+	public Solution get(String key) {
+		synchronized (solutions) {
+			Solution solution = solutions.get(key);
+			if (solution != null) {
+				hits++;
+				return solution;
+			}
+		}
+		Solution solution = read(key);
+		synchronized (solutions) {
+			if (solution != null) {
+				hits++;
+				solutions.put(key, solution);
+			} else {
+				misses++;
+			}
+		}
+		return solution;
+	}
+
+	public void put(String key, Solution solution) {
+		synchronized (solutions) {
+			solutions.put(key, solution);
+		}
+		write(key, solution);
+	}
+
+	public long getHits() {
+		synchronized (solutions) {
+			return hits;
+		}
+	}
+
+	public long getMisses() {
+		synchronized (solutions) {
+			return misses;
+		}
+	}
+
+	private File getFile(String key) {
+		return new File(directory, key + FILE_EXTENSION);
+	}
+
+	private Solution read(String key) {
+		if (directory == null || !getFile(key).isFile()) {
+			return null;
+		}
+		try {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(getFile(key))));
+			try {
+				if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+					System.out.println("SolutionCache::read: " + getFile(key) + " is not a solution of this version, ignored");
+					return null;
+				}
+				double gameValue = in.readDouble();
+				double[][][] strategyProfile = new double[in.readInt()][][];
+				for (int player = 0; player < strategyProfile.length; player++) {
+					int numInformationSets = in.readInt();
+					if (numInformationSets < 0) {
+						continue;
+					}
+					strategyProfile[player] = new double[numInformationSets][];
+					for (int informationSetId = 0; informationSetId < numInformationSets; informationSetId++) {
+						int numActions = in.readInt();
+						if (numActions < 0) {
+							continue;
+						}
+						strategyProfile[player][informationSetId] = new double[numActions];
+						for (int actionId = 0; actionId < numActions; actionId++) {
+							strategyProfile[player][informationSetId][actionId] = in.readDouble();
+						}
+					}
+				}
+				String description = null;
+				int descriptionLength = in.readInt();
+				if (descriptionLength >= 0) {
+					byte[] bytes = new byte[descriptionLength];
+					in.readFully(bytes);
+					description = new String(bytes, StandardCharsets.UTF_8);
+				}
+				return new Solution(gameValue, strategyProfile, description);
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+			System.out.println("SolutionCache::read: cannot read " + getFile(key));
+			return null;
+		}
+	}
+
+	private void write(String key, Solution solution) {
+		if (directory == null) {
+			return;
+		}
+		File temporaryFile = null;
+		try {
+			temporaryFile = File.createTempFile(key, ".tmp", directory);
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporaryFile)));
+			try {
+				out.writeInt(MAGIC);
+				out.writeInt(FORMAT_VERSION);
+				out.writeDouble(solution.gameValue);
+				double[][][] strategyProfile = solution.strategyProfile == null ? new double[0][][] : solution.strategyProfile;
+				out.writeInt(strategyProfile.length);
+				for (double[][] strategy : strategyProfile) {
+					out.writeInt(strategy == null ? -1 : strategy.length);
+					for (int informationSetId = 0; strategy != null && informationSetId < strategy.length; informationSetId++) {
+						double[] probabilities = strategy[informationSetId];
+						out.writeInt(probabilities == null ? -1 : probabilities.length);
+						for (int actionId = 0; probabilities != null && actionId < probabilities.length; actionId++) {
+							out.writeDouble(probabilities[actionId]);
+						}
+					}
+				}
+				if (solution.description == null) {
+					out.writeInt(-1);
+				} else {
+					byte[] bytes = solution.description.getBytes(StandardCharsets.UTF_8);
+					out.writeInt(bytes.length);
+					out.write(bytes);
+				}
+			} finally {
+				out.close();
+			}
+			if (!temporaryFile.renameTo(getFile(key))) {
+				throw new IOException("cannot rename " + temporaryFile + " to " + getFile(key));
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+			System.out.println("SolutionCache::write: cannot store the solution of " + key);
+			if (temporaryFile != null) {
+				temporaryFile.delete();
+			}
+		}
+	}
+}
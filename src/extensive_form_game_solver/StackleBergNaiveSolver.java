@@ -3,29 +3,26 @@ package extensive_form_game_solver;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
 
 import extensive_form_game.Game;
 import extensive_form_game.Game.Action;
 import extensive_form_game.Game.Node;
-import gnu.trove.iterator.TIntDoubleIterator;
-import gnu.trove.iterator.TIntObjectIterator;
-import gnu.trove.list.TIntList;
-import gnu.trove.list.array.TIntArrayList;
+import extensive_form_game.SequenceFormIndex;
+import extensive_form_game.SequenceFormMatrices;
+import extensive_form_game.SequenceFormMatrices.SparseMatrix;
 import gnu.trove.map.TIntDoubleMap;
 import gnu.trove.map.TIntObjectMap;
 import gnu.trove.map.TObjectDoubleMap;
-import gnu.trove.map.TObjectIntMap;
 import gnu.trove.map.hash.TIntDoubleHashMap;
 import gnu.trove.map.hash.TIntObjectHashMap;
 import gnu.trove.map.hash.TObjectDoubleHashMap;
-import gnu.trove.map.hash.TObjectIntHashMap;
-import gnu.trove.set.TIntSet;
-import gnu.trove.set.hash.TIntHashSet;
-import ilog.cplex.*;
-import ilog.concert.*;
-import ilog.cplex.IloCplex;
-import ilog.cplex.IloCplex.UnknownObjectException;
+import linear_program.LPConstraint;
+import linear_program.LPException;
+import linear_program.LPLinearExpression;
+import linear_program.LPModel;
+import linear_program.LPStatus;
+import linear_program.LPVariable;
+import linear_program.LPVariableType;
 import utils.Utils;
 
 public class StackleBergNaiveSolver<E> extends ZeroSumGameSolver {
@@ -34,43 +31,29 @@ public class StackleBergNaiveSolver<E> extends ZeroSumGameSolver {
 	int playerToSolveFor;
 	int playerNotToSolveFor;
 
-	IloCplex cplex;
-	IloLinearNumExpr objective;
-	IloLinearNumExpr natureConstraints;
-	// IloNumVar[] modelStrategyVars;
-	IloNumVar[] dualVars; // indexed as [informationSetId]. Note that we expect information sets to be
+	LPModel model;
+	LPLinearExpression objective;
+	// LPVariable[] modelStrategyVars;
+	LPVariable[] dualVars; // indexed as [informationSetId]. Note that we expect information sets to be
 							// 1-indexed, but the code corrects for when this is not the case
-	HashMap<String, IloNumVar>[] strategyVarsByInformationSet; // indexed as [inforationSetId][action.name]
-	HashMap<String, String>[] opponentStrategyVarsByInformationSet; // indexed as [inforationSetId][action.name]
-	HashMap<String, Boolean> opponentBrStrategy;
-	TIntList[] sequenceFormDualMatrix; // indexed as [dual sequence id][information set]
-	TIntDoubleMap[] sequenceFormDualProbMatrix;
-	TIntDoubleMap[] sequenceFormDualP1Matrix;
-	TIntDoubleMap[] dualPayoffMatrix; // indexed as [dual sequence][primal sequence]
-	TIntDoubleMap[] p1PayoffMatrix;
-	TIntDoubleMap[] symmetricActionCntInP2InformationSet;
-	TIntObjectMap<String>[] modelStrategyVars;
-	TObjectIntMap<String>[] sequenceIdByInformationSetAndActionChance;
-	TObjectIntMap<String>[] sequenceIdByInformationSetAndActionP1; // indexed as [informationSetId][action.name]
-	TObjectIntMap<String>[] sequenceIdByInformationSetAndActionP2; // indexed as [informationSetId][action.name]
-	IloNumVar[] strategyVarsBySequenceId;
+	boolean[] opponentBrStrategy; // indexed as [dual sequence id]
+	SequenceFormIndex sequenceFormIndex;
+	SequenceFormMatrices sequenceFormMatrices;
+	SparseMatrix payoffMatrix; // indexed as [dual sequence][primal sequence], payoffs of the primal player
+	SparseMatrix dualPayoffMatrix; // indexed as [dual sequence][primal sequence], payoffs of the dual player
+	SparseMatrix leafCounts; // indexed as [dual sequence][primal sequence]
+	LPVariable[] strategyVarsBySequenceId;
 	String[] opponentStrategyVarsBySequenceId;
-	IloNumVar[] zVarsBySequenceId;
 
-	int[] p2InformationSetBySequenceId;
 	int numSequencesP1;
 	int numSequencesP2;
 	int numPrimalSequences;
 	int numDualSequences;
 	int numPrimalInformationSets;
 	int numDualInformationSets;
-	int numSequencesNature;
 
-	String[] dualSequenceNames;
-	String[] primalSequenceNames;
-
-	TIntObjectMap<IloConstraint> primalConstraints; // indexed as [informationSetId], without correcting for 1-indexing
-	TIntObjectMap<IloRange> dualConstraints; // indexed as [sequenceId]
+	TIntObjectMap<LPConstraint> primalConstraints; // indexed as [informationSetId], without correcting for 1-indexing
+	TIntObjectMap<LPConstraint> dualConstraints; // indexed as [sequenceId]
 	double[] nodeNatureProbabilities; // indexed as [nodeId]. Returns the probability of that node being reached when
 										// considering only nature nodes
 	int[] sequenceIdForNodeP1; // indexed as [nodeId]. Returns the sequenceId of the last sequence belonging to
@@ -88,9 +71,9 @@ public class StackleBergNaiveSolver<E> extends ZeroSumGameSolver {
 		super(game);
 		this.game = game;
 		try {
-			cplex = new IloCplex();
-		} catch (IloException e) {
-			System.out.println("Error SequenceFormLPSolver(): CPLEX setup failed");
+			model = new LPModel();
+		} catch (LPException e) {
+			System.out.println("Error SequenceFormLPSolver(): LP model setup failed");
 		}
 
 		this.playerToSolveFor = playerToSolveFor;
@@ -100,7 +83,7 @@ public class StackleBergNaiveSolver<E> extends ZeroSumGameSolver {
 
 		try {
 			setUpModel(tol);
-		} catch (IloException e) {
+		} catch (LPException e) {
 			e.printStackTrace();
 		}
 	}
@@ -108,88 +91,33 @@ public class StackleBergNaiveSolver<E> extends ZeroSumGameSolver {
 	/**
 	 * Initializes the arrays and other data structure objects that we use.
 	 */
-	@SuppressWarnings("unchecked")
 	private void initializeDataStructures() {
-		int numInformationSets = 0;
-		int opponentNumInformationSets = 0;
+		sequenceFormIndex = game.getSequenceFormIndex();
+		sequenceFormMatrices = game.getSequenceFormMatrices();
+		payoffMatrix = sequenceFormMatrices.getPayoffMatrix(playerToSolveFor, playerNotToSolveFor);
+		dualPayoffMatrix = sequenceFormMatrices.getPayoffMatrix(playerNotToSolveFor, playerNotToSolveFor);
+		leafCounts = sequenceFormMatrices.getLeafCounts(playerNotToSolveFor);
 
-		if (playerToSolveFor == 1) {
-			numInformationSets = game.getNumInformationSetsPlayer1();
-			opponentNumInformationSets = game.getNumInformationSetsPlayer2();
-		} else {
-			numInformationSets = game.getNumInformationSetsPlayer2();
-			opponentNumInformationSets = game.getNumInformationSetsPlayer1();
-		}
-		this.strategyVarsByInformationSet = (HashMap<String, IloNumVar>[]) new HashMap[numInformationSets + 1];
-		this.opponentStrategyVarsByInformationSet = (HashMap<String, String>[]) new HashMap[opponentNumInformationSets
-				+ 1];
-		this.opponentBrStrategy = new HashMap<String, Boolean>();
-		for (int i = 0; i <= numInformationSets; i++) {
-			this.strategyVarsByInformationSet[i] = new HashMap<String, IloNumVar>();
-		}
-
-		for (int i = 0; i <= opponentNumInformationSets; i++) {
-			this.opponentStrategyVarsByInformationSet[i] = new HashMap<String, String>();
-
-		}
-		numPrimalSequences = playerToSolveFor == 1 ? game.getNumSequencesP1() : game.getNumSequencesP2();
-		numDualSequences = playerNotToSolveFor == 1 ? game.getNumSequencesP1() : game.getNumSequencesP2();
-
-		sequenceFormDualMatrix = new TIntList[numDualSequences];
-		sequenceFormDualProbMatrix = new TIntDoubleHashMap[numDualSequences];
-		sequenceFormDualP1Matrix = new TIntDoubleHashMap[numDualSequences];
-		for (int i = 0; i < numDualSequences; i++) {
-			sequenceFormDualMatrix[i] = new TIntArrayList();
-			sequenceFormDualProbMatrix[i] = new TIntDoubleHashMap();
-			sequenceFormDualP1Matrix[i] = new TIntDoubleHashMap();
-		}
+		numPrimalSequences = sequenceFormIndex.getNumSequences(playerToSolveFor);
+		numDualSequences = sequenceFormIndex.getNumSequences(playerNotToSolveFor);
+		opponentBrStrategy = new boolean[numDualSequences];
 
 		numPrimalInformationSets = playerToSolveFor == 1 ? game.getNumInformationSetsPlayer1()
 				: game.getNumInformationSetsPlayer2();
 		numDualInformationSets = playerNotToSolveFor == 1 ? game.getNumInformationSetsPlayer1()
 				: game.getNumInformationSetsPlayer2();
 
-		dualSequenceNames = new String[numDualSequences];
-		primalSequenceNames = new String[numDualSequences];
-
-		dualPayoffMatrix = new TIntDoubleHashMap[numDualSequences];
-		symmetricActionCntInP2InformationSet = new TIntDoubleHashMap[numDualSequences];
-		modelStrategyVars = new TIntObjectHashMap[numDualSequences];
-		p1PayoffMatrix = new TIntDoubleHashMap[numDualSequences];
-
-		for (int i = 0; i < numDualSequences; i++) {
-			dualPayoffMatrix[i] = new TIntDoubleHashMap();
-			symmetricActionCntInP2InformationSet[i] = new TIntDoubleHashMap();
-			p1PayoffMatrix[i] = new TIntDoubleHashMap();
-			modelStrategyVars[i] = new TIntObjectHashMap<>();
-		}
-		// ensure that we have a large enough array for both the case where information
-		// sets start at 1 and 0
-		sequenceIdByInformationSetAndActionChance = new TObjectIntMap[1 + 1];
-		sequenceIdByInformationSetAndActionP1 = new TObjectIntMap[game.getNumInformationSetsPlayer1() + 1];
-		sequenceIdByInformationSetAndActionP2 = new TObjectIntMap[game.getNumInformationSetsPlayer2() + 1];
-		for (int i = 0; i < 2; i++) {
-			sequenceIdByInformationSetAndActionChance[i] = new TObjectIntHashMap<String>();
-		}
-		for (int i = 0; i <= game.getNumInformationSetsPlayer1(); i++) {
-			sequenceIdByInformationSetAndActionP1[i] = new TObjectIntHashMap<String>();
-		}
-		for (int i = 0; i <= game.getNumInformationSetsPlayer2(); i++) {
-			sequenceIdByInformationSetAndActionP2[i] = new TObjectIntHashMap<String>();
+		strategyVarsBySequenceId = new LPVariable[numPrimalSequences];
+		opponentStrategyVarsBySequenceId = new String[numDualSequences];
+		for (int sequenceId = 1; sequenceId < numDualSequences; sequenceId++) {
+			int informationSetId = sequenceFormIndex.getInformationSet(playerNotToSolveFor, sequenceId);
+			opponentStrategyVarsBySequenceId[sequenceId] = "I:" + informationSetId + "  action:" + game
+					.getActionsAtInformationSet(playerNotToSolveFor, informationSetId)[sequenceFormIndex.getActionId(playerNotToSolveFor, sequenceId)]
+					.getName();
 		}
 
-		if (playerToSolveFor == 1) {
-			strategyVarsBySequenceId = new IloNumVar[game.getNumSequencesP1()];
-			opponentStrategyVarsBySequenceId = new String[game.getNumSequencesP2()];
-			zVarsBySequenceId = new IloNumVar[game.getNumSequencesP1()];
-			p2InformationSetBySequenceId = new int[game.getNumSequencesP1()];
-		} else {
-			strategyVarsBySequenceId = new IloNumVar[game.getNumSequencesP2()];
-			p2InformationSetBySequenceId = new int[game.getNumSequencesP2()];
-		}
-
-		primalConstraints = new TIntObjectHashMap<IloConstraint>();
-		dualConstraints = new TIntObjectHashMap<IloRange>();
+		primalConstraints = new TIntObjectHashMap<LPConstraint>();
+		dualConstraints = new TIntObjectHashMap<LPConstraint>();
 		nodeNatureProbabilities = new double[game.getNumNodes() + 1]; // Use +1 to be robust for non-zero indexed nodes
 		sequenceIdForNodeP1 = new int[game.getNumNodes() + 1];
 		sequenceIdForNodeP2 = new int[game.getNumNodes() + 1];
@@ -197,7 +125,7 @@ public class StackleBergNaiveSolver<E> extends ZeroSumGameSolver {
 	}
 
 	/**
-	 * Tries to solve the current model. Currently relies on CPLEX to throw an
+	 * Tries to solve the current model. Currently relies on LPModel to throw an
 	 * exception if no model has been built.
 	 */
 	@Override
@@ -205,18 +133,18 @@ public class StackleBergNaiveSolver<E> extends ZeroSumGameSolver {
 		try {
 			System.out.println(" Length " + strategyVarsBySequenceId.length);
 
-			if (cplex.solve()) {
+			if (model.solve()) {
 				for (int i = 0; i < strategyVarsBySequenceId.length; i++) {
 					// System.out.println("Sequence = " + strategyVarsBySequenceId[i]);
-					IloNumVar v = strategyVarsBySequenceId[i];
+					LPVariable v = strategyVarsBySequenceId[i];
 					// if(v != null)
-					// System.out.println("Cplex val : " + cplex.getValue(v));
+					// System.out.println("Cplex val : " + model.getValue(v));
 				}
-				valueOfGame = cplex.getObjValue();
+				valueOfGame = model.getObjValue();
 				System.out.println("Defender's utility in StackleBerg Game : " + valueOfGame);
 			}
 
-		} catch (IloException e) {
+		} catch (LPException e) {
 			e.printStackTrace();
 			System.out.println("Error SequenceFormLPSolver::solveGame: solve exception");
 		}
@@ -227,16 +155,14 @@ public class StackleBergNaiveSolver<E> extends ZeroSumGameSolver {
 	}
 	/**
 	 * Creates and returns a mapping from variable names to the values they take on
-	 * in the solution computed by CPLEX.
+	 * in the solution computed by the LP backend.
 	 */
 	public TObjectDoubleMap<String> getStrategyVarMap() {
 		TObjectDoubleMap<String> map = new TObjectDoubleHashMap<String>();
-		for (IloNumVar v : strategyVarsBySequenceId) {
+		for (LPVariable v : strategyVarsBySequenceId) {
 			try {
-				map.put(v.getName(), cplex.getValue(v));
-			} catch (UnknownObjectException e) {
-				e.printStackTrace();
-			} catch (IloException e) {
+				map.put(v.getName(), model.getValue(v));
+			} catch (LPException e) {
 				e.printStackTrace();
 			}
 		}
@@ -253,23 +179,19 @@ public class StackleBergNaiveSolver<E> extends ZeroSumGameSolver {
 		TObjectDoubleMap<String>[] map = new TObjectDoubleHashMap[numPrimalInformationSets];
 		for (int informationSetId = 0; informationSetId < numPrimalInformationSets; informationSetId++) {
 			map[informationSetId] = new TObjectDoubleHashMap();
-			double sum = 0;
-			for (String actionName : strategyVarsByInformationSet[informationSetId].keySet()) {
-				try {
-					sum += cplex.getValue(strategyVarsByInformationSet[informationSetId].get(actionName));
-				} catch (IloException e) {
-					e.printStackTrace();
-				}
-			}
-			for (String actionName : strategyVarsByInformationSet[informationSetId].keySet()) {
+			double sum = getSumOfStrategyValues(informationSetId);
+			for (int actionId = 0; actionId < game.getNumActionsAtInformationSet(playerToSolveFor,
+					informationSetId); actionId++) {
+				String actionName = game.getActionsAtInformationSet(playerToSolveFor, informationSetId)[actionId]
+						.getName();
 				try {
 					if (sum > 0) {
 						map[informationSetId].put(actionName,
-								cplex.getValue(strategyVarsByInformationSet[informationSetId].get(actionName)) / sum);
+								model.getValue(getStrategyVar(informationSetId, actionId)) / sum);
 					} else {
 						map[informationSetId].put(actionName, 0);
 					}
-				} catch (IloException e) {
+				} catch (LPException e) {
 					e.printStackTrace();
 				}
 			}
@@ -285,26 +207,17 @@ public class StackleBergNaiveSolver<E> extends ZeroSumGameSolver {
 		TIntDoubleMap[] map = new TIntDoubleHashMap[numPrimalInformationSets];
 		for (int informationSetId = 0; informationSetId < numPrimalInformationSets; informationSetId++) {
 			map[informationSetId] = new TIntDoubleHashMap();
-			double sum = 0;
-			for (String actionName : strategyVarsByInformationSet[informationSetId].keySet()) {
-				try {
-					sum += cplex.getValue(strategyVarsByInformationSet[informationSetId].get(actionName));
-				} catch (IloException e) {
-					e.printStackTrace();
-				}
-			}
+			double sum = getSumOfStrategyValues(informationSetId);
 			for (int actionId = 0; actionId < game.getNumActionsAtInformationSet(playerToSolveFor,
 					informationSetId); actionId++) {
-				String actionName = game.getActionsAtInformationSet(playerToSolveFor, informationSetId)[actionId]
-						.getName();
 				try {
 					if (sum > 0) {
 						map[informationSetId].put(actionId,
-								cplex.getValue(strategyVarsByInformationSet[informationSetId].get(actionName)) / sum);
+								model.getValue(getStrategyVar(informationSetId, actionId)) / sum);
 					} else {
 						map[informationSetId].put(actionId, 0);
 					}
-				} catch (IloException e) {
+				} catch (LPException e) {
 					e.printStackTrace();
 				}
 			}
@@ -319,31 +232,25 @@ public class StackleBergNaiveSolver<E> extends ZeroSumGameSolver {
 	@Override
 	public void printStrategyVarsAndGameValue() {
 		printGameValue();
-		for (IloNumVar v : strategyVarsBySequenceId) {
+		for (LPVariable v : strategyVarsBySequenceId) {
 			try {
 				if (null != v)
-					System.out.println(v.getName() + ": \t" + cplex.getValue(v));
-			} catch (UnknownObjectException e) {
-				e.printStackTrace();
-			} catch (IloException e) {
+					System.out.println(v.getName() + ": \t" + model.getValue(v));
+			} catch (LPException e) {
 				e.printStackTrace();
 			}
 		}
 	}
 
 	/**
-	 * Prints the value of the game, as computed by CPLEX. If solve() has not been
+	 * Prints the value of the game, as computed by the LP backend. If solve() has not been
 	 * called, an exception will be thrown.
 	 */
 	@Override
 	public void printGameValue() {
-		try {
-			System.out.println("Solve status: " + cplex.getStatus());
-			if (cplex.getStatus() == IloCplex.Status.Optimal) {
-				System.out.println("Objective value: " + this.valueOfGame);
-			}
-		} catch (IloException e) {
-			e.printStackTrace();
+		System.out.println("Solve status: " + model.getStatus());
+		if (model.getStatus() == LPStatus.OPTIMAL) {
+			System.out.println("Objective value: " + this.valueOfGame);
 		}
 
 	}
@@ -355,19 +262,19 @@ public class StackleBergNaiveSolver<E> extends ZeroSumGameSolver {
 	 * @param filename
 	 *            the absolute path to the file being written to
 	 */
-	public void writeStrategyToFile(String filename) throws IloException {
+	public void writeStrategyToFile(String filename) throws LPException {
 		try {
 			FileWriter fw = new FileWriter(filename);
 			fw.write("...............Defender's strategy................\n");
-			for (IloNumVar v : strategyVarsBySequenceId) {
+			for (LPVariable v : strategyVarsBySequenceId) {
 				if (v != null)
-					//cplex.add(v);
+					//model.add(v);
 					//System.out.println(v);
 
-					if (cplex.getValue(v) < 0.00005)
+					if (model.getValue(v) < 0.00005)
 						fw.write(v.getName() + ": \t" + 0.0 + "\n");
 					else
-						fw.write(v.getName() + ": \t" + cplex.getValue(v) + "\n");
+						fw.write(v.getName() + ": \t" + model.getValue(v) + "\n");
 			}		
 			fw.close();
 		} catch (IOException e) {
@@ -376,7 +283,7 @@ public class StackleBergNaiveSolver<E> extends ZeroSumGameSolver {
 	}
 
 	/**
-	 * Writes the current model to a file. CPLEX throws an exception if the model is
+	 * Writes the current model to a file. LPModel throws an exception if the model is
 	 * faulty or the path does not exist.
 	 * 
 	 * @param filename
@@ -384,241 +291,63 @@ public class StackleBergNaiveSolver<E> extends ZeroSumGameSolver {
 	 */
 	public void writeModelToFile(String filename) {
 		try {
-			cplex.exportModel(filename);
-		} catch (IloException e) {
+			model.exportModel(filename);
+		} catch (LPException e) {
 			e.printStackTrace();
 		}
 	}
 
 	/**
-	 * Sets the parameters of CPLEX such that minimal output is produced.
+	 * Sets the optimality tolerance and asks for the barrier method, which only the CPLEX backend uses.
 	 */
-	private void setCplexParameters(double tol) {
-		try {
-			cplex.setParam(IloCplex.IntParam.RootAlg, IloCplex.Algorithm.Barrier);
-			cplex.setParam(IloCplex.DoubleParam.EpOpt, tol);
-			cplex.setParam(IloCplex.DoubleParam.BarEpComp, tol);
-			cplex.setParam(IloCplex.IntParam.BarCrossAlg, -1);
-			// cplex.setParam(IloCplex.IntParam.SimDisplay, 0);
-			// cplex.setParam(IloCplex.IntParam.MIPDisplay, 0);
-			// cplex.setParam(IloCplex.IntParam.MIPInterval, -1);
-			// cplex.setParam(IloCplex.IntParam.TuningDisplay, 0);
-			// cplex.setParam(IloCplex.IntParam.BarDisplay, 0);
-			// cplex.setParam(IloCplex.IntParam.SiftDisplay, 0);
-			// cplex.setParam(IloCplex.IntParam.ConflictDisplay, 0);
-			// cplex.setParam(IloCplex.IntParam.NetDisplay, 0);
-			cplex.setParam(IloCplex.DoubleParam.TiLim, 1e+75);
-		} catch (IloException e) {
-			e.printStackTrace();
-		}
+	private void setModelParameters(double tol) {
+		model.setUseBarrier(true);
+		model.setTolerance(tol);
 	}
 
 	/**
 	 * Builds the LP model based on the game instance.
 	 * 
-	 * @throws IloException
+	 * @throws LPException
 	 */
-	private void setUpModel(double tol) throws IloException {
-		setCplexParameters(tol);
+	private void setUpModel(double tol) throws LPException {
+		setModelParameters(tol);
 
-		objective = cplex.linearNumExpr();
-		natureConstraints = cplex.linearNumExpr();
+		objective = model.linearNumExpr();
 		// The empty sequence is the 0'th sequence for each player
-		numSequencesNature = numSequencesP1 = numSequencesP2 = 1;
-		primalSequenceNames[0] = "root";
-		dualSequenceNames[0] = "root";
-		CreateSequenceFormIds(game.getRoot(), new TIntHashSet(), new TIntHashSet());
-		assert (numSequencesP1 == game.getNumSequencesP1()); // Ensure that our recursive function agrees with the game
-																// reader on how many sequences there are
-		assert (numSequencesP2 == game.getNumSequencesP2());
+		numSequencesP1 = sequenceFormIndex.getNumSequences(1);
+		numSequencesP2 = sequenceFormIndex.getNumSequences(2);
 
 		// create root sequence var
-		IloNumVar rootSequence = cplex.numVar(1, 1, "I_root");
+		LPVariable rootSequence = model.numVar(1, 1, "I_root");
 		strategyVarsBySequenceId[0] = rootSequence;
 
 		System.out.println("************************ Equation no 4  ************************************");
-		CreateSequenceFormVariablesAndConstraints(game.getRoot(),0,0, rootSequence, null, new TIntHashSet(), new TIntHashSet(),
-				1,1);
+		CreateSequenceFormVariablesAndConstraints();
 
 		CreateDualVariablesAndConstraints();
-		// System.out.println(natureConstraints);
-		// cplex.addEq(natureConstraints, rootSequence);
 		SetObjective();
 	}
 
 	/**
-	 * Recursive function that traverses the game tree, assigning Id values,
-	 * starting at 1 due to the empty sequence, to sequences in pre-order. Sequence
-	 * IDs are only assigned if an information set has not previously been visited
+	 * Creates the sequence form variables of the player to solve for, and the constraints that the
+	 * sequences of an information set sum to the parent sequence, from the compiled matrices.
 	 * 
-	 * @param currentNodeId
-	 *            id into the game.nodes array
-	 * @param visitedP1
-	 *            an integer set indicating which information sets have already been
-	 *            visited for Player 1
-	 * @param visitedP2
-	 *            an integer set indicating which information sets have already been
-	 *            visited for Player 2
+	 * @throws LPException
 	 */
-	private void CreateSequenceFormIds(int currentNodeId, TIntSet visitedP1, TIntSet visitedP2) {
-		Node node = game.getNodeById(currentNodeId);
-		if (node.isLeaf())
-			return;
-
-		for (Action action : node.getActions()) {
-			if (node.getPlayer() == 0) {
-				sequenceIdByInformationSetAndActionChance[node.getInformationSet()].put(action.getName(),
-						numSequencesNature++);
-			} else if (node.getPlayer() == 1 && !visitedP1.contains(node.getInformationSet())) {
-				//if(!sequenceIdByInformationSetAndActionP2[node.getInformationSet()].containsKey(action.getName()))
-					sequenceIdByInformationSetAndActionP1[node.getInformationSet()].put(action.getName(), numSequencesP1++);
-				if (playerToSolveFor == 1)
-					primalSequenceNames[numSequencesP1 - 1] = Integer.toString(node.getInformationSet()) + ";"
-							+ action.getName();
-				else
-					dualSequenceNames[numSequencesP1 - 1] = Integer.toString(node.getInformationSet()) + ";"
-							+ action.getName();
-			} else if (node.getPlayer() == 2 && !visitedP2.contains(node.getInformationSet())) {
-				//if(!sequenceIdByInformationSetAndActionP2[node.getInformationSet()].containsKey(action.getName()))
-					sequenceIdByInformationSetAndActionP2[node.getInformationSet()].put(action.getName(), numSequencesP2++);
-				if (playerToSolveFor == 2)
-					primalSequenceNames[numSequencesP2 - 1] = Integer.toString(node.getInformationSet()) + ";"
-							+ action.getName();
-				else
-					dualSequenceNames[numSequencesP2 - 1] = Integer.toString(node.getInformationSet()) + ";"
-							+ action.getName();
-			}
-			CreateSequenceFormIds(action.getChildId(), visitedP1, visitedP2);
-		}
-		if (node.getPlayer() == 1) {
-			visitedP1.add(node.getInformationSet());
-		} else if (node.getPlayer() == 2) {
-			visitedP2.add(node.getInformationSet());
-		}
-	}
-
-	/**
-	 * Creates sequence form variables in pre-order traversal. A constraint is also
-	 * added to ensure that the probability sum over the new sequences sum to the
-	 * value of the last seen sequence on the path to this information set
-	 * 
-	 * @param currentNodeId
-	 * @param parentSequence
-	 *            last seen sequence belonging to the primal player
-	 * @param visited
-	 *            keeps track of which information sets have been visited
-	 * @throws IloException
-	 */
-	private void CreateSequenceFormVariablesAndConstraints(int currentNodeId, int primalSequeceId, int dualSequeceId, IloNumVar parentSequence, String childSequence, TIntSet visited,
-			TIntSet opponentVisited, double natureProbability, int infoset) throws IloException {
-		Node node = game.getNodeById(currentNodeId);
-		if (null == node)
-			return;
-
-		if (node.isLeaf()) { // Objective function
-			double value = playerToSolveFor == player1 ? node.getPlayerOneValue() : node.getPlayerTwoValue();
-			
-			if (modelStrategyVars[dualSequeceId].containsKey(primalSequeceId)) {
-				p1PayoffMatrix[dualSequeceId].put(primalSequeceId, (p1PayoffMatrix[dualSequeceId].get(primalSequeceId)+(value*natureProbability)));
-				//System.out.println("Z:" +z );
-			} else {
-			    p1PayoffMatrix[dualSequeceId].put(primalSequeceId,value*natureProbability);
-			    modelStrategyVars[dualSequeceId].put(primalSequeceId,childSequence);
-			}
-			
-			return;
-		}
-
-		if (node.getPlayer() == playerToSolveFor && !visited.contains(node.getInformationSet())) {
-			visited.add(node.getInformationSet());
-			IloLinearNumExpr sum = cplex.linearNumExpr();
-			for (Action action : node.getActions()) {
-				// real-valued variable in (0,1)
-
-				//IloNumVar v = cplex.numVar(0, 1, IloNumVarType.Int, "I:" + node.getInformationSet() + "  action:" + action.getName());
-				IloNumVar v = cplex.numVar(0, 1, "I:" + node.getInformationSet() + "  action:" + action.getName());
-				strategyVarsByInformationSet[node.getInformationSet()].put(action.getName(), v);
-				int sequenceId = getSequenceIdForPlayerToSolveFor(node.getInformationSet(), action.getName());
-				strategyVarsBySequenceId[sequenceId] = v;
-				p2InformationSetBySequenceId[sequenceId] = node.getInformationSet();
-				// add 1*v to the sum over all the sequences at the information set
-				sum.addTerm(1, v);
-				//natureConstraints.addTerm(1, v);
-				CreateSequenceFormVariablesAndConstraints(action.getChildId(),sequenceId, dualSequeceId, v, childSequence, visited, opponentVisited,
-						natureProbability,node.getInformationSet());
-			}
-
-			
-			primalConstraints.put(node.getInformationSet(),
-					cplex.addEq(sum, parentSequence, "Primal" + node.getInformationSet()));
-			//System.out.println("Sum : " + sum + " = " + 1);
-			
-		} else if (node.getPlayer() == playerNotToSolveFor && !opponentVisited.contains(node.getInformationSet())) {
-			opponentVisited.add(node.getInformationSet());
-			IloLinearNumExpr sum = cplex.linearNumExpr();
-			for (Action action : node.getActions()) {
-				// real-valued variable in (0,1) 
-				String v = "";
-				int sequenceId = getSequenceIdForPlayerNotToSolveFor(node.getInformationSet(), action.getName());
-				//System.out.println( action + " Sequecne id : " + sequenceId);
-
-				if (!opponentStrategyVarsByInformationSet[node.getInformationSet()].containsKey(action.getName())) {
-					v = "I:" + node.getInformationSet() + "  action:" + action.getName();
-					opponentStrategyVarsByInformationSet[node.getInformationSet()].put(action.getName(), v);
-					opponentStrategyVarsBySequenceId[sequenceId] = v;
-					p2InformationSetBySequenceId[sequenceId] = node.getInformationSet();
-					// add 1*v to the sum over all the sequences at the information set
-					
-				} else {
-				    v = opponentStrategyVarsByInformationSet[node.getInformationSet()].get(action.getName());
-				}
-				CreateSequenceFormVariablesAndConstraints(action.getChildId(),primalSequeceId, sequenceId, parentSequence, v, visited,
-						opponentVisited, natureProbability,node.getInformationSet());
-			}
-			
-		} 
-		
-		else {
-			for (Action action : node.getActions()) {
-
-				if (null != action) {
-					int newPrimalSequence = node.getPlayer() == playerToSolveFor
-							? getSequenceIdForPlayerToSolveFor(node.getInformationSet(), action.getName())
-							: primalSequeceId;
-					int newDualSequence = node.getPlayer() == playerNotToSolveFor
-							? getSequenceIdForPlayerNotToSolveFor(node.getInformationSet(), action.getName())
-							: dualSequeceId;
-					double newNatureProbability = node.getPlayer() == 0 ? natureProbability * action.getProbability()
-							: natureProbability;
-					//System.out.println(action + " Prob: " + newNatureProbability);
-					if (node.getPlayer() == playerToSolveFor) {
-						// update parentSequence to be the current sequence
-						IloNumVar v = strategyVarsByInformationSet[node.getInformationSet()].get(action.getName());
-						if (null != action) {
-
-							CreateSequenceFormVariablesAndConstraints(action.getChildId(),newPrimalSequence, newDualSequence,v, childSequence,visited, opponentVisited,
-									newNatureProbability,node.getInformationSet());
-						}
-					} else if (node.getPlayer() == playerNotToSolveFor) {
-						String v = opponentStrategyVarsByInformationSet[node.getInformationSet()].get(action.getName());
-						if (null != action) {
-							CreateSequenceFormVariablesAndConstraints(action.getChildId(), newPrimalSequence,newDualSequence, parentSequence, v,visited, opponentVisited,
-									newNatureProbability,node.getInformationSet());
-						}
-						
-					} else {
-						if (null != action) {
-					
-							CreateSequenceFormVariablesAndConstraints(action.getChildId(),newPrimalSequence,newPrimalSequence, parentSequence, childSequence, visited,
-									opponentVisited, newNatureProbability,node.getInformationSet());
-						}
-					}
-				}
+	private void CreateSequenceFormVariablesAndConstraints() throws LPException {
+		SequenceFormModelLoader.addSequenceVariables(model, game, playerToSolveFor, LPVariableType.CONTINUOUS,
+				strategyVarsBySequenceId);
+		LPConstraint[] constraints = SequenceFormModelLoader.addInformationSetConstraints(model, sequenceFormMatrices,
+				playerToSolveFor, strategyVarsBySequenceId, true, "Primal");
+		for (int informationSetId = 0; informationSetId < constraints.length; informationSetId++) {
+			if (constraints[informationSetId] != null) {
+				primalConstraints.put(informationSetId, constraints[informationSetId]);
 			}
 		}
 	}
 
-	private void CreateDualVariablesAndConstraints() throws IloException {
+	private void CreateDualVariablesAndConstraints() throws LPException {
 		
 		int numVars = 0;
 		int otherPlayerNumVars = 0;
@@ -633,146 +362,52 @@ public class StackleBergNaiveSolver<E> extends ZeroSumGameSolver {
 		for (int i = 0; i < numVars; i++) {
 			names[i] = "Y" + i;
 		}
-		this.dualVars = cplex.numVarArray(numVars, -Double.MAX_VALUE, Utils.PLAYER_ONE_MAX_VAL, names);
+		this.dualVars = model.numVarArray(numVars, -Double.MAX_VALUE, Utils.PLAYER_ONE_MAX_VAL, names);
 
-		InitializeDualSequenceMatrix();
-		InitializeDualPayoffMatrix();
 	    System.out.println("***************************************** Equation No 2 ************************************************");
 		
 	   // System.out.println("numSequencesP2 : " + numSequencesP2);
-	    for (int sequenceId = 1; sequenceId < numSequencesP2; sequenceId += Utils.MAX_NO_ATTACKER_ACTIONS) {
+	    for (int sequenceId = 1; sequenceId < numDualSequences; sequenceId = getEndOfBlock(sequenceId)) {
 
 			CreateDualConstraintForSequence(sequenceId);
 		}
 
 	}
 
-	private void InitializeDualSequenceMatrix() throws IloException {
-		sequenceFormDualMatrix[0].add(0);
-		InitializeDualSequenceMatrixRecursive(game.getRoot(), new TIntHashSet(), 0, 1);
-	}
-
-	private void InitializeDualSequenceMatrixRecursive(int currentNodeId, TIntSet visited, int parentSequenceId,
-			double natureProbability) throws IloException {
-		Node node = this.game.getNodeById(currentNodeId);
-
-		if (null == node || node.isLeaf())
-			return;
-
-		if (playerNotToSolveFor == node.getPlayer() && !visited.contains(node.getInformationSet())) {
-			visited.add(node.getInformationSet());
-			int informationSetMatrixId = node.getInformationSet();// +
-																	// (1-game.getSmallestInformationSetId(playerNotToSolveFor));
-																	// // map information set ID to 1 indexing. Assumes
-																	// that information sets are named by consecutive
-																	// integers
-			sequenceFormDualMatrix[parentSequenceId].add(informationSetMatrixId);
-			// sequenceFormDualProbMatrix[parentSequenceId].put(parentSequenceId,
-			// natureProbability);
-			for (Action action : node.getActions()) {
-				if (null != action) {
-					int newSequenceId = getSequenceIdForPlayerNotToSolveFor(node.getInformationSet(), action.getName());
-					sequenceFormDualMatrix[newSequenceId].add(informationSetMatrixId);
-					InitializeDualSequenceMatrixRecursive(action.getChildId(), visited, newSequenceId,
-							natureProbability);
-				}
-			}
-		} else {
-			for (Action action : node.getActions()) {
-
-				if (null != action) {
-					int newSequenceId = playerNotToSolveFor == node.getPlayer()
-							? getSequenceIdForPlayerNotToSolveFor(node.getInformationSet(), action.getName())
-							: parentSequenceId;
-					double newNatureProbability = node.getPlayer() == 0 ? natureProbability * action.getProbability()
-							: natureProbability;
-					InitializeDualSequenceMatrixRecursive(action.getChildId(), visited, newSequenceId,
-							newNatureProbability);
-				}
+	/**
+	 * Picks the opponent's best response in a block of sequences, the actions of one information set: the sequence
+	 * whose dual payoffs, averaged over the leaves of each primal sequence, have the largest sum.
+	 */
+	private void CreateDualConstraintForSequence(int sequenceId) throws LPException {
+		double expectedValue = - Utils.PLAYER_ONE_MAX_VAL;
+		int bestSequence = -1;
+		int endOfBlock = getEndOfBlock(sequenceId);
+		for (int dualSequenceId = sequenceId; dualSequenceId < endOfBlock; dualSequenceId++) {
+			if (dualPayoffMatrix.getRowStart(dualSequenceId) == dualPayoffMatrix.getRowEnd(dualSequenceId)) {
+				continue;
 			}
-		}
-
-	}
-
-	private void InitializeDualPayoffMatrix() throws IloException {
-
-		InitializeDualPayoffMatrixRecursive(game.getRoot(), 0, 0, 1); // Start with the root sequences
-
-	}
-
-	private void InitializeDualPayoffMatrixRecursive(int currentNodeId, int primalSequence, int dualSequence,
-			double natureProbability) throws IloException {
-		
-		Node node = this.game.getNodeById(currentNodeId);
-		if (null == node)
-			return;
-		if (node.isLeaf()) {
-			double valueMultiplier = playerNotToSolveFor == 1 ? node.getPlayerOneValue() : node.getPlayerTwoValue();
-			double leafValue = (natureProbability*valueMultiplier);
-			if (dualPayoffMatrix[dualSequence].containsKey(primalSequence)) {
-				dualPayoffMatrix[dualSequence].put(primalSequence,
-						(dualPayoffMatrix[dualSequence].get(primalSequence) + leafValue));
-				symmetricActionCntInP2InformationSet[dualSequence].put(primalSequence,
-						(symmetricActionCntInP2InformationSet[dualSequence].get(primalSequence) + 1));
-			} else {
-				dualPayoffMatrix[dualSequence].put(primalSequence, leafValue);
-				symmetricActionCntInP2InformationSet[dualSequence].put(primalSequence, 1);
-				
+			double totalActionPayoff = 0.0;
+			for (int k = dualPayoffMatrix.getRowStart(dualSequenceId); k < dualPayoffMatrix.getRowEnd(dualSequenceId); k++) {
+				totalActionPayoff += dualPayoffMatrix.getValue(k) / leafCounts.getValue(k);
 			}
-			sequenceFormDualProbMatrix[dualSequence].put(primalSequence, natureProbability);
-
-		} else {
-			for (Action action : node.getActions()) {
-				if (action != null) {
-					int newPrimalSequence = node.getPlayer() == playerToSolveFor
-							? getSequenceIdForPlayerToSolveFor(node.getInformationSet(), action.getName())
-							: primalSequence;
-					int newDualSequence = node.getPlayer() == playerNotToSolveFor
-							? getSequenceIdForPlayerNotToSolveFor(node.getInformationSet(), action.getName())
-							: dualSequence;
-					double newNatureProbability = node.getPlayer() == 0 ? natureProbability * action.getProbability()
-							: natureProbability;
-					//System.out.println("Primal Seq " + newDualSequence );
-					InitializeDualPayoffMatrixRecursive(action.getChildId(), newPrimalSequence, newDualSequence,
-							newNatureProbability);
-				}
+			if (totalActionPayoff > expectedValue) {
+				expectedValue = totalActionPayoff;
+				bestSequence = dualSequenceId;
 			}
 		}
+		if (bestSequence >= 0) {
+			opponentBrStrategy[bestSequence] = true;
+			System.out.println("St solver : " + opponentStrategyVarsBySequenceId[bestSequence] + " = 1");
+		}
 	}
 
-	private void CreateDualConstraintForSequence(int sequenceId) throws IloException {
-		
-
-		double expectedValue = - Utils.PLAYER_ONE_MAX_VAL;
-		String actionKey = "";
-		for (int actionNo = 0; actionNo < Utils.MAX_NO_ATTACKER_ACTIONS; actionNo++) {
-			int tmpIndex = sequenceId + actionNo;
-			double totalActionPayoff = 0.0;
-			if (dualPayoffMatrix[tmpIndex].size() > 0) {
-				TIntDoubleIterator it = dualPayoffMatrix[tmpIndex].iterator();
-				TIntObjectIterator<String> itt1 = modelStrategyVars[tmpIndex].iterator();
-				TIntDoubleIterator itt2 = symmetricActionCntInP2InformationSet[tmpIndex].iterator();
-				for (int i = dualPayoffMatrix[tmpIndex].size(); i-- > 0;) {
-					it.advance();
-					itt1.advance();
-					itt2.advance();
-					double  totValue = it.value()/itt2.value();
-					totalActionPayoff += totValue;
-				
-
-				}
-				//System.out.println(opponentStrategyVarsBySequenceId[tmpIndex] + " : " + totalActionPayoff);
-				if(totalActionPayoff > expectedValue) {
-					expectedValue = totalActionPayoff;
-					actionKey = opponentStrategyVarsBySequenceId[tmpIndex];
-					}
-			}
-			
-		}
-		opponentBrStrategy.put(actionKey, true);
-		System.out.println("St solver : " + actionKey + " = 1");
-		
-	
+	/**
+	 * Returns the end of the block of dual sequences that starts at firstSequenceOfBlock: the sequences of
+	 * the actions of one information set, which have consecutive ids when the actions lead to leaves
+	 */
+	private int getEndOfBlock(int firstSequenceOfBlock) {
+		int informationSetId = sequenceFormIndex.getInformationSet(playerNotToSolveFor, firstSequenceOfBlock);
+		return Math.min(firstSequenceOfBlock + sequenceFormIndex.getNumActions(playerNotToSolveFor, informationSetId), numDualSequences);
 	}
 
 	/**
@@ -785,69 +420,63 @@ public class StackleBergNaiveSolver<E> extends ZeroSumGameSolver {
 
 	private void computeAuxiliaryInformationForNodesRecursive(int currentNodeId, int sequenceIdP1, int sequenceIdP2,
 			double natureProbability) {
-		Node node = this.game.getNodeById(currentNodeId);
-
-		nodeNatureProbabilities[node.getNodeId()] = natureProbability;
+		nodeNatureProbabilities[currentNodeId] = natureProbability;
 		sequenceIdForNodeP1[currentNodeId] = sequenceIdP1;
 		sequenceIdForNodeP2[currentNodeId] = sequenceIdP2;
-		if (node.isLeaf())
+		if (game.isLeafNode(currentNodeId))
 			return;
 
-		for (Action action : node.getActions()) {
-			int newSequenceIdP1 = node.getPlayer() == 1
-					? sequenceIdByInformationSetAndActionP1[node.getInformationSet()].get(action.getName())
+		int player = game.getNodePlayer(currentNodeId);
+		int informationSet = game.getNodeInformationSet(currentNodeId);
+		for (int actionId = 0; actionId < game.getNumActionsAtNode(currentNodeId); actionId++) {
+			int newSequenceIdP1 = player == 1
+					? sequenceFormIndex.getSequenceId(1, informationSet, actionId)
 					: sequenceIdP1;
-			int newSequenceIdP2 = node.getPlayer() == 2
-					? sequenceIdByInformationSetAndActionP2[node.getInformationSet()].get(action.getName())
+			int newSequenceIdP2 = player == 2
+					? sequenceFormIndex.getSequenceId(2, informationSet, actionId)
 					: sequenceIdP2;
-			double newNatureProbability = node.getPlayer() == 0 ? natureProbability * action.getProbability()
+			double newNatureProbability = player == 0 ? natureProbability * game.getActionProbability(currentNodeId, actionId)
 					: natureProbability;
-			computeAuxiliaryInformationForNodesRecursive(action.getChildId(), newSequenceIdP1, newSequenceIdP2,
-					newNatureProbability);
+			computeAuxiliaryInformationForNodesRecursive(game.getChildId(currentNodeId, actionId), newSequenceIdP1,
+					newSequenceIdP2, newNatureProbability);
 		}
 	}
 
-	int getSequenceIdForPlayerNature(int informationSet, String actionName) {
-		return sequenceIdByInformationSetAndActionChance[informationSet].get(actionName);
+	int getSequenceIdForPlayerToSolveFor(int informationSet, int actionId) {
+		return sequenceFormIndex.getSequenceId(playerToSolveFor, informationSet, actionId);
+	}
 
+	int getSequenceIdForPlayerNotToSolveFor(int informationSet, int actionId) {
+		return sequenceFormIndex.getSequenceId(playerNotToSolveFor, informationSet, actionId);
 	}
 
-	int getSequenceIdForPlayerToSolveFor(int informationSet, String actionName) {
-		if (playerToSolveFor == 1) {
-			return sequenceIdByInformationSetAndActionP1[informationSet].get(actionName);
-		} else {
-			return sequenceIdByInformationSetAndActionP2[informationSet].get(actionName);
-		}
+	LPVariable getStrategyVar(int informationSet, int actionId) {
+		return strategyVarsBySequenceId[getSequenceIdForPlayerToSolveFor(informationSet, actionId)];
 	}
 
-	int getSequenceIdForPlayerNotToSolveFor(int informationSet, String actionName) {
-		if (playerNotToSolveFor == 1) {
-			return sequenceIdByInformationSetAndActionP1[informationSet].get(actionName);
-		} else {
-			return sequenceIdByInformationSetAndActionP2[informationSet].get(actionName);
+	/**
+	 * Returns the sum of the values of the sequences at the information set in the solution
+	 */
+	private double getSumOfStrategyValues(int informationSet) {
+		double sum = 0;
+		for (int actionId = 0; actionId < game.getNumActionsAtInformationSet(playerToSolveFor, informationSet); actionId++) {
+			try {
+				sum += model.getValue(getStrategyVar(informationSet, actionId));
+			} catch (LPException e) {
+				e.printStackTrace();
+			}
 		}
+		return sum;
 	}
 
-	private void SetObjective() throws IloException {
-	for (int sequenceId = 1; sequenceId < numSequencesP2; sequenceId++) {
-
-			TIntDoubleIterator it = p1PayoffMatrix[sequenceId].iterator();
-			TIntObjectIterator<String> itt1 = modelStrategyVars[sequenceId].iterator();
-			TIntDoubleIterator itt2 = symmetricActionCntInP2InformationSet[sequenceId].iterator();
-
-			for (int i = p1PayoffMatrix[sequenceId].size(); i-- > 0;) {
-				it.advance();
-				itt1.advance();
-				itt2.advance();
-				double totValue =0.0;
-				if(opponentBrStrategy.containsKey(itt1.value()))
-					totValue = it.value() / itt2.value();
-				objective.addTerm(totValue, strategyVarsBySequenceId[it.key()]);
+	private void SetObjective() throws LPException {
+		for (int dualSequenceId = 1; dualSequenceId < numDualSequences; dualSequenceId++) {
+			for (int k = payoffMatrix.getRowStart(dualSequenceId); k < payoffMatrix.getRowEnd(dualSequenceId); k++) {
+				double totValue = opponentBrStrategy[dualSequenceId] ? payoffMatrix.getValue(k) / leafCounts.getValue(k) : 0.0;
+				objective.addTerm(totValue, strategyVarsBySequenceId[payoffMatrix.getColumn(k)]);
 			}
-
-			
 		}
-		cplex.addMaximize(objective);
+		model.addMaximize(objective);
 		System.out.println("************************************************ Equation no 1 ***************************");
 		System.out.println("Objective Function  StackelBerg: " + objective);
 	}
@@ -860,35 +489,27 @@ public class StackleBergNaiveSolver<E> extends ZeroSumGameSolver {
 		return playerNotToSolveFor;
 	} 
 
-	public IloCplex getCplex() {
-		return cplex;
+	public LPModel getModel() {
+		return model;
 	}
 
-	public IloNumVar[] getDualVars() {
+	public LPVariable[] getDualVars() {
 		return dualVars;
 	}
 
-	public HashMap<String, IloNumVar>[] getStrategyVarsByInformationSet() {
-		return strategyVarsByInformationSet;
+	public SequenceFormMatrices getSequenceFormMatrices() {
+		return sequenceFormMatrices;
 	}
 
-	public TIntList[] getSequenceFormDualMatrix() {
-		return sequenceFormDualMatrix;
-	}
-
-	public TIntDoubleMap[] getDualPayoffMatrix() {
+	public SparseMatrix getDualPayoffMatrix() {
 		return dualPayoffMatrix;
 	}
 
-	public TObjectIntMap<String>[] getSequenceIdByInformationSetAndActionP1() {
-		return sequenceIdByInformationSetAndActionP1;
-	}
-
-	public TObjectIntMap<String>[] getSequenceIdByInformationSetAndActionP2() {
-		return sequenceIdByInformationSetAndActionP2;
+	public SequenceFormIndex getSequenceFormIndex() {
+		return sequenceFormIndex;
 	}
 
-	public IloNumVar[] getStrategyVarsBySequenceId() {
+	public LPVariable[] getStrategyVarsBySequenceId() {
 		return strategyVarsBySequenceId;
 	}
 
@@ -908,11 +529,11 @@ public class StackleBergNaiveSolver<E> extends ZeroSumGameSolver {
 		return numDualSequences;
 	}
 
-	public TIntObjectMap<IloConstraint> getPrimalConstraints() {
+	public TIntObjectMap<LPConstraint> getPrimalConstraints() {
 		return primalConstraints;
 	}
 
-	public TIntObjectMap<IloRange> getDualConstraints() {
+	public TIntObjectMap<LPConstraint> getDualConstraints() {
 		return dualConstraints;
 	}
 
@@ -920,29 +541,19 @@ public class StackleBergNaiveSolver<E> extends ZeroSumGameSolver {
 	public double[][][] getStrategyProfile() {
 		double[][][] profile = new double[3][][];
 		System.out.println("Number of sequece " + numSequencesP1);
-		profile[playerToSolveFor] = new double[numSequencesP1+1][];
-		for (int informationSetId = 0; informationSetId < numSequencesP1; informationSetId++) {
+		profile[playerToSolveFor] = new double[numPrimalInformationSets+1][];
+		for (int informationSetId = 0; informationSetId < numPrimalInformationSets; informationSetId++) {
 			
 			profile[playerToSolveFor][informationSetId] = new double[game
 					.getNumActionsAtInformationSet(playerToSolveFor, informationSetId)];
-			double sum = 0;
-			for (String actionName : strategyVarsByInformationSet[informationSetId].keySet()) {
-				try {
-					sum += cplex.getValue(strategyVarsByInformationSet[informationSetId].get(actionName));
-
-				} catch (IloException e) {
-					e.printStackTrace();
-				}
-			}
+			double sum = getSumOfStrategyValues(informationSetId);
 
 			for (int actionId = 0; actionId < game.getNumActionsAtInformationSet(playerToSolveFor,
 					informationSetId); actionId++) {
-				String actionName = game.getActionsAtInformationSet(playerToSolveFor, informationSetId)[actionId]
-						.getName();
 				try {
 					if (sum > 0) {
-						profile[playerToSolveFor][informationSetId][actionId] = cplex
-								.getValue(strategyVarsByInformationSet[informationSetId].get(actionName));
+						profile[playerToSolveFor][informationSetId][actionId] = model
+								.getValue(getStrategyVar(informationSetId, actionId));
 					} else {
 						profile[playerToSolveFor][informationSetId][actionId] = 1.0
 								/ game.getNumActionsAtInformationSet(playerToSolveFor, informationSetId);
@@ -953,10 +564,10 @@ public class StackleBergNaiveSolver<E> extends ZeroSumGameSolver {
 					 * profile[playerToSolveFor][informationSetId][actionId]); prob +=
 					 * profile[playerToSolveFor][informationSetId][actionId]; }
 					 */
-					 System.out.println(strategyVarsByInformationSet[informationSetId].get(
-					 actionName) + " : " + profile[playerToSolveFor][informationSetId][actionId]);
+					 System.out.println(getStrategyVar(informationSetId, actionId) + " : "
+					 + profile[playerToSolveFor][informationSetId][actionId]);
 					 
-				} catch (IloException e) {
+				} catch (LPException e) {
 					e.printStackTrace();
 				}
 			}
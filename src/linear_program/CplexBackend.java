@@ -0,0 +1,165 @@
+package linear_program;
+
+import ilog.concert.IloException;
+import ilog.concert.IloLinearNumExpr;
+import ilog.concert.IloNumVar;
+import ilog.concert.IloNumVarType;
+import ilog.concert.IloObjective;
+import ilog.concert.IloRange;
+import ilog.cplex.IloCplex;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Backend that solves the model with CPLEX. Only compiled with the cplex Maven profile, LPModel loads it
+ * by reflection when CPLEX is requested or available.
+ *
+ * Variables, rows and coefficient changes made to the model since the last solve are applied to the
+ * IloCplex instance, so CPLEX can start from its last basis, and the objective is replaced on every solve.
+ */
+public class CplexBackend implements LPBackend {
+	private final IloCplex cplex;
+	private final List<IloNumVar> variables = new ArrayList<IloNumVar>();
+	private final List<IloRange> rows = new ArrayList<IloRange>();
+	private IloObjective objective;
+	private int numCoefficientChanges;
+
+	public CplexBackend() throws IloException {
+		cplex = new IloCplex();
+	}
+
+	@Override
+	public String getName() {
+		return LPModel.CPLEX_BACKEND;
+	}
+
+	public IloCplex getCplex() {
+		return cplex;
+	}
+
+	@Override
+	public void solve(LPModel model) throws LPException {
+		try {
+			setParameters(model);
+			addNewVariables(model);
+			addNewRows(model);
+			applyCoefficientChanges(model);
+			setObjective(model);
+
+			double[] values = null;
+			double objectiveValue = 0;
+			if (cplex.solve()) {
+				values = cplex.getValues(variables.toArray(new IloNumVar[variables.size()]));
+				objectiveValue = cplex.getObjValue();
+			}
+			model.setSolution(toStatus(cplex.getStatus()), values, objectiveValue);
+		} catch (IloException e) {
+			throw new LPException("CplexBackend::solve: " + e.getMessage(), e);
+		}
+	}
+
+	private void setParameters(LPModel model) throws IloException {
+		cplex.setParam(IloCplex.DoubleParam.EpOpt, model.tolerance);
+		cplex.setParam(IloCplex.DoubleParam.BarEpComp, model.tolerance);
+		cplex.setParam(IloCplex.DoubleParam.TiLim, model.timeLimit);
+		if (model.threads > 0) {
+			cplex.setParam(IloCplex.IntParam.Threads, model.threads);
+		}
+		if (model.useBarrier) {
+			cplex.setParam(IloCplex.IntParam.RootAlg, IloCplex.Algorithm.Barrier);
+			cplex.setParam(IloCplex.IntParam.BarCrossAlg, -1);
+		}
+		if (model.quiet) {
+			cplex.setParam(IloCplex.IntParam.SimDisplay, 0);
+			cplex.setParam(IloCplex.IntParam.MIPDisplay, 0);
+			cplex.setParam(IloCplex.IntParam.MIPInterval, 0);
+			cplex.setParam(IloCplex.IntParam.TuningDisplay, 0);
+			cplex.setParam(IloCplex.IntParam.BarDisplay, 0);
+			cplex.setParam(IloCplex.IntParam.SiftDisplay, 0);
+			cplex.setParam(IloCplex.IntParam.ConflictDisplay, 0);
+			cplex.setParam(IloCplex.IntParam.NetDisplay, 0);
+			cplex.setOut(null);
+		}
+	}
+
+	private void addNewVariables(LPModel model) throws IloException {
+		for (int column = variables.size(); column < model.getNumVariables(); column++) {
+			String name = model.variables.get(column).getName();
+			double lowerBound = cplexBound(model.lowerBounds.get(column));
+			double upperBound = cplexBound(model.upperBounds.get(column));
+			switch (model.types.get(column)) {
+			case BOOLEAN:
+				variables.add(cplex.numVar(lowerBound, upperBound, IloNumVarType.Bool, name));
+				break;
+			case INTEGER:
+				variables.add(cplex.numVar(lowerBound, upperBound, IloNumVarType.Int, name));
+				break;
+			default:
+				variables.add(cplex.numVar(lowerBound, upperBound, name));
+			}
+		}
+	}
+
+	private void addNewRows(LPModel model) throws IloException {
+		for (int row = rows.size(); row < model.getNumConstraints(); row++) {
+			IloLinearNumExpr expression = cplex.linearNumExpr();
+			for (int k = model.rowStarts.get(row); k < model.rowStarts.get(row + 1); k++) {
+				expression.addTerm(model.rowCoefficients.get(k), variables.get(model.rowColumns.get(k)));
+			}
+			rows.add(cplex.addRange(cplexBound(model.rowLowerBounds.get(row)), expression, cplexBound(model.rowUpperBounds.get(row)),
+					model.constraints.get(row).getName()));
+		}
+	}
+
+	/**
+	 * Replays the setLinearCoef calls since the last solve. Rows added in this solve were built from the
+	 * CSR entries only, replaying sets their later entries as well.
+	 */
+	private void applyCoefficientChanges(LPModel model) throws IloException {
+		for (int k = numCoefficientChanges; k < model.coefficientChangeRows.size(); k++) {
+			cplex.setLinearCoef(rows.get(model.coefficientChangeRows.get(k)), model.coefficientChangeValues.get(k),
+					variables.get(model.coefficientChangeColumns.get(k)));
+		}
+		numCoefficientChanges = model.coefficientChangeRows.size();
+	}
+
+	private void setObjective(LPModel model) throws IloException {
+		IloLinearNumExpr expression = cplex.linearNumExpr(model.objectiveConstant);
+		for (int column = 0; column < model.getNumVariables(); column++) {
+			if (model.objective.get(column) != 0) {
+				expression.addTerm(model.objective.get(column), variables.get(column));
+			}
+		}
+		if (objective != null) {
+			cplex.remove(objective);
+		}
+		objective = model.maximize ? cplex.addMaximize(expression) : cplex.addMinimize(expression);
+	}
+
+	private static double cplexBound(double bound) {
+		if (bound <= -LPModel.INFINITY) {
+			return -Double.MAX_VALUE;
+		}
+		if (bound >= LPModel.INFINITY) {
+			return Double.MAX_VALUE;
+		}
+		return bound;
+	}
+
+	private static LPStatus toStatus(IloCplex.Status status) {
+		if (status == IloCplex.Status.Optimal) {
+			return LPStatus.OPTIMAL;
+		}
+		if (status == IloCplex.Status.Feasible) {
+			return LPStatus.FEASIBLE;
+		}
+		if (status == IloCplex.Status.Infeasible) {
+			return LPStatus.INFEASIBLE;
+		}
+		if (status == IloCplex.Status.Unbounded) {
+			return LPStatus.UNBOUNDED;
+		}
+		return LPStatus.UNKNOWN;
+	}
+}
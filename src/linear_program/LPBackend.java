@@ -0,0 +1,15 @@
+package linear_program;
+
+/**
+ * Solves the model held by an LPModel. A backend is created for one model and may keep state between
+ * solves, e.g. the last basis or the model already transferred to an external solver, since the
+ * solvers only ever add variables and constraints to a model.
+ */
+public interface LPBackend {
+	public String getName();
+
+	/**
+	 * Solves the model and stores the result with LPModel.setSolution
+	 */
+	public void solve(LPModel model) throws LPException;
+}
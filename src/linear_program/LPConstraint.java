@@ -0,0 +1,27 @@
+package linear_program;
+
+/**
+ * A row of an LPModel, lowerBound <= expression <= upperBound. Equality rows have equal bounds.
+ */
+public class LPConstraint {
+	final int index;
+	private final String name;
+
+	LPConstraint(int index, String name) {
+		this.index = index;
+		this.name = name;
+	}
+
+	public int getIndex() {
+		return index;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+}
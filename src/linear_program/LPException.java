@@ -0,0 +1,17 @@
+package linear_program;
+
+/**
+ * Thrown by LPModel and the backends for modeling errors, for queries of a model that has no solution
+ * and for failures of the backend.
+ */
+public class LPException extends Exception {
+	private static final long serialVersionUID = 1L;
+
+	public LPException(String message) {
+		super(message);
+	}
+
+	public LPException(String message, Throwable cause) {
+		super(message, cause);
+	}
+}
@@ -0,0 +1,63 @@
+package linear_program;
+
+import gnu.trove.list.array.TDoubleArrayList;
+import gnu.trove.list.array.TIntArrayList;
+
+/**
+ * A sum of terms coefficient * variable plus a constant. The same variable may be added several times,
+ * the coefficients are summed when the expression is added to a model.
+ */
+public class LPLinearExpression {
+	final TIntArrayList variables = new TIntArrayList();
+	final TDoubleArrayList coefficients = new TDoubleArrayList();
+	double constant;
+
+	LPLinearExpression(double constant) {
+		this.constant = constant;
+	}
+
+	public void addTerm(double coefficient, LPVariable variable) {
+		variables.add(variable.index);
+		coefficients.add(coefficient);
+	}
+
+	public void addTerm(LPVariable variable, double coefficient) {
+		addTerm(coefficient, variable);
+	}
+
+	public void addTerms(double[] coefficients, LPVariable[] variables) {
+		for (int i = 0; i < variables.length; i++) {
+			addTerm(coefficients[i], variables[i]);
+		}
+	}
+
+	public void add(LPLinearExpression expression) {
+		variables.addAll(expression.variables);
+		coefficients.addAll(expression.coefficients);
+		constant += expression.constant;
+	}
+
+	public double getConstant() {
+		return constant;
+	}
+
+	public void setConstant(double constant) {
+		this.constant = constant;
+	}
+
+	public int getNumTerms() {
+		return variables.size();
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < variables.size(); i++) {
+			builder.append(i == 0 ? "" : " + ").append(coefficients.get(i)).append("*x").append(variables.get(i));
+		}
+		if (constant != 0 || variables.isEmpty()) {
+			builder.append(variables.isEmpty() ? "" : " + ").append(constant);
+		}
+		return builder.toString();
+	}
+}
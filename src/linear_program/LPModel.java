@@ -0,0 +1,633 @@
+package linear_program;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import gnu.trove.list.array.TDoubleArrayList;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.hash.TIntDoubleHashMap;
+import gnu.trove.iterator.TIntDoubleIterator;
+
+/**
+ * A linear or mixed integer program built with the same calls as the CPLEX Concert API (numVar,
+ * linearNumExpr, addEq/addLe/addGe, addMaximize, solve, getValue), solved by a pluggable LPBackend.
+ *
+ * The constraint matrix is stored row by row in compressed sparse row (CSR) arrays as constraints are
+ * added. Bounds whose absolute value is at least INFINITY, such as -Double.MAX_VALUE, are infinite.
+ * setLinearCoef adds a variable to a row that already exists, e.g. a column generated after the row,
+ * without moving the CSR arrays: such entries are kept in a separate list that is chained per row, and
+ * every coefficient change is logged so backends that keep their own copy of the model can replay it.
+ *
+ * The backend is chosen by the system property lp.backend: "simplex" is the pure Java SimplexBackend,
+ * "cplex" is CplexBackend, which is only compiled with the cplex Maven profile. Without the property
+ * CPLEX is used when it is available and the simplex backend otherwise.
+ */
+public class LPModel {
+	public static final double INFINITY = 1e20;
+	public static final String BACKEND_PROPERTY = "lp.backend";
+	public static final String SIMPLEX_BACKEND = "simplex";
+	public static final String CPLEX_BACKEND = "cplex";
+	private static final String CPLEX_BACKEND_CLASS = "linear_program.CplexBackend";
+
+	// Variables
+	final List<LPVariable> variables = new ArrayList<LPVariable>();
+	final TDoubleArrayList lowerBounds = new TDoubleArrayList();
+	final TDoubleArrayList upperBounds = new TDoubleArrayList();
+	final List<LPVariableType> types = new ArrayList<LPVariableType>();
+	int numIntegerVariables;
+
+	// Constraints, row i has the entries rowStarts[i] until rowStarts[i + 1] of rowColumns and rowCoefficients
+	final List<LPConstraint> constraints = new ArrayList<LPConstraint>();
+	final TIntArrayList rowStarts = new TIntArrayList();
+	final TIntArrayList rowColumns = new TIntArrayList();
+	final TDoubleArrayList rowCoefficients = new TDoubleArrayList();
+	final TDoubleArrayList rowLowerBounds = new TDoubleArrayList();
+	final TDoubleArrayList rowUpperBounds = new TDoubleArrayList();
+	// Entries added to existing rows by setLinearCoef. The entries of row i start at rowFirstAddedEntry[i]
+	// and are chained by addedEntryNext, -1 ends a chain
+	final TIntArrayList rowFirstAddedEntry = new TIntArrayList();
+	final TIntArrayList addedEntryNext = new TIntArrayList();
+	final TIntArrayList addedEntryColumns = new TIntArrayList();
+	final TDoubleArrayList addedEntryCoefficients = new TDoubleArrayList();
+	// Every setLinearCoef call in order, as row, column and new coefficient
+	final TIntArrayList coefficientChangeRows = new TIntArrayList();
+	final TIntArrayList coefficientChangeColumns = new TIntArrayList();
+	final TDoubleArrayList coefficientChangeValues = new TDoubleArrayList();
+
+	// Objective, dense over the variables
+	final TDoubleArrayList objective = new TDoubleArrayList();
+	double objectiveConstant;
+	boolean maximize;
+
+	// Parameters
+	double tolerance = 1e-9;
+	double timeLimit = Double.MAX_VALUE;
+	boolean useBarrier;
+	boolean quiet;
+	int threads; // 0 lets the backend decide
+
+	// Solution
+	private LPStatus status = LPStatus.UNKNOWN;
+	private double[] values;
+	private double objectiveValue;
+	private double solveSeconds;
+
+	private final LPBackend backend;
+	// Used to merge repeated variables when an expression is added as a row
+	private final TIntDoubleHashMap rowScratch = new TIntDoubleHashMap();
+
+	public LPModel() throws LPException {
+		this(System.getProperty(BACKEND_PROPERTY));
+	}
+
+	/**
+	 * @param backendName SIMPLEX_BACKEND, CPLEX_BACKEND or null to use CPLEX when it is available
+	 */
+	public LPModel(String backendName) throws LPException {
+		rowStarts.add(0);
+		backend = createBackend(backendName);
+	}
+
+	public LPModel(LPBackend backend) {
+		rowStarts.add(0);
+		this.backend = backend;
+	}
+
+	private static LPBackend createBackend(String backendName) throws LPException {
+		if (SIMPLEX_BACKEND.equals(backendName)) {
+			return new SimplexBackend();
+		}
+		try {
+			return (LPBackend) Class.forName(CPLEX_BACKEND_CLASS).newInstance();
+		} catch (Throwable e) {
+			// the adapter is not compiled in, or the CPLEX library or licence is missing
+			if (CPLEX_BACKEND.equals(backendName)) {
+				throw new LPException("LPModel: CPLEX backend requested but not available", e);
+			}
+			if (backendName == null) {
+				System.out.println("LPModel: CPLEX not available, using the simplex backend");
+			}
+			return new SimplexBackend();
+		}
+	}
+
+	public LPBackend getBackend() {
+		return backend;
+	}
+
+	public LPVariable numVar(double lowerBound, double upperBound) throws LPException {
+		return numVar(lowerBound, upperBound, LPVariableType.CONTINUOUS, null);
+	}
+
+	public LPVariable numVar(double lowerBound, double upperBound, String name) throws LPException {
+		return numVar(lowerBound, upperBound, LPVariableType.CONTINUOUS, name);
+	}
+
+	public LPVariable numVar(double lowerBound, double upperBound, LPVariableType type, String name) throws LPException {
+		if (lowerBound > upperBound) {
+			throw new LPException("LPModel::numVar: lower bound " + lowerBound + " above upper bound " + upperBound + " for " + name);
+		}
+		int index = variables.size();
+		LPVariable variable = new LPVariable(index, name != null ? name : "x" + index);
+		variables.add(variable);
+		if (type == LPVariableType.BOOLEAN) {
+			lowerBound = Math.max(lowerBound, 0);
+			upperBound = Math.min(upperBound, 1);
+		}
+		lowerBounds.add(lowerBound);
+		upperBounds.add(upperBound);
+		types.add(type);
+		objective.add(0);
+		if (type != LPVariableType.CONTINUOUS) {
+			numIntegerVariables++;
+		}
+		return variable;
+	}
+
+	public LPVariable[] numVarArray(int size, double lowerBound, double upperBound) throws LPException {
+		return numVarArray(size, lowerBound, upperBound, null);
+	}
+
+	public LPVariable[] numVarArray(int size, double lowerBound, double upperBound, String[] names) throws LPException {
+		return numVarArray(size, lowerBound, upperBound, LPVariableType.CONTINUOUS, names);
+	}
+
+	public LPVariable[] numVarArray(int size, double lowerBound, double upperBound, LPVariableType type, String[] names)
+			throws LPException {
+		LPVariable[] array = new LPVariable[size];
+		for (int i = 0; i < size; i++) {
+			array[i] = numVar(lowerBound, upperBound, type, names != null ? names[i] : null);
+		}
+		return array;
+	}
+
+	public LPLinearExpression linearNumExpr() {
+		return new LPLinearExpression(0);
+	}
+
+	public LPLinearExpression linearNumExpr(double constant) {
+		return new LPLinearExpression(constant);
+	}
+
+	public LPConstraint addEq(LPLinearExpression expression, double value) throws LPException {
+		return addEq(expression, value, null);
+	}
+
+	public LPConstraint addEq(LPLinearExpression expression, double value, String name) throws LPException {
+		return addRow(expression, null, null, value, value, name);
+	}
+
+	public LPConstraint addEq(LPLinearExpression left, LPLinearExpression right, String name) throws LPException {
+		return addRow(left, right, null, 0, 0, name);
+	}
+
+	public LPConstraint addEq(LPLinearExpression left, LPVariable right, String name) throws LPException {
+		return addRow(left, null, right, 0, 0, name);
+	}
+
+	public LPConstraint addLe(LPLinearExpression expression, double value) throws LPException {
+		return addLe(expression, value, null);
+	}
+
+	public LPConstraint addLe(LPLinearExpression expression, double value, String name) throws LPException {
+		return addRow(expression, null, null, Double.NEGATIVE_INFINITY, value, name);
+	}
+
+	public LPConstraint addLe(LPLinearExpression left, LPLinearExpression right, String name) throws LPException {
+		return addRow(left, right, null, Double.NEGATIVE_INFINITY, 0, name);
+	}
+
+	public LPConstraint addLe(LPLinearExpression left, LPVariable right, String name) throws LPException {
+		return addRow(left, null, right, Double.NEGATIVE_INFINITY, 0, name);
+	}
+
+	public LPConstraint addGe(LPLinearExpression expression, double value) throws LPException {
+		return addGe(expression, value, null);
+	}
+
+	public LPConstraint addGe(LPLinearExpression expression, double value, String name) throws LPException {
+		return addRow(expression, null, null, value, Double.POSITIVE_INFINITY, name);
+	}
+
+	public LPConstraint addGe(LPLinearExpression left, LPLinearExpression right, String name) throws LPException {
+		return addRow(left, right, null, 0, Double.POSITIVE_INFINITY, name);
+	}
+
+	public LPConstraint addGe(LPLinearExpression left, LPVariable right, String name) throws LPException {
+		return addRow(left, null, right, 0, Double.POSITIVE_INFINITY, name);
+	}
+
+	public LPConstraint addRange(double lowerBound, LPLinearExpression expression, double upperBound, String name) throws LPException {
+		return addRow(expression, null, null, lowerBound, upperBound, name);
+	}
+
+	/**
+	 * Adds the row lowerBound <= left - right - rightVariable <= upperBound, where right and rightVariable may be null
+	 */
+	private LPConstraint addRow(LPLinearExpression left, LPLinearExpression right, LPVariable rightVariable,
+			double lowerBound, double upperBound, String name) throws LPException {
+		rowScratch.clear();
+		double constant = left.constant;
+		addToScratch(left, 1);
+		if (right != null) {
+			addToScratch(right, -1);
+			constant -= right.constant;
+		}
+		if (rightVariable != null) {
+			rowScratch.adjustOrPutValue(rightVariable.index, -1, -1);
+		}
+		int[] columns = rowScratch.keys();
+		Arrays.sort(columns);
+		for (int column : columns) {
+			double coefficient = rowScratch.get(column);
+			if (coefficient != 0) {
+				rowColumns.add(column);
+				rowCoefficients.add(coefficient);
+			}
+		}
+		rowStarts.add(rowColumns.size());
+		rowFirstAddedEntry.add(-1);
+		rowLowerBounds.add(lowerBound - constant);
+		rowUpperBounds.add(upperBound - constant);
+		LPConstraint constraint = new LPConstraint(constraints.size(), name != null ? name : "c" + constraints.size());
+		constraints.add(constraint);
+		return constraint;
+	}
+
+	/**
+	 * Adds a block of rows given in CSR form: row i is
+	 *   lowerBounds[i] <= sum over k from rowStarts[i] until rowStarts[i + 1] of coefficients[k] * x[columns[k]] <= upperBounds[i],
+	 * where columns holds variable indices, see LPVariable.getIndex(). The entries are copied straight into
+	 * the rows of the model; only a row whose columns are not increasing is sorted, and then a repeated
+	 * column has its coefficients summed. Names may be null.
+	 */
+	public LPConstraint[] addRows(int[] rowStarts, int[] columns, double[] coefficients, double[] lowerBounds,
+			double[] upperBounds, String[] names) throws LPException {
+		int numRows = lowerBounds.length;
+		LPConstraint[] rows = new LPConstraint[numRows];
+		for (int i = 0; i < numRows; i++) {
+			boolean increasing = true;
+			for (int k = rowStarts[i]; k < rowStarts[i + 1]; k++) {
+				if (columns[k] < 0 || columns[k] >= variables.size()) {
+					throw new LPException("LPModel::addRows: variable x" + columns[k] + " does not belong to this model");
+				}
+				increasing &= k == rowStarts[i] || columns[k] > columns[k - 1];
+			}
+			if (increasing) {
+				for (int k = rowStarts[i]; k < rowStarts[i + 1]; k++) {
+					if (coefficients[k] != 0) {
+						rowColumns.add(columns[k]);
+						rowCoefficients.add(coefficients[k]);
+					}
+				}
+			} else {
+				rowScratch.clear();
+				for (int k = rowStarts[i]; k < rowStarts[i + 1]; k++) {
+					rowScratch.adjustOrPutValue(columns[k], coefficients[k], coefficients[k]);
+				}
+				int[] rowColumnsSorted = rowScratch.keys();
+				Arrays.sort(rowColumnsSorted);
+				for (int column : rowColumnsSorted) {
+					double coefficient = rowScratch.get(column);
+					if (coefficient != 0) {
+						rowColumns.add(column);
+						rowCoefficients.add(coefficient);
+					}
+				}
+			}
+			this.rowStarts.add(rowColumns.size());
+			rowFirstAddedEntry.add(-1);
+			rowLowerBounds.add(lowerBounds[i]);
+			rowUpperBounds.add(upperBounds[i]);
+			String name = names != null && names[i] != null ? names[i] : "c" + constraints.size();
+			rows[i] = new LPConstraint(constraints.size(), name);
+			constraints.add(rows[i]);
+		}
+		return rows;
+	}
+
+	/**
+	 * Sets the coefficient of the variable in an existing row, adding the variable to the row if it is not
+	 * in it yet. The bounds of the row are not changed.
+	 */
+	public void setLinearCoef(LPConstraint constraint, double coefficient, LPVariable variable) throws LPException {
+		int row = constraint.index;
+		int column = variable.index;
+		if (row >= constraints.size() || constraints.get(row) != constraint || column >= variables.size()) {
+			throw new LPException("LPModel::setLinearCoef: " + constraint + " or " + variable + " does not belong to this model");
+		}
+		coefficientChangeRows.add(row);
+		coefficientChangeColumns.add(column);
+		coefficientChangeValues.add(coefficient);
+		for (int k = rowStarts.get(row); k < rowStarts.get(row + 1); k++) {
+			if (rowColumns.get(k) == column) {
+				rowCoefficients.set(k, coefficient);
+				return;
+			}
+		}
+		int last = -1;
+		for (int entry = rowFirstAddedEntry.get(row); entry >= 0; entry = addedEntryNext.get(entry)) {
+			if (addedEntryColumns.get(entry) == column) {
+				addedEntryCoefficients.set(entry, coefficient);
+				return;
+			}
+			last = entry;
+		}
+		int entry = addedEntryColumns.size();
+		addedEntryColumns.add(column);
+		addedEntryCoefficients.add(coefficient);
+		addedEntryNext.add(-1);
+		if (last < 0) {
+			rowFirstAddedEntry.set(row, entry);
+		} else {
+			addedEntryNext.set(last, entry);
+		}
+	}
+
+	/**
+	 * Sets the objective coefficient of a single variable, keeping the rest of the objective
+	 */
+	public void setObjectiveCoef(LPVariable variable, double coefficient) throws LPException {
+		if (variable.index >= variables.size()) {
+			throw new LPException("LPModel::setObjectiveCoef: " + variable + " does not belong to this model");
+		}
+		objective.set(variable.index, coefficient);
+	}
+
+	private void addToScratch(LPLinearExpression expression, double factor) throws LPException {
+		for (int i = 0; i < expression.variables.size(); i++) {
+			int column = expression.variables.get(i);
+			if (column >= variables.size()) {
+				throw new LPException("LPModel::addRow: variable x" + column + " does not belong to this model");
+			}
+			rowScratch.adjustOrPutValue(column, factor * expression.coefficients.get(i), factor * expression.coefficients.get(i));
+		}
+	}
+
+	/**
+	 * Sets the objective to maximizing the expression, replacing any previous objective
+	 */
+	public void addMaximize(LPLinearExpression expression) throws LPException {
+		setObjective(expression, true);
+	}
+
+	/**
+	 * Sets the objective to minimizing the expression, replacing any previous objective
+	 */
+	public void addMinimize(LPLinearExpression expression) throws LPException {
+		setObjective(expression, false);
+	}
+
+	private void setObjective(LPLinearExpression expression, boolean maximize) throws LPException {
+		this.maximize = maximize;
+		objective.fill(0);
+		rowScratch.clear();
+		addToScratch(expression, 1);
+		for (TIntDoubleIterator it = rowScratch.iterator(); it.hasNext();) {
+			it.advance();
+			objective.set(it.key(), it.value());
+		}
+		objectiveConstant = expression.constant;
+	}
+
+	/**
+	 * Solves the model with the backend
+	 * @return true if a feasible solution was found
+	 */
+	public boolean solve() throws LPException {
+		status = LPStatus.UNKNOWN;
+		values = null;
+		long start = System.nanoTime();
+		backend.solve(this);
+		solveSeconds = (System.nanoTime() - start) / 1e9;
+		return hasSolution();
+	}
+
+	/**
+	 * Called by the backend with the result of a solve. values may be null if no solution was found.
+	 */
+	void setSolution(LPStatus status, double[] values, double objectiveValue) {
+		this.status = status;
+		this.values = values;
+		this.objectiveValue = objectiveValue;
+	}
+
+	private boolean hasSolution() {
+		return values != null && (status == LPStatus.OPTIMAL || status == LPStatus.FEASIBLE);
+	}
+
+	private void checkSolution() throws LPException {
+		if (!hasSolution()) {
+			throw new LPException("LPModel: no solution available, status " + status);
+		}
+	}
+
+	public double getValue(LPVariable variable) throws LPException {
+		checkSolution();
+		return values[variable.index];
+	}
+
+	public double[] getValues(LPVariable[] variables) throws LPException {
+		checkSolution();
+		double[] result = new double[variables.length];
+		for (int i = 0; i < variables.length; i++) {
+			result[i] = values[variables[i].index];
+		}
+		return result;
+	}
+
+	public double getValue(LPLinearExpression expression) throws LPException {
+		checkSolution();
+		double value = expression.constant;
+		for (int i = 0; i < expression.variables.size(); i++) {
+			value += expression.coefficients.get(i) * values[expression.variables.get(i)];
+		}
+		return value;
+	}
+
+	public double getObjValue() throws LPException {
+		checkSolution();
+		return objectiveValue;
+	}
+
+	public LPStatus getStatus() {
+		return status;
+	}
+
+	/**
+	 * Wall clock time of the last solve in seconds
+	 */
+	public double getSolveSeconds() {
+		return solveSeconds;
+	}
+
+	/**
+	 * Optimality tolerance on reduced costs, and for CPLEX also the barrier complementarity tolerance
+	 */
+	public void setTolerance(double tolerance) {
+		this.tolerance = tolerance;
+	}
+
+	public double getTolerance() {
+		return tolerance;
+	}
+
+	/**
+	 * Time limit in seconds, after which branch and bound returns the best solution found so far
+	 */
+	public void setTimeLimit(double timeLimit) {
+		this.timeLimit = timeLimit;
+	}
+
+	/**
+	 * Asks CPLEX to solve LPs with the barrier algorithm without crossover. The simplex backend ignores it.
+	 */
+	public void setUseBarrier(boolean useBarrier) {
+		this.useBarrier = useBarrier;
+	}
+
+	/**
+	 * Suppresses the log output of the backend
+	 */
+	public void setQuiet(boolean quiet) {
+		this.quiet = quiet;
+	}
+
+	/**
+	 * Number of threads CPLEX may use for this model, 0, the default, lets CPLEX decide. The simplex
+	 * backend always uses one thread.
+	 */
+	public void setThreads(int threads) {
+		this.threads = Math.max(0, threads);
+	}
+
+	public int getNumVariables() {
+		return variables.size();
+	}
+
+	public int getNumConstraints() {
+		return constraints.size();
+	}
+
+	public int getNumNonZeros() {
+		return rowColumns.size() + addedEntryColumns.size();
+	}
+
+	public int getNumIntegerVariables() {
+		return numIntegerVariables;
+	}
+
+	static boolean isInfinite(double bound) {
+		return Math.abs(bound) >= INFINITY;
+	}
+
+	/**
+	 * Writes the model in the CPLEX LP file format
+	 */
+	public void exportModel(String filename) throws LPException {
+		String[] names = uniqueLPNames();
+		try {
+			PrintWriter out = new PrintWriter(new FileWriter(filename));
+			try {
+				out.println(maximize ? "Maximize" : "Minimize");
+				out.print(" obj:");
+				for (int column = 0; column < variables.size(); column++) {
+					if (objective.get(column) != 0) {
+						printTerm(out, objective.get(column), names[column]);
+					}
+				}
+				if (objectiveConstant != 0) {
+					out.print(" + " + objectiveConstant);
+				}
+				out.println();
+				out.println("Subject To");
+				for (int row = 0; row < constraints.size(); row++) {
+					double lower = rowLowerBounds.get(row);
+					double upper = rowUpperBounds.get(row);
+					if (isInfinite(lower) && isInfinite(upper)) {
+						continue;
+					}
+					out.print(" " + lpName(constraints.get(row).getName()) + ":");
+					printRow(out, row, names);
+					if (lower == upper) {
+						out.println(" = " + upper);
+					} else if (isInfinite(lower)) {
+						out.println(" <= " + upper);
+					} else if (isInfinite(upper)) {
+						out.println(" >= " + lower);
+					} else {
+						// a range is written as two rows
+						out.println(" <= " + upper);
+						out.print(" " + lpName(constraints.get(row).getName()) + "_lower:");
+						printRow(out, row, names);
+						out.println(" >= " + lower);
+					}
+				}
+				out.println("Bounds");
+				for (int column = 0; column < variables.size(); column++) {
+					double lower = lowerBounds.get(column);
+					double upper = upperBounds.get(column);
+					String name = names[column];
+					if (isInfinite(lower) && isInfinite(upper)) {
+						out.println(" " + name + " free");
+					} else {
+						out.println(" " + (isInfinite(lower) ? "-Inf" : String.valueOf(lower)) + " <= " + name + " <= "
+								+ (isInfinite(upper) ? "+Inf" : String.valueOf(upper)));
+					}
+				}
+				if (numIntegerVariables > 0) {
+					out.println("Generals");
+					for (int column = 0; column < variables.size(); column++) {
+						if (types.get(column) != LPVariableType.CONTINUOUS) {
+							out.println(" " + names[column]);
+						}
+					}
+				}
+				out.println("End");
+			} finally {
+				out.close();
+			}
+		} catch (IOException e) {
+			throw new LPException("LPModel::exportModel: could not write " + filename, e);
+		}
+	}
+
+	private void printRow(PrintWriter out, int row, String[] names) {
+		for (int k = rowStarts.get(row); k < rowStarts.get(row + 1); k++) {
+			printTerm(out, rowCoefficients.get(k), names[rowColumns.get(k)]);
+		}
+		for (int entry = rowFirstAddedEntry.get(row); entry >= 0; entry = addedEntryNext.get(entry)) {
+			printTerm(out, addedEntryCoefficients.get(entry), names[addedEntryColumns.get(entry)]);
+		}
+	}
+
+	private static void printTerm(PrintWriter out, double coefficient, String name) {
+		out.print(coefficient < 0 ? " - " : " + ");
+		out.print(Math.abs(coefficient) + " " + name);
+	}
+
+	// Variable names as they are written to LP files, made unique by appending the index where needed
+	private String[] uniqueLPNames() {
+		String[] names = new String[variables.size()];
+		Set<String> used = new HashSet<String>();
+		for (int column = 0; column < names.length; column++) {
+			names[column] = lpName(variables.get(column).getName());
+			if (!used.add(names[column])) {
+				names[column] = names[column] + "#" + column;
+				used.add(names[column]);
+			}
+		}
+		return names;
+	}
+
+	// LP files do not allow spaces and a few other characters in names
+	private static String lpName(String name) {
+		return name.replaceAll("[\\s:;,<>=+\\-*/^\\[\\]]+", "_");
+	}
+}
@@ -0,0 +1,10 @@
+package linear_program;
+
+/**
+ * Outcome of LPModel.solve(). FEASIBLE means a solution was found but not proven optimal, for example
+ * because the time limit was reached during branch and bound. TIME_LIMIT means the time limit was
+ * reached before any solution was found.
+ */
+public enum LPStatus {
+	UNKNOWN, OPTIMAL, FEASIBLE, INFEASIBLE, UNBOUNDED, TIME_LIMIT, ERROR
+}
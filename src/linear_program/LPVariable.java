@@ -0,0 +1,27 @@
+package linear_program;
+
+/**
+ * A column of an LPModel. The index is the position of the variable in the model.
+ */
+public class LPVariable {
+	final int index;
+	private final String name;
+
+	LPVariable(int index, String name) {
+		this.index = index;
+		this.name = name;
+	}
+
+	public int getIndex() {
+		return index;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+}
@@ -0,0 +1,5 @@
+package linear_program;
+
+public enum LPVariableType {
+	CONTINUOUS, INTEGER, BOOLEAN
+}
@@ -0,0 +1,1044 @@
+package linear_program;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+/**
+ * Pure Java backend: a bounded revised primal simplex method, with depth-first branch and bound for
+ * models with integer variables.
+ *
+ * Every row i of the model gets a slack s_i = a_i x with the row bounds as its bounds, so the simplex
+ * works on [A -I] (x, s) = 0 with bounds on all variables and starts from the all-slack basis. A is held
+ * column-wise in compressed sparse column (CSC) arrays. Phase 1 minimizes the sum of bound violations of
+ * the basic variables, the ratio test is the two-pass test of Harris, and after a run of degenerate
+ * iterations pricing switches from Dantzig's rule to Bland's rule until the objective moves again.
+ *
+ * Slack columns are unit vectors, so only the kernel of the basis, the structural basic columns
+ * restricted to the rows whose slack is nonbasic, is factorized. The kernel gets a sparse LU every
+ * REFACTORIZATION_INTERVAL iterations, and the basis changes in between are kept as product form eta
+ * vectors.
+ *
+ * The last basis is kept, so solving again after adding variables, constraints or entries of new
+ * variables in existing rows, and every node of branch and bound, starts from the previous optimal basis. Branch and bound has no cuts or
+ * heuristics, so MILPs with weak relaxations, like the linearized products of the Stackelberg
+ * programs, may need a time limit, after which the best solution found so far is returned. Models with
+ * integer variables and no time limit get DEFAULT_MIP_TIME_LIMIT, so a solve without CPLEX cannot run
+ * for hours; the status tells whether the solution was proven optimal.
+ */
+public class SimplexBackend implements LPBackend {
+	private static final double PRIMAL_TOLERANCE = 1e-9;
+	private static final double PIVOT_TOLERANCE = 1e-9;
+	private static final double SINGULARITY_TOLERANCE = 1e-11;
+	private static final double PIVOT_THRESHOLD = 0.1;
+	private static final double DROP_TOLERANCE = 1e-14;
+	private static final double INTEGRALITY_TOLERANCE = 1e-6;
+	// Nodes are pruned when they cannot improve the incumbent by more than these gaps, the CPLEX defaults
+	private static final double RELATIVE_MIP_GAP = 1e-4;
+	private static final double ABSOLUTE_MIP_GAP = 1e-6;
+	private static final int REFACTORIZATION_INTERVAL = 100;
+	private static final int DEGENERATE_ITERATIONS_BEFORE_BLAND = 50;
+	// Time limit in seconds of branch and bound when the model has none, see LPModel.setTimeLimit
+	public static final double DEFAULT_MIP_TIME_LIMIT = 60;
+
+	private enum Result {OPTIMAL, INFEASIBLE, UNBOUNDED, TIME_LIMIT, ITERATION_LIMIT}
+
+	// Problem: structural columns 0..n-1, slack of row i is column n + i with coefficient -1 in row i
+	private int n;
+	private int m;
+	private int[] columnStarts;
+	private int[] columnRows;
+	private double[] columnValues;
+	private double[] lower;
+	private double[] upper;
+	private double[] cost;
+	private double optimalityTolerance;
+
+	// Basis: basicVariables[p] is the variable at basis position p, basisPosition[j] is -1 if j is nonbasic
+	private int[] basicVariables;
+	private int[] basisPosition;
+	private double[] x;
+
+	// Kernel factorization: kernelRows are the rows whose slack is nonbasic, kernelPositions and
+	// kernelVariables the basis positions and indices of the structural basic variables, both of size
+	// kernelSize. slackPositionOfRow is the basis position of each basic slack. All of these describe the
+	// basis at the last factorization, later basis changes are in the eta file.
+	private int kernelSize;
+	private int[] kernelRows;
+	private int[] kernelPositions;
+	private int[] kernelVariables;
+	private int[] slackPositionOfRow;
+	private int[] kernelIndexOfRow;
+	private boolean[] rowSlackBasic;
+	private boolean factorizationValid;
+	// LU of the kernel: step s pivots on kernel row pivotRowOfStep[s] and kernel column s. Column s of L
+	// holds the multipliers of the rows pivoted later, column s of U the entries in rows pivoted earlier.
+	private int[] pivotRowOfStep;
+	private double[] diagonal;
+	private int[] lStarts;
+	private int[] lRows;
+	private double[] lValues;
+	private int numL;
+	private int[] uStarts;
+	private int[] uSteps;
+	private double[] uValues;
+	private int numU;
+
+	// Eta file for the basis changes since the last factorization
+	private int numEtas;
+	private int[] etaPositions = new int[REFACTORIZATION_INTERVAL];
+	private double[] etaPivots = new double[REFACTORIZATION_INTERVAL];
+	private int[][] etaIndices = new int[REFACTORIZATION_INTERVAL][];
+	private double[][] etaValues = new double[REFACTORIZATION_INTERVAL][];
+
+	// Work arrays
+	private double[] basicCosts;
+	private double[] duals;
+	private double[] column;
+	private double[] rowWork;
+	private double[] positionWork;
+	private double[] kernelWork;
+
+	private long iterations;
+	private int nodes;
+	private long deadline;
+
+	@Override
+	public String getName() {
+		return LPModel.SIMPLEX_BACKEND;
+	}
+
+	public long getIterations() {
+		return iterations;
+	}
+
+	public int getNodes() {
+		return nodes;
+	}
+
+	@Override
+	public void solve(LPModel model) throws LPException {
+		long start = System.nanoTime();
+		double timeLimit = model.timeLimit;
+		if (timeLimit >= 1e15 && model.numIntegerVariables > 0) {
+			timeLimit = DEFAULT_MIP_TIME_LIMIT;
+			if (!model.quiet) {
+				System.out.println("SimplexBackend::solve: no time limit set, branch and bound stops after "
+						+ DEFAULT_MIP_TIME_LIMIT + " s");
+			}
+		}
+		deadline = timeLimit >= 1e15 ? Long.MAX_VALUE : start + (long) (timeLimit * 1e9);
+		optimalityTolerance = model.tolerance;
+		iterations = 0;
+		nodes = 0;
+		setUpProblem(model);
+
+		LPStatus status;
+		double[] solution = null;
+		if (model.numIntegerVariables == 0) {
+			Result result = solveRelaxation();
+			status = toStatus(result);
+			if (result == Result.OPTIMAL) {
+				solution = Arrays.copyOf(x, n);
+			}
+		} else {
+			solution = branchAndBound(model);
+			status = lastStatus;
+		}
+
+		double objectiveValue = 0;
+		if (solution != null) {
+			objectiveValue = model.objectiveConstant;
+			for (int j = 0; j < n; j++) {
+				objectiveValue += model.objective.get(j) * solution[j];
+			}
+		}
+		model.setSolution(status, solution, objectiveValue);
+		if (!model.quiet) {
+			System.out.println(String.format("SimplexBackend::solve: %d rows, %d columns, %d integer, %d iterations, %d nodes, %s, objective %s in %.3f s",
+					m, n, model.numIntegerVariables, iterations, nodes, status, solution != null ? String.valueOf(objectiveValue) : "-",
+					(System.nanoTime() - start) / 1e9));
+		}
+	}
+
+	private static LPStatus toStatus(Result result) {
+		switch (result) {
+		case OPTIMAL:
+			return LPStatus.OPTIMAL;
+		case INFEASIBLE:
+			return LPStatus.INFEASIBLE;
+		case UNBOUNDED:
+			return LPStatus.UNBOUNDED;
+		case TIME_LIMIT:
+			return LPStatus.TIME_LIMIT;
+		default:
+			return LPStatus.UNKNOWN;
+		}
+	}
+
+	/**
+	 * Copies the model into column form and sets up the starting basis, reusing the previous basis if the
+	 * model has only grown since the last solve
+	 */
+	private void setUpProblem(LPModel model) {
+		int newN = model.getNumVariables();
+		int newM = model.getNumConstraints();
+
+		// transpose the CSR rows of the model, and the entries added to them later, to CSC columns
+		int nonZeros = model.getNumNonZeros();
+		columnStarts = new int[newN + 1];
+		columnRows = new int[nonZeros];
+		columnValues = new double[nonZeros];
+		for (int k = 0; k < model.rowColumns.size(); k++) {
+			columnStarts[model.rowColumns.get(k) + 1]++;
+		}
+		for (int k = 0; k < model.addedEntryColumns.size(); k++) {
+			columnStarts[model.addedEntryColumns.get(k) + 1]++;
+		}
+		for (int j = 0; j < newN; j++) {
+			columnStarts[j + 1] += columnStarts[j];
+		}
+		int[] next = Arrays.copyOf(columnStarts, newN);
+		for (int row = 0; row < newM; row++) {
+			for (int k = model.rowStarts.get(row); k < model.rowStarts.get(row + 1); k++) {
+				int j = model.rowColumns.get(k);
+				columnRows[next[j]] = row;
+				columnValues[next[j]] = model.rowCoefficients.get(k);
+				next[j]++;
+			}
+			for (int entry = model.rowFirstAddedEntry.get(row); entry >= 0; entry = model.addedEntryNext.get(entry)) {
+				int j = model.addedEntryColumns.get(entry);
+				columnRows[next[j]] = row;
+				columnValues[next[j]] = model.addedEntryCoefficients.get(entry);
+				next[j]++;
+			}
+		}
+
+		lower = new double[newN + newM];
+		upper = new double[newN + newM];
+		cost = new double[newN + newM];
+		for (int j = 0; j < newN; j++) {
+			lower[j] = bound(model.lowerBounds.get(j));
+			upper[j] = bound(model.upperBounds.get(j));
+			cost[j] = model.maximize ? -model.objective.get(j) : model.objective.get(j);
+		}
+		for (int i = 0; i < newM; i++) {
+			lower[newN + i] = bound(model.rowLowerBounds.get(i));
+			upper[newN + i] = bound(model.rowUpperBounds.get(i));
+		}
+
+		int[] newBasicVariables = new int[newM];
+		double[] newX = new double[newN + newM];
+		if (basicVariables != null && newN >= n && newM >= m) {
+			for (int p = 0; p < m; p++) {
+				int variable = basicVariables[p];
+				newBasicVariables[p] = variable < n ? variable : variable - n + newN;
+			}
+			for (int j = 0; j < n + m; j++) {
+				newX[j < n ? j : j - n + newN] = x[j];
+			}
+			for (int j = n; j < newN; j++) {
+				newX[j] = defaultValue(j);
+			}
+			for (int i = m; i < newM; i++) {
+				newBasicVariables[i] = newN + i;
+			}
+		} else {
+			for (int i = 0; i < newM; i++) {
+				newBasicVariables[i] = newN + i;
+			}
+			for (int j = 0; j < newN; j++) {
+				newX[j] = defaultValue(j);
+			}
+		}
+		n = newN;
+		m = newM;
+		basicVariables = newBasicVariables;
+		x = newX;
+		basisPosition = new int[n + m];
+		Arrays.fill(basisPosition, -1);
+		for (int p = 0; p < m; p++) {
+			basisPosition[basicVariables[p]] = p;
+		}
+		snapNonbasicToBounds();
+
+		basicCosts = new double[m];
+		duals = new double[m];
+		column = new double[m];
+		rowWork = new double[m];
+		positionWork = new double[m];
+		rowSlackBasic = new boolean[m];
+		kernelIndexOfRow = new int[m];
+		slackPositionOfRow = new int[m];
+		factorizationValid = false;
+	}
+
+	private static double bound(double value) {
+		if (value <= -LPModel.INFINITY) {
+			return Double.NEGATIVE_INFINITY;
+		}
+		if (value >= LPModel.INFINITY) {
+			return Double.POSITIVE_INFINITY;
+		}
+		return value;
+	}
+
+	private double defaultValue(int j) {
+		if (lower[j] != Double.NEGATIVE_INFINITY) {
+			return lower[j];
+		}
+		if (upper[j] != Double.POSITIVE_INFINITY) {
+			return upper[j];
+		}
+		return 0;
+	}
+
+	/**
+	 * Moves every nonbasic variable that is not at one of its bounds, or at zero if it is free, to its
+	 * nearest bound
+	 */
+	private void snapNonbasicToBounds() {
+		for (int j = 0; j < n + m; j++) {
+			if (basisPosition[j] >= 0) {
+				continue;
+			}
+			if (x[j] == lower[j] || x[j] == upper[j]) {
+				continue;
+			}
+			if (lower[j] == Double.NEGATIVE_INFINITY && upper[j] == Double.POSITIVE_INFINITY) {
+				x[j] = 0;
+			} else if (x[j] < lower[j] || upper[j] == Double.POSITIVE_INFINITY) {
+				x[j] = lower[j] != Double.NEGATIVE_INFINITY ? lower[j] : upper[j];
+			} else if (x[j] > upper[j] || lower[j] == Double.NEGATIVE_INFINITY) {
+				x[j] = upper[j];
+			} else {
+				x[j] = x[j] - lower[j] <= upper[j] - x[j] ? lower[j] : upper[j];
+			}
+		}
+	}
+
+	// ---------------------------------------------------------------------------------------------
+	// Simplex
+	// ---------------------------------------------------------------------------------------------
+
+	/**
+	 * Solves the LP relaxation for the current bounds, starting from the current basis
+	 */
+	private Result solveRelaxation() {
+		if (!factorizationValid) {
+			refactorize();
+		}
+		computeBasicValues();
+		long maxIterations = 100L * (n + m) + 10000;
+		int degenerateIterations = 0;
+		boolean bland = false;
+		for (long iteration = 0; iteration < maxIterations; iteration++) {
+			if (numEtas >= REFACTORIZATION_INTERVAL) {
+				refactorize();
+				computeBasicValues();
+			}
+			if ((iteration & 63) == 0 && System.nanoTime() > deadline) {
+				return Result.TIME_LIMIT;
+			}
+
+			boolean phaseOne = computeBasicCosts();
+			solveTransposed(basicCosts, duals);
+
+			// pricing
+			int entering = -1;
+			double enteringReducedCost = 0;
+			double best = 0;
+			for (int j = 0; j < n + m; j++) {
+				if (basisPosition[j] >= 0 || lower[j] == upper[j]) {
+					continue;
+				}
+				double reducedCost = reducedCost(j, phaseOne);
+				boolean improving = (reducedCost < -optimalityTolerance && x[j] < upper[j])
+						|| (reducedCost > optimalityTolerance && x[j] > lower[j]);
+				if (!improving) {
+					continue;
+				}
+				if (bland) {
+					entering = j;
+					enteringReducedCost = reducedCost;
+					break;
+				}
+				if (Math.abs(reducedCost) > best) {
+					best = Math.abs(reducedCost);
+					entering = j;
+					enteringReducedCost = reducedCost;
+				}
+			}
+			if (entering < 0) {
+				if (phaseOne) {
+					return Result.INFEASIBLE;
+				}
+				return Result.OPTIMAL;
+			}
+			iterations++;
+
+			double direction = enteringReducedCost < 0 ? 1 : -1;
+			loadColumn(entering, column);
+			solve(column);
+
+			// ratio test, pass 1: largest step with bounds relaxed by the tolerance
+			double flip = upper[entering] - lower[entering];
+			double maxStep = flip;
+			for (int p = 0; p < m; p++) {
+				if (Math.abs(column[p]) <= PIVOT_TOLERANCE) {
+					continue;
+				}
+				double rate = -direction * column[p];
+				double limit = blockingLimit(basicVariables[p], rate, PRIMAL_TOLERANCE);
+				if (limit < maxStep) {
+					maxStep = limit;
+				}
+			}
+			if (maxStep == Double.POSITIVE_INFINITY) {
+				if (phaseOne) {
+					// cannot happen in exact arithmetic, start over from a fresh factorization
+					refactorize();
+					computeBasicValues();
+					continue;
+				}
+				return Result.UNBOUNDED;
+			}
+
+			// pass 2: among the rows that block within maxStep, the one with the largest pivot
+			int leavingPosition = -1;
+			double leavingBound = 0;
+			double step = flip;
+			if (flip > maxStep) {
+				double largestPivot = 0;
+				for (int p = 0; p < m; p++) {
+					if (Math.abs(column[p]) <= PIVOT_TOLERANCE) {
+						continue;
+					}
+					double rate = -direction * column[p];
+					double limit = blockingLimit(basicVariables[p], rate, 0);
+					if (limit <= maxStep && Math.abs(column[p]) > largestPivot) {
+						largestPivot = Math.abs(column[p]);
+						leavingPosition = p;
+						leavingBound = blockingBound(basicVariables[p], rate);
+						step = Math.max(limit, 0);
+					}
+				}
+			}
+
+			// update the primal values
+			if (step != 0) {
+				for (int p = 0; p < m; p++) {
+					if (column[p] != 0) {
+						x[basicVariables[p]] -= direction * step * column[p];
+					}
+				}
+			}
+			if (leavingPosition < 0) {
+				x[entering] = direction > 0 ? upper[entering] : lower[entering];
+			} else {
+				x[entering] += direction * step;
+				int leaving = basicVariables[leavingPosition];
+				x[leaving] = leavingBound;
+				basicVariables[leavingPosition] = entering;
+				basisPosition[entering] = leavingPosition;
+				basisPosition[leaving] = -1;
+				addEta(leavingPosition, column);
+			}
+
+			if (step <= 1e-12) {
+				degenerateIterations++;
+				bland = degenerateIterations > DEGENERATE_ITERATIONS_BEFORE_BLAND;
+			} else {
+				degenerateIterations = 0;
+				bland = false;
+			}
+		}
+		return Result.ITERATION_LIMIT;
+	}
+
+	/**
+	 * Sets basicCosts to the phase 1 costs if a basic variable violates its bounds and to the objective
+	 * otherwise
+	 * @return true for phase 1
+	 */
+	private boolean computeBasicCosts() {
+		boolean phaseOne = false;
+		for (int p = 0; p < m; p++) {
+			int variable = basicVariables[p];
+			if (x[variable] < lower[variable] - PRIMAL_TOLERANCE) {
+				basicCosts[p] = -1;
+				phaseOne = true;
+			} else if (x[variable] > upper[variable] + PRIMAL_TOLERANCE) {
+				basicCosts[p] = 1;
+				phaseOne = true;
+			} else {
+				basicCosts[p] = 0;
+			}
+		}
+		if (!phaseOne) {
+			for (int p = 0; p < m; p++) {
+				basicCosts[p] = cost[basicVariables[p]];
+			}
+		}
+		return phaseOne;
+	}
+
+	private double reducedCost(int j, boolean phaseOne) {
+		double reducedCost = phaseOne ? 0 : cost[j];
+		if (j < n) {
+			for (int k = columnStarts[j]; k < columnStarts[j + 1]; k++) {
+				reducedCost -= duals[columnRows[k]] * columnValues[k];
+			}
+		} else {
+			reducedCost += duals[j - n];
+		}
+		return reducedCost;
+	}
+
+	/**
+	 * The bound that the basic variable, changing by rate per unit step, is moving towards. A variable
+	 * that violates a bound is stopped when it reaches that bound and is not stopped when it moves further
+	 * away from it, so the result is infinite then.
+	 */
+	private double blockingBound(int variable, double rate) {
+		double value = x[variable];
+		if (rate < 0) {
+			if (value < lower[variable] - PRIMAL_TOLERANCE) {
+				return Double.NEGATIVE_INFINITY;
+			}
+			return value > upper[variable] + PRIMAL_TOLERANCE ? upper[variable] : lower[variable];
+		}
+		if (value > upper[variable] + PRIMAL_TOLERANCE) {
+			return Double.POSITIVE_INFINITY;
+		}
+		return value < lower[variable] - PRIMAL_TOLERANCE ? lower[variable] : upper[variable];
+	}
+
+	/**
+	 * Step length after which the basic variable reaches its blocking bound, widened by tolerance
+	 */
+	private double blockingLimit(int variable, double rate, double tolerance) {
+		double bound = blockingBound(variable, rate);
+		if (Double.isInfinite(bound)) {
+			return Double.POSITIVE_INFINITY;
+		}
+		return rate < 0 ? (x[variable] - bound + tolerance) / -rate : (bound - x[variable] + tolerance) / rate;
+	}
+
+	/**
+	 * Sets the basic variables from the nonbasic ones, B x_B = -N x_N
+	 */
+	private void computeBasicValues() {
+		Arrays.fill(column, 0);
+		for (int j = 0; j < n + m; j++) {
+			if (basisPosition[j] >= 0 || x[j] == 0) {
+				continue;
+			}
+			if (j < n) {
+				for (int k = columnStarts[j]; k < columnStarts[j + 1]; k++) {
+					column[columnRows[k]] -= columnValues[k] * x[j];
+				}
+			} else {
+				column[j - n] += x[j];
+			}
+		}
+		solve(column);
+		for (int p = 0; p < m; p++) {
+			x[basicVariables[p]] = column[p];
+		}
+	}
+
+	private void loadColumn(int j, double[] target) {
+		Arrays.fill(target, 0);
+		if (j < n) {
+			for (int k = columnStarts[j]; k < columnStarts[j + 1]; k++) {
+				target[columnRows[k]] = columnValues[k];
+			}
+		} else {
+			target[j - n] = -1;
+		}
+	}
+
+	// ---------------------------------------------------------------------------------------------
+	// Basis factorization
+	// ---------------------------------------------------------------------------------------------
+
+	/**
+	 * Factorizes the kernel of the current basis and clears the eta file. Structural columns that are
+	 * linearly dependent on the others are replaced by slacks of the rows left without a pivot.
+	 */
+	private void refactorize() {
+		numEtas = 0;
+		while (!factorizeKernel()) {
+			// factorizeKernel has replaced dependent columns, factorize the repaired basis
+		}
+		factorizationValid = true;
+	}
+
+	/**
+	 * Left-looking sparse LU of the kernel, one column per step. Columns are taken in order of increasing
+	 * count, and the pivot of a column is, among the entries within PIVOT_THRESHOLD of the largest, the
+	 * one in the sparsest row, which keeps the fill of the sequence form programs small.
+	 * @return false if dependent columns were replaced and the kernel has to be factorized again
+	 */
+	private boolean factorizeKernel() {
+		Arrays.fill(rowSlackBasic, false);
+		int numStructural = 0;
+		for (int p = 0; p < m; p++) {
+			if (basicVariables[p] >= n) {
+				rowSlackBasic[basicVariables[p] - n] = true;
+				slackPositionOfRow[basicVariables[p] - n] = p;
+			} else {
+				numStructural++;
+			}
+		}
+		kernelSize = numStructural;
+		kernelRows = new int[kernelSize];
+		Arrays.fill(kernelIndexOfRow, -1);
+		int rowCount = 0;
+		for (int i = 0; i < m; i++) {
+			if (!rowSlackBasic[i]) {
+				kernelIndexOfRow[i] = rowCount;
+				kernelRows[rowCount++] = i;
+			}
+		}
+
+		// kernel columns by increasing count, and the count of every kernel row
+		int[] rowCounts = new int[kernelSize];
+		long[] columnOrder = new long[kernelSize];
+		int columnCount = 0;
+		for (int p = 0; p < m; p++) {
+			int j = basicVariables[p];
+			if (j >= n) {
+				continue;
+			}
+			int count = 0;
+			for (int k = columnStarts[j]; k < columnStarts[j + 1]; k++) {
+				int a = kernelIndexOfRow[columnRows[k]];
+				if (a >= 0) {
+					rowCounts[a]++;
+					count++;
+				}
+			}
+			columnOrder[columnCount++] = ((long) count << 32) | p;
+		}
+		Arrays.sort(columnOrder);
+		kernelPositions = new int[kernelSize];
+		kernelVariables = new int[kernelSize];
+		for (int b = 0; b < kernelSize; b++) {
+			kernelPositions[b] = (int) columnOrder[b];
+			kernelVariables[b] = basicVariables[kernelPositions[b]];
+		}
+
+		kernelWork = new double[kernelSize];
+		pivotRowOfStep = new int[kernelSize];
+		diagonal = new double[kernelSize];
+		lStarts = new int[kernelSize + 1];
+		uStarts = new int[kernelSize + 1];
+		numL = 0;
+		numU = 0;
+		int[] stepOfKernelRow = new int[kernelSize];
+		Arrays.fill(stepOfKernelRow, -1);
+		double[] work = kernelWork;
+		boolean[] touched = new boolean[kernelSize];
+		int[] touchedRows = new int[kernelSize];
+
+		int[] dependentColumns = new int[kernelSize];
+		int numDependent = 0;
+		int step = 0;
+		for (int b = 0; b < kernelSize; b++) {
+			// scatter the column and apply the L columns of the earlier steps
+			int numTouched = 0;
+			int j = kernelVariables[b];
+			for (int k = columnStarts[j]; k < columnStarts[j + 1]; k++) {
+				int a = kernelIndexOfRow[columnRows[k]];
+				if (a >= 0) {
+					work[a] = columnValues[k];
+					touched[a] = true;
+					touchedRows[numTouched++] = a;
+				}
+			}
+			for (int s = 0; s < step; s++) {
+				double value = work[pivotRowOfStep[s]];
+				if (value == 0) {
+					continue;
+				}
+				for (int k = lStarts[s]; k < lStarts[s + 1]; k++) {
+					int a = lRows[k];
+					work[a] -= lValues[k] * value;
+					if (!touched[a]) {
+						touched[a] = true;
+						touchedRows[numTouched++] = a;
+					}
+				}
+			}
+
+			// threshold pivoting on the rows without a pivot
+			double largest = 0;
+			for (int t = 0; t < numTouched; t++) {
+				int a = touchedRows[t];
+				if (stepOfKernelRow[a] < 0 && Math.abs(work[a]) > largest) {
+					largest = Math.abs(work[a]);
+				}
+			}
+			int pivotRow = -1;
+			if (largest > SINGULARITY_TOLERANCE) {
+				for (int t = 0; t < numTouched; t++) {
+					int a = touchedRows[t];
+					if (stepOfKernelRow[a] < 0 && Math.abs(work[a]) >= PIVOT_THRESHOLD * largest
+							&& (pivotRow < 0 || rowCounts[a] < rowCounts[pivotRow])) {
+						pivotRow = a;
+					}
+				}
+			}
+			if (pivotRow < 0) {
+				// the basis is repaired and factorized again, so the steps need not match the columns here
+				dependentColumns[numDependent++] = b;
+			} else {
+				double pivot = work[pivotRow];
+				ensureFactorCapacity(numTouched);
+				for (int t = 0; t < numTouched; t++) {
+					int a = touchedRows[t];
+					if (a == pivotRow || Math.abs(work[a]) <= DROP_TOLERANCE) {
+						continue;
+					}
+					if (stepOfKernelRow[a] >= 0) {
+						uSteps[numU] = stepOfKernelRow[a];
+						uValues[numU++] = work[a];
+					} else {
+						lRows[numL] = a;
+						lValues[numL++] = work[a] / pivot;
+					}
+				}
+				stepOfKernelRow[pivotRow] = step;
+				pivotRowOfStep[step] = pivotRow;
+				diagonal[step] = pivot;
+				step++;
+				lStarts[step] = numL;
+				uStarts[step] = numU;
+			}
+			for (int t = 0; t < numTouched; t++) {
+				work[touchedRows[t]] = 0;
+				touched[touchedRows[t]] = false;
+			}
+		}
+		if (numDependent == 0) {
+			return true;
+		}
+
+		// replace the dependent columns by slacks of the rows that got no pivot
+		int replaced = 0;
+		for (int a = 0; a < kernelSize && replaced < numDependent; a++) {
+			if (stepOfKernelRow[a] >= 0) {
+				continue;
+			}
+			int position = kernelPositions[dependentColumns[replaced++]];
+			int leaving = basicVariables[position];
+			int slack = n + kernelRows[a];
+			basicVariables[position] = slack;
+			basisPosition[slack] = position;
+			basisPosition[leaving] = -1;
+			x[leaving] = defaultValue(leaving);
+		}
+		return false;
+	}
+
+	private void ensureFactorCapacity(int entries) {
+		if (lRows == null || numL + entries > lRows.length) {
+			int capacity = Math.max(2 * (numL + entries), 1024);
+			lRows = lRows == null ? new int[capacity] : Arrays.copyOf(lRows, capacity);
+			lValues = lValues == null ? new double[capacity] : Arrays.copyOf(lValues, capacity);
+		}
+		if (uSteps == null || numU + entries > uSteps.length) {
+			int capacity = Math.max(2 * (numU + entries), 1024);
+			uSteps = uSteps == null ? new int[capacity] : Arrays.copyOf(uSteps, capacity);
+			uValues = uValues == null ? new double[capacity] : Arrays.copyOf(uValues, capacity);
+		}
+	}
+
+	/**
+	 * Solves B y = b in place, b is indexed by row and y by basis position
+	 */
+	private void solve(double[] vector) {
+		// kernel part: L z = b and U y = z over the rows whose slack is nonbasic, y indexed by step
+		double[] work = kernelWork;
+		for (int a = 0; a < kernelSize; a++) {
+			work[a] = vector[kernelRows[a]];
+		}
+		double[] kernelSolution = rowWork;
+		for (int s = 0; s < kernelSize; s++) {
+			double value = work[pivotRowOfStep[s]];
+			kernelSolution[s] = value;
+			if (value == 0) {
+				continue;
+			}
+			for (int k = lStarts[s]; k < lStarts[s + 1]; k++) {
+				work[lRows[k]] -= lValues[k] * value;
+			}
+		}
+		for (int s = kernelSize - 1; s >= 0; s--) {
+			double value = kernelSolution[s] / diagonal[s];
+			kernelSolution[s] = value;
+			if (value == 0) {
+				continue;
+			}
+			for (int k = uStarts[s]; k < uStarts[s + 1]; k++) {
+				kernelSolution[uSteps[k]] -= uValues[k] * value;
+			}
+		}
+
+		// slack part: y_slack(r) = sum over structural basics of A[r, k] y_k - b_r
+		double[] result = positionWork;
+		for (int r = 0; r < m; r++) {
+			if (rowSlackBasic[r]) {
+				result[slackPositionOfRow[r]] = -vector[r];
+			}
+		}
+		for (int b = 0; b < kernelSize; b++) {
+			double value = kernelSolution[b];
+			result[kernelPositions[b]] = value;
+			if (value == 0) {
+				continue;
+			}
+			int j = kernelVariables[b];
+			for (int k = columnStarts[j]; k < columnStarts[j + 1]; k++) {
+				int r = columnRows[k];
+				if (rowSlackBasic[r]) {
+					result[slackPositionOfRow[r]] += columnValues[k] * value;
+				}
+			}
+		}
+		System.arraycopy(result, 0, vector, 0, m);
+
+		// eta file
+		for (int e = 0; e < numEtas; e++) {
+			int position = etaPositions[e];
+			double value = vector[position] / etaPivots[e];
+			vector[position] = value;
+			if (value == 0) {
+				continue;
+			}
+			int[] indices = etaIndices[e];
+			double[] values = etaValues[e];
+			for (int k = 0; k < indices.length; k++) {
+				vector[indices[k]] -= values[k] * value;
+			}
+		}
+	}
+
+	/**
+	 * Solves B^T y = c, c is indexed by basis position and y by row
+	 */
+	private void solveTransposed(double[] costs, double[] result) {
+		double[] c = positionWork;
+		System.arraycopy(costs, 0, c, 0, m);
+		for (int e = numEtas - 1; e >= 0; e--) {
+			int position = etaPositions[e];
+			double value = c[position];
+			int[] indices = etaIndices[e];
+			double[] values = etaValues[e];
+			for (int k = 0; k < indices.length; k++) {
+				value -= values[k] * c[indices[k]];
+			}
+			c[position] = value / etaPivots[e];
+		}
+
+		// rows whose slack is basic: -y_r = c_position
+		for (int r = 0; r < m; r++) {
+			result[r] = rowSlackBasic[r] ? -c[slackPositionOfRow[r]] : 0;
+		}
+		// kernel: for every structural basic k, sum over kernel rows A[i, k] y_i = c_k - sum over slack rows A[r, k] y_r,
+		// solved as U^T w = c and L^T y = w
+		double[] w = kernelWork;
+		for (int s = 0; s < kernelSize; s++) {
+			int j = kernelVariables[s];
+			double value = c[kernelPositions[s]];
+			for (int k = columnStarts[j]; k < columnStarts[j + 1]; k++) {
+				int r = columnRows[k];
+				if (rowSlackBasic[r]) {
+					value -= columnValues[k] * result[r];
+				}
+			}
+			for (int k = uStarts[s]; k < uStarts[s + 1]; k++) {
+				value -= uValues[k] * w[uSteps[k]];
+			}
+			w[s] = value / diagonal[s];
+		}
+		for (int s = kernelSize - 1; s >= 0; s--) {
+			double value = w[s];
+			for (int k = lStarts[s]; k < lStarts[s + 1]; k++) {
+				value -= lValues[k] * result[kernelRows[lRows[k]]];
+			}
+			result[kernelRows[pivotRowOfStep[s]]] = value;
+		}
+	}
+
+	private void addEta(int position, double[] alpha) {
+		int count = 0;
+		for (int p = 0; p < m; p++) {
+			if (p != position && Math.abs(alpha[p]) > DROP_TOLERANCE) {
+				count++;
+			}
+		}
+		int[] indices = new int[count];
+		double[] values = new double[count];
+		count = 0;
+		for (int p = 0; p < m; p++) {
+			if (p != position && Math.abs(alpha[p]) > DROP_TOLERANCE) {
+				indices[count] = p;
+				values[count++] = alpha[p];
+			}
+		}
+		etaPositions[numEtas] = position;
+		etaPivots[numEtas] = alpha[position];
+		etaIndices[numEtas] = indices;
+		etaValues[numEtas] = values;
+		numEtas++;
+	}
+
+	// ---------------------------------------------------------------------------------------------
+	// Branch and bound
+	// ---------------------------------------------------------------------------------------------
+
+	private LPStatus lastStatus;
+
+	/**
+	 * Depth-first branch and bound on the integer variables. The child whose bound is closer to the
+	 * relaxed value is explored first, and nodes whose relaxation, or whose parent's relaxation, cannot
+	 * improve the incumbent by more than the MIP gap are pruned.
+	 * @return the best integer solution, or null if none was found
+	 */
+	private double[] branchAndBound(LPModel model) {
+		int numInteger = 0;
+		for (int j = 0; j < n; j++) {
+			if (model.types.get(j) != LPVariableType.CONTINUOUS) {
+				numInteger++;
+			}
+		}
+		int[] integerVariables = new int[numInteger];
+		numInteger = 0;
+		for (int j = 0; j < n; j++) {
+			if (model.types.get(j) != LPVariableType.CONTINUOUS) {
+				integerVariables[numInteger++] = j;
+				lower[j] = Math.ceil(lower[j] - INTEGRALITY_TOLERANCE);
+				upper[j] = Math.floor(upper[j] + INTEGRALITY_TOLERANCE);
+			}
+		}
+
+		double[] incumbent = null;
+		double incumbentObjective = Double.POSITIVE_INFINITY;
+		boolean timeLimitReached = false;
+		Deque<double[]> stack = new ArrayDeque<double[]>();
+		stack.push(saveBounds(integerVariables, Double.NEGATIVE_INFINITY));
+		boolean relaxationUnbounded = false;
+		while (!stack.isEmpty()) {
+			if (System.nanoTime() > deadline) {
+				timeLimitReached = true;
+				break;
+			}
+			double[] node = stack.pop();
+			// the relaxation of the parent bounds the node, which may have been pushed before the incumbent was found
+			if (!canImprove(node[node.length - 1], incumbentObjective)) {
+				continue;
+			}
+			restoreBounds(integerVariables, node);
+			snapNonbasicToBounds();
+			nodes++;
+			Result result = solveRelaxation();
+			if (result == Result.INFEASIBLE) {
+				continue;
+			}
+			if (result == Result.UNBOUNDED) {
+				relaxationUnbounded = true;
+				break;
+			}
+			if (result != Result.OPTIMAL) {
+				// the node is not explored, so the search is incomplete even if the stack is empty
+				stack.push(node);
+				timeLimitReached = result == Result.TIME_LIMIT;
+				break;
+			}
+			double objective = 0;
+			for (int j = 0; j < n; j++) {
+				objective += cost[j] * x[j];
+			}
+			if (!canImprove(objective, incumbentObjective)) {
+				continue;
+			}
+
+			int branchVariable = -1;
+			double mostFractional = INTEGRALITY_TOLERANCE;
+			for (int j : integerVariables) {
+				double fraction = Math.abs(x[j] - Math.rint(x[j]));
+				if (fraction > mostFractional) {
+					mostFractional = fraction;
+					branchVariable = j;
+				}
+			}
+			if (branchVariable < 0) {
+				incumbent = Arrays.copyOf(x, n);
+				for (int j : integerVariables) {
+					incumbent[j] = Math.rint(incumbent[j]);
+				}
+				incumbentObjective = objective;
+				continue;
+			}
+
+			double value = x[branchVariable];
+			double[] bounds = saveBounds(integerVariables, objective);
+			int index = Arrays.binarySearch(integerVariables, branchVariable);
+			double[] down = bounds.clone();
+			down[2 * index + 1] = Math.floor(value);
+			double[] up = bounds;
+			up[2 * index] = Math.ceil(value);
+			// the preferred child goes on top of the stack
+			if (value - Math.floor(value) >= 0.5) {
+				stack.push(down);
+				stack.push(up);
+			} else {
+				stack.push(up);
+				stack.push(down);
+			}
+		}
+
+		if (relaxationUnbounded) {
+			lastStatus = LPStatus.UNBOUNDED;
+			return null;
+		}
+		if (incumbent == null) {
+			lastStatus = stack.isEmpty() ? LPStatus.INFEASIBLE : timeLimitReached ? LPStatus.TIME_LIMIT : LPStatus.UNKNOWN;
+			return null;
+		}
+		lastStatus = stack.isEmpty() ? LPStatus.OPTIMAL : LPStatus.FEASIBLE;
+		return incumbent;
+	}
+
+	private static boolean canImprove(double bound, double incumbentObjective) {
+		if (incumbentObjective == Double.POSITIVE_INFINITY) {
+			return true;
+		}
+		double gap = Math.max(ABSOLUTE_MIP_GAP, RELATIVE_MIP_GAP * Math.abs(incumbentObjective));
+		return bound < incumbentObjective - gap;
+	}
+
+	/**
+	 * Node of the search: lower and upper bound of every integer variable, followed by the objective of
+	 * the parent relaxation
+	 */
+	private double[] saveBounds(int[] integerVariables, double parentObjective) {
+		double[] bounds = new double[2 * integerVariables.length + 1];
+		bounds[2 * integerVariables.length] = parentObjective;
+		for (int i = 0; i < integerVariables.length; i++) {
+			bounds[2 * i] = lower[integerVariables[i]];
+			bounds[2 * i + 1] = upper[integerVariables[i]];
+		}
+		return bounds;
+	}
+
+	private void restoreBounds(int[] integerVariables, double[] bounds) {
+		for (int i = 0; i < integerVariables.length; i++) {
+			lower[integerVariables[i]] = bounds[2 * i];
+			upper[integerVariables[i]] = bounds[2 * i + 1];
+		}
+	}
+}
@@ -0,0 +1,214 @@
+package utils;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Sizes and parameters of the honeypot games that CreateTree generates. Defaults to the game given by
+ * the constants in Utils: one real host and one honeypot with two features each. synthetic() builds a
+ * family of games whose size grows with the number of features, hosts, deltas and operators.
+ *
+ * Nature picks one of the hosts. The defender sees it and modifies every feature with one operator and
+ * one delta: '!' keeps the feature, '+' adds the delta and '-' subtracts it. The attacker sees the
+ * modified features and classifies the host as real (Class_1) or honeypot (Class_2). The hosts
+ * 0..numRealHosts-1 are real, the others honeypots.
+ */
+public class GameConfiguration {
+	public static final String OPERATORS = "!+-";
+	// Number of attacker actions: classify as real host or honeypot
+	public static final int NUM_CLASSES = 2;
+
+	private static final double[] OPERATOR_COSTS = { 0.0, 2.0, 1.0 };
+	private static final double[] DELTAS = { 0.1, 0.2, 0.3 };
+	private static final double[] DELTA_COSTS = { 0.1, 0.5, 1.5 };
+	private static final double[][] HOST_FEATURES = { { 3.2, 0.9 }, { 3.0, 0.7 } };
+	private static final double[] CLASS_VALUES = { 1.0, 1.0 };
+
+	private static final GameConfiguration DEFAULT = new GameConfiguration(Utils.REAL_HOST_FEATURES_NUM,
+			Utils.TOTAL_NUM_OF_REAL_HOST, Utils.TOTAL_NUM_OF_HONEYPOT, HOST_FEATURES, OPERATORS, OPERATOR_COSTS, DELTAS,
+			DELTA_COSTS, CLASS_VALUES);
+
+	private final int numFeatures;
+	private final int numRealHosts;
+	private final int numHoneypots;
+	private final double[][] hostFeatures; // indexed as [host][feature]
+	private final String operators;
+	private final double[] operatorCosts; // indexed as operators
+	private final double[] deltas;
+	private final double[] deltaCosts; // indexed as deltas
+	private final double[] classValues; // indexed as [0 real host, 1 honeypot]
+
+	/**
+	 * @param hostFeatures
+	 *            the features of each host, the real hosts first. Values are written with one decimal
+	 * @param operatorCosts
+	 *            cost of each character of operators
+	 * @param deltaCosts
+	 *            cost of each delta. A modification costs the sum over the features of the operator
+	 *            cost times the delta cost
+	 */
+	public GameConfiguration(int numFeatures, int numRealHosts, int numHoneypots, double[][] hostFeatures,
+			String operators, double[] operatorCosts, double[] deltas, double[] deltaCosts, double[] classValues) {
+		if (numFeatures < 1 || numRealHosts < 0 || numHoneypots < 0 || numRealHosts + numHoneypots < 1) {
+			throw new IllegalArgumentException("GameConfiguration: " + numFeatures + " features, " + numRealHosts
+					+ " real hosts and " + numHoneypots + " honeypots");
+		}
+		if (hostFeatures.length != numRealHosts + numHoneypots) {
+			throw new IllegalArgumentException("GameConfiguration: " + hostFeatures.length + " feature vectors for "
+					+ (numRealHosts + numHoneypots) + " hosts");
+		}
+		for (double[] features : hostFeatures) {
+			if (features.length != numFeatures) {
+				throw new IllegalArgumentException("GameConfiguration: a host has " + features.length + " features, not " + numFeatures);
+			}
+		}
+		if (operators.isEmpty() || operators.length() != operatorCosts.length || deltas.length == 0
+				|| deltas.length != deltaCosts.length || classValues.length != NUM_CLASSES) {
+			throw new IllegalArgumentException("GameConfiguration: operators, deltas or class values do not match their costs");
+		}
+		this.numFeatures = numFeatures;
+		this.numRealHosts = numRealHosts;
+		this.numHoneypots = numHoneypots;
+		this.hostFeatures = new double[hostFeatures.length][];
+		for (int host = 0; host < hostFeatures.length; host++) {
+			this.hostFeatures[host] = hostFeatures[host].clone();
+		}
+		this.operators = operators;
+		this.operatorCosts = operatorCosts.clone();
+		this.deltas = deltas.clone();
+		this.deltaCosts = deltaCosts.clone();
+		this.classValues = classValues.clone();
+	}
+
+	/**
+	 * Returns the game given by the constants in Utils, games/hsg_game.efg
+	 */
+	public static GameConfiguration getDefault() {
+		return DEFAULT;
+	}
+
+	/**
+	 * Returns a synthetic game. The features of the real hosts are drawn from [0, 5] in steps of 0.1 and
+	 * every honeypot imitates a real host, each of its features moved by up to 0.3. The first numDeltas
+	 * deltas are 0.1, 0.2, ... and cost as in the default game, every further delta costs 1 more than
+	 * the previous one. The operators are the first numOperators of "!+-".
+	 *
+	 * @param seed
+	 *            the same seed gives the same features
+	 */
+	public static GameConfiguration synthetic(int numFeatures, int numRealHosts, int numHoneypots, int numDeltas,
+			int numOperators, long seed) {
+		if (numRealHosts < 1 || numDeltas < 1 || numOperators < 1 || numOperators > OPERATORS.length()) {
+			throw new IllegalArgumentException("GameConfiguration::synthetic: " + numRealHosts + " real hosts, "
+					+ numDeltas + " deltas and " + numOperators + " operators");
+		}
+		Random random = new Random(seed);
+		double[][] hostFeatures = new double[numRealHosts + numHoneypots][numFeatures];
+		for (int host = 0; host < numRealHosts; host++) {
+			for (int feature = 0; feature < numFeatures; feature++) {
+				hostFeatures[host][feature] = random.nextInt(51) / 10.0;
+			}
+		}
+		for (int host = numRealHosts; host < hostFeatures.length; host++) {
+			double[] imitated = hostFeatures[random.nextInt(numRealHosts)];
+			for (int feature = 0; feature < numFeatures; feature++) {
+				int tenths = (int) Math.round(imitated[feature] * 10) + random.nextInt(7) - 3;
+				hostFeatures[host][feature] = Math.max(0, tenths) / 10.0;
+			}
+		}
+		double[] deltas = new double[numDeltas];
+		double[] deltaCosts = new double[numDeltas];
+		for (int i = 0; i < numDeltas; i++) {
+			deltas[i] = (i + 1) / 10.0;
+			deltaCosts[i] = i < DELTA_COSTS.length ? DELTA_COSTS[i] : deltaCosts[i - 1] + 1.0;
+		}
+		return new GameConfiguration(numFeatures, numRealHosts, numHoneypots, hostFeatures,
+				OPERATORS.substring(0, numOperators), Arrays.copyOf(OPERATOR_COSTS, numOperators), deltas, deltaCosts,
+				CLASS_VALUES);
+	}
+
+	/**
+	 * Returns an upper bound on the number of nodes of the game: per host a defender node, and per
+	 * distinct modification an attacker node and its leaves. Modifications that print the same with one
+	 * decimal are counted once by CreateTree, so the actual game may be a little smaller.
+	 */
+	public long estimateNumNodes() {
+		int valuesPerFeature = 0;
+		for (int i = 0; i < operators.length(); i++) {
+			valuesPerFeature += operators.charAt(i) == '!' ? 1 : deltas.length;
+		}
+		long modifications = 1;
+		for (int feature = 0; feature < numFeatures && modifications < Long.MAX_VALUE / valuesPerFeature; feature++) {
+			modifications *= valuesPerFeature;
+		}
+		return 1 + getNumHosts() * (1 + modifications * (1 + NUM_CLASSES));
+	}
+
+	public int getNumFeatures() {
+		return numFeatures;
+	}
+
+	public int getNumRealHosts() {
+		return numRealHosts;
+	}
+
+	public int getNumHoneypots() {
+		return numHoneypots;
+	}
+
+	public int getNumHosts() {
+		return numRealHosts + numHoneypots;
+	}
+
+	/**
+	 * Returns the features of the host, do not modify
+	 */
+	public double[] getHostFeatures(int host) {
+		return hostFeatures[host];
+	}
+
+	/**
+	 * Returns 0 for a real host and 1 for a honeypot
+	 */
+	public int getHostClass(int host) {
+		return host < numRealHosts ? 0 : 1;
+	}
+
+	public String getOperators() {
+		return operators;
+	}
+
+	public double getOperatorCost(char operator) {
+		return operatorCosts[operators.indexOf(operator)];
+	}
+
+	public int getNumDeltas() {
+		return deltas.length;
+	}
+
+	public double getDelta(int i) {
+		return deltas[i];
+	}
+
+	public double getDeltaCost(int i) {
+		return deltaCosts[i];
+	}
+
+	public double getClassValue(int hostClass) {
+		return classValues[hostClass];
+	}
+
+	/**
+	 * Returns the number of combinations of binary features, the width of a row of a feature
+	 * distribution file such as featuredristibution.txt
+	 */
+	public int getNumFeatureCombinations() {
+		return 1 << numFeatures;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d features, %d real hosts, %d honeypots, %d deltas, operators %s", numFeatures,
+				numRealHosts, numHoneypots, deltas.length, operators);
+	}
+}
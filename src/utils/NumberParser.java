@@ -0,0 +1,137 @@
+package utils;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Parses ASCII numbers straight out of a byte array region, without creating intermediate Strings.
+ * Doubles with at most 15 significant digits and a decimal exponent within 22 are computed with a
+ * single correctly rounded multiplication or division, which gives the same result as
+ * Double.parseDouble. Everything else falls back to Double.parseDouble.
+ */
+public class NumberParser {
+	private static final double[] POWERS_OF_TEN = {
+		1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+		1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+	private static final int MAX_EXACT_DIGITS = 15;
+
+	/**
+	 * Parses a decimal integer from the bytes in [start, end)
+	 */
+	public static int parseInt(byte[] buffer, int start, int end) {
+		if (start >= end) {
+			throw new NumberFormatException("Empty number");
+		}
+		boolean negative = false;
+		int pos = start;
+		byte first = buffer[pos];
+		if (first == '-' || first == '+') {
+			negative = first == '-';
+			pos++;
+		}
+		if (pos == end) {
+			throw new NumberFormatException(toString(buffer, start, end));
+		}
+		long value = 0;
+		for (; pos < end; pos++) {
+			int digit = buffer[pos] - '0';
+			if (digit < 0 || digit > 9) {
+				throw new NumberFormatException(toString(buffer, start, end));
+			}
+			value = value * 10 + digit;
+			if (value > Integer.MAX_VALUE + 1L) {
+				throw new NumberFormatException(toString(buffer, start, end));
+			}
+		}
+		value = negative ? -value : value;
+		if (value > Integer.MAX_VALUE) {
+			throw new NumberFormatException(toString(buffer, start, end));
+		}
+		return (int) value;
+	}
+
+	/**
+	 * Parses a decimal floating point number from the bytes in [start, end)
+	 */
+	public static double parseDouble(byte[] buffer, int start, int end) {
+		if (start >= end) {
+			throw new NumberFormatException("Empty number");
+		}
+		int pos = start;
+		boolean negative = false;
+		byte c = buffer[pos];
+		if (c == '-' || c == '+') {
+			negative = c == '-';
+			pos++;
+		}
+
+		long mantissa = 0;
+		int significantDigits = 0;
+		int exponent = 0;
+		boolean anyDigit = false;
+		boolean seenPoint = false;
+		for (; pos < end; pos++) {
+			c = buffer[pos];
+			if (c >= '0' && c <= '9') {
+				anyDigit = true;
+				if (mantissa == 0 && c == '0') {
+					if (seenPoint) exponent--;
+					continue;
+				}
+				if (significantDigits < 18) {
+					mantissa = mantissa * 10 + (c - '0');
+					if (seenPoint) exponent--;
+				} else if (!seenPoint) {
+					exponent++;
+				}
+				significantDigits++;
+			} else if (c == '.' && !seenPoint) {
+				seenPoint = true;
+			} else {
+				break;
+			}
+		}
+		if (!anyDigit) {
+			return fallback(buffer, start, end);
+		}
+		if (pos < end) {
+			if (c != 'e' && c != 'E') {
+				return fallback(buffer, start, end);
+			}
+			pos++;
+			boolean negativeExponent = false;
+			if (pos < end && (buffer[pos] == '-' || buffer[pos] == '+')) {
+				negativeExponent = buffer[pos] == '-';
+				pos++;
+			}
+			if (pos == end) {
+				return fallback(buffer, start, end);
+			}
+			int explicitExponent = 0;
+			for (; pos < end; pos++) {
+				int digit = buffer[pos] - '0';
+				if (digit < 0 || digit > 9 || explicitExponent > 100000) {
+					return fallback(buffer, start, end);
+				}
+				explicitExponent = explicitExponent * 10 + digit;
+			}
+			exponent += negativeExponent ? -explicitExponent : explicitExponent;
+		}
+
+		if (mantissa == 0) {
+			return negative ? -0.0 : 0.0;
+		}
+		if (significantDigits > MAX_EXACT_DIGITS || exponent < -22 || exponent > 22) {
+			return fallback(buffer, start, end);
+		}
+		double value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+		return negative ? -value : value;
+	}
+
+	private static double fallback(byte[] buffer, int start, int end) {
+		return Double.parseDouble(toString(buffer, start, end));
+	}
+
+	private static String toString(byte[] buffer, int start, int end) {
+		return new String(buffer, start, end - start, StandardCharsets.US_ASCII);
+	}
+}
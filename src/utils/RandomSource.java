@@ -0,0 +1,22 @@
+package utils;
+
+/**
+ * Source of uniform random numbers for the sampling solvers. Implementations are expected to be cheap
+ * and not to allocate, since they are called once or more for every sampled node.
+ */
+public interface RandomSource {
+	/**
+	 * @return a uniformly distributed number in [0, 1)
+	 */
+	public double nextDouble();
+
+	/**
+	 * @return a uniformly distributed number in [0, bound)
+	 */
+	public int nextInt(int bound);
+
+	/**
+	 * Restarts the sequence, the same seed always produces the same sequence
+	 */
+	public void setSeed(long seed);
+}
@@ -0,0 +1,49 @@
+package utils;
+
+/**
+ * xorshift64* generator. It keeps its state in a single long, so drawing a number is a few shifts and a
+ * multiplication, and unlike java.util.Random it is not synchronized. The seed is mixed with splitmix64,
+ * so small or similar seeds give unrelated sequences and the state is never zero.
+ * Not safe for use by several threads, give each thread its own instance.
+ */
+public class XorShiftRandom implements RandomSource {
+	private long state;
+
+	public XorShiftRandom() {
+		this(System.nanoTime());
+	}
+
+	public XorShiftRandom(long seed) {
+		setSeed(seed);
+	}
+
+	@Override
+	public void setSeed(long seed) {
+		long z = seed + 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		z = z ^ (z >>> 31);
+		state = z != 0 ? z : 0x9E3779B97F4A7C15L;
+	}
+
+	public long nextLong() {
+		state ^= state >>> 12;
+		state ^= state << 25;
+		state ^= state >>> 27;
+		return state * 0x2545F4914F6CDD1DL;
+	}
+
+	@Override
+	public double nextDouble() {
+		return (nextLong() >>> 11) * 0x1.0p-53;
+	}
+
+	@Override
+	public int nextInt(int bound) {
+		if (bound <= 0) {
+			throw new IllegalArgumentException("XorShiftRandom::nextInt: bound must be positive");
+		}
+		// maps the high 32 bits onto [0, bound) with a multiplication instead of a division
+		return (int) (((nextLong() >>> 32) * bound) >>> 32);
+	}
+}
@@ -0,0 +1,74 @@
+package extensive_form_game;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import ExperimentMain.BinaryGameConverter;
+import extensive_form_efg_game_format.CreateTree;
+import extensive_form_filemanager.CreateGambitEFGFile;
+import utils.GameConfiguration;
+import utils.Utils;
+
+/**
+ * Round trip of a generated .efg file through the BinaryGameFormat: the game loaded from the binary
+ * file must be the game loaded from the .efg file, node by node, so a change to either format that
+ * makes them drift apart fails the build.
+ */
+public class BinaryGameFormatTest {
+	private static final double[] REAL_HOST_DISTRIBUTION = { 0.04, 0.35, 0.21, 0.41 };
+	private static final double[] HONEYPOT_DISTRIBUTION = { 0.02, 0.36, 0.24, 0.39 };
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void defaultGameRoundTrip() throws Exception {
+		checkRoundTrip(GameConfiguration.getDefault(), REAL_HOST_DISTRIBUTION, HONEYPOT_DISTRIBUTION);
+	}
+
+	@Test
+	public void syntheticGameRoundTrip() throws Exception {
+		GameConfiguration configuration = GameConfiguration.synthetic(3, 1, 2, 2, 3, 0);
+		double[] distribution = new double[configuration.getNumFeatureCombinations()];
+		Arrays.fill(distribution, 1.0 / distribution.length);
+		checkRoundTrip(configuration, distribution, distribution.clone());
+	}
+
+	private void checkRoundTrip(GameConfiguration configuration, double[] realDistribution,
+			double[] honeypotDistribution) throws Exception {
+		String baseName = new File(folder.getRoot(), "game").getPath();
+		CreateTree gameTree = new CreateTree(configuration, true, realDistribution, honeypotDistribution,
+				new CreateGambitEFGFile(baseName));
+		gameTree.setNumThreads(1);
+		gameTree.init();
+		gameTree.closeFile();
+
+		Game textGame = new Game(configuration);
+		textGame.createGameFromFileZerosumPackageFormat(baseName + Utils.FILE_FORMAT);
+		String binaryFile = baseName + Utils.BINARY_FILE_FORMAT;
+		textGame.writeGameToBinaryFile(binaryFile);
+		Game binaryGame = new Game(configuration);
+		binaryGame.createGameFromBinaryFile(binaryFile);
+
+		assertTrue(textGame.getNumNodes() > 0);
+		assertEquals(Collections.<String> emptyList(), BinaryGameConverter.compareGames(textGame, binaryGame));
+
+		// the child ranges of the flat arrays, which compareGames only sees through getChildId
+		FlatGameTree expected = FlatGameTree.fromGame(textGame);
+		FlatGameTree actual = binaryGame.getFlatTree();
+		assertEquals(expected.getNumActionsTotal(), actual.getNumActionsTotal());
+		assertEquals(expected.getNumLeaves(), actual.getNumLeaves());
+		for (int nodeId = 0; nodeId < expected.getNumNodes(); nodeId++) {
+			assertEquals("first action of node " + nodeId, expected.getFirstActionIndex(nodeId), actual.getFirstActionIndex(nodeId));
+			assertEquals("actions of node " + nodeId, expected.getNumActions(nodeId), actual.getNumActions(nodeId));
+		}
+	}
+}